@@ -0,0 +1,136 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+package application.java;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hyperledger.fabric.gateway.Contract;
+import org.hyperledger.fabric.gateway.Gateway;
+import org.hyperledger.fabric.gateway.Network;
+import org.hyperledger.fabric.sdk.Channel;
+
+/**
+ * Keeps gateway connections open for reuse across the requests of a long-running process, rather
+ * than reading the wallet, parsing the connection profile and connecting to the peers for each one.
+ *
+ * <p>Connections are made when first needed. A {@link Gateway} can be used by many threads at
+ * once, so requests are shared round-robin between a fixed number of connections, one by default.
+ * A connection is checked at most once per health check interval, by querying the height of each
+ * channel it has been used for, and is closed and replaced if the check fails.
+ */
+public final class SharedGateway implements AutoCloseable {
+
+	static final long DEFAULT_HEALTH_CHECK_INTERVAL_MILLIS = 30_000;
+
+	private final Callable<Gateway> connector;
+	private final long healthCheckIntervalNanos;
+	private final Connection[] connections;
+	private final AtomicInteger nextConnection = new AtomicInteger();
+	private volatile boolean closed;
+
+	/**
+	 * @param connector connects a new gateway, such as {@link App#connect()}
+	 */
+	public SharedGateway(Callable<Gateway> connector) {
+		this(connector, 1, DEFAULT_HEALTH_CHECK_INTERVAL_MILLIS);
+	}
+
+	/**
+	 * @param connector connects a new gateway, such as {@link App#connect()}
+	 * @param size how many gateway connections to share requests between
+	 * @param healthCheckIntervalMillis how often to check that a connection still works
+	 */
+	public SharedGateway(Callable<Gateway> connector, int size, long healthCheckIntervalMillis) {
+		if (size < 1) {
+			throw new IllegalArgumentException("At least one gateway connection is needed");
+		}
+		this.connector = connector;
+		this.healthCheckIntervalNanos = TimeUnit.MILLISECONDS.toNanos(healthCheckIntervalMillis);
+		this.connections = new Connection[size];
+		for (int i = 0; i < size; i++) {
+			connections[i] = new Connection();
+		}
+	}
+
+	public Contract getContract(String channelName, String chaincodeName) throws Exception {
+		return getNetwork(channelName).getContract(chaincodeName);
+	}
+
+	public Network getNetwork(String channelName) throws Exception {
+		int index = Math.floorMod(nextConnection.getAndIncrement(), connections.length);
+		return connections[index].getNetwork(channelName);
+	}
+
+	/**
+	 * Drops the connection a request failed on, without waiting for its next health check, so the
+	 * next request using it reconnects. Does nothing if it has already been replaced.
+	 */
+	public void invalidate(Network network) {
+		for (Connection connection : connections) {
+			connection.disconnect(network.getGateway());
+		}
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		for (Connection connection : connections) {
+			connection.disconnect(null);
+		}
+	}
+
+	private final class Connection {
+		private final Set<String> channelNames = new HashSet<>();
+		private Gateway gateway;
+		private long checkedAt;
+
+		synchronized Network getNetwork(String channelName) throws Exception {
+			if (closed) {
+				throw new IllegalStateException("The shared gateway has been closed");
+			}
+
+			if (gateway != null && System.nanoTime() - checkedAt > healthCheckIntervalNanos && !isHealthy()) {
+				disconnect(gateway);
+			}
+			if (gateway == null) {
+				gateway = connector.call();
+				checkedAt = System.nanoTime();
+			}
+
+			channelNames.add(channelName);
+			return gateway.getNetwork(channelName);
+		}
+
+		private boolean isHealthy() {
+			checkedAt = System.nanoTime();
+			try {
+				for (String channelName : channelNames) {
+					Channel channel = gateway.getNetwork(channelName).getChannel();
+					if (channel.isShutdown()) {
+						return false;
+					}
+					channel.queryBlockchainInfo();
+				}
+				return true;
+			} catch (Exception e) {
+				System.err.println("Reconnecting gateway after failed health check: " + e);
+				return false;
+			}
+		}
+
+		// Closes the gateway if it is the given one, or whatever it is when given null
+		synchronized void disconnect(Gateway expected) {
+			if (gateway != null && (expected == null || expected == gateway)) {
+				gateway.close();
+				gateway = null;
+				channelNames.clear();
+			}
+		}
+	}
+}
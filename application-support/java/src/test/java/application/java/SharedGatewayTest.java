@@ -0,0 +1,156 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+package application.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.fabric.gateway.Gateway;
+import org.hyperledger.fabric.gateway.Network;
+import org.hyperledger.fabric.sdk.Channel;
+import org.hyperledger.fabric.sdk.exception.ProposalException;
+import org.junit.jupiter.api.Test;
+
+public final class SharedGatewayTest {
+
+	private static final String CHANNEL = "mychannel";
+	private static final long NEVER_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+	private final List<Gateway> gateways = new ArrayList<>();
+	private final List<Channel> channels = new ArrayList<>();
+
+	// Connects a new mock gateway each time, with a channel that is healthy until told otherwise
+	private Gateway connect() {
+		Channel channel = mock(Channel.class);
+		Network network = mock(Network.class);
+		Gateway gateway = mock(Gateway.class);
+		when(network.getChannel()).thenReturn(channel);
+		when(network.getGateway()).thenReturn(gateway);
+		when(gateway.getNetwork(anyString())).thenReturn(network);
+		gateways.add(gateway);
+		channels.add(channel);
+		return gateway;
+	}
+
+	@Test
+	public void connectsWhenFirstNeeded() throws Exception {
+		try (SharedGateway shared = new SharedGateway(this::connect)) {
+			assertThat(gateways).isEmpty();
+
+			Network first = shared.getNetwork(CHANNEL);
+			Network second = shared.getNetwork(CHANNEL);
+
+			assertThat(gateways).hasSize(1);
+			assertThat(second).isSameAs(first);
+		}
+	}
+
+	@Test
+	public void sharesRequestsRoundRobin() throws Exception {
+		try (SharedGateway shared = new SharedGateway(this::connect, 2, NEVER_MILLIS)) {
+			Gateway first = shared.getNetwork(CHANNEL).getGateway();
+			Gateway second = shared.getNetwork(CHANNEL).getGateway();
+			Gateway third = shared.getNetwork(CHANNEL).getGateway();
+
+			assertThat(gateways).hasSize(2);
+			assertThat(second).isNotSameAs(first);
+			assertThat(third).isSameAs(first);
+		}
+	}
+
+	@Test
+	public void reconnectsAfterInvalidate() throws Exception {
+		try (SharedGateway shared = new SharedGateway(this::connect)) {
+			Network failed = shared.getNetwork(CHANNEL);
+
+			shared.invalidate(failed);
+			shared.invalidate(failed);
+			Network next = shared.getNetwork(CHANNEL);
+
+			verify(failed.getGateway()).close();
+			assertThat(gateways).hasSize(2);
+			assertThat(next).isNotSameAs(failed);
+		}
+	}
+
+	@Test
+	public void keepsHealthyConnection() throws Exception {
+		try (SharedGateway shared = new SharedGateway(this::connect, 1, 0)) {
+			shared.getNetwork(CHANNEL);
+			TimeUnit.MILLISECONDS.sleep(1);
+			shared.getNetwork(CHANNEL);
+
+			verify(channels.get(0)).queryBlockchainInfo();
+			assertThat(gateways).hasSize(1);
+		}
+	}
+
+	@Test
+	public void reconnectsWhenChannelHasShutDown() throws Exception {
+		try (SharedGateway shared = new SharedGateway(this::connect, 1, 0)) {
+			shared.getNetwork(CHANNEL);
+			when(channels.get(0).isShutdown()).thenReturn(true);
+			TimeUnit.MILLISECONDS.sleep(1);
+
+			shared.getNetwork(CHANNEL);
+
+			verify(gateways.get(0)).close();
+			assertThat(gateways).hasSize(2);
+		}
+	}
+
+	@Test
+	public void reconnectsWhenPeerDoesNotAnswer() throws Exception {
+		try (SharedGateway shared = new SharedGateway(this::connect, 1, 0)) {
+			shared.getNetwork(CHANNEL);
+			when(channels.get(0).queryBlockchainInfo()).thenThrow(new ProposalException("peer unavailable"));
+			TimeUnit.MILLISECONDS.sleep(1);
+
+			shared.getNetwork(CHANNEL);
+
+			verify(gateways.get(0)).close();
+			assertThat(gateways).hasSize(2);
+		}
+	}
+
+	@Test
+	public void doesNotCheckBeforeHealthCheckInterval() throws Exception {
+		try (SharedGateway shared = new SharedGateway(this::connect, 1, NEVER_MILLIS)) {
+			shared.getNetwork(CHANNEL);
+			shared.getNetwork(CHANNEL);
+
+			verify(channels.get(0), never()).queryBlockchainInfo();
+		}
+	}
+
+	@Test
+	public void closesConnectionsAndRejectsMoreRequests() throws Exception {
+		SharedGateway shared = new SharedGateway(this::connect, 2, NEVER_MILLIS);
+		shared.getNetwork(CHANNEL);
+		shared.getNetwork(CHANNEL);
+
+		shared.close();
+
+		verify(gateways.get(0)).close();
+		verify(gateways.get(1)).close();
+		assertThat(catchThrowable(() -> shared.getNetwork(CHANNEL))).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void rejectsNoConnections() {
+		Throwable thrown = catchThrowable(() -> new SharedGateway(this::connect, 0, NEVER_MILLIS));
+
+		assertThat(thrown).isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,166 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+package application.java;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hyperledger.fabric.gateway.Contract;
+
+/**
+ * Submits transactions without waiting for each one to commit before sending the next, so that
+ * a single client thread can fill blocks instead of sending one transaction per block.
+ *
+ * <p>At most {@code maxInFlight} transactions are endorsing, ordering or waiting to commit at a
+ * time. Once that many are in flight, {@link #submit} and {@link #evaluate} block until one of
+ * them finishes, which holds the caller back to the rate the network is committing at rather
+ * than letting a backlog build up in the client.
+ *
+ * <p>The gateway waits for commit on the thread that submitted the transaction, so each
+ * transaction in flight holds one of this submitter's threads until it is committed.
+ */
+public final class AsyncSubmitter implements AutoCloseable {
+
+	private final LoadTarget target;
+	private final int maxInFlight;
+	private final Semaphore permits;
+	private final ExecutorService executor;
+
+	public AsyncSubmitter(LoadTarget target, int maxInFlight) {
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException("At least one transaction must be allowed in flight");
+		}
+		this.target = target;
+		this.maxInFlight = maxInFlight;
+		this.permits = new Semaphore(maxInFlight);
+		this.executor = Executors.newFixedThreadPool(maxInFlight, daemonThreads());
+	}
+
+	/**
+	 * Submits to a contract on a gateway that the caller keeps open until the submitter is closed.
+	 */
+	public static AsyncSubmitter forContract(Contract contract, int maxInFlight) {
+		return new AsyncSubmitter(GatewayLoadTarget.forContract(contract), maxInFlight);
+	}
+
+	/**
+	 * Starts submitting a transaction, first waiting for room if the most transactions allowed
+	 * are already in flight.
+	 */
+	public Submission submit(String name, String... args) throws InterruptedException {
+		Submission submission = new Submission();
+		run(() -> {
+			byte[] result;
+			try {
+				result = target.submit(() -> submission.ordered.complete(null), name, args);
+			} catch (Exception e) {
+				permits.release();
+				submission.ordered.completeExceptionally(e);
+				submission.committed.completeExceptionally(e);
+				return;
+			}
+			permits.release();
+			submission.committed.complete(result);
+		});
+		return submission;
+	}
+
+	/**
+	 * Starts evaluating a transaction, sharing the limit on transactions in flight with submits.
+	 */
+	public CompletableFuture<byte[]> evaluate(String name, String... args) throws InterruptedException {
+		CompletableFuture<byte[]> evaluated = new CompletableFuture<>();
+		run(() -> {
+			byte[] result;
+			try {
+				result = target.evaluate(name, args);
+			} catch (Exception e) {
+				permits.release();
+				evaluated.completeExceptionally(e);
+				return;
+			}
+			permits.release();
+			evaluated.complete(result);
+		});
+		return evaluated;
+	}
+
+	// Permits are released before completing the futures so that callbacks can submit more
+	// transactions without waiting on their own permit
+	private void run(Runnable task) throws InterruptedException {
+		permits.acquire();
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	public int inFlight() {
+		return maxInFlight - permits.availablePermits();
+	}
+
+	/**
+	 * Waits until every transaction started so far has finished.
+	 */
+	public void drain() throws InterruptedException {
+		permits.acquire(maxInFlight);
+		permits.release(maxInFlight);
+	}
+
+	/**
+	 * Waits for the transactions in flight to finish and stops the submitter's threads. The
+	 * target is left open.
+	 */
+	@Override
+	public void close() {
+		try {
+			drain();
+			executor.shutdown();
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static ThreadFactory daemonThreads() {
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, "async-submit-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * The progress of a submitted transaction.
+	 */
+	public static final class Submission {
+		private final CompletableFuture<Void> ordered = new CompletableFuture<>();
+		private final CompletableFuture<byte[]> committed = new CompletableFuture<>();
+
+		/**
+		 * Completes once the transaction has been endorsed and accepted by the orderer, or
+		 * exceptionally if either failed.
+		 */
+		public CompletableFuture<Void> ordered() {
+			return ordered;
+		}
+
+		/**
+		 * Completes with the transaction result once it has been committed, or exceptionally if
+		 * it failed at any stage, including validation.
+		 */
+		public CompletableFuture<byte[]> committed() {
+			return committed;
+		}
+	}
+}
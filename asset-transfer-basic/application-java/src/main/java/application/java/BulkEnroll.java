@@ -0,0 +1,199 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+// Registering and enrolling many users at once, after running EnrollAdmin:
+// gradle runBulkEnroll -PenrollArgs="--count 10000 --concurrency 32"
+
+package application.java;
+
+import java.nio.file.Paths;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hyperledger.fabric.gateway.Identities;
+import org.hyperledger.fabric.gateway.Identity;
+import org.hyperledger.fabric.gateway.Wallets;
+import org.hyperledger.fabric.gateway.X509Identity;
+import org.hyperledger.fabric.sdk.Enrollment;
+import org.hyperledger.fabric.sdk.User;
+import org.hyperledger.fabric.sdk.security.CryptoSuiteFactory;
+import org.hyperledger.fabric_ca.sdk.HFCAClient;
+import org.hyperledger.fabric_ca.sdk.RegistrationRequest;
+
+/**
+ * Registers and enrolls many users with the Org1 CA, the same way as {@link RegisterUser} does for
+ * one, making up to {@code --concurrency} CA requests at a time.
+ *
+ * <p>Users already in the wallet are skipped, so an interrupted run can be started again. New
+ * identities go into a {@link CachedWallet} so that writing them to the wallet directory does not
+ * hold up the CA requests.
+ */
+public final class BulkEnroll {
+
+	private static final String MSP_ID = "Org1MSP";
+	private static final String AFFILIATION = "org1.department1";
+	private static final int SECRET_BYTES = 18;
+
+	private final HFCAClient caClient;
+	private final User admin;
+	private final CachedWallet wallet;
+	private final SecureRandom random = new SecureRandom();
+	private final LongAdder enrolled = new LongAdder();
+	private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+	BulkEnroll(HFCAClient caClient, User admin, CachedWallet wallet) {
+		this.caClient = caClient;
+		this.admin = admin;
+		this.wallet = wallet;
+	}
+
+	public static void main(String[] args) throws Exception {
+		String prefix = "user";
+		int count = 100;
+		int concurrency = 16;
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			switch (args[i]) {
+				case "--prefix": prefix = args[i + 1]; break;
+				case "--count": count = Integer.parseInt(args[i + 1]); break;
+				case "--concurrency": concurrency = Integer.parseInt(args[i + 1]); break;
+				default: throw new IllegalArgumentException("Unknown option " + args[i]
+						+ "\nOptions: --prefix name --count n --concurrency n");
+			}
+		}
+
+		// Create a CA client for interacting with the CA.
+		Properties props = new Properties();
+		props.put("pemFile",
+			"../../test-network/organizations/peerOrganizations/org1.example.com/ca/ca.org1.example.com-cert.pem");
+		props.put("allowAllHostNames", "true");
+		HFCAClient caClient = HFCAClient.createNewInstance("https://localhost:7054", props);
+		caClient.setCryptoSuite(CryptoSuiteFactory.getDefault().getCryptoSuite());
+
+		try (CachedWallet wallet = new CachedWallet(Wallets.newFileSystemWallet(Paths.get("wallet")))) {
+			X509Identity adminIdentity = (X509Identity) wallet.get("admin");
+			if (adminIdentity == null) {
+				System.out.println("\"admin\" needs to be enrolled and added to the wallet first");
+				return;
+			}
+
+			new BulkEnroll(caClient, asAdmin(adminIdentity), wallet).run(prefix, count, concurrency);
+		}
+	}
+
+	void run(String prefix, int count, int concurrency) throws Exception {
+		Set<String> existing = wallet.list();
+		List<String> names = new ArrayList<>();
+		for (int i = 1; i <= count; i++) {
+			if (!existing.contains(prefix + i)) {
+				names.add(prefix + i);
+			}
+		}
+		System.out.println((count - names.size()) + " of " + count + " users are already in the wallet, enrolling "
+				+ names.size() + " with up to " + concurrency + " CA requests at a time");
+
+		long start = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+		try {
+			List<Future<?>> enrollments = new ArrayList<>();
+			for (String name : names) {
+				enrollments.add(executor.submit(() -> enroll(name)));
+			}
+			for (Future<?> enrollment : enrollments) {
+				enrollment.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		wallet.flush();
+		double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+
+		System.out.printf("Enrolled %d users in %.1fs (%.1f users/s)%n", enrolled.sum(), seconds, enrolled.sum() / seconds);
+		failures.forEach((reason, failed) -> System.out.println("  " + failed.sum() + " failed: " + reason));
+	}
+
+	// Registers the user with a generated secret, enrolls it and puts the new identity in the wallet
+	private void enroll(String name) {
+		try {
+			RegistrationRequest registrationRequest = new RegistrationRequest(name);
+			registrationRequest.setAffiliation(AFFILIATION);
+			registrationRequest.setEnrollmentID(name);
+			registrationRequest.setSecret(newSecret());
+			String enrollmentSecret = caClient.register(registrationRequest, admin);
+			Enrollment enrollment = caClient.enroll(name, enrollmentSecret);
+			Identity user = Identities.newX509Identity(MSP_ID, enrollment);
+			wallet.put(name, user);
+			enrolled.increment();
+		} catch (Exception e) {
+			failures.computeIfAbsent(e.getClass().getSimpleName(), key -> new LongAdder()).increment();
+			System.err.println("Failed to enroll " + name + ": " + e.getMessage());
+		}
+	}
+
+	private String newSecret() {
+		byte[] secret = new byte[SECRET_BYTES];
+		random.nextBytes(secret);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+	}
+
+	// The admin identity as a CA client user, with its certificate converted once for all requests
+	static User asAdmin(X509Identity identity) {
+		String certificate = Identities.toPemString(identity.getCertificate());
+		return new User() {
+
+			@Override
+			public String getName() {
+				return "admin";
+			}
+
+			@Override
+			public Set<String> getRoles() {
+				return null;
+			}
+
+			@Override
+			public String getAccount() {
+				return null;
+			}
+
+			@Override
+			public String getAffiliation() {
+				return AFFILIATION;
+			}
+
+			@Override
+			public Enrollment getEnrollment() {
+				return new Enrollment() {
+
+					@Override
+					public PrivateKey getKey() {
+						return identity.getPrivateKey();
+					}
+
+					@Override
+					public String getCert() {
+						return certificate;
+					}
+				};
+			}
+
+			@Override
+			public String getMspId() {
+				return MSP_ID;
+			}
+
+		};
+	}
+}
@@ -0,0 +1,147 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+package application.java;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.fabric.gateway.Identity;
+import org.hyperledger.fabric.gateway.Wallet;
+
+/**
+ * A wallet that keeps the identities it has read or been given in memory, in front of a slower
+ * wallet such as a file system wallet.
+ *
+ * <p>Identities are parsed from the backing wallet only the first time they are needed. Changes
+ * are visible straight away through this wallet and written to the backing wallet in the
+ * background, at most one write per label per flush interval. Call {@link #flush()} or
+ * {@link #close()} to be sure changes have been written, for example before the process exits;
+ * a failed background write is reported by the next of these calls.
+ */
+public final class CachedWallet implements Wallet, AutoCloseable {
+
+	static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1_000;
+
+	private final Wallet backingWallet;
+	private final Map<String, Identity> identities = new ConcurrentHashMap<>();
+	// The latest change to each label not yet written to the backing wallet, empty for a removal
+	private final Map<String, Optional<Identity>> pending = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService writer;
+	private IOException writeFailure;
+
+	public CachedWallet(Wallet backingWallet) {
+		this(backingWallet, DEFAULT_FLUSH_INTERVAL_MILLIS);
+	}
+
+	public CachedWallet(Wallet backingWallet, long flushIntervalMillis) {
+		this.backingWallet = backingWallet;
+		this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "wallet-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		writer.scheduleWithFixedDelay(this::writeInBackground, flushIntervalMillis, flushIntervalMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void put(String label, Identity identity) {
+		identities.put(label, identity);
+		pending.put(label, Optional.of(identity));
+	}
+
+	@Override
+	public Identity get(String label) throws IOException {
+		Identity identity = identities.get(label);
+		if (identity != null || pending.containsKey(label)) {
+			return identity;
+		}
+
+		identity = backingWallet.get(label);
+		if (identity != null && !pending.containsKey(label)) {
+			identities.putIfAbsent(label, identity);
+		}
+		return identity;
+	}
+
+	@Override
+	public Set<String> list() throws IOException {
+		// Copied first, so that changes written while the backing wallet is listed are not missed
+		Map<String, Optional<Identity>> changes = new HashMap<>(pending);
+		Set<String> labels = new HashSet<>(backingWallet.list());
+		changes.forEach((label, change) -> {
+			if (change.isPresent()) {
+				labels.add(label);
+			} else {
+				labels.remove(label);
+			}
+		});
+		return labels;
+	}
+
+	@Override
+	public void remove(String label) {
+		identities.remove(label);
+		pending.put(label, Optional.empty());
+	}
+
+	/**
+	 * Writes every change made so far to the backing wallet.
+	 *
+	 * @throws IOException if this or an earlier background write failed
+	 */
+	public synchronized void flush() throws IOException {
+		try {
+			writePending();
+		} catch (IOException e) {
+			writeFailure = null;
+			throw e;
+		}
+		if (writeFailure != null) {
+			IOException failure = writeFailure;
+			writeFailure = null;
+			throw failure;
+		}
+	}
+
+	private synchronized void writeInBackground() {
+		try {
+			writePending();
+		} catch (IOException e) {
+			writeFailure = e;
+		}
+	}
+
+	// A label changed again while it was being written stays pending for the next write
+	private void writePending() throws IOException {
+		for (Map.Entry<String, Optional<Identity>> change : pending.entrySet()) {
+			String label = change.getKey();
+			Optional<Identity> identity = change.getValue();
+			if (identity.isPresent()) {
+				backingWallet.put(label, identity.get());
+			} else {
+				backingWallet.remove(label);
+			}
+			pending.remove(label, identity);
+		}
+	}
+
+	/**
+	 * Writes every change made so far to the backing wallet and stops writing in the background.
+	 */
+	@Override
+	public void close() throws IOException {
+		writer.shutdown();
+		flush();
+	}
+}
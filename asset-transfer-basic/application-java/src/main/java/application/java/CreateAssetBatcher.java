@@ -0,0 +1,110 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+package application.java;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+
+import org.hyperledger.fabric.gateway.ContractException;
+
+/**
+ * Creates assets in batches through the basic chaincode's CreateAssets transaction, so that many
+ * callers creating one asset each share an endorsement and a place in a block.
+ *
+ * <p>Batches are submitted with continueOnError set, so an asset that cannot be created, for
+ * example because it already exists, fails only its own caller's future. A batch that fails as a
+ * whole, for example on an MVCC read conflict, fails every future in it.
+ */
+public final class CreateAssetBatcher implements AutoCloseable {
+
+	/**
+	 * The most assets the chaincode accepts in one CreateAssets transaction.
+	 */
+	public static final int MAX_BATCH_SIZE = 1000;
+
+	private final AsyncSubmitter submitter;
+	private final MicroBatcher<JsonObject, byte[]> batcher;
+
+	/**
+	 * @param submitter submits the batches, limiting how many are in flight
+	 * @param maxItems the most assets to create in one transaction
+	 * @param maxDelayMillis the longest to hold an asset back waiting for the batch to fill
+	 */
+	public CreateAssetBatcher(AsyncSubmitter submitter, int maxItems, long maxDelayMillis) {
+		if (maxItems > MAX_BATCH_SIZE) {
+			throw new IllegalArgumentException("The chaincode accepts at most " + MAX_BATCH_SIZE + " assets per batch");
+		}
+		this.submitter = submitter;
+		this.batcher = new MicroBatcher<>(this::send, maxItems, maxDelayMillis);
+	}
+
+	/**
+	 * Adds an asset to the next batch.
+	 *
+	 * @return completes with the asset's JSON once the batch it is in has been committed
+	 */
+	public CompletableFuture<byte[]> createAsset(String assetID, String color, int size, String owner,
+			int appraisedValue) {
+		JsonObjectBuilder asset = Json.createObjectBuilder().add("assetID", assetID);
+		addString(asset, "color", color);
+		asset.add("size", size);
+		addString(asset, "owner", owner);
+		asset.add("appraisedValue", appraisedValue);
+		return batcher.add(asset.build());
+	}
+
+	private static void addString(JsonObjectBuilder object, String name, String value) {
+		if (value == null) {
+			object.addNull(name);
+		} else {
+			object.add(name, value);
+		}
+	}
+
+	private void send(List<JsonObject> assets, List<CompletableFuture<byte[]>> results) throws InterruptedException {
+		JsonArrayBuilder batch = Json.createArrayBuilder();
+		assets.forEach(batch::add);
+
+		submitter.submit("CreateAssets", batch.build().toString(), "true").committed().whenComplete((response, e) -> {
+			if (e != null) {
+				results.forEach(result -> result.completeExceptionally(e));
+				return;
+			}
+
+			// {"created":n,"failures":[{"index":i,"assetID":"...","error":"...","message":"..."}]}
+			try (JsonReader reader = Json.createReader(new ByteArrayInputStream(response))) {
+				for (JsonValue value : reader.readObject().getJsonArray("failures")) {
+					JsonObject failure = value.asJsonObject();
+					results.get(failure.getInt("index")).completeExceptionally(
+							new ContractException(failure.getString("message")));
+				}
+			} catch (RuntimeException parseFailure) {
+				results.forEach(result -> result.completeExceptionally(parseFailure));
+				return;
+			}
+			for (int i = 0; i < results.size(); i++) {
+				results.get(i).complete(assets.get(i).toString().getBytes(UTF_8));
+			}
+		});
+	}
+
+	/**
+	 * Submits the assets added so far and stops accepting more. The submitter is left open.
+	 */
+	@Override
+	public void close() {
+		batcher.close();
+	}
+}
@@ -0,0 +1,167 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+package application.java;
+
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.hyperledger.fabric.gateway.Contract;
+import org.hyperledger.fabric.gateway.ContractException;
+import org.hyperledger.fabric.gateway.DefaultCommitHandlers;
+import org.hyperledger.fabric.gateway.Network;
+import org.hyperledger.fabric.gateway.Transaction;
+import org.hyperledger.fabric.gateway.spi.CommitHandler;
+import org.hyperledger.fabric.gateway.spi.CommitHandlerFactory;
+import org.hyperledger.fabric.gateway.spi.CommitListener;
+import org.hyperledger.fabric.gateway.spi.PeerDisconnectEvent;
+import org.hyperledger.fabric.protos.peer.TransactionPackage.TxValidationCode;
+import org.hyperledger.fabric.sdk.BlockEvent;
+import org.hyperledger.fabric.sdk.Peer;
+import org.hyperledger.fabric.sdk.exception.InvalidArgumentException;
+
+/**
+ * Sends load to a running Fabric network, connecting the same way as {@link App}.
+ */
+public final class GatewayLoadTarget implements LoadTarget {
+
+	private final SharedGateway gateway;
+	private final String channelName;
+	private final String chaincodeName;
+	private final Contract contract;
+
+	/**
+	 * Sends transactions through a shared gateway, which is closed with the target.
+	 */
+	public GatewayLoadTarget(SharedGateway gateway, String channelName, String chaincodeName) {
+		this.gateway = gateway;
+		this.channelName = channelName;
+		this.chaincodeName = chaincodeName;
+		this.contract = null;
+	}
+
+	private GatewayLoadTarget(Contract contract) {
+		this.gateway = null;
+		this.channelName = null;
+		this.chaincodeName = null;
+		this.contract = contract;
+	}
+
+	public static GatewayLoadTarget connect(String channelName, String chaincodeName) {
+		return new GatewayLoadTarget(new SharedGateway(App::connect), channelName, chaincodeName);
+	}
+
+	/**
+	 * Sends transactions to a contract whose gateway the caller carries on owning, so closing the
+	 * target leaves the gateway connected.
+	 */
+	public static GatewayLoadTarget forContract(Contract contract) {
+		return new GatewayLoadTarget(contract);
+	}
+
+	// Looked up for each transaction so that a reconnected gateway is picked up
+	private Contract contract() throws Exception {
+		return gateway == null ? contract : gateway.getContract(channelName, chaincodeName);
+	}
+
+	@Override
+	public byte[] evaluate(String name, String... args) throws Exception {
+		return contract().evaluateTransaction(name, args);
+	}
+
+	@Override
+	public byte[] submit(Runnable onOrdered, String name, String... args) throws Exception {
+		Transaction transaction = contract().createTransaction(name);
+		transaction.setCommitHandler(notifyingWhenOrdered(onOrdered));
+		return transaction.submit(args);
+	}
+
+	// The gateway only starts waiting for commit events once the orderer has accepted the
+	// transaction, so wrapping the default commit handler marks the end of endorsement and ordering
+	private static CommitHandlerFactory notifyingWhenOrdered(Runnable onOrdered) {
+		return (transactionId, network) -> new NotifyingCommitHandler(transactionId, network, onOrdered);
+	}
+
+	/**
+	 * Waits for commit like the default handler, and also notes the validation code a peer rejects
+	 * the transaction with, which the default handler leaves out of its exception. Rejections are
+	 * thrown as a {@link TransactionRejectedException} carrying that code, the same as the stand-in
+	 * peer, so that {@link RetryingSubmitter} can tell conflicts apart from other failures.
+	 */
+	private static final class NotifyingCommitHandler implements CommitHandler {
+		// How long to wait for the rejecting event to reach this handler's listener as well
+		private static final long REJECTION_WAIT_MILLIS = 1000;
+
+		private final String transactionId;
+		private final Network network;
+		private final Runnable onOrdered;
+		private final CommitHandler delegate;
+		private final CountDownLatch rejected = new CountDownLatch(1);
+		private volatile BlockEvent.TransactionEvent rejection;
+		private CommitListener listener;
+
+		NotifyingCommitHandler(String transactionId, Network network, Runnable onOrdered) {
+			this.transactionId = transactionId;
+			this.network = network;
+			this.onOrdered = onOrdered;
+			this.delegate = DefaultCommitHandlers.MSPID_SCOPE_ALLFORTX.create(transactionId, network);
+		}
+
+		@Override
+		public void startListening() {
+			Collection<Peer> peers;
+			try {
+				peers = network.getChannel().getPeersForOrganization(network.getGateway().getIdentity().getMspId());
+			} catch (InvalidArgumentException e) {
+				throw new IllegalStateException(e);
+			}
+			listener = network.addCommitListener(new CommitListener() {
+				@Override
+				public void acceptCommit(BlockEvent.TransactionEvent event) {
+					if (!event.isValid() && rejection == null) {
+						rejection = event;
+						rejected.countDown();
+					}
+				}
+
+				@Override
+				public void acceptDisconnect(PeerDisconnectEvent event) {
+				}
+			}, peers, transactionId);
+			delegate.startListening();
+		}
+
+		@Override
+		public void waitForEvents(long timeout, TimeUnit timeUnit)
+				throws ContractException, TimeoutException, InterruptedException {
+			onOrdered.run();
+			try {
+				delegate.waitForEvents(timeout, timeUnit);
+			} catch (ContractException e) {
+				if (rejected.await(REJECTION_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+					throw new TransactionRejectedException(transactionId, rejection.getPeer().getName(),
+							TxValidationCode.forNumber(rejection.getValidationCode()), e);
+				}
+				throw e;
+			} finally {
+				network.removeCommitListener(listener);
+			}
+		}
+
+		@Override
+		public void cancelListening() {
+			network.removeCommitListener(listener);
+			delegate.cancelListening();
+		}
+	}
+
+	@Override
+	public void close() {
+		if (gateway != null) {
+			gateway.close();
+		}
+	}
+}
@@ -0,0 +1,69 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+package application.java;
+
+import java.util.Arrays;
+
+/**
+ * Collects latency samples from many threads and reports their percentiles. Every sample is kept,
+ * which at eight bytes each is fine for the runs the load generator is meant for.
+ */
+final class LatencyRecorder {
+
+	private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+	private static final String[] PERCENTILE_LABELS = {"p50", "p90", "p99", "p99.9"};
+	private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+	private long[] samples = new long[1024];
+	private int count;
+
+	synchronized void record(long nanos) {
+		if (count == samples.length) {
+			samples = Arrays.copyOf(samples, count * 2);
+		}
+		samples[count++] = nanos;
+	}
+
+	synchronized int count() {
+		return count;
+	}
+
+	static String header() {
+		StringBuilder header = new StringBuilder(String.format("%-24s %9s", "", "count"));
+		for (String label : PERCENTILE_LABELS) {
+			header.append(String.format(" %9s", label));
+		}
+		return header.append(String.format(" %9s", "max")).toString();
+	}
+
+	/**
+	 * Formats a row of the latency table, in milliseconds, to go under {@link #header()}.
+	 */
+	String summarize(String label) {
+		long[] sorted;
+		synchronized (this) {
+			sorted = Arrays.copyOf(samples, count);
+		}
+		Arrays.sort(sorted);
+
+		StringBuilder row = new StringBuilder(String.format("%-24s %9d", label, sorted.length));
+		for (double percentile : PERCENTILES) {
+			row.append(formatMillis(sorted, percentile(sorted, percentile)));
+		}
+		return row.append(formatMillis(sorted, sorted.length - 1)).toString();
+	}
+
+	// Nearest-rank percentile
+	private static int percentile(long[] sorted, double percentile) {
+		return Math.max((int) Math.ceil(percentile / 100 * sorted.length) - 1, 0);
+	}
+
+	private static String formatMillis(long[] sorted, int index) {
+		if (sorted.length == 0) {
+			return String.format(" %9s", "-");
+		}
+		return String.format(" %9.1f", sorted[index] / NANOS_PER_MILLI);
+	}
+}
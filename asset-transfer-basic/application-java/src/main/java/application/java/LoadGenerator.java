@@ -0,0 +1,463 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+// Running the load generator against the in-process stand-in peer:
+// gradle runLoad
+// or against the test network, after running App once to enroll appUser:
+// gradle runLoad -PloadArgs="--target network --threads 32 --tps 200 --duration 60"
+// or creating assets in batches of up to 100, each held back at most 50ms:
+// gradle runLoad -PloadArgs="--in-flight 50 --batch-size 100 --batch-ms 50 --mix 100:0:0 --tps 0"
+
+package application.java;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+import org.hyperledger.fabric.protos.peer.TransactionPackage.TxValidationCode;
+
+/**
+ * Drives a mix of CreateAsset, TransferAsset and ReadAsset transactions at the basic chaincode
+ * and reports latency percentiles and throughput. Transactions are sent either from a pool of
+ * worker threads that each wait for their transaction to commit, or with {@code --in-flight}, from
+ * a single thread through an {@link AsyncSubmitter}. With {@code --batch-size} as well, creates are
+ * coalesced by a {@link CreateAssetBatcher} into CreateAssets transactions.
+ *
+ * <p>When a target rate is given, transactions are scheduled at fixed intervals and their latency
+ * is measured from when they were due to start, so time spent queued behind busy workers counts
+ * against the target rather than being hidden by it.
+ */
+public final class LoadGenerator {
+
+	enum Operation {
+		CREATE("CreateAsset"), TRANSFER("TransferAsset"), READ("ReadAsset");
+
+		private final String function;
+
+		Operation(String function) {
+			this.function = function;
+		}
+	}
+
+	private static final String[] OWNERS = {"Tomoko", "Brad", "Jin Soo", "Max", "Adriana", "Michel"};
+	private static final String[] COLORS = {"blue", "red", "green", "yellow", "black", "white"};
+	private static final long PROGRESS_INTERVAL_SECONDS = 5;
+
+	private final LoadTarget target;
+	private final Options options;
+	private final String runID = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+	private final List<String> assetIDs = new ArrayList<>();
+	private final AtomicLong createdCount = new AtomicLong();
+
+	private final Map<Operation, LatencyRecorder> latencies = new ConcurrentHashMap<>();
+	private final LatencyRecorder orderedLatency = new LatencyRecorder();
+	private final LatencyRecorder committedLatency = new LatencyRecorder();
+	private final LongAdder ordered = new LongAdder();
+	private final LongAdder committed = new LongAdder();
+	private final LongAdder evaluated = new LongAdder();
+	private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+	LoadGenerator(LoadTarget target, Options options) {
+		this.target = target;
+		this.options = options;
+		for (Operation operation : Operation.values()) {
+			latencies.put(operation, new LatencyRecorder());
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = Options.parse(args);
+		try (LoadTarget target = options.connect()) {
+			new LoadGenerator(target, options).run();
+		}
+	}
+
+	void run() throws Exception {
+		ExecutorService workers = Executors.newFixedThreadPool(options.threads);
+		try {
+			System.out.println("Creating " + options.assets + " assets for TransferAsset and ReadAsset to use");
+			seed(workers);
+
+			System.out.println("Running " + options + "\n");
+			long start = System.nanoTime();
+			long end = start + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+			AtomicLong nextSlot = new AtomicLong();
+
+			ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor();
+			progress.scheduleAtFixedRate(() -> printProgress(start), PROGRESS_INTERVAL_SECONDS,
+					PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+			if (options.inFlight > 0) {
+				pipeline(start, end);
+			} else {
+				List<Future<?>> running = new ArrayList<>();
+				for (int i = 0; i < options.threads; i++) {
+					running.add(workers.submit(() -> {
+						drive(start, end, nextSlot);
+						return null;
+					}));
+				}
+				for (Future<?> worker : running) {
+					worker.get();
+				}
+			}
+			long elapsed = System.nanoTime() - start;
+			progress.shutdownNow();
+
+			printReport(elapsed);
+		} finally {
+			workers.shutdownNow();
+		}
+	}
+
+	private void seed(ExecutorService workers) throws Exception {
+		List<Future<?>> seeding = new ArrayList<>();
+		for (int i = 0; i < options.assets; i++) {
+			String assetID = nextAssetID();
+			assetIDs.add(assetID);
+			seeding.add(workers.submit(() -> target.submit(() -> { }, Operation.CREATE.function, createArgs(assetID))));
+		}
+		for (Future<?> created : seeding) {
+			created.get();
+		}
+	}
+
+	private void drive(long start, long end, AtomicLong nextSlot) throws InterruptedException {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (long scheduled = nextStart(start, nextSlot); scheduled < end; scheduled = nextStart(start, nextSlot)) {
+			Operation operation = options.pick(random.nextInt(options.totalWeight));
+			String[] args = argsFor(operation, random);
+			try {
+				if (operation == Operation.READ) {
+					target.evaluate(operation.function, args);
+					recordEvaluated(operation, scheduled);
+				} else {
+					long due = scheduled;
+					target.submit(() -> recordOrdered(due), operation.function, args);
+					recordCommitted(operation, scheduled);
+				}
+			} catch (InterruptedException e) {
+				throw e;
+			} catch (Exception e) {
+				recordFailure(operation, e);
+			}
+		}
+	}
+
+	// Sends every transaction from one thread, keeping up to options.inFlight of them in flight
+	private void pipeline(long start, long end) throws InterruptedException {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		AtomicLong nextSlot = new AtomicLong();
+		try (AsyncSubmitter submitter = new AsyncSubmitter(target, options.inFlight);
+				CreateAssetBatcher batcher = options.batchSize > 0
+						? new CreateAssetBatcher(submitter, options.batchSize, options.batchMillis) : null) {
+			for (long scheduled = nextStart(start, nextSlot); scheduled < end; scheduled = nextStart(start, nextSlot)) {
+				Operation operation = options.pick(random.nextInt(options.totalWeight));
+				String[] args = argsFor(operation, random);
+				long due = scheduled;
+				if (operation == Operation.READ) {
+					submitter.evaluate(operation.function, args).whenComplete((result, e) -> {
+						if (e == null) {
+							recordEvaluated(operation, due);
+						} else {
+							recordFailure(operation, e);
+						}
+					});
+				} else if (operation == Operation.CREATE && batcher != null) {
+					// The batch is ordered as one transaction, so batched creates only record committing
+					batcher.createAsset(args[0], args[1], Integer.parseInt(args[2]), args[3], Integer.parseInt(args[4]))
+							.whenComplete(recordCommit(operation, due));
+				} else {
+					AsyncSubmitter.Submission submission = submitter.submit(operation.function, args);
+					submission.ordered().thenRun(() -> recordOrdered(due));
+					submission.committed().whenComplete(recordCommit(operation, due));
+				}
+			}
+		}
+	}
+
+	// Waits for the next slot when pacing to a target rate, otherwise starts straight away
+	private long nextStart(long start, AtomicLong nextSlot) throws InterruptedException {
+		if (options.intervalNanos == 0) {
+			return System.nanoTime();
+		}
+		long scheduled = start + nextSlot.getAndIncrement() * options.intervalNanos;
+		TimeUnit.NANOSECONDS.sleep(scheduled - System.nanoTime());
+		return scheduled;
+	}
+
+	private String[] argsFor(Operation operation, ThreadLocalRandom random) {
+		switch (operation) {
+			case CREATE:
+				return createArgs(nextAssetID());
+			case TRANSFER:
+				return new String[] {randomAssetID(random), OWNERS[random.nextInt(OWNERS.length)]};
+			default:
+				return new String[] {randomAssetID(random)};
+		}
+	}
+
+	private String randomAssetID(ThreadLocalRandom random) {
+		return assetIDs.get(random.nextInt(assetIDs.size()));
+	}
+
+	private void recordOrdered(long scheduled) {
+		ordered.increment();
+		orderedLatency.record(System.nanoTime() - scheduled);
+	}
+
+	private void recordCommitted(Operation operation, long scheduled) {
+		long latency = System.nanoTime() - scheduled;
+		committed.increment();
+		committedLatency.record(latency);
+		latencies.get(operation).record(latency);
+	}
+
+	private BiConsumer<Object, Throwable> recordCommit(Operation operation, long scheduled) {
+		return (result, e) -> {
+			if (e == null) {
+				recordCommitted(operation, scheduled);
+			} else {
+				recordFailure(operation, e);
+			}
+		};
+	}
+
+	private void recordEvaluated(Operation operation, long scheduled) {
+		evaluated.increment();
+		latencies.get(operation).record(System.nanoTime() - scheduled);
+	}
+
+	private void recordFailure(Operation operation, Throwable e) {
+		failures.computeIfAbsent(operation.function + ": " + reason(e), key -> new LongAdder()).increment();
+	}
+
+	private String nextAssetID() {
+		return "load-" + runID + "-" + createdCount.incrementAndGet();
+	}
+
+	private static String[] createArgs(String assetID) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		return new String[] {
+			assetID,
+			COLORS[random.nextInt(COLORS.length)],
+			Integer.toString(random.nextInt(1, 20)),
+			OWNERS[random.nextInt(OWNERS.length)],
+			Integer.toString(random.nextInt(100, 1000))
+		};
+	}
+
+	// Groups failures by their validation code where there is one, such as MVCC_READ_CONFLICT
+	private static String reason(Throwable e) {
+		TxValidationCode code = RetryingSubmitter.validationCode(e);
+		return code != null ? code.name() : e.getClass().getSimpleName();
+	}
+
+	private long failureCount() {
+		return failures.values().stream().mapToLong(LongAdder::sum).sum();
+	}
+
+	private void printProgress(long start) {
+		long seconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+		System.out.printf("%4ds: %d ordered, %d committed, %d evaluated, %d failed%n",
+				seconds, ordered.sum(), committed.sum(), evaluated.sum(), failureCount());
+	}
+
+	private void printReport(long elapsedNanos) {
+		double seconds = elapsedNanos / 1e9;
+
+		System.out.println();
+		System.out.println("Latency (ms)");
+		System.out.println(LatencyRecorder.header());
+		for (Operation operation : Operation.values()) {
+			System.out.println(latencies.get(operation).summarize(operation.function));
+		}
+		System.out.println(orderedLatency.summarize("submit to ordered"));
+		System.out.println(committedLatency.summarize("submit to committed"));
+
+		System.out.println();
+		System.out.printf("Throughput over %.1fs%n", seconds);
+		System.out.printf("  submitted (ordered) %10.1f tx/s%n", ordered.sum() / seconds);
+		System.out.printf("  committed           %10.1f tx/s%n", committed.sum() / seconds);
+		System.out.printf("  evaluated           %10.1f tx/s%n", evaluated.sum() / seconds);
+		if (target instanceof RetryingSubmitter) {
+			System.out.printf("  retried conflicts   %10d%n", ((RetryingSubmitter) target).retries());
+		}
+
+		if (!failures.isEmpty()) {
+			System.out.println();
+			System.out.println("Failures");
+			failures.forEach((reason, count) -> System.out.printf("  %-40s %d%n", reason, count.sum()));
+		}
+	}
+
+	static final class Options {
+		private static final long MAX_BACKOFF_MILLIS = 2000;
+
+		private String target = "standin";
+		private int threads = 16;
+		private int inFlight;
+		private int batchSize;
+		private int batchMillis = 50;
+		private int tps = 100;
+		private int durationSeconds = 30;
+		private int assets = 100;
+		private int[] weights = {20, 30, 50};
+		private String channel = "mychannel";
+		private String chaincode = "basic";
+		private int endorsementMillis = 5;
+		private int batchTimeoutMillis = 2000;
+		private int maxMessageCount = 10;
+		private int maxAttempts = 1;
+		private int backoffMillis = 50;
+
+		private long intervalNanos;
+		private int totalWeight;
+
+		static Options parse(String[] args) {
+			Options options = new Options();
+			for (int i = 0; i < args.length; i += 2) {
+				if (i + 1 >= args.length) {
+					throw usage("Missing value for " + args[i]);
+				}
+				options.set(args[i], args[i + 1]);
+			}
+
+			if (options.threads < 1 || options.inFlight < 0 || options.tps < 0 || options.durationSeconds < 1 || options.assets < 1
+					|| options.maxMessageCount < 1) {
+				throw usage("threads, duration, assets and max-message-count must be positive"
+						+ " and in-flight and tps not negative");
+			}
+			if (options.batchSize < 0 || options.batchSize > CreateAssetBatcher.MAX_BATCH_SIZE || options.batchMillis < 0) {
+				throw usage("batch-size must be between 0 and " + CreateAssetBatcher.MAX_BATCH_SIZE
+						+ " and batch-ms not negative");
+			}
+			if (options.maxAttempts < 1 || options.backoffMillis < 0) {
+				throw usage("max-attempts must be positive and backoff-ms not negative");
+			}
+			if (options.batchSize > 0 && options.inFlight == 0) {
+				throw usage("batch-size needs in-flight");
+			}
+			options.intervalNanos = options.tps == 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / options.tps;
+			for (int weight : options.weights) {
+				options.totalWeight += weight;
+			}
+			return options;
+		}
+
+		private void set(String name, String value) {
+			try {
+				switch (name) {
+					case "--target": target = value; break;
+					case "--threads": threads = Integer.parseInt(value); break;
+					case "--in-flight": inFlight = Integer.parseInt(value); break;
+					case "--batch-size": batchSize = Integer.parseInt(value); break;
+					case "--batch-ms": batchMillis = Integer.parseInt(value); break;
+					case "--tps": tps = Integer.parseInt(value); break;
+					case "--duration": durationSeconds = Integer.parseInt(value); break;
+					case "--assets": assets = Integer.parseInt(value); break;
+					case "--mix": weights = parseMix(value); break;
+					case "--channel": channel = value; break;
+					case "--chaincode": chaincode = value; break;
+					case "--endorsement-ms": endorsementMillis = Integer.parseInt(value); break;
+					case "--batch-timeout-ms": batchTimeoutMillis = Integer.parseInt(value); break;
+					case "--max-message-count": maxMessageCount = Integer.parseInt(value); break;
+					case "--max-attempts": maxAttempts = Integer.parseInt(value); break;
+					case "--backoff-ms": backoffMillis = Integer.parseInt(value); break;
+					default: throw usage("Unknown option " + name);
+				}
+			} catch (NumberFormatException e) {
+				throw usage("Not a number for " + name + ": " + value);
+			}
+		}
+
+		// create:transfer:read weights, such as 20:30:50
+		private static int[] parseMix(String value) {
+			String[] parts = value.split(":");
+			if (parts.length != Operation.values().length) {
+				throw usage("The mix must be create:transfer:read weights, such as 20:30:50");
+			}
+			int[] weights = new int[parts.length];
+			int total = 0;
+			for (int i = 0; i < parts.length; i++) {
+				weights[i] = Integer.parseInt(parts[i].trim());
+				if (weights[i] < 0) {
+					throw usage("Mix weights cannot be negative");
+				}
+				total += weights[i];
+			}
+			if (total == 0) {
+				throw usage("At least one mix weight must be positive");
+			}
+			return weights;
+		}
+
+		Operation pick(int roll) {
+			for (Operation operation : Operation.values()) {
+				roll -= weights[operation.ordinal()];
+				if (roll < 0) {
+					return operation;
+				}
+			}
+			throw new IllegalStateException("Roll exceeds the total mix weight");
+		}
+
+		LoadTarget connect() throws Exception {
+			LoadTarget connected = connectTarget();
+			if (maxAttempts == 1) {
+				return connected;
+			}
+			return new RetryingSubmitter(connected, RetryingSubmitter::firstArgument, maxAttempts, backoffMillis,
+					MAX_BACKOFF_MILLIS);
+		}
+
+		private LoadTarget connectTarget() throws Exception {
+			switch (target) {
+				case "standin":
+					return new StandInPeer(endorsementMillis, batchTimeoutMillis, maxMessageCount);
+				case "network":
+					return GatewayLoadTarget.connect(channel, chaincode);
+				default:
+					throw usage("Unknown target " + target);
+			}
+		}
+
+		private static IllegalArgumentException usage(String problem) {
+			return new IllegalArgumentException(problem + "\nOptions: --target standin|network --threads n"
+					+ " --in-flight n (pipeline from one thread instead of using --threads) --tps n (0 for as fast as possible) --duration seconds --assets n"
+					+ " --batch-size n --batch-ms n (create in batches of up to n assets, with --in-flight)"
+					+ " --mix create:transfer:read --channel name --chaincode name"
+					+ " --max-attempts n --backoff-ms n (retry read conflicts, ordering submits per asset)"
+					+ "\nStand-in peer only: --endorsement-ms n --batch-timeout-ms n --max-message-count n");
+		}
+
+		@Override
+		public String toString() {
+			String rate = tps == 0 ? "as fast as possible" : tps + " tx/s";
+			String clients = inFlight > 0 ? "1 thread with up to " + inFlight + " transactions in flight"
+					: threads + " threads";
+			if (maxAttempts > 1) {
+				clients += String.format(", retrying conflicts up to %d attempts from %dms backoff", maxAttempts,
+						backoffMillis);
+			}
+			if (batchSize > 0) {
+				clients += String.format(", creating in batches of up to %d within %dms", batchSize, batchMillis);
+			}
+			String peer = "standin".equals(target) ? String.format(" (endorsement %dms, batch timeout %dms,"
+					+ " max message count %d)", endorsementMillis, batchTimeoutMillis, maxMessageCount) : "";
+			return String.format("%s at %s for %ds against %s%s, mix create:transfer:read %d:%d:%d",
+					clients, rate, durationSeconds, target, peer, weights[0], weights[1], weights[2]);
+		}
+	}
+}
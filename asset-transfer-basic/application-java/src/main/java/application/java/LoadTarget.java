@@ -0,0 +1,27 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+package application.java;
+
+/**
+ * Something the load generator can send transactions to: a Fabric network through the gateway, or
+ * the in-process {@link StandInPeer}.
+ */
+public interface LoadTarget extends AutoCloseable {
+
+	/**
+	 * Evaluates a transaction function on a single peer without ordering it.
+	 */
+	byte[] evaluate(String name, String... args) throws Exception;
+
+	/**
+	 * Submits a transaction and waits for it to be committed. {@code onOrdered} is run once the
+	 * endorsed transaction has been accepted by the orderer, so callers can tell the time spent
+	 * endorsing and ordering apart from the time spent waiting for the block to commit.
+	 */
+	byte[] submit(Runnable onOrdered, String name, String... args) throws Exception;
+
+	@Override
+	void close();
+}
@@ -0,0 +1,155 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+package application.java;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects items added by many callers into batches, so that they can be sent in one transaction
+ * rather than one transaction each.
+ *
+ * <p>A batch is sent once it holds {@code maxItems} items, or {@code maxDelayMillis} after its
+ * first item was added, whichever comes first. Each caller gets a future for its own item, which
+ * the {@link BatchHandler} completes with that item's result.
+ */
+public final class MicroBatcher<T, R> implements AutoCloseable {
+
+	/**
+	 * Sends a batch of items.
+	 */
+	@FunctionalInterface
+	public interface BatchHandler<T, R> {
+		/**
+		 * Sends the items, completing the future at the same position in {@code results} with the
+		 * result of each item, now or once the batch has been committed. If this throws, every
+		 * future it has not completed fails with the exception.
+		 */
+		void send(List<T> items, List<CompletableFuture<R>> results) throws Exception;
+	}
+
+	private final BatchHandler<T, R> handler;
+	private final int maxItems;
+	private final long maxDelayMillis;
+	private final ScheduledExecutorService timer;
+
+	private List<T> items = new ArrayList<>();
+	private List<CompletableFuture<R>> results = new ArrayList<>();
+	private ScheduledFuture<?> deadline;
+	private boolean closed;
+
+	public MicroBatcher(BatchHandler<T, R> handler, int maxItems, long maxDelayMillis) {
+		if (maxItems < 1) {
+			throw new IllegalArgumentException("A batch must be allowed at least one item");
+		}
+		this.handler = handler;
+		this.maxItems = maxItems;
+		this.maxDelayMillis = maxDelayMillis;
+		this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "micro-batcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Adds an item to the current batch. If that fills the batch it is sent on this thread, which
+	 * holds the caller back if the handler is waiting for room to send it.
+	 */
+	public CompletableFuture<R> add(T item) {
+		CompletableFuture<R> result = new CompletableFuture<>();
+		Batch<T, R> full = null;
+		synchronized (this) {
+			if (closed) {
+				throw new IllegalStateException("The batcher has been closed");
+			}
+			items.add(item);
+			results.add(result);
+			if (items.size() >= maxItems) {
+				full = takeBatch();
+			} else if (items.size() == 1) {
+				List<T> batchItems = items;
+				deadline = timer.schedule(() -> sendIfCurrent(batchItems), maxDelayMillis, TimeUnit.MILLISECONDS);
+			}
+		}
+		if (full != null) {
+			send(full);
+		}
+		return result;
+	}
+
+	/**
+	 * Sends the current batch now, however few items it holds.
+	 */
+	public void flush() {
+		Batch<T, R> batch;
+		synchronized (this) {
+			batch = items.isEmpty() ? null : takeBatch();
+		}
+		if (batch != null) {
+			send(batch);
+		}
+	}
+
+	// Run by the timer, which may fire just after the batch it was set for has been sent as full
+	private void sendIfCurrent(List<T> batchItems) {
+		Batch<T, R> batch;
+		synchronized (this) {
+			batch = items == batchItems ? takeBatch() : null;
+		}
+		if (batch != null) {
+			send(batch);
+		}
+	}
+
+	private Batch<T, R> takeBatch() {
+		Batch<T, R> batch = new Batch<>(items, results);
+		items = new ArrayList<>();
+		results = new ArrayList<>();
+		if (deadline != null) {
+			deadline.cancel(false);
+			deadline = null;
+		}
+		return batch;
+	}
+
+	private void send(Batch<T, R> batch) {
+		try {
+			handler.send(batch.items, batch.results);
+		} catch (Exception e) {
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+			batch.results.forEach(result -> result.completeExceptionally(e));
+		}
+	}
+
+	/**
+	 * Sends the current batch and stops accepting items.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			closed = true;
+		}
+		flush();
+		timer.shutdown();
+	}
+
+	private static final class Batch<T, R> {
+		private final List<T> items;
+		private final List<CompletableFuture<R>> results;
+
+		Batch(List<T> items, List<CompletableFuture<R>> results) {
+			this.items = items;
+			this.results = results;
+		}
+	}
+}
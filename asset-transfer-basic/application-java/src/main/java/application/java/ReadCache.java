@@ -0,0 +1,197 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+package application.java;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import org.hyperledger.fabric.gateway.Contract;
+import org.hyperledger.fabric.gateway.ContractException;
+import org.hyperledger.fabric.gateway.Network;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KvRwset;
+import org.hyperledger.fabric.sdk.BlockEvent;
+import org.hyperledger.fabric.sdk.BlockInfo;
+import org.hyperledger.fabric.sdk.TxReadWriteSetInfo;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+/**
+ * Caches the results of evaluating transactions, so that repeated reads of the same assets are
+ * answered without going to a peer.
+ *
+ * <p>Results are keyed by function name and arguments, and the cache holds at most
+ * {@code maxEntries} of them, dropping the least recently used first. Each result is dropped as
+ * soon as a block is received that commits a write to any of the keys it was read from, as told by
+ * {@code keysRead}; results of functions it returns null for are dropped by any write to the
+ * chaincode. The time to live bounds how stale a result can be when blocks are delayed, or when the
+ * evaluating peer is behind the one delivering blocks. For the basic chaincode:
+ *
+ * <pre>
+ * ReadCache cache = new ReadCache(network, "basic", 10_000, 60_000, (function, args) -&gt;
+ *         "ReadAsset".equals(function) || "AssetExists".equals(function) ? Collections.singleton(args[0]) : null);
+ * byte[] asset = cache.evaluate("ReadAsset", "asset1");
+ * </pre>
+ *
+ * <p>A transaction this client submits is seen by the cache only once its block is delivered,
+ * which can be shortly after the submit returns; call {@link #invalidate} to read your own writes
+ * straight away.
+ */
+public final class ReadCache implements AutoCloseable {
+
+	private final Network network;
+	private final Contract contract;
+	private final String chaincodeName;
+	private final int maxEntries;
+	private final long timeToLiveNanos;
+	private final BiFunction<String, String[], Set<String>> keysRead;
+	private final Consumer<BlockEvent> blockListener;
+
+	private final LinkedHashMap<List<String>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	// Counts blocks that invalidated results, so a result read while one arrived is not cached
+	private final AtomicLong invalidatingBlocks = new AtomicLong();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * @param network the network to listen to blocks from
+	 * @param chaincodeName the chaincode to evaluate, which is also the namespace it writes to
+	 * @param maxEntries the most results to keep
+	 * @param timeToLiveMillis the longest to keep a result
+	 * @param keysRead the ledger keys a function reads for its arguments, or null if not known
+	 */
+	public ReadCache(Network network, String chaincodeName, int maxEntries, long timeToLiveMillis,
+			BiFunction<String, String[], Set<String>> keysRead) {
+		this.network = network;
+		this.contract = network.getContract(chaincodeName);
+		this.chaincodeName = chaincodeName;
+		this.maxEntries = maxEntries;
+		this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis);
+		this.keysRead = keysRead;
+		this.blockListener = network.addBlockListener(this::onBlock);
+	}
+
+	public byte[] evaluate(String function, String... args) throws ContractException {
+		List<String> cacheKey = new ArrayList<>(args.length + 1);
+		cacheKey.add(function);
+		Collections.addAll(cacheKey, args);
+
+		synchronized (this) {
+			Entry entry = entries.get(cacheKey);
+			if (entry != null && System.nanoTime() < entry.expiresAt) {
+				hits.increment();
+				return entry.result.clone();
+			}
+		}
+
+		misses.increment();
+		long blocksBefore = invalidatingBlocks.get();
+		byte[] result = contract.evaluateTransaction(function, args);
+		Entry entry = new Entry(result.clone(), keysRead.apply(function, args), System.nanoTime() + timeToLiveNanos);
+
+		synchronized (this) {
+			if (invalidatingBlocks.get() == blocksBefore) {
+				entries.put(cacheKey, entry);
+				if (entries.size() > maxEntries) {
+					Iterator<Entry> eldest = entries.values().iterator();
+					eldest.next();
+					eldest.remove();
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Drops the result of evaluating a function with the given arguments.
+	 */
+	public synchronized void invalidate(String function, String... args) {
+		List<String> cacheKey = new ArrayList<>(args.length + 1);
+		cacheKey.add(function);
+		Collections.addAll(cacheKey, args);
+		entries.remove(cacheKey);
+	}
+
+	public synchronized void invalidateAll() {
+		invalidatingBlocks.incrementAndGet();
+		entries.clear();
+	}
+
+	private void onBlock(BlockEvent block) {
+		Set<String> writtenKeys = new HashSet<>();
+		try {
+			for (BlockEvent.TransactionEvent transaction : block.getTransactionEvents()) {
+				if (transaction.isValid()) {
+					addWrittenKeys(transaction, writtenKeys);
+				}
+			}
+		} catch (InvalidProtocolBufferException | RuntimeException e) {
+			// A block this cache cannot read might have changed anything
+			invalidateAll();
+			return;
+		}
+
+		if (!writtenKeys.isEmpty()) {
+			synchronized (this) {
+				invalidatingBlocks.incrementAndGet();
+				entries.values().removeIf(entry -> entry.keys == null || !Collections.disjoint(entry.keys, writtenKeys));
+			}
+		}
+	}
+
+	private void addWrittenKeys(BlockInfo.TransactionEnvelopeInfo transaction, Set<String> writtenKeys)
+			throws InvalidProtocolBufferException {
+		for (BlockInfo.TransactionEnvelopeInfo.TransactionActionInfo action : transaction.getTransactionActionInfos()) {
+			TxReadWriteSetInfo readWriteSet = action.getTxReadWriteSet();
+			if (readWriteSet == null) {
+				continue;
+			}
+			for (TxReadWriteSetInfo.NsRwsetInfo namespace : readWriteSet.getNsRwsetInfos()) {
+				if (chaincodeName.equals(namespace.getNamespace())) {
+					for (KvRwset.KVWrite write : namespace.getRwset().getWritesList()) {
+						writtenKeys.add(write.getKey());
+					}
+				}
+			}
+		}
+	}
+
+	public long hits() {
+		return hits.sum();
+	}
+
+	public long misses() {
+		return misses.sum();
+	}
+
+	@Override
+	public void close() {
+		network.removeBlockListener(blockListener);
+		synchronized (this) {
+			entries.clear();
+		}
+	}
+
+	private static final class Entry {
+		private final byte[] result;
+		private final Set<String> keys;
+		private final long expiresAt;
+
+		Entry(byte[] result, Set<String> keys, long expiresAt) {
+			this.result = result;
+			this.keys = keys;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -0,0 +1,188 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+package application.java;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+import org.hyperledger.fabric.gateway.Contract;
+import org.hyperledger.fabric.protos.peer.TransactionPackage.TxValidationCode;
+
+/**
+ * Submits transactions, retrying those that fail validation because another transaction changed
+ * what they read between endorsement and commit.
+ *
+ * <p>Only {@code MVCC_READ_CONFLICT} and {@code PHANTOM_READ_CONFLICT} are retried: the transaction
+ * is endorsed again against the newer state, after a random delay of up to
+ * {@code baseDelayMillis} doubled for each earlier attempt and capped at {@code maxDelayMillis}, so
+ * that clients that conflicted with each other do not all try again at the same moment. Any other
+ * failure, or a conflict on the last attempt, is thrown straight away.
+ *
+ * <p>Transactions for the same key, as told by {@code keyOf}, are submitted one at a time in the
+ * order they arrived, retries included. Transactions from this client then never conflict with
+ * each other, and the endorsements that would have been wasted on those conflicts are not sent.
+ * For the basic chaincode every submitted function's first argument is the asset it writes:
+ *
+ * <pre>
+ * RetryingSubmitter submitter = RetryingSubmitter.forContract(contract, 5, 50, 2000);
+ * submitter.submit("TransferAsset", "asset1", "Tom");
+ * </pre>
+ */
+public final class RetryingSubmitter implements LoadTarget {
+
+	private final LoadTarget target;
+	private final BiFunction<String, String[], String> keyOf;
+	private final int maxAttempts;
+	private final long baseDelayMillis;
+	private final long maxDelayMillis;
+
+	private final Map<String, KeyQueue> queues = new ConcurrentHashMap<>();
+	private final LongAdder retries = new LongAdder();
+
+	/**
+	 * @param target where to submit the transactions, which is closed with this submitter
+	 * @param keyOf the key a function writes for its arguments, or null to not order it
+	 * @param maxAttempts the most times to submit a transaction
+	 * @param baseDelayMillis the longest to wait before the first retry
+	 * @param maxDelayMillis the longest to wait before any retry
+	 */
+	public RetryingSubmitter(LoadTarget target, BiFunction<String, String[], String> keyOf, int maxAttempts,
+			long baseDelayMillis, long maxDelayMillis) {
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("A transaction must be allowed at least one attempt");
+		}
+		if (baseDelayMillis < 0 || maxDelayMillis < 0) {
+			throw new IllegalArgumentException("Retry delays must not be negative");
+		}
+		this.target = target;
+		this.keyOf = keyOf;
+		this.maxAttempts = maxAttempts;
+		this.baseDelayMillis = baseDelayMillis;
+		this.maxDelayMillis = maxDelayMillis;
+	}
+
+	/**
+	 * Submits to a contract on a gateway that the caller carries on owning, ordering transactions
+	 * by their first argument.
+	 */
+	public static RetryingSubmitter forContract(Contract contract, int maxAttempts, long baseDelayMillis,
+			long maxDelayMillis) {
+		return new RetryingSubmitter(GatewayLoadTarget.forContract(contract), RetryingSubmitter::firstArgument,
+				maxAttempts, baseDelayMillis, maxDelayMillis);
+	}
+
+	static String firstArgument(String name, String[] args) {
+		return args.length > 0 ? args[0] : null;
+	}
+
+	@Override
+	public byte[] evaluate(String name, String... args) throws Exception {
+		return target.evaluate(name, args);
+	}
+
+	public byte[] submit(String name, String... args) throws Exception {
+		return submit(() -> { }, name, args);
+	}
+
+	/**
+	 * Submits a transaction and waits for it to be committed, retrying it if it conflicts.
+	 * {@code onOrdered} is run each time an attempt is accepted by the orderer.
+	 */
+	@Override
+	public byte[] submit(Runnable onOrdered, String name, String... args) throws Exception {
+		String key = keyOf.apply(name, args);
+		if (key == null) {
+			return submitWithRetries(onOrdered, name, args);
+		}
+
+		KeyQueue queue = queues.compute(key, (k, existing) -> {
+			KeyQueue joined = existing == null ? new KeyQueue() : existing;
+			joined.users++;
+			return joined;
+		});
+		try {
+			queue.lock.lockInterruptibly();
+			try {
+				return submitWithRetries(onOrdered, name, args);
+			} finally {
+				queue.lock.unlock();
+			}
+		} finally {
+			queues.computeIfPresent(key, (k, existing) -> --existing.users == 0 ? null : existing);
+		}
+	}
+
+	private byte[] submitWithRetries(Runnable onOrdered, String name, String[] args) throws Exception {
+		for (int attempt = 1;; attempt++) {
+			try {
+				return target.submit(onOrdered, name, args);
+			} catch (Exception e) {
+				if (attempt >= maxAttempts || !isConflict(e)) {
+					throw e;
+				}
+			}
+			retries.increment();
+			TimeUnit.MILLISECONDS.sleep(backoff(attempt));
+		}
+	}
+
+	// Full jitter: anywhere from no wait up to the capped exponential delay
+	private long backoff(int attempt) {
+		return ThreadLocalRandom.current().nextLong(backoffCeiling(attempt) + 1);
+	}
+
+	// The delay is doubled for each earlier attempt, but never shifted so far that it overflows
+	// before it is capped
+	long backoffCeiling(int attempt) {
+		int doublings = Math.min(attempt - 1, Long.numberOfLeadingZeros(baseDelayMillis) - 1);
+		return Math.min(baseDelayMillis << doublings, maxDelayMillis);
+	}
+
+	/**
+	 * The validation code a transaction was rejected with when it was committed, such as
+	 * {@code MVCC_READ_CONFLICT}, or null if it failed for another reason.
+	 */
+	static TxValidationCode validationCode(Throwable e) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause instanceof TransactionRejectedException) {
+				return ((TransactionRejectedException) cause).getValidationCode();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Whether a transaction failed only because what it read changed before it committed, so that
+	 * endorsing it again may succeed.
+	 */
+	static boolean isConflict(Throwable e) {
+		TxValidationCode code = validationCode(e);
+		return code == TxValidationCode.MVCC_READ_CONFLICT || code == TxValidationCode.PHANTOM_READ_CONFLICT;
+	}
+
+	/**
+	 * How many times a conflicting transaction has been submitted again.
+	 */
+	public long retries() {
+		return retries.sum();
+	}
+
+	@Override
+	public void close() {
+		target.close();
+	}
+
+	private static final class KeyQueue {
+		// Fair, so that transactions for a key are submitted in the order they arrived
+		private final ReentrantLock lock = new ReentrantLock(true);
+		// Guarded by the queues map, which drops the queue once no one is using it
+		private int users;
+	}
+}
@@ -0,0 +1,327 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+package application.java;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+
+import org.hyperledger.fabric.gateway.ContractException;
+import org.hyperledger.fabric.protos.peer.TransactionPackage.TxValidationCode;
+
+/**
+ * An in-process stand-in for a peer and orderer running the basic asset transfer chaincode, for
+ * trying out client load without the test network.
+ *
+ * <p>Transactions are endorsed against the committed state after a simulated endorsement delay,
+ * cut into blocks the way the orderer does (when a block is full or its batch timeout has passed)
+ * and validated in order, so transactions that read a key updated since their endorsement fail
+ * with {@code MVCC_READ_CONFLICT} as they would on a real channel. Only the CreateAsset,
+ * CreateAssets, TransferAsset, ReadAsset and AssetExists functions are implemented.
+ */
+public final class StandInPeer implements LoadTarget {
+
+	static final String PEER_NAME = "stand-in";
+	private static final int MAX_BATCH_SIZE = 1000;
+
+	private final long endorsementNanos;
+	private final long batchTimeoutNanos;
+	private final int maxMessageCount;
+
+	private final Map<String, Versioned> state = new ConcurrentHashMap<>();
+	private final BlockingQueue<Endorsement> orderer = new LinkedBlockingQueue<>();
+	private final Thread committer;
+	private long version;
+	private long transactionCount;
+
+	/**
+	 * @param endorsementMillis how long each proposal takes to endorse
+	 * @param batchTimeoutMillis the orderer batch timeout
+	 * @param maxMessageCount the most transactions the orderer puts in a block
+	 */
+	public StandInPeer(long endorsementMillis, long batchTimeoutMillis, int maxMessageCount) {
+		this.endorsementNanos = TimeUnit.MILLISECONDS.toNanos(endorsementMillis);
+		this.batchTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(batchTimeoutMillis);
+		this.maxMessageCount = maxMessageCount;
+		this.committer = new Thread(this::commitBlocks, "stand-in-committer");
+		committer.setDaemon(true);
+		committer.start();
+	}
+
+	@Override
+	public byte[] evaluate(String name, String... args) throws ContractException, InterruptedException {
+		return endorse(name, args).result;
+	}
+
+	@Override
+	public byte[] submit(Runnable onOrdered, String name, String... args)
+			throws ContractException, InterruptedException {
+		Endorsement endorsement = endorse(name, args);
+		orderer.put(endorsement);
+		onOrdered.run();
+
+		try {
+			endorsement.committed.get();
+		} catch (ExecutionException e) {
+			throw (ContractException) e.getCause();
+		}
+		return endorsement.result;
+	}
+
+	private Endorsement endorse(String name, String... args) throws ContractException, InterruptedException {
+		TimeUnit.NANOSECONDS.sleep(endorsementNanos);
+
+		Endorsement endorsement = new Endorsement(name);
+		switch (name) {
+			case "CreateAsset": {
+				checkArgs(name, args, 5);
+				if (endorsement.read(args[0]) != null) {
+					throw new ContractException("the asset " + args[0] + " already exists");
+				}
+				Asset asset = new Asset(args[0], args[1], parseInt(args[2]), args[3], parseInt(args[4]));
+				endorsement.write(asset);
+				endorsement.result = asset.toJson();
+				break;
+			}
+			case "CreateAssets":
+				checkArgs(name, args, 2);
+				endorsement.result = createAssets(endorsement, args[0], Boolean.parseBoolean(args[1]));
+				break;
+			case "TransferAsset": {
+				checkArgs(name, args, 2);
+				Asset asset = existing(endorsement, args[0]).withOwner(args[1]);
+				endorsement.write(asset);
+				endorsement.result = asset.toJson();
+				break;
+			}
+			case "ReadAsset":
+				checkArgs(name, args, 1);
+				endorsement.result = existing(endorsement, args[0]).toJson();
+				break;
+			case "AssetExists":
+				checkArgs(name, args, 1);
+				endorsement.result = Boolean.toString(endorsement.read(args[0]) != null).getBytes(StandardCharsets.UTF_8);
+				break;
+			default:
+				throw new ContractException("Undefined contract method called " + name);
+		}
+		return endorsement;
+	}
+
+	// Same checks and result as the Java chaincode's CreateAssets
+	private static byte[] createAssets(Endorsement endorsement, String assetsJSON, boolean continueOnError)
+			throws ContractException {
+		JsonArray assets;
+		try (JsonReader reader = Json.createReader(new StringReader(assetsJSON))) {
+			assets = reader.readArray();
+		} catch (JsonException | IllegalStateException e) {
+			throw new ContractException("Invalid assets: " + e.getMessage(), e);
+		}
+		if (assets.isEmpty() || assets.size() > MAX_BATCH_SIZE) {
+			throw new ContractException("Batch size must be between 1 and " + MAX_BATCH_SIZE);
+		}
+
+		Set<String> batchAssetIDs = new HashSet<>();
+		JsonArrayBuilder failures = Json.createArrayBuilder();
+		int created = 0;
+		for (int i = 0; i < assets.size(); i++) {
+			JsonObject asset = assets.getJsonObject(i);
+			String assetID = asset.getString("assetID", "");
+
+			String error;
+			String errorMessage;
+			if (assetID.isEmpty()) {
+				error = "INVALID_ASSET";
+				errorMessage = "Asset at index " + i + " has no assetID";
+			} else if (!batchAssetIDs.add(assetID) || endorsement.read(assetID) != null) {
+				error = "ASSET_ALREADY_EXISTS";
+				errorMessage = "Asset " + assetID + " already exists";
+			} else {
+				endorsement.write(new Asset(assetID, asset.getString("color", null), asset.getInt("size", 0),
+						asset.getString("owner", null), asset.getInt("appraisedValue", 0)));
+				created++;
+				continue;
+			}
+
+			if (!continueOnError) {
+				throw new ContractException(errorMessage);
+			}
+			failures.add(Json.createObjectBuilder().add("index", i).add("assetID", assetID).add("error", error)
+					.add("message", errorMessage));
+		}
+
+		return Json.createObjectBuilder().add("created", created).add("failures", failures).build().toString()
+				.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static Asset existing(Endorsement endorsement, String assetID) throws ContractException {
+		Asset asset = endorsement.read(assetID);
+		if (asset == null) {
+			throw new ContractException("Asset " + assetID + " does not exist");
+		}
+		return asset;
+	}
+
+	private static void checkArgs(String name, String[] args, int expected) throws ContractException {
+		if (args.length != expected) {
+			throw new ContractException(name + " expects " + expected + " arguments but got " + args.length);
+		}
+	}
+
+	private static int parseInt(String value) throws ContractException {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new ContractException("Not an integer: " + value, e);
+		}
+	}
+
+	private void commitBlocks() {
+		try {
+			while (true) {
+				List<Endorsement> block = new ArrayList<>();
+				block.add(orderer.take());
+				long deadline = System.nanoTime() + batchTimeoutNanos;
+				while (block.size() < maxMessageCount) {
+					Endorsement next = orderer.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+					if (next == null) {
+						break;
+					}
+					block.add(next);
+				}
+				block.forEach(this::validateAndCommit);
+			}
+		} catch (InterruptedException e) {
+			List<Endorsement> abandoned = new ArrayList<>();
+			orderer.drainTo(abandoned);
+			abandoned.forEach(endorsement -> endorsement.committed.completeExceptionally(
+					new ContractException("Peer " + PEER_NAME + " was shut down before the transaction committed")));
+		}
+	}
+
+	private void validateAndCommit(Endorsement endorsement) {
+		transactionCount++;
+		String transactionId = endorsement.name + "-" + transactionCount;
+
+		for (Map.Entry<String, Long> read : endorsement.readVersions.entrySet()) {
+			Versioned current = state.get(read.getKey());
+			long currentVersion = current == null ? 0 : current.version;
+			if (currentVersion != read.getValue()) {
+				endorsement.committed.completeExceptionally(new TransactionRejectedException(transactionId, PEER_NAME,
+						TxValidationCode.MVCC_READ_CONFLICT, null));
+				return;
+			}
+		}
+
+		version++;
+		for (Asset asset : endorsement.writes.values()) {
+			state.put(asset.assetID, new Versioned(asset, version));
+		}
+		endorsement.committed.complete(null);
+	}
+
+	@Override
+	public void close() {
+		committer.interrupt();
+	}
+
+	private final class Endorsement {
+		private final String name;
+		private final Map<String, Long> readVersions = new HashMap<>();
+		private final Map<String, Asset> writes = new HashMap<>();
+		private final CompletableFuture<Void> committed = new CompletableFuture<>();
+		private byte[] result;
+
+		Endorsement(String name) {
+			this.name = name;
+		}
+
+		Asset read(String assetID) {
+			Versioned current = state.get(assetID);
+			readVersions.put(assetID, current == null ? 0 : current.version);
+			return current == null ? null : current.asset;
+		}
+
+		void write(Asset asset) {
+			writes.put(asset.assetID, asset);
+		}
+	}
+
+	private static final class Versioned {
+		private final Asset asset;
+		private final long version;
+
+		Versioned(Asset asset, long version) {
+			this.asset = asset;
+			this.version = version;
+		}
+	}
+
+	private static final class Asset {
+		private final String assetID;
+		private final String color;
+		private final int size;
+		private final String owner;
+		private final int appraisedValue;
+
+		Asset(String assetID, String color, int size, String owner, int appraisedValue) {
+			this.assetID = assetID;
+			this.color = color;
+			this.size = size;
+			this.owner = owner;
+			this.appraisedValue = appraisedValue;
+		}
+
+		Asset withOwner(String newOwner) {
+			return new Asset(assetID, color, size, newOwner, appraisedValue);
+		}
+
+		// Same property order as the Java chaincode's JSON
+		byte[] toJson() {
+			StringBuilder json = new StringBuilder("{\"appraisedValue\":").append(appraisedValue);
+			json.append(",\"assetID\":");
+			appendString(json, assetID);
+			json.append(",\"color\":");
+			appendString(json, color);
+			json.append(",\"owner\":");
+			appendString(json, owner);
+			json.append(",\"size\":").append(size).append('}');
+			return json.toString().getBytes(StandardCharsets.UTF_8);
+		}
+
+		private static void appendString(StringBuilder json, String value) {
+			json.append('"');
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c == '"' || c == '\\') {
+					json.append('\\').append(c);
+				} else if (c < 0x20) {
+					json.append(String.format("\\u%04x", (int) c));
+				} else {
+					json.append(c);
+				}
+			}
+			json.append('"');
+		}
+	}
+}
@@ -0,0 +1,33 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+package application.java;
+
+import org.hyperledger.fabric.gateway.ContractException;
+import org.hyperledger.fabric.protos.peer.TransactionPackage.TxValidationCode;
+
+/**
+ * Thrown when a transaction was ordered but a peer marked it invalid when committing it, carrying
+ * the validation code so that callers can tell conflicts apart from other failures.
+ */
+public final class TransactionRejectedException extends ContractException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final TxValidationCode validationCode;
+
+	public TransactionRejectedException(String transactionId, String peerName, TxValidationCode validationCode,
+			Throwable cause) {
+		super("Commit of transaction " + transactionId + " failed on peer " + peerName + " with status "
+				+ validationCode, cause);
+		this.validationCode = validationCode;
+	}
+
+	/**
+	 * The code the peer rejected the transaction with, such as {@code MVCC_READ_CONFLICT}.
+	 */
+	public TxValidationCode getValidationCode() {
+		return validationCode;
+	}
+}
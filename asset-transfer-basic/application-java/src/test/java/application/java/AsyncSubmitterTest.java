@@ -0,0 +1,157 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+package application.java;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.fabric.gateway.ContractException;
+import org.hyperledger.fabric.protos.peer.TransactionPackage.TxValidationCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public final class AsyncSubmitterTest {
+
+	private static final long TIMEOUT_SECONDS = 5;
+
+	private StandInPeer peer = new StandInPeer(0, 5, 10);
+
+	@AfterEach
+	public void closePeer() {
+		peer.close();
+	}
+
+	private static String[] asset(String assetID) {
+		return new String[] {assetID, "blue", "5", "Tomoko", "300"};
+	}
+
+	private static <T> T await(CompletableFuture<T> future) throws Exception {
+		return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void completesOrderedThenCommitted() throws Exception {
+		try (AsyncSubmitter submitter = new AsyncSubmitter(peer, 2)) {
+			AsyncSubmitter.Submission submission = submitter.submit("CreateAsset", asset("asset1"));
+
+			assertThat(new String(await(submission.committed()), UTF_8)).contains("\"assetID\":\"asset1\"");
+			assertThat(submission.ordered()).isCompleted();
+			assertThat(new String(await(submitter.evaluate("ReadAsset", "asset1")), UTF_8))
+					.contains("\"owner\":\"Tomoko\"");
+		}
+	}
+
+	@Test
+	public void releasesPermitWhenEndorsementFails() throws Exception {
+		try (AsyncSubmitter submitter = new AsyncSubmitter(peer, 1)) {
+			AsyncSubmitter.Submission failed = submitter.submit("TransferAsset", "missing", "Max");
+
+			Throwable thrown = catchThrowable(() -> await(failed.committed()));
+			assertThat(thrown).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(ContractException.class);
+			assertThat(failed.ordered()).isCompletedExceptionally();
+			assertThat(submitter.inFlight()).isZero();
+			assertThat(await(submitter.submit("CreateAsset", asset("asset1")).committed())).isNotEmpty();
+		}
+	}
+
+	@Test
+	public void releasesPermitWhenCommitIsRejected() throws Exception {
+		peer.close();
+		peer = new StandInPeer(0, 200, 10);
+		try (AsyncSubmitter submitter = new AsyncSubmitter(peer, 2)) {
+			await(submitter.submit("CreateAsset", asset("asset1")).committed());
+
+			// Both are endorsed against the same version of the asset and put in the same block
+			CompletableFuture<byte[]> first = submitter.submit("TransferAsset", "asset1", "Max").committed();
+			CompletableFuture<byte[]> second = submitter.submit("TransferAsset", "asset1", "Adriana").committed();
+
+			Throwable firstFailure = catchThrowable(() -> await(first));
+			Throwable secondFailure = catchThrowable(() -> await(second));
+
+			// Whichever was ordered second is rejected
+			Throwable thrown = firstFailure != null ? firstFailure : secondFailure;
+			assertThat(firstFailure == null).isNotEqualTo(secondFailure == null);
+			assertThat(RetryingSubmitter.validationCode(thrown)).isEqualTo(TxValidationCode.MVCC_READ_CONFLICT);
+			assertThat(submitter.inFlight()).isZero();
+		}
+	}
+
+	@Test
+	public void releasesPermitWhenEvaluateFails() throws Exception {
+		try (AsyncSubmitter submitter = new AsyncSubmitter(peer, 1)) {
+			Throwable thrown = catchThrowable(() -> await(submitter.evaluate("ReadAsset", "missing")));
+
+			assertThat(thrown).hasCauseInstanceOf(ContractException.class);
+			assertThat(submitter.inFlight()).isZero();
+			assertThat(await(submitter.evaluate("AssetExists", "missing"))).isEqualTo("false".getBytes(UTF_8));
+		}
+	}
+
+	@Test
+	public void holdsCallerBackWhileMostTransactionsAllowedAreInFlight() throws Exception {
+		peer.close();
+		peer = new StandInPeer(0, 500, 10);
+		try (AsyncSubmitter submitter = new AsyncSubmitter(peer, 2)) {
+			CompletableFuture<byte[]> first = submitter.submit("CreateAsset", asset("asset1")).committed();
+			submitter.submit("CreateAsset", asset("asset2"));
+
+			CompletableFuture<AsyncSubmitter.Submission> third = CompletableFuture.supplyAsync(() -> {
+				try {
+					return submitter.submit("CreateAsset", asset("asset3"));
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			TimeUnit.MILLISECONDS.sleep(100);
+
+			assertThat(third).isNotDone();
+			assertThat(submitter.inFlight()).isEqualTo(2);
+			assertThat(await(first)).isNotEmpty();
+			assertThat(await(await(third).committed())).isNotEmpty();
+		}
+	}
+
+	@Test
+	public void letsCallbacksSubmitMoreTransactions() throws Exception {
+		try (AsyncSubmitter submitter = new AsyncSubmitter(peer, 1)) {
+			CompletableFuture<byte[]> transferred = submitter.submit("CreateAsset", asset("asset1")).committed()
+					.thenCompose(created -> {
+						try {
+							return submitter.submit("TransferAsset", "asset1", "Max").committed();
+						} catch (InterruptedException e) {
+							throw new IllegalStateException(e);
+						}
+					});
+
+			assertThat(new String(await(transferred), UTF_8)).contains("\"owner\":\"Max\"");
+		}
+	}
+
+	@Test
+	public void drainWaitsForEveryTransaction() throws Exception {
+		try (AsyncSubmitter submitter = new AsyncSubmitter(peer, 4)) {
+			for (int i = 0; i < 10; i++) {
+				submitter.submit("CreateAsset", asset("asset" + i));
+			}
+
+			submitter.drain();
+
+			assertThat(submitter.inFlight()).isZero();
+			assertThat(peer.evaluate("AssetExists", "asset9")).isEqualTo("true".getBytes(UTF_8));
+		}
+	}
+
+	@Test
+	public void rejectsNoTransactionsInFlight() {
+		Throwable thrown = catchThrowable(() -> new AsyncSubmitter(peer, 0));
+
+		assertThat(thrown).isInstanceOf(IllegalArgumentException.class);
+	}
+}
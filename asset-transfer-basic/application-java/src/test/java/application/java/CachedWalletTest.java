@@ -0,0 +1,136 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+package application.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.fabric.gateway.Identity;
+import org.hyperledger.fabric.gateway.Wallet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public final class CachedWalletTest {
+
+	private static final long NEVER_MILLIS = TimeUnit.HOURS.toMillis(1);
+	private static final long TIMEOUT_MILLIS = 5_000;
+
+	private final Wallet backingWallet = mock(Wallet.class);
+	private final Identity identity = mock(Identity.class);
+	private CachedWallet wallet;
+
+	@AfterEach
+	public void closeWallet() throws IOException {
+		if (wallet != null) {
+			wallet.close();
+		}
+	}
+
+	@Test
+	public void showsChangesBeforeWritingThem() throws IOException {
+		when(backingWallet.list()).thenReturn(new HashSet<>(Arrays.asList("admin", "appUser")));
+		wallet = new CachedWallet(backingWallet, NEVER_MILLIS);
+
+		wallet.put("user1", identity);
+		wallet.remove("appUser");
+
+		assertThat(wallet.get("user1")).isSameAs(identity);
+		assertThat(wallet.get("appUser")).isNull();
+		assertThat(wallet.list()).containsExactlyInAnyOrder("admin", "user1");
+		verify(backingWallet, never()).put(anyString(), any());
+		verify(backingWallet, never()).remove(anyString());
+		verify(backingWallet, never()).get(anyString());
+	}
+
+	@Test
+	public void writesChangesOnFlush() throws IOException {
+		wallet = new CachedWallet(backingWallet, NEVER_MILLIS);
+		Identity replaced = mock(Identity.class);
+
+		wallet.put("user1", replaced);
+		wallet.put("user1", identity);
+		wallet.remove("appUser");
+		wallet.flush();
+		wallet.flush();
+
+		verify(backingWallet, never()).put("user1", replaced);
+		verify(backingWallet).put("user1", identity);
+		verify(backingWallet).remove("appUser");
+	}
+
+	@Test
+	public void writesChangesInBackground() throws IOException {
+		wallet = new CachedWallet(backingWallet, 10);
+
+		wallet.put("user1", identity);
+
+		verify(backingWallet, timeout(TIMEOUT_MILLIS)).put("user1", identity);
+	}
+
+	@Test
+	public void readsEachIdentityFromBackingWalletOnce() throws IOException {
+		when(backingWallet.get("appUser")).thenReturn(identity);
+		wallet = new CachedWallet(backingWallet, NEVER_MILLIS);
+
+		assertThat(wallet.get("appUser")).isSameAs(identity);
+		assertThat(wallet.get("appUser")).isSameAs(identity);
+		assertThat(wallet.get("missing")).isNull();
+
+		verify(backingWallet, times(1)).get("appUser");
+	}
+
+	@Test
+	public void reportsFailedBackgroundWriteOnNextFlush() throws IOException {
+		IOException failure = new IOException("disk full");
+		doThrow(failure).doNothing().when(backingWallet).put("user1", identity);
+		wallet = new CachedWallet(backingWallet, 10);
+
+		wallet.put("user1", identity);
+		// The first background write fails and the next one succeeds
+		verify(backingWallet, timeout(TIMEOUT_MILLIS).times(2)).put("user1", identity);
+
+		assertThat(catchThrowable(wallet::flush)).isSameAs(failure);
+		wallet.flush();
+	}
+
+	@Test
+	public void keepsChangeThatFailedToWriteOnFlush() throws IOException {
+		IOException failure = new IOException("disk full");
+		doThrow(failure).doNothing().when(backingWallet).remove("appUser");
+		when(backingWallet.list()).thenReturn(new HashSet<>(Arrays.asList("admin", "appUser")));
+		wallet = new CachedWallet(backingWallet, NEVER_MILLIS);
+		wallet.remove("appUser");
+
+		assertThat(catchThrowable(wallet::flush)).isSameAs(failure);
+		assertThat(wallet.list()).containsExactly("admin");
+		wallet.flush();
+
+		verify(backingWallet, times(2)).remove("appUser");
+	}
+
+	@Test
+	public void writesChangesWhenClosed() throws IOException {
+		CachedWallet closing = new CachedWallet(backingWallet, NEVER_MILLIS);
+		closing.put("user1", identity);
+
+		closing.close();
+
+		verify(backingWallet).put("user1", identity);
+	}
+}
@@ -0,0 +1,122 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+package application.java;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public final class LoadGeneratorTest {
+
+	@Nested
+	class Parsing {
+
+		private Throwable parseFailure(String... args) {
+			return catchThrowable(() -> LoadGenerator.Options.parse(args));
+		}
+
+		@Test
+		public void rejectsOptionWithoutValue() {
+			assertThat(parseFailure("--threads")).isInstanceOf(IllegalArgumentException.class)
+					.hasMessageStartingWith("Missing value for --threads");
+		}
+
+		@Test
+		public void rejectsUnknownOption() {
+			assertThat(parseFailure("--colour", "blue")).isInstanceOf(IllegalArgumentException.class)
+					.hasMessageStartingWith("Unknown option --colour");
+		}
+
+		@Test
+		public void rejectsValueThatIsNotANumber() {
+			assertThat(parseFailure("--tps", "fast")).isInstanceOf(IllegalArgumentException.class)
+					.hasMessageStartingWith("Not a number for --tps");
+		}
+
+		@Test
+		public void rejectsValuesOutOfRange() {
+			assertThat(parseFailure("--threads", "0")).isInstanceOf(IllegalArgumentException.class);
+			assertThat(parseFailure("--in-flight", "-1")).isInstanceOf(IllegalArgumentException.class);
+			assertThat(parseFailure("--in-flight", "4", "--batch-size", "1001"))
+					.isInstanceOf(IllegalArgumentException.class);
+			assertThat(parseFailure("--max-attempts", "0")).isInstanceOf(IllegalArgumentException.class);
+		}
+
+		@Test
+		public void rejectsBatchingWithoutInFlight() {
+			assertThat(parseFailure("--batch-size", "10")).isInstanceOf(IllegalArgumentException.class)
+					.hasMessageStartingWith("batch-size needs in-flight");
+		}
+
+		@Test
+		public void rejectsInvalidMix() {
+			assertThat(parseFailure("--mix", "20:80")).isInstanceOf(IllegalArgumentException.class);
+			assertThat(parseFailure("--mix", "20:-10:90")).isInstanceOf(IllegalArgumentException.class);
+			assertThat(parseFailure("--mix", "0:0:0")).isInstanceOf(IllegalArgumentException.class);
+		}
+
+		@Test
+		public void picksOperationsByMixWeight() {
+			LoadGenerator.Options options = LoadGenerator.Options.parse(new String[] {"--mix", "1:0:2"});
+
+			assertThat(options.pick(0)).isEqualTo(LoadGenerator.Operation.CREATE);
+			assertThat(options.pick(1)).isEqualTo(LoadGenerator.Operation.READ);
+			assertThat(options.pick(2)).isEqualTo(LoadGenerator.Operation.READ);
+			assertThat(catchThrowable(() -> options.pick(3))).isInstanceOf(IllegalStateException.class);
+		}
+
+		@Test
+		public void retriesConflictsOnlyWhenAskedTo() throws Exception {
+			try (LoadTarget target = LoadGenerator.Options.parse(new String[0]).connect()) {
+				assertThat(target).isInstanceOf(StandInPeer.class);
+			}
+			try (LoadTarget target = LoadGenerator.Options.parse(new String[] {"--max-attempts", "3"}).connect()) {
+				assertThat(target).isInstanceOf(RetryingSubmitter.class);
+			}
+		}
+	}
+
+	@Nested
+	class Running {
+
+		// Runs for a second against a stand-in peer, returning the report
+		private String run(String... args) throws Exception {
+			LoadGenerator.Options options = LoadGenerator.Options.parse(args);
+			ByteArrayOutputStream report = new ByteArrayOutputStream();
+			PrintStream out = System.out;
+			System.setOut(new PrintStream(report, true, UTF_8.name()));
+			try (StandInPeer peer = new StandInPeer(0, 10, 10)) {
+				new LoadGenerator(peer, options).run();
+			} finally {
+				System.setOut(out);
+			}
+			return report.toString(UTF_8.name());
+		}
+
+		@Test
+		public void reportsThroughputFromThreads() throws Exception {
+			String report = run("--threads", "2", "--tps", "50", "--duration", "1", "--assets", "5",
+					"--mix", "1:0:1");
+
+			assertThat(report).contains("Creating 5 assets", "Latency (ms)", "CreateAsset", "ReadAsset",
+					"Throughput over").doesNotContain("Failures");
+		}
+
+		@Test
+		public void reportsThroughputFromPipeline() throws Exception {
+			String report = run("--in-flight", "8", "--batch-size", "4", "--batch-ms", "5", "--tps", "50",
+					"--duration", "1", "--assets", "5", "--mix", "1:0:1");
+
+			assertThat(report).contains("1 thread with up to 8 transactions in flight", "Throughput over")
+					.doesNotContain("Failures");
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+package application.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public final class MicroBatcherTest {
+
+	private static final long NEVER_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+	private final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+	private final List<String> sendingThreads = Collections.synchronizedList(new ArrayList<>());
+	private MicroBatcher<String, String> batcher;
+
+	// Completes each item's future with the item in upper case
+	private void send(List<String> items, List<CompletableFuture<String>> results) {
+		batches.add(new ArrayList<>(items));
+		sendingThreads.add(Thread.currentThread().getName());
+		for (int i = 0; i < items.size(); i++) {
+			results.get(i).complete(items.get(i).toUpperCase());
+		}
+	}
+
+	@AfterEach
+	public void closeBatcher() {
+		if (batcher != null) {
+			batcher.close();
+		}
+	}
+
+	@Test
+	public void sendsFullBatchOnTheAddingThread() throws Exception {
+		batcher = new MicroBatcher<>(this::send, 3, NEVER_MILLIS);
+
+		CompletableFuture<String> first = batcher.add("a");
+		CompletableFuture<String> second = batcher.add("b");
+		assertThat(batches).isEmpty();
+		CompletableFuture<String> third = batcher.add("c");
+
+		assertThat(batches).containsExactly(Arrays.asList("a", "b", "c"));
+		assertThat(sendingThreads).containsExactly(Thread.currentThread().getName());
+		assertThat(first.get()).isEqualTo("A");
+		assertThat(second.get()).isEqualTo("B");
+		assertThat(third.get()).isEqualTo("C");
+	}
+
+	@Test
+	public void startsNextBatchAfterFullOne() throws Exception {
+		batcher = new MicroBatcher<>(this::send, 2, NEVER_MILLIS);
+
+		batcher.add("a");
+		batcher.add("b");
+		CompletableFuture<String> third = batcher.add("c");
+
+		assertThat(batches).containsExactly(Arrays.asList("a", "b"));
+		assertThat(third).isNotDone();
+	}
+
+	@Test
+	public void sendsPartBatchOnceItsDeadlinePasses() throws Exception {
+		batcher = new MicroBatcher<>(this::send, 100, 20);
+
+		long start = System.nanoTime();
+		CompletableFuture<String> first = batcher.add("a");
+		CompletableFuture<String> second = batcher.add("b");
+
+		assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("B");
+		assertThat(first.get()).isEqualTo("A");
+		assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+		assertThat(batches).containsExactly(Arrays.asList("a", "b"));
+		assertThat(sendingThreads).containsExactly("micro-batcher");
+	}
+
+	@Test
+	public void doesNotSendFullBatchAgainWhenItsDeadlinePasses() throws Exception {
+		batcher = new MicroBatcher<>(this::send, 2, 20);
+
+		batcher.add("a");
+		batcher.add("b");
+		CompletableFuture<String> next = batcher.add("c");
+
+		assertThat(next.get(5, TimeUnit.SECONDS)).isEqualTo("C");
+		assertThat(batches).containsExactly(Arrays.asList("a", "b"), Collections.singletonList("c"));
+	}
+
+	@Test
+	public void flushSendsPartBatch() throws Exception {
+		batcher = new MicroBatcher<>(this::send, 100, NEVER_MILLIS);
+		CompletableFuture<String> result = batcher.add("a");
+
+		batcher.flush();
+		batcher.flush();
+
+		assertThat(result.get()).isEqualTo("A");
+		assertThat(batches).containsExactly(Collections.singletonList("a"));
+	}
+
+	@Test
+	public void failsEveryItemNotCompletedWhenSendingThrows() throws Exception {
+		batcher = new MicroBatcher<>((items, results) -> {
+			results.get(0).complete("sent");
+			throw new IllegalStateException("no room");
+		}, 2, NEVER_MILLIS);
+
+		CompletableFuture<String> first = batcher.add("a");
+		CompletableFuture<String> second = batcher.add("b");
+
+		assertThat(first.get()).isEqualTo("sent");
+		Throwable thrown = catchThrowable(second::get);
+		assertThat(thrown).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void closeSendsPartBatchAndRejectsMoreItems() throws Exception {
+		batcher = new MicroBatcher<>(this::send, 100, NEVER_MILLIS);
+		CompletableFuture<String> result = batcher.add("a");
+
+		batcher.close();
+
+		assertThat(result.get()).isEqualTo("A");
+		assertThat(catchThrowable(() -> batcher.add("b"))).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void rejectsEmptyBatches() {
+		Throwable thrown = catchThrowable(() -> new MicroBatcher<String, String>(this::send, 0, NEVER_MILLIS));
+
+		assertThat(thrown).isInstanceOf(IllegalArgumentException.class);
+	}
+}
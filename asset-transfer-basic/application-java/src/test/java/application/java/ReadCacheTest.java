@@ -0,0 +1,217 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+package application.java;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import org.hyperledger.fabric.gateway.Contract;
+import org.hyperledger.fabric.gateway.Network;
+import org.hyperledger.fabric.protos.ledger.rwset.Rwset;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KvRwset;
+import org.hyperledger.fabric.sdk.BlockEvent;
+import org.hyperledger.fabric.sdk.BlockInfo;
+import org.hyperledger.fabric.sdk.TxReadWriteSetInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.protobuf.ByteString;
+
+public final class ReadCacheTest {
+
+	private static final String CHAINCODE = "basic";
+	private static final long TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+	// The basic chaincode's reads of a single asset
+	private static final BiFunction<String, String[], Set<String>> KEYS_READ = (function, args) ->
+			"ReadAsset".equals(function) ? Collections.singleton(args[0]) : null;
+
+	private final Network network = mock(Network.class);
+	private final Contract contract = mock(Contract.class);
+	private Consumer<BlockEvent> blockListener;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		when(network.getContract(CHAINCODE)).thenReturn(contract);
+		when(network.addBlockListener(any())).thenAnswer(invocation -> {
+			blockListener = invocation.getArgument(0);
+			return blockListener;
+		});
+		when(contract.evaluateTransaction(any(), any())).thenAnswer(invocation ->
+				String.join(" ", Arrays.copyOf(invocation.getArguments(), invocation.getArguments().length,
+						String[].class)).getBytes(UTF_8));
+	}
+
+	private ReadCache cache(int maxEntries, long timeToLiveMillis) {
+		return new ReadCache(network, CHAINCODE, maxEntries, timeToLiveMillis, KEYS_READ);
+	}
+
+	private static BlockEvent block(boolean valid, String namespace, String... writtenKeys) {
+		KvRwset.KVRWSet.Builder writes = KvRwset.KVRWSet.newBuilder();
+		for (String key : writtenKeys) {
+			writes.addWrites(KvRwset.KVWrite.newBuilder().setKey(key));
+		}
+		return block(valid, namespace, writes.build().toByteString());
+	}
+
+	private static BlockEvent block(boolean valid, String namespace, ByteString rwset) {
+		Rwset.TxReadWriteSet readWriteSet = Rwset.TxReadWriteSet.newBuilder()
+				.addNsRwset(Rwset.NsReadWriteSet.newBuilder().setNamespace(namespace).setRwset(rwset))
+				.build();
+		BlockInfo.TransactionEnvelopeInfo.TransactionActionInfo action =
+				mock(BlockInfo.TransactionEnvelopeInfo.TransactionActionInfo.class);
+		when(action.getTxReadWriteSet()).thenReturn(new TxReadWriteSetInfo(readWriteSet));
+
+		BlockEvent.TransactionEvent transaction = mock(BlockEvent.TransactionEvent.class);
+		when(transaction.isValid()).thenReturn(valid);
+		when(transaction.getTransactionActionInfos()).thenReturn(Collections.singletonList(action));
+		BlockEvent block = mock(BlockEvent.class);
+		when(block.getTransactionEvents()).thenReturn(Collections.singletonList(transaction));
+		return block;
+	}
+
+	@Test
+	public void answersRepeatedReadsFromTheCache() throws Exception {
+		ReadCache cache = cache(10, TIME_TO_LIVE_MILLIS);
+
+		byte[] first = cache.evaluate("ReadAsset", "asset1");
+		first[0] = 'X';
+		byte[] second = cache.evaluate("ReadAsset", "asset1");
+
+		assertThat(second).isEqualTo("ReadAsset asset1".getBytes(UTF_8));
+		verify(contract, times(1)).evaluateTransaction("ReadAsset", "asset1");
+		assertThat(cache.hits()).isEqualTo(1);
+		assertThat(cache.misses()).isEqualTo(1);
+	}
+
+	@Test
+	public void dropsResultsReadFromKeysWrittenInBlock() throws Exception {
+		ReadCache cache = cache(10, TIME_TO_LIVE_MILLIS);
+		cache.evaluate("ReadAsset", "asset1");
+		cache.evaluate("ReadAsset", "asset2");
+
+		blockListener.accept(block(true, CHAINCODE, "asset1"));
+		cache.evaluate("ReadAsset", "asset1");
+		cache.evaluate("ReadAsset", "asset2");
+
+		verify(contract, times(2)).evaluateTransaction("ReadAsset", "asset1");
+		verify(contract, times(1)).evaluateTransaction("ReadAsset", "asset2");
+	}
+
+	@Test
+	public void dropsResultsWithUnknownKeysOnAnyWrite() throws Exception {
+		ReadCache cache = cache(10, TIME_TO_LIVE_MILLIS);
+		cache.evaluate("GetAllAssets");
+		cache.evaluate("ReadAsset", "asset2");
+
+		blockListener.accept(block(true, CHAINCODE, "asset1"));
+		cache.evaluate("GetAllAssets");
+		cache.evaluate("ReadAsset", "asset2");
+
+		verify(contract, times(2)).evaluateTransaction("GetAllAssets");
+		verify(contract, times(1)).evaluateTransaction("ReadAsset", "asset2");
+	}
+
+	@Test
+	public void keepsResultsOnWritesThatDidNotCommit() throws Exception {
+		ReadCache cache = cache(10, TIME_TO_LIVE_MILLIS);
+		cache.evaluate("ReadAsset", "asset1");
+
+		blockListener.accept(block(false, CHAINCODE, "asset1"));
+		blockListener.accept(block(true, "other", "asset1"));
+		cache.evaluate("ReadAsset", "asset1");
+
+		verify(contract, times(1)).evaluateTransaction("ReadAsset", "asset1");
+	}
+
+	@Test
+	public void doesNotCacheResultReadWhileBlockArrived() throws Exception {
+		ReadCache cache = cache(10, TIME_TO_LIVE_MILLIS);
+		// The block is delivered after the peer answered but before the result is cached
+		when(contract.evaluateTransaction("ReadAsset", "asset1")).thenAnswer(invocation -> {
+			blockListener.accept(block(true, CHAINCODE, "asset1"));
+			return "stale".getBytes(UTF_8);
+		}).thenReturn("fresh".getBytes(UTF_8));
+
+		assertThat(cache.evaluate("ReadAsset", "asset1")).isEqualTo("stale".getBytes(UTF_8));
+		assertThat(cache.evaluate("ReadAsset", "asset1")).isEqualTo("fresh".getBytes(UTF_8));
+		assertThat(cache.evaluate("ReadAsset", "asset1")).isEqualTo("fresh".getBytes(UTF_8));
+
+		verify(contract, times(2)).evaluateTransaction("ReadAsset", "asset1");
+	}
+
+	@Test
+	public void dropsEverythingOnBlockItCannotRead() throws Exception {
+		ReadCache cache = cache(10, TIME_TO_LIVE_MILLIS);
+		cache.evaluate("ReadAsset", "asset1");
+
+		blockListener.accept(block(true, CHAINCODE, ByteString.copyFromUtf8("not a read-write set")));
+		cache.evaluate("ReadAsset", "asset1");
+
+		verify(contract, times(2)).evaluateTransaction("ReadAsset", "asset1");
+	}
+
+	@Test
+	public void dropsLeastRecentlyUsedResultWhenFull() throws Exception {
+		ReadCache cache = cache(2, TIME_TO_LIVE_MILLIS);
+		cache.evaluate("ReadAsset", "asset1");
+		cache.evaluate("ReadAsset", "asset2");
+		cache.evaluate("ReadAsset", "asset1");
+
+		cache.evaluate("ReadAsset", "asset3");
+		cache.evaluate("ReadAsset", "asset1");
+		cache.evaluate("ReadAsset", "asset2");
+
+		verify(contract, times(1)).evaluateTransaction("ReadAsset", "asset1");
+		verify(contract, times(2)).evaluateTransaction("ReadAsset", "asset2");
+	}
+
+	@Test
+	public void expiresResults() throws Exception {
+		ReadCache cache = cache(10, 0);
+
+		cache.evaluate("ReadAsset", "asset1");
+		cache.evaluate("ReadAsset", "asset1");
+
+		verify(contract, times(2)).evaluateTransaction("ReadAsset", "asset1");
+	}
+
+	@Test
+	public void invalidatesOnRequest() throws Exception {
+		ReadCache cache = cache(10, TIME_TO_LIVE_MILLIS);
+		cache.evaluate("ReadAsset", "asset1");
+		cache.evaluate("ReadAsset", "asset2");
+
+		cache.invalidate("ReadAsset", "asset1");
+		cache.evaluate("ReadAsset", "asset1");
+		cache.evaluate("ReadAsset", "asset2");
+		cache.invalidateAll();
+		cache.evaluate("ReadAsset", "asset2");
+
+		verify(contract, times(2)).evaluateTransaction("ReadAsset", "asset1");
+		verify(contract, times(2)).evaluateTransaction("ReadAsset", "asset2");
+	}
+
+	@Test
+	public void stopsListeningWhenClosed() {
+		ReadCache cache = cache(10, TIME_TO_LIVE_MILLIS);
+
+		cache.close();
+
+		verify(network).removeBlockListener(blockListener);
+	}
+}
@@ -0,0 +1,265 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+package application.java;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hyperledger.fabric.gateway.ContractException;
+import org.hyperledger.fabric.protos.peer.TransactionPackage.TxValidationCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public final class RetryingSubmitterTest {
+
+	private static final long TIMEOUT_SECONDS = 5;
+
+	private static TransactionRejectedException rejected(TxValidationCode code) {
+		return new TransactionRejectedException("tx1", StandInPeer.PEER_NAME, code, null);
+	}
+
+	@Nested
+	class Classification {
+
+		@Test
+		public void retriesReadConflicts() {
+			assertThat(RetryingSubmitter.isConflict(rejected(TxValidationCode.MVCC_READ_CONFLICT))).isTrue();
+			assertThat(RetryingSubmitter.isConflict(rejected(TxValidationCode.PHANTOM_READ_CONFLICT))).isTrue();
+		}
+
+		@Test
+		public void findsRejectionAmongCauses() {
+			Exception wrapped = new ExecutionException(new ContractException("failed",
+					rejected(TxValidationCode.MVCC_READ_CONFLICT)));
+
+			assertThat(RetryingSubmitter.isConflict(wrapped)).isTrue();
+			assertThat(RetryingSubmitter.validationCode(wrapped)).isEqualTo(TxValidationCode.MVCC_READ_CONFLICT);
+		}
+
+		@Test
+		public void doesNotRetryOtherFailures() {
+			assertThat(RetryingSubmitter.isConflict(rejected(TxValidationCode.ENDORSEMENT_POLICY_FAILURE))).isFalse();
+			assertThat(RetryingSubmitter.isConflict(new ContractException("status MVCC_READ_CONFLICT"))).isFalse();
+			assertThat(RetryingSubmitter.validationCode(new ContractException("failed"))).isNull();
+		}
+	}
+
+	@Nested
+	class Backoff {
+
+		private RetryingSubmitter submitter(long baseDelayMillis, long maxDelayMillis) {
+			return new RetryingSubmitter(new ScriptedTarget(0), RetryingSubmitter::firstArgument, 3,
+					baseDelayMillis, maxDelayMillis);
+		}
+
+		@Test
+		public void doublesDelayUpToCap() {
+			RetryingSubmitter submitter = submitter(50, 2000);
+
+			assertThat(submitter.backoffCeiling(1)).isEqualTo(50);
+			assertThat(submitter.backoffCeiling(2)).isEqualTo(100);
+			assertThat(submitter.backoffCeiling(6)).isEqualTo(1600);
+			assertThat(submitter.backoffCeiling(7)).isEqualTo(2000);
+		}
+
+		@Test
+		public void doesNotOverflowAfterManyAttempts() {
+			assertThat(submitter(50, 2000).backoffCeiling(Integer.MAX_VALUE)).isEqualTo(2000);
+			assertThat(submitter(1L << 40, Long.MAX_VALUE).backoffCeiling(100)).isPositive();
+			assertThat(submitter(0, 2000).backoffCeiling(100)).isZero();
+		}
+
+		@Test
+		public void rejectsInvalidSettings() {
+			assertThat(catchThrowable(() -> submitter(-1, 2000))).isInstanceOf(IllegalArgumentException.class);
+			assertThat(catchThrowable(() -> submitter(50, -1))).isInstanceOf(IllegalArgumentException.class);
+			assertThat(catchThrowable(() -> new RetryingSubmitter(new ScriptedTarget(0),
+					RetryingSubmitter::firstArgument, 0, 50, 2000))).isInstanceOf(IllegalArgumentException.class);
+		}
+	}
+
+	@Nested
+	class Retrying {
+
+		@Test
+		public void retriesConflictUntilItCommits() throws Exception {
+			ScriptedTarget target = new ScriptedTarget(2);
+			RetryingSubmitter submitter = new RetryingSubmitter(target, RetryingSubmitter::firstArgument, 3, 1, 1);
+
+			assertThat(submitter.submit("TransferAsset", "asset1", "Max")).isEqualTo("committed".getBytes(UTF_8));
+			assertThat(target.attempts.get()).isEqualTo(3);
+			assertThat(submitter.retries()).isEqualTo(2);
+		}
+
+		@Test
+		public void throwsConflictOnLastAttempt() {
+			ScriptedTarget target = new ScriptedTarget(3);
+			RetryingSubmitter submitter = new RetryingSubmitter(target, RetryingSubmitter::firstArgument, 3, 1, 1);
+
+			Throwable thrown = catchThrowable(() -> submitter.submit("TransferAsset", "asset1", "Max"));
+
+			assertThat(RetryingSubmitter.validationCode(thrown)).isEqualTo(TxValidationCode.MVCC_READ_CONFLICT);
+			assertThat(target.attempts.get()).isEqualTo(3);
+			assertThat(submitter.retries()).isEqualTo(2);
+		}
+
+		@Test
+		public void throwsOtherFailuresStraightAway() throws Exception {
+			try (StandInPeer peer = new StandInPeer(0, 5, 10)) {
+				RetryingSubmitter submitter = new RetryingSubmitter(peer, RetryingSubmitter::firstArgument, 3, 1, 1);
+
+				Throwable thrown = catchThrowable(() -> submitter.submit("TransferAsset", "missing", "Max"));
+
+				assertThat(thrown).isInstanceOf(ContractException.class).hasMessage("Asset missing does not exist");
+				assertThat(submitter.retries()).isZero();
+			}
+		}
+
+		@Test
+		public void endorsesConflictingTransactionsAgainUntilTheyCommit() throws Exception {
+			try (StandInPeer peer = new StandInPeer(0, 20, 10)) {
+				peer.submit(() -> { }, "CreateAsset", "asset1", "blue", "5", "Tomoko", "300");
+				// Without ordering by key every transfer of the asset but one in each block conflicts
+				RetryingSubmitter submitter = new RetryingSubmitter(peer, (name, args) -> null, 5, 1, 5);
+
+				List<String> results = transferConcurrently(submitter, "Max", "Adriana", "Michel", "Jin Soo", "Brad");
+
+				assertThat(results).hasSize(5).allMatch(result -> result.startsWith("{"));
+				assertThat(submitter.retries()).isPositive();
+			}
+		}
+	}
+
+	@Nested
+	class OrderingByKey {
+
+		private final StandInPeer peer = new StandInPeer(0, 100, 10);
+
+		@AfterEach
+		public void closePeer() {
+			peer.close();
+		}
+
+		@Test
+		public void submitsTransactionsForOneKeyOneAtATime() throws Exception {
+			peer.submit(() -> { }, "CreateAsset", "asset1", "blue", "5", "Tomoko", "300");
+			RetryingSubmitter submitter = new RetryingSubmitter(peer, RetryingSubmitter::firstArgument, 1, 1, 1);
+
+			List<String> results = transferConcurrently(submitter, "Max", "Adriana", "Michel");
+
+			assertThat(results).hasSize(3).allMatch(result -> result.startsWith("{"));
+			assertThat(submitter.retries()).isZero();
+		}
+
+		@Test
+		public void submitsTransactionsForOneKeyInTheOrderTheyArrived() throws Exception {
+			peer.submit(() -> { }, "CreateAsset", "asset1", "blue", "5", "Tomoko", "300");
+			RetryingSubmitter submitter = new RetryingSubmitter(peer, RetryingSubmitter::firstArgument, 1, 1, 1);
+			List<String> ordered = new ArrayList<>();
+
+			List<CompletableFuture<byte[]>> transfers = new ArrayList<>();
+			for (String owner : new String[] {"Max", "Adriana", "Michel"}) {
+				transfers.add(CompletableFuture.supplyAsync(() -> submit(submitter, () -> {
+					synchronized (ordered) {
+						ordered.add(owner);
+					}
+				}, owner)));
+				// Each transfer waits for a block, so the next one arrives while it holds the key
+				TimeUnit.MILLISECONDS.sleep(20);
+			}
+			for (CompletableFuture<byte[]> transfer : transfers) {
+				transfer.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			}
+
+			assertThat(ordered).containsExactly("Max", "Adriana", "Michel");
+			assertThat(new String(peer.evaluate("ReadAsset", "asset1"), UTF_8)).contains("\"owner\":\"Michel\"");
+		}
+
+		@Test
+		public void submitsTransactionsForOtherKeysAtTheSameTime() throws Exception {
+			peer.submit(() -> { }, "CreateAsset", "asset1", "blue", "5", "Tomoko", "300");
+			peer.submit(() -> { }, "CreateAsset", "asset2", "blue", "5", "Tomoko", "300");
+			RetryingSubmitter submitter = new RetryingSubmitter(peer, RetryingSubmitter::firstArgument, 1, 1, 1);
+
+			long start = System.nanoTime();
+			CompletableFuture<byte[]> first = CompletableFuture.supplyAsync(
+					() -> submitAsset(submitter, "asset1", "Max"));
+			CompletableFuture<byte[]> second = CompletableFuture.supplyAsync(
+					() -> submitAsset(submitter, "asset2", "Max"));
+			first.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			second.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+			// Both fit in one block, rather than waiting for a block each
+			assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(190));
+		}
+	}
+
+	private static byte[] submit(RetryingSubmitter submitter, Runnable onOrdered, String owner) {
+		try {
+			return submitter.submit(onOrdered, "TransferAsset", "asset1", owner);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static byte[] submitAsset(RetryingSubmitter submitter, String assetID, String owner) {
+		try {
+			return submitter.submit("TransferAsset", assetID, owner);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// Transfers asset1 to each owner from its own thread, returning the result of each transfer
+	private static List<String> transferConcurrently(RetryingSubmitter submitter, String... owners)
+			throws Exception {
+		List<CompletableFuture<byte[]>> transfers = new ArrayList<>();
+		for (String owner : owners) {
+			transfers.add(CompletableFuture.supplyAsync(() -> submit(submitter, () -> { }, owner)));
+		}
+		List<String> results = new ArrayList<>();
+		for (CompletableFuture<byte[]> transfer : transfers) {
+			results.add(new String(transfer.get(TIMEOUT_SECONDS, TimeUnit.SECONDS), UTF_8));
+		}
+		return results;
+	}
+
+	// Rejects the first few submits with a read conflict, then commits
+	private static final class ScriptedTarget implements LoadTarget {
+		private final int conflicts;
+		private final AtomicInteger attempts = new AtomicInteger();
+
+		ScriptedTarget(int conflicts) {
+			this.conflicts = conflicts;
+		}
+
+		@Override
+		public byte[] evaluate(String name, String... args) {
+			return "evaluated".getBytes(UTF_8);
+		}
+
+		@Override
+		public byte[] submit(Runnable onOrdered, String name, String... args) throws Exception {
+			onOrdered.run();
+			if (attempts.incrementAndGet() <= conflicts) {
+				throw rejected(TxValidationCode.MVCC_READ_CONFLICT);
+			}
+			return "committed".getBytes(UTF_8);
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
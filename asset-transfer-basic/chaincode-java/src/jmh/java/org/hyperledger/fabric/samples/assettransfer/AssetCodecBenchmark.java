@@ -0,0 +1,93 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.owlike.genson.Genson;
+
+/**
+ * Compares the Asset codec and binary encoding with the Genson serialization they replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AssetCodecBenchmark {
+
+    private final Genson genson = new Genson();
+
+    private final Asset asset = new Asset("asset1", "blue", 5, "Tomoko", 300);
+
+    private final String assetJSON = genson.serialize(asset);
+
+    private final byte[] assetBinary = BinaryAssetCodec.encode(asset);
+
+    /**
+     * Serializes an asset with Genson.
+     *
+     * @return the asset JSON
+     */
+    @Benchmark
+    public String gensonEncode() {
+        return genson.serialize(asset);
+    }
+
+    /**
+     * Deserializes an asset with Genson.
+     *
+     * @return the asset
+     */
+    @Benchmark
+    public Asset gensonDecode() {
+        return genson.deserialize(assetJSON, Asset.class);
+    }
+
+    /**
+     * Serializes an asset with the codec.
+     *
+     * @return the asset JSON
+     */
+    @Benchmark
+    public String codecEncode() {
+        return Codecs.ASSET.encode(asset);
+    }
+
+    /**
+     * Deserializes an asset with the codec.
+     *
+     * @return the asset
+     */
+    @Benchmark
+    public Asset codecDecode() {
+        return Codecs.ASSET.decode(assetJSON);
+    }
+
+    /**
+     * Serializes an asset with the binary encoding.
+     *
+     * @return the encoded asset
+     */
+    @Benchmark
+    public byte[] binaryEncode() {
+        return BinaryAssetCodec.encode(asset);
+    }
+
+    /**
+     * Deserializes an asset with the binary encoding.
+     *
+     * @return the asset
+     */
+    @Benchmark
+    public Asset binaryDecode() {
+        return BinaryAssetCodec.decode(assetBinary);
+    }
+}
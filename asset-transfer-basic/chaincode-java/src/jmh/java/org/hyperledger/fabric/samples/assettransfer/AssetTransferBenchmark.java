@@ -0,0 +1,126 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.fabric.samples.testing.InMemoryChaincodeStub;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the transaction functions of {@link AssetTransfer} against an in-memory ledger of
+ * {@code assetCount} assets. Each invocation runs one transaction from start to commit, so the
+ * results include context creation and state encoding. The build runs the GC profiler, which
+ * reports the allocation per transaction alongside the latency.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AssetTransferBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"100", "10000"})
+    private int assetCount;
+
+    @Param({"JSON", "BINARY"})
+    private AssetFormat assetFormat;
+
+    private AssetTransfer contract;
+    private InMemoryChaincodeStub stub;
+    private String[] assetIDs;
+    private int next;
+
+    /**
+     * Loads the ledger with assets.
+     */
+    @Setup
+    public void setUp() {
+        contract = new AssetTransfer(assetFormat);
+        stub = new InMemoryChaincodeStub(false);
+        assetIDs = new String[assetCount];
+
+        stub.beginTransaction("CreateAsset");
+        for (int i = 0; i < assetCount; i++) {
+            assetIDs[i] = String.format("asset%06d", i);
+            contract.CreateAsset(contract.createContext(stub), assetIDs[i], "blue", 5, "Tomoko", 300);
+        }
+        stub.commit();
+    }
+
+    private String nextAssetID() {
+        next = next + 1 == assetCount ? 0 : next + 1;
+        return assetIDs[next];
+    }
+
+    /**
+     * Reads one asset.
+     *
+     * @return the asset
+     */
+    @Benchmark
+    public Asset readAsset() {
+        String assetID = nextAssetID();
+        stub.beginTransaction("ReadAsset", assetID);
+        return contract.ReadAsset(contract.createContext(stub), assetID);
+    }
+
+    /**
+     * Creates one asset and rolls the transaction back, so the ledger keeps its size.
+     *
+     * @return the created asset
+     */
+    @Benchmark
+    public Asset createAsset() {
+        stub.beginTransaction("CreateAsset", "asset");
+        Asset asset = contract.CreateAsset(contract.createContext(stub), "asset", "blue", 5, "Tomoko", 300);
+        stub.rollback();
+        return asset;
+    }
+
+    /**
+     * Transfers one asset and commits the transaction.
+     *
+     * @return the transferred asset
+     */
+    @Benchmark
+    public Asset transferAsset() {
+        String assetID = nextAssetID();
+        stub.beginTransaction("TransferAsset", assetID, "Max");
+        Asset asset = contract.TransferAsset(contract.createContext(stub), assetID, "Max");
+        stub.commit();
+        return asset;
+    }
+
+    /**
+     * Scans the whole ledger.
+     *
+     * @return the assets JSON
+     */
+    @Benchmark
+    public String getAllAssets() {
+        stub.beginTransaction("GetAllAssets");
+        return contract.GetAllAssets(contract.createContext(stub));
+    }
+
+    /**
+     * Reads the first page of assets.
+     *
+     * @return the page JSON
+     * @throws Exception if the query fails
+     */
+    @Benchmark
+    public String getAllAssetsWithPagination() throws Exception {
+        stub.beginTransaction("GetAllAssetsWithPagination");
+        return contract.GetAllAssetsWithPagination(contract.createContext(stub), PAGE_SIZE, "");
+    }
+}
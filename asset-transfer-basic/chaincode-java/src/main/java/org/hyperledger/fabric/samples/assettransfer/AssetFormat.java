@@ -0,0 +1,79 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Encodings used to store assets in the world state. Assets are written in the format the
+ * contract is configured with, and read in whichever format they were written in, so the
+ * format can be changed without migrating the assets already on the ledger.
+ */
+public enum AssetFormat {
+
+    /**
+     * The JSON produced by {@link Codecs#ASSET}.
+     */
+    JSON {
+        @Override
+        byte[] encode(final Asset asset) {
+            return Codecs.ASSET.encode(asset).getBytes(UTF_8);
+        }
+    },
+
+    /**
+     * The compact encoding produced by {@link BinaryAssetCodec}.
+     */
+    BINARY {
+        @Override
+        byte[] encode(final Asset asset) {
+            return BinaryAssetCodec.encode(asset);
+        }
+    };
+
+    /**
+     * Name of the environment variable selecting the format assets are written in. Every peer
+     * endorsing for the chaincode must use the same value, or their endorsements will differ.
+     */
+    public static final String ENVIRONMENT_VARIABLE = "ASSET_FORMAT";
+
+    abstract byte[] encode(Asset asset);
+
+    /**
+     * Decodes an asset written in any format.
+     *
+     * @param state the state value holding the asset
+     * @return the asset
+     * @throws IllegalArgumentException if the value is not a valid encoding of an asset
+     */
+    static Asset decode(final byte[] state) {
+        if (BinaryAssetCodec.isBinary(state)) {
+            return BinaryAssetCodec.decode(state);
+        }
+        return Codecs.ASSET.decode(new String(state, UTF_8));
+    }
+
+    /**
+     * Returns the format named by the {@value #ENVIRONMENT_VARIABLE} environment variable.
+     *
+     * @return the configured format, or JSON if none is configured
+     * @throws IllegalArgumentException if the variable does not name a format
+     */
+    static AssetFormat fromEnvironment() {
+        return fromName(System.getenv(ENVIRONMENT_VARIABLE));
+    }
+
+    static AssetFormat fromName(final String name) {
+        if (name == null || name.isEmpty()) {
+            return JSON;
+        }
+        for (AssetFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown asset format " + name);
+    }
+}
@@ -4,8 +4,10 @@
 
 package org.hyperledger.fabric.samples.assettransfer;
 
-import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
 
 import org.hyperledger.fabric.contract.Context;
 import org.hyperledger.fabric.contract.ContractInterface;
@@ -15,12 +17,16 @@ import org.hyperledger.fabric.contract.annotation.Default;
 import org.hyperledger.fabric.contract.annotation.Info;
 import org.hyperledger.fabric.contract.annotation.License;
 import org.hyperledger.fabric.contract.annotation.Transaction;
+import org.hyperledger.fabric.samples.logging.Logging;
+import org.hyperledger.fabric.samples.metrics.MeteredSerializer;
+import org.hyperledger.fabric.samples.metrics.Metrics;
+import org.hyperledger.fabric.samples.metrics.TransactionMetrics;
 import org.hyperledger.fabric.shim.ChaincodeException;
 import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
 import org.hyperledger.fabric.shim.ledger.KeyValue;
 import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
-
-import com.owlike.genson.Genson;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
 
 @Contract(
         name = "basic",
@@ -34,15 +40,101 @@ import com.owlike.genson.Genson;
                 contact = @Contact(
                         email = "a.transfer@example.com",
                         name = "Adrian Transfer",
-                        url = "https://hyperledger.example.com")))
+                        url = "https://hyperledger.example.com")),
+        transactionSerializer = MeteredSerializer.NAME)
 @Default
 public final class AssetTransfer implements ContractInterface {
 
-    private final Genson genson = new Genson();
+    private static final Logger LOG = Logging.getLogger(AssetTransfer.class);
+
+    private static final TransactionMetrics METRICS = Metrics.getRegistry();
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    // Composite key index of assets by owner. Each entry is keyed owner~assetID and holds a
+    // single byte, since a composite key with an empty value is treated as deleted.
+    static final String OWNER_INDEX = "owner~assetID";
+    private static final byte[] INDEX_VALUE = {0};
+
+    // Initial capacity of the per-thread response buffer, and the capacity above which the
+    // buffer is dropped after use rather than being kept for the next query on that thread.
+    private static final int RESPONSE_BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<StringBuilder> RESPONSE_BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(RESPONSE_BUFFER_SIZE));
+
+    private final Codec<Asset> assetCodec = Codecs.ASSET;
+
+    private final AssetFormat assetFormat;
 
     private enum AssetTransferErrors {
         ASSET_NOT_FOUND,
-        ASSET_ALREADY_EXISTS
+        ASSET_ALREADY_EXISTS,
+        INVALID_PAGE_SIZE,
+        INVALID_ASSET,
+        INVALID_BATCH_SIZE
+    }
+
+    /**
+     * Creates the contract, writing assets in the format named by the
+     * {@value AssetFormat#ENVIRONMENT_VARIABLE} environment variable, and starts serving the
+     * chaincode metrics. The shim creates each contract once, when the chaincode starts.
+     */
+    public AssetTransfer() {
+        this(AssetFormat.fromEnvironment());
+        Metrics.start();
+    }
+
+    AssetTransfer(final AssetFormat assetFormat) {
+        this.assetFormat = assetFormat;
+    }
+
+    /**
+     * Creates a context that caches the state read by each transaction, and counts the state
+     * the transaction reads and writes.
+     *
+     * @param stub the stub for the transaction
+     * @return the transaction context
+     */
+    @Override
+    public Context createContext(final ChaincodeStub stub) {
+        return new AssetTransferContext(METRICS.meter(stub));
+    }
+
+    /**
+     * Starts timing the transaction, and records a transaction that threw before it on this
+     * thread as failed.
+     *
+     * @param ctx the transaction context
+     */
+    @Override
+    public void beforeTransaction(final Context ctx) {
+        METRICS.beforeTransaction(ctx);
+    }
+
+    /**
+     * Records the latency and state access of the transaction.
+     *
+     * @param ctx the transaction context
+     * @param result the value returned by the transaction function
+     */
+    @Override
+    public void afterTransaction(final Context ctx, final Object result) {
+        METRICS.afterTransaction(ctx);
+    }
+
+    /**
+     * Records the call to a function this contract does not have, then rejects it.
+     *
+     * @param ctx the transaction context
+     */
+    @Override
+    public void unknownTransaction(final Context ctx) {
+        METRICS.unknownTransaction(ctx);
+        throw new ChaincodeException("Undefined contract method called");
     }
 
     /**
@@ -81,17 +173,90 @@ public final class AssetTransfer implements ContractInterface {
 
         if (AssetExists(ctx, assetID)) {
             String errorMessage = String.format("Asset %s already exists", assetID);
-            System.out.println(errorMessage);
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_ALREADY_EXISTS.toString());
         }
 
         Asset asset = new Asset(assetID, color, size, owner, appraisedValue);
-        String assetJSON = genson.serialize(asset);
-        stub.putStringState(assetID, assetJSON);
+        stub.putState(assetID, assetFormat.encode(asset));
+        indexOwner(stub, assetID, null, owner);
 
         return asset;
     }
 
+    /**
+     * Creates a batch of new assets on the ledger in a single transaction. The whole batch is
+     * parsed before any asset is written. When continueOnError is false the first asset that
+     * cannot be created fails the transaction, so nothing is written; otherwise the remaining
+     * assets are created and each failure is reported in the result.
+     *
+     * @param ctx the transaction context
+     * @param assetsJSON a JSON array of the assets to create
+     * @param continueOnError whether to create the remaining assets when one cannot be created
+     * @return the number of assets created and the index, ID and error of each asset that was not
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String CreateAssets(final Context ctx, final String assetsJSON, final boolean continueOnError) {
+        List<Asset> assets;
+        try {
+            assets = Codecs.ASSET_LIST.decode(assetsJSON);
+        } catch (IllegalArgumentException e) {
+            String errorMessage = String.format("Invalid assets: %s", e.getMessage());
+            LOG.info(errorMessage);
+            throw new ChaincodeException(errorMessage, AssetTransferErrors.INVALID_ASSET.toString());
+        }
+
+        if (assets.isEmpty() || assets.size() > MAX_BATCH_SIZE) {
+            String errorMessage = String.format("Batch size must be between 1 and %d", MAX_BATCH_SIZE);
+            LOG.info(errorMessage);
+            throw new ChaincodeException(errorMessage, AssetTransferErrors.INVALID_BATCH_SIZE.toString());
+        }
+
+        ChaincodeStub stub = ctx.getStub();
+        // The ledger does not show a transaction its own writes, so duplicates within the batch
+        // have to be caught here rather than by AssetExists.
+        Set<String> batchAssetIDs = new HashSet<>();
+        StringBuilder failures = new StringBuilder();
+        int created = 0;
+
+        for (int i = 0; i < assets.size(); i++) {
+            Asset asset = assets.get(i);
+            String assetID = asset.getAssetID();
+
+            AssetTransferErrors error;
+            String errorMessage;
+            if (assetID == null || assetID.isEmpty()) {
+                error = AssetTransferErrors.INVALID_ASSET;
+                errorMessage = String.format("Asset at index %d has no assetID", i);
+            } else if (!batchAssetIDs.add(assetID) || AssetExists(ctx, assetID)) {
+                error = AssetTransferErrors.ASSET_ALREADY_EXISTS;
+                errorMessage = String.format("Asset %s already exists", assetID);
+            } else {
+                stub.putState(assetID, assetFormat.encode(asset));
+                indexOwner(stub, assetID, null, asset.getOwner());
+                created++;
+                continue;
+            }
+
+            LOG.info(errorMessage);
+            if (!continueOnError) {
+                throw new ChaincodeException(errorMessage, error.toString());
+            }
+
+            failures.append(failures.length() == 0 ? "{\"index\":" : ",{\"index\":").append(i);
+            failures.append(",\"assetID\":");
+            Json.writeString(failures, assetID);
+            failures.append(",\"error\":\"").append(error).append("\",\"message\":");
+            Json.writeString(failures, errorMessage);
+            failures.append('}');
+        }
+
+        return new StringBuilder()
+                .append("{\"created\":").append(created)
+                .append(",\"failures\":[").append(failures).append("]}")
+                .toString();
+    }
+
     /**
      * Retrieves an asset with the specified ID from the ledger.
      *
@@ -101,16 +266,15 @@ public final class AssetTransfer implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public Asset ReadAsset(final Context ctx, final String assetID) {
-        ChaincodeStub stub = ctx.getStub();
-        String assetJSON = stub.getStringState(assetID);
+        byte[] assetState = getState(ctx, assetID);
 
-        if (assetJSON == null || assetJSON.isEmpty()) {
+        if (assetState == null || assetState.length == 0) {
             String errorMessage = String.format("Asset %s does not exist", assetID);
-            System.out.println(errorMessage);
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_NOT_FOUND.toString());
         }
 
-        Asset asset = genson.deserialize(assetJSON, Asset.class);
+        Asset asset = AssetFormat.decode(assetState);
         return asset;
     }
 
@@ -129,16 +293,11 @@ public final class AssetTransfer implements ContractInterface {
     public Asset UpdateAsset(final Context ctx, final String assetID, final String color, final int size,
         final String owner, final int appraisedValue) {
         ChaincodeStub stub = ctx.getStub();
-
-        if (!AssetExists(ctx, assetID)) {
-            String errorMessage = String.format("Asset %s does not exist", assetID);
-            System.out.println(errorMessage);
-            throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_NOT_FOUND.toString());
-        }
+        Asset asset = ReadAsset(ctx, assetID);
 
         Asset newAsset = new Asset(assetID, color, size, owner, appraisedValue);
-        String newAssetJSON = genson.serialize(newAsset);
-        stub.putStringState(assetID, newAssetJSON);
+        stub.putState(assetID, assetFormat.encode(newAsset));
+        indexOwner(stub, assetID, asset.getOwner(), owner);
 
         return newAsset;
     }
@@ -152,14 +311,10 @@ public final class AssetTransfer implements ContractInterface {
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public void DeleteAsset(final Context ctx, final String assetID) {
         ChaincodeStub stub = ctx.getStub();
-
-        if (!AssetExists(ctx, assetID)) {
-            String errorMessage = String.format("Asset %s does not exist", assetID);
-            System.out.println(errorMessage);
-            throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_NOT_FOUND.toString());
-        }
+        Asset asset = ReadAsset(ctx, assetID);
 
         stub.delState(assetID);
+        indexOwner(stub, assetID, asset.getOwner(), null);
     }
 
     /**
@@ -171,10 +326,9 @@ public final class AssetTransfer implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public boolean AssetExists(final Context ctx, final String assetID) {
-        ChaincodeStub stub = ctx.getStub();
-        String assetJSON = stub.getStringState(assetID);
+        byte[] assetState = getState(ctx, assetID);
 
-        return (assetJSON != null && !assetJSON.isEmpty());
+        return (assetState != null && assetState.length > 0);
     }
 
     /**
@@ -188,23 +342,98 @@ public final class AssetTransfer implements ContractInterface {
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public Asset TransferAsset(final Context ctx, final String assetID, final String newOwner) {
         ChaincodeStub stub = ctx.getStub();
-        String assetJSON = stub.getStringState(assetID);
+        byte[] assetState = getState(ctx, assetID);
 
-        if (assetJSON == null || assetJSON.isEmpty()) {
+        if (assetState == null || assetState.length == 0) {
             String errorMessage = String.format("Asset %s does not exist", assetID);
-            System.out.println(errorMessage);
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_NOT_FOUND.toString());
         }
 
-        Asset asset = genson.deserialize(assetJSON, Asset.class);
+        Asset asset = AssetFormat.decode(assetState);
 
         Asset newAsset = new Asset(asset.getAssetID(), asset.getColor(), asset.getSize(), newOwner, asset.getAppraisedValue());
-        String newAssetJSON = genson.serialize(newAsset);
-        stub.putStringState(assetID, newAssetJSON);
+        stub.putState(assetID, assetFormat.encode(newAsset));
+        indexOwner(stub, assetID, asset.getOwner(), newOwner);
 
         return newAsset;
     }
 
+    /**
+     * Adds the owner index entries of assets created before the index existed, so that
+     * GetAssetsByOwner finds them. Indexes at most batchSize assets, in key order from startKey,
+     * so that a large ledger can be indexed over several transactions without any of them
+     * growing too large. Indexing an asset again rewrites the same entry, so batches can safely
+     * be repeated.
+     *
+     * @param ctx the transaction context
+     * @param startKey the key of the first asset to index, or empty for the start of the ledger
+     * @param batchSize the maximum number of assets to index
+     * @return the key to pass as startKey for the next batch, or empty when every asset is indexed
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String IndexAssetsByOwner(final Context ctx, final String startKey, final int batchSize) throws Exception {
+        if (batchSize <= 0 || batchSize > MAX_BATCH_SIZE) {
+            String errorMessage = String.format("Batch size must be between 1 and %d", MAX_BATCH_SIZE);
+            LOG.info(errorMessage);
+            throw new ChaincodeException(errorMessage, AssetTransferErrors.INVALID_BATCH_SIZE.toString());
+        }
+
+        ChaincodeStub stub = ctx.getStub();
+        // Paginated queries cannot be used in a submitted transaction, so stop reading the range
+        // once the batch is full and return the next key instead.
+        try (QueryResultsIterator<KeyValue> results = stub.getStateByRange(startKey, "")) {
+            int count = 0;
+            for (KeyValue result: results) {
+                if (count == batchSize) {
+                    return result.getKey();
+                }
+                indexOwner(stub, result.getKey(), null, AssetFormat.decode(result.getValue()).getOwner());
+                count++;
+            }
+        }
+
+        return "";
+    }
+
+    /**
+     * Retrieves all assets owned by the specified owner, using the owner index rather than
+     * scanning the whole ledger. Works on LevelDB as well as CouchDB. Assets created before the
+     * index existed are only found once IndexAssetsByOwner has been run over them.
+     *
+     * @param ctx the transaction context
+     * @param owner the owner of the assets
+     * @return array of the owner's assets in assetID order
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAssetsByOwner(final Context ctx, final String owner) throws Exception {
+        ChaincodeStub stub = ctx.getStub();
+
+        StringBuilder buffer = acquireResponseBuffer();
+        try (QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(OWNER_INDEX, owner)) {
+            buffer.append('[');
+            int count = 0;
+            for (KeyValue result: results) {
+                String assetID = stub.splitCompositeKey(result.getKey()).getAttributes().get(1);
+                byte[] assetState = getState(ctx, assetID);
+                if (assetState == null || assetState.length == 0) {
+                    continue;
+                }
+
+                if (count > 0) {
+                    buffer.append(',');
+                }
+                assetCodec.encode(AssetFormat.decode(assetState), buffer);
+                count++;
+            }
+            buffer.append(']');
+
+            return buffer.toString();
+        } finally {
+            releaseResponseBuffer(buffer);
+        }
+    }
+
     /**
      * Retrieves all assets from the ledger.
      *
@@ -215,22 +444,124 @@ public final class AssetTransfer implements ContractInterface {
     public String GetAllAssets(final Context ctx) {
         ChaincodeStub stub = ctx.getStub();
 
-        List<Asset> queryResults = new ArrayList<Asset>();
-
         // To retrieve all assets from the ledger use getStateByRange with empty startKey & endKey.
         // Giving empty startKey & endKey is interpreted as all the keys from beginning to end.
         // As another example, if you use startKey = 'asset0', endKey = 'asset9' ,
         // then getStateByRange will retrieve asset with keys between asset0 (inclusive) and asset9 (exclusive) in lexical order.
         QueryResultsIterator<KeyValue> results = stub.getStateByRange("", "");
 
+        StringBuilder buffer = acquireResponseBuffer();
+        try {
+            buffer.append('[');
+            appendAssets(buffer, results);
+            buffer.append(']');
+
+            return buffer.toString();
+        } finally {
+            releaseResponseBuffer(buffer);
+        }
+    }
+
+    /**
+     * Retrieves one page of assets from the ledger. Pass the bookmark returned with the
+     * previous page to fetch the next one; an empty bookmark starts from the first asset.
+     *
+     * @param ctx the transaction context
+     * @param pageSize the maximum number of assets to return
+     * @param bookmark the bookmark returned with the previous page, or empty for the first page
+     * @return the page of assets with the fetched record count and the bookmark for the next page
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAllAssetsWithPagination(final Context ctx, final int pageSize, final String bookmark) throws Exception {
+        return GetAssetsByRangeWithPagination(ctx, "", "", pageSize, bookmark);
+    }
+
+    /**
+     * Retrieves one page of the assets with keys between startKey (inclusive) and endKey
+     * (exclusive) in lexical order.
+     *
+     * @param ctx the transaction context
+     * @param startKey the first key of the range, or empty for the start of the ledger
+     * @param endKey the key after the end of the range, or empty for the end of the ledger
+     * @param pageSize the maximum number of assets to return
+     * @param bookmark the bookmark returned with the previous page, or empty for the first page
+     * @return the page of assets with the fetched record count and the bookmark for the next page
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAssetsByRangeWithPagination(final Context ctx, final String startKey, final String endKey,
+        final int pageSize, final String bookmark) throws Exception {
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            String errorMessage = String.format("Page size must be between 1 and %d", MAX_PAGE_SIZE);
+            LOG.info(errorMessage);
+            throw new ChaincodeException(errorMessage, AssetTransferErrors.INVALID_PAGE_SIZE.toString());
+        }
+
+        ChaincodeStub stub = ctx.getStub();
+        StringBuilder buffer = acquireResponseBuffer();
+        try (QueryResultsIteratorWithMetadata<KeyValue> results =
+                stub.getStateByRangeWithPagination(startKey, endKey, pageSize, bookmark)) {
+            buffer.append("{\"records\":[");
+            int fetchedRecordsCount = appendAssets(buffer, results);
+            buffer.append("],\"fetchedRecordsCount\":").append(fetchedRecordsCount).append(",\"bookmark\":");
+            Json.writeString(buffer, results.getMetadata().getBookmark());
+            buffer.append('}');
+
+            return buffer.toString();
+        } finally {
+            releaseResponseBuffer(buffer);
+        }
+    }
+
+    // Reads a key through the transaction's state cache when the contract created the context,
+    // or straight from the stub otherwise.
+    private static byte[] getState(final Context ctx, final String key) {
+        if (ctx instanceof AssetTransferContext) {
+            return ((AssetTransferContext) ctx).getStateCache().getState(key);
+        }
+        return ctx.getStub().getState(key);
+    }
+
+    // Moves an asset from the old owner's index entry to the new owner's. A null owner has no
+    // entry, so creating an asset passes a null oldOwner and deleting one a null newOwner.
+    private static void indexOwner(final ChaincodeStub stub, final String assetID, final String oldOwner,
+        final String newOwner) {
+        if (oldOwner != null && oldOwner.equals(newOwner)) {
+            return;
+        }
+        if (oldOwner != null) {
+            stub.delState(new CompositeKey(OWNER_INDEX, oldOwner, assetID).toString());
+        }
+        if (newOwner != null) {
+            stub.putState(new CompositeKey(OWNER_INDEX, newOwner, assetID).toString(), INDEX_VALUE);
+        }
+    }
+
+    // Appends each asset in results to buffer as a comma separated list of JSON objects,
+    // returning the number of assets appended.
+    private int appendAssets(final StringBuilder buffer, final Iterable<KeyValue> results) {
+        int count = 0;
         for (KeyValue result: results) {
-            Asset asset = genson.deserialize(result.getStringValue(), Asset.class);
-            queryResults.add(asset);
-            System.out.println(asset.toString());
+            Asset asset = AssetFormat.decode(result.getValue());
+            if (count > 0) {
+                buffer.append(',');
+            }
+            assetCodec.encode(asset, buffer);
+            count++;
         }
 
-        final String response = genson.serialize(queryResults);
+        return count;
+    }
 
-        return response;
+    private static StringBuilder acquireResponseBuffer() {
+        StringBuilder buffer = RESPONSE_BUFFER.get();
+        buffer.setLength(0);
+        return buffer;
+    }
+
+    private static void releaseResponseBuffer(final StringBuilder buffer) {
+        buffer.setLength(0);
+        if (buffer.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+            RESPONSE_BUFFER.remove();
+        }
     }
 }
@@ -0,0 +1,36 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+/**
+ * Transaction context for the asset transfer contract, holding the state already read by
+ * the transaction so that it is shared by every contract method the transaction calls.
+ */
+public class AssetTransferContext extends Context {
+
+    private final StateCache stateCache;
+
+    /**
+     * Creates the context for a transaction.
+     *
+     * @param stub the stub for the transaction
+     */
+    public AssetTransferContext(final ChaincodeStub stub) {
+        super(stub);
+        this.stateCache = new StateCache(stub);
+    }
+
+    /**
+     * Returns the cache of the state read by this transaction.
+     *
+     * @return the state cache
+     */
+    StateCache getStateCache() {
+        return stateCache;
+    }
+}
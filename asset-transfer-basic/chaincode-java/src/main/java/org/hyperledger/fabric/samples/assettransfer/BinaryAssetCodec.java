@@ -0,0 +1,152 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Compact binary encoding of an {@link Asset}. An encoded asset starts with a zero format tag,
+ * which can never start a JSON document, followed by a version byte and then the fields in
+ * declaration order. Strings are written as a varint of their UTF-8 length plus one, with zero
+ * standing for null, followed by the UTF-8 bytes; ints are written as zigzag varints.
+ */
+final class BinaryAssetCodec {
+
+    static final byte FORMAT_TAG = 0;
+    static final byte VERSION = 1;
+
+    private static final int VARINT_DATA_BITS = 7;
+    private static final int VARINT_DATA_MASK = 0x7f;
+    private static final int VARINT_CONTINUATION = 0x80;
+    private static final int MAX_VARINT_SHIFT = 28;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private BinaryAssetCodec() {
+    }
+
+    /**
+     * Checks whether a state value holds a binary encoded asset.
+     *
+     * @param state the state value
+     * @return true if the value starts with the binary format tag
+     */
+    static boolean isBinary(final byte[] state) {
+        return state.length > 0 && state[0] == FORMAT_TAG;
+    }
+
+    static byte[] encode(final Asset asset) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(INITIAL_CAPACITY);
+        out.write(FORMAT_TAG);
+        out.write(VERSION);
+        writeString(out, asset.getAssetID());
+        writeString(out, asset.getColor());
+        writeInt(out, asset.getSize());
+        writeString(out, asset.getOwner());
+        writeInt(out, asset.getAppraisedValue());
+        return out.toByteArray();
+    }
+
+    static Asset decode(final byte[] state) {
+        if (!isBinary(state)) {
+            throw new IllegalArgumentException("Missing binary format tag");
+        }
+
+        Reader reader = new Reader(state);
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary asset version " + version);
+        }
+
+        String assetID = reader.readString();
+        String color = reader.readString();
+        int size = reader.readInt();
+        String owner = reader.readString();
+        int appraisedValue = reader.readInt();
+        reader.end();
+
+        return new Asset(assetID, color, size, owner, appraisedValue);
+    }
+
+    private static void writeString(final ByteArrayOutputStream out, final String value) {
+        if (value == null) {
+            writeVarint(out, 0);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(UTF_8);
+        writeVarint(out, bytes.length + 1);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeInt(final ByteArrayOutputStream out, final int value) {
+        writeVarint(out, (value << 1) ^ (value >> (Integer.SIZE - 1)));
+    }
+
+    private static void writeVarint(final ByteArrayOutputStream out, final int value) {
+        int remaining = value;
+        while ((remaining & ~VARINT_DATA_MASK) != 0) {
+            out.write((remaining & VARINT_DATA_MASK) | VARINT_CONTINUATION);
+            remaining >>>= VARINT_DATA_BITS;
+        }
+        out.write(remaining);
+    }
+
+    private static final class Reader {
+
+        private final byte[] data;
+        // the format tag has already been checked
+        private int pos = 1;
+
+        Reader(final byte[] data) {
+            this.data = data;
+        }
+
+        int readByte() {
+            if (pos >= data.length) {
+                throw new IllegalArgumentException("Truncated binary asset");
+            }
+            return data[pos++];
+        }
+
+        String readString() {
+            int length = readVarint();
+            if (length == 0) {
+                return null;
+            }
+            length--;
+            if (length < 0 || length > data.length - pos) {
+                throw new IllegalArgumentException("Truncated binary asset");
+            }
+            String value = new String(data, pos, length, UTF_8);
+            pos += length;
+            return value;
+        }
+
+        int readInt() {
+            int zigzag = readVarint();
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        void end() {
+            if (pos != data.length) {
+                throw new IllegalArgumentException("Unexpected trailing bytes in binary asset");
+            }
+        }
+
+        private int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift <= MAX_VARINT_SHIFT; shift += VARINT_DATA_BITS) {
+                int b = readByte();
+                value |= (b & VARINT_DATA_MASK) << shift;
+                if ((b & VARINT_CONTINUATION) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in binary asset");
+        }
+    }
+}
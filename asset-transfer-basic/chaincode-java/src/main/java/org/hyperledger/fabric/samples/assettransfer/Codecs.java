@@ -0,0 +1,142 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of the codecs for the data types stored by this chaincode.
+ */
+public final class Codecs {
+
+    /**
+     * Codec for {@link Asset}, writing fields in the same order as Genson.
+     */
+    public static final Codec<Asset> ASSET = new AssetCodec();
+
+    /**
+     * Codec for a JSON array of {@link Asset} objects. Lists are not registered by type, as
+     * the element type is erased at runtime.
+     */
+    public static final Codec<List<Asset>> ASSET_LIST = new AssetListCodec();
+
+    private static final Map<Class<?>, Codec<?>> REGISTRY;
+
+    static {
+        Map<Class<?>, Codec<?>> registry = new HashMap<>();
+        registry.put(Asset.class, ASSET);
+        REGISTRY = Collections.unmodifiableMap(registry);
+    }
+
+    private Codecs() {
+    }
+
+    /**
+     * Returns the codec registered for a data type.
+     *
+     * @param <T> the data type
+     * @param type the class of the data type
+     * @return the codec for the data type
+     * @throws IllegalArgumentException if no codec is registered for the type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Codec<T> forType(final Class<T> type) {
+        Codec<?> codec = REGISTRY.get(type);
+        if (codec == null) {
+            throw new IllegalArgumentException("No codec registered for " + type.getName());
+        }
+        return (Codec<T>) codec;
+    }
+
+    private static final class AssetCodec implements Codec<Asset> {
+
+        @Override
+        public void encode(final Asset asset, final StringBuilder out) {
+            out.append("{\"appraisedValue\":").append(asset.getAppraisedValue());
+            out.append(",\"assetID\":");
+            Json.writeString(out, asset.getAssetID());
+            out.append(",\"color\":");
+            Json.writeString(out, asset.getColor());
+            out.append(",\"owner\":");
+            Json.writeString(out, asset.getOwner());
+            out.append(",\"size\":").append(asset.getSize()).append('}');
+        }
+
+        @Override
+        public Asset decode(final String json) {
+            Json.Reader reader = new Json.Reader(json);
+            Asset asset = read(reader);
+            reader.endDocument();
+
+            return asset;
+        }
+
+        static Asset read(final Json.Reader reader) {
+            String assetID = null;
+            String color = null;
+            int size = 0;
+            String owner = null;
+            int appraisedValue = 0;
+
+            reader.beginObject();
+            while (reader.hasNextField()) {
+                switch (reader.nextName()) {
+                    case "assetID":
+                        assetID = reader.nextString();
+                        break;
+                    case "color":
+                        color = reader.nextString();
+                        break;
+                    case "size":
+                        size = reader.nextInt();
+                        break;
+                    case "owner":
+                        owner = reader.nextString();
+                        break;
+                    case "appraisedValue":
+                        appraisedValue = reader.nextInt();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+
+            return new Asset(assetID, color, size, owner, appraisedValue);
+        }
+    }
+
+    private static final class AssetListCodec implements Codec<List<Asset>> {
+
+        @Override
+        public void encode(final List<Asset> assets, final StringBuilder out) {
+            out.append('[');
+            for (int i = 0; i < assets.size(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                ASSET.encode(assets.get(i), out);
+            }
+            out.append(']');
+        }
+
+        @Override
+        public List<Asset> decode(final String json) {
+            List<Asset> assets = new ArrayList<>();
+
+            Json.Reader reader = new Json.Reader(json);
+            reader.beginArray();
+            while (reader.hasNextElement()) {
+                assets.add(AssetCodec.read(reader));
+            }
+            reader.endDocument();
+
+            return assets;
+        }
+    }
+}
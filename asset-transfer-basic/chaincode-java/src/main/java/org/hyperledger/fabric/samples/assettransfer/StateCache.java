@@ -0,0 +1,44 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+/**
+ * Read-through cache of the world state seen by a single transaction, so that each key is
+ * fetched from the peer at most once however many times the contract reads it.
+ *
+ * <p>Fabric does not let a transaction read its own writes: {@code getState} keeps returning
+ * the committed value after a {@code putState} or {@code delState} on the same key. Writes
+ * therefore go straight to the stub and leave the cached values untouched.
+ */
+final class StateCache {
+
+    private final ChaincodeStub stub;
+    private final Map<String, byte[]> states = new HashMap<>();
+
+    StateCache(final ChaincodeStub stub) {
+        this.stub = stub;
+    }
+
+    /**
+     * Returns the committed value of a key, reading it from the ledger on first use.
+     *
+     * @param key the key to read
+     * @return the value of the key, or null or empty if the key does not exist
+     */
+    byte[] getState(final String key) {
+        if (states.containsKey(key)) {
+            return states.get(key);
+        }
+
+        byte[] value = stub.getState(key);
+        states.put(key, value);
+        return value;
+    }
+}
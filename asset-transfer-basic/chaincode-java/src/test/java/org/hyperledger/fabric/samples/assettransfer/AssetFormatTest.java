@@ -0,0 +1,96 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public final class AssetFormatTest {
+
+    private final Asset asset = new Asset("asset1", "blue", 5, "Tomoko", 300);
+
+    @Test
+    public void encodesJSON() {
+        assertThat(new String(AssetFormat.JSON.encode(asset), UTF_8)).isEqualTo(Codecs.ASSET.encode(asset));
+    }
+
+    @Test
+    public void decodesEitherFormat() {
+        assertThat(AssetFormat.decode(AssetFormat.JSON.encode(asset))).isEqualTo(asset);
+        assertThat(AssetFormat.decode(AssetFormat.BINARY.encode(asset))).isEqualTo(asset);
+    }
+
+    @Test
+    public void selectsFormatByName() {
+        assertThat(AssetFormat.fromName(null)).isEqualTo(AssetFormat.JSON);
+        assertThat(AssetFormat.fromName("")).isEqualTo(AssetFormat.JSON);
+        assertThat(AssetFormat.fromName("json")).isEqualTo(AssetFormat.JSON);
+        assertThat(AssetFormat.fromName("BINARY")).isEqualTo(AssetFormat.BINARY);
+    }
+
+    @Test
+    public void rejectsUnknownFormatName() {
+        Throwable thrown = catchThrowable(() -> {
+            AssetFormat.fromName("xml");
+        });
+
+        assertThat(thrown).isInstanceOf(IllegalArgumentException.class).hasMessage("Unknown asset format xml");
+    }
+
+    @Nested
+    class BinaryEncoding {
+
+        @Test
+        public void isSmallerThanJSON() {
+            byte[] binary = AssetFormat.BINARY.encode(asset);
+
+            assertThat(binary).startsWith(BinaryAssetCodec.FORMAT_TAG, BinaryAssetCodec.VERSION);
+            assertThat(binary.length).isLessThan(AssetFormat.JSON.encode(asset).length / 2);
+        }
+
+        @Test
+        public void roundTripsEdgeValues() {
+            Asset[] assets = {
+                new Asset("", null, 0, null, -1),
+                new Asset("asset\u0000", "Siobhán ", Integer.MAX_VALUE, "", Integer.MIN_VALUE),
+                new Asset(new String(new char[200]).replace('\0', 'x'), "blue", -64, "Tomoko", 64),
+            };
+
+            for (Asset value : assets) {
+                assertThat(BinaryAssetCodec.decode(BinaryAssetCodec.encode(value))).isEqualTo(value);
+            }
+        }
+
+        @Test
+        public void rejectsMalformedValues() {
+            byte[] valid = BinaryAssetCodec.encode(asset);
+            byte[] trailing = new byte[valid.length + 1];
+            System.arraycopy(valid, 0, trailing, 0, valid.length);
+
+            byte[][] malformed = {
+                {},
+                "{}".getBytes(UTF_8),
+                {0},
+                {0, 2},
+                {0, 1, 5, 'a'},
+                {0, 1, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0},
+                {0, 1, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x0f},
+                trailing,
+            };
+
+            for (byte[] value : malformed) {
+                Throwable thrown = catchThrowable(() -> {
+                    BinaryAssetCodec.decode(value);
+                });
+
+                assertThat(thrown).isInstanceOf(IllegalArgumentException.class);
+            }
+        }
+    }
+}
@@ -6,26 +6,42 @@ package org.hyperledger.fabric.samples.assettransfer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.protos.peer.QueryResponseMetadata;
+import org.hyperledger.fabric.samples.testing.InMemoryChaincodeStub;
 import org.hyperledger.fabric.shim.ChaincodeException;
 import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
 import org.hyperledger.fabric.shim.ledger.KeyValue;
 import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.InOrder;
 
 public final class AssetTransferTest {
 
+    private static String ownerIndexKey(final String owner, final String assetID) {
+        return new CompositeKey(AssetTransfer.OWNER_INDEX, owner, assetID).toString();
+    }
+
     private final class MockKeyValue implements KeyValue {
 
         private final String key;
@@ -54,6 +70,32 @@ public final class AssetTransferTest {
 
     }
 
+    private final class BinaryKeyValue implements KeyValue {
+
+        private final String key;
+        private final byte[] value;
+
+        BinaryKeyValue(final String key, final byte[] value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public String getStringValue() {
+            throw new UnsupportedOperationException("Binary value");
+        }
+
+        @Override
+        public byte[] getValue() {
+            return value;
+        }
+    }
+
     private final class MockAssetResultsIterator implements QueryResultsIterator<KeyValue> {
 
         private final List<KeyValue> assetList;
@@ -89,6 +131,42 @@ public final class AssetTransferTest {
 
     }
 
+    private final class MockAssetResultsIteratorWithMetadata implements QueryResultsIteratorWithMetadata<KeyValue> {
+
+        private final List<KeyValue> assetList;
+        private final String bookmark;
+
+        MockAssetResultsIteratorWithMetadata(final String bookmark, final KeyValue... assets) {
+            super();
+
+            this.assetList = new ArrayList<KeyValue>();
+            this.bookmark = bookmark;
+
+            for (KeyValue asset : assets) {
+                assetList.add(asset);
+            }
+        }
+
+        @Override
+        public QueryResponseMetadata getMetadata() {
+            return QueryResponseMetadata.newBuilder()
+                    .setFetchedRecordsCount(assetList.size())
+                    .setBookmark(bookmark)
+                    .build();
+        }
+
+        @Override
+        public Iterator<KeyValue> iterator() {
+            return assetList.iterator();
+        }
+
+        @Override
+        public void close() throws Exception {
+            // do nothing
+        }
+
+    }
+
     @Test
     public void invokeUnknownTransaction() {
         AssetTransfer contract = new AssetTransfer();
@@ -102,7 +180,8 @@ public final class AssetTransferTest {
                 .hasMessage("Undefined contract method called");
         assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo(null);
 
-        verifyZeroInteractions(ctx);
+        verify(ctx).getStub();
+        verifyNoMoreInteractions(ctx);
     }
 
     @Nested
@@ -114,8 +193,8 @@ public final class AssetTransferTest {
             Context ctx = mock(Context.class);
             ChaincodeStub stub = mock(ChaincodeStub.class);
             when(ctx.getStub()).thenReturn(stub);
-            when(stub.getStringState("asset1"))
-                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5, \"owner\": \"Tomoko\", \"appraisedValue\": 300 }");
+            when(stub.getState("asset1"))
+                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5, \"owner\": \"Tomoko\", \"appraisedValue\": 300 }".getBytes());
 
             Asset asset = contract.ReadAsset(ctx, "asset1");
 
@@ -128,7 +207,7 @@ public final class AssetTransferTest {
             Context ctx = mock(Context.class);
             ChaincodeStub stub = mock(ChaincodeStub.class);
             when(ctx.getStub()).thenReturn(stub);
-            when(stub.getStringState("asset1")).thenReturn("");
+            when(stub.getState("asset1")).thenReturn("".getBytes());
 
             Throwable thrown = catchThrowable(() -> {
                 contract.ReadAsset(ctx, "asset1");
@@ -150,11 +229,11 @@ public final class AssetTransferTest {
         contract.InitLedger(ctx);
 
         InOrder inOrder = inOrder(stub);
-        inOrder.verify(stub).putStringState("asset1", "{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Tomoko\",\"size\":5}");
-        inOrder.verify(stub).putStringState("asset2", "{\"appraisedValue\":400,\"assetID\":\"asset2\",\"color\":\"red\",\"owner\":\"Brad\",\"size\":5}");
-        inOrder.verify(stub).putStringState("asset3", "{\"appraisedValue\":500,\"assetID\":\"asset3\",\"color\":\"green\",\"owner\":\"Jin Soo\",\"size\":10}");
-        inOrder.verify(stub).putStringState("asset4", "{\"appraisedValue\":600,\"assetID\":\"asset4\",\"color\":\"yellow\",\"owner\":\"Max\",\"size\":10}");
-        inOrder.verify(stub).putStringState("asset5", "{\"appraisedValue\":700,\"assetID\":\"asset5\",\"color\":\"black\",\"owner\":\"Adrian\",\"size\":15}");
+        inOrder.verify(stub).putState("asset1", "{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Tomoko\",\"size\":5}".getBytes());
+        inOrder.verify(stub).putState("asset2", "{\"appraisedValue\":400,\"assetID\":\"asset2\",\"color\":\"red\",\"owner\":\"Brad\",\"size\":5}".getBytes());
+        inOrder.verify(stub).putState("asset3", "{\"appraisedValue\":500,\"assetID\":\"asset3\",\"color\":\"green\",\"owner\":\"Jin Soo\",\"size\":10}".getBytes());
+        inOrder.verify(stub).putState("asset4", "{\"appraisedValue\":600,\"assetID\":\"asset4\",\"color\":\"yellow\",\"owner\":\"Max\",\"size\":10}".getBytes());
+        inOrder.verify(stub).putState("asset5", "{\"appraisedValue\":700,\"assetID\":\"asset5\",\"color\":\"black\",\"owner\":\"Adrian\",\"size\":15}".getBytes());
 
     }
 
@@ -167,8 +246,8 @@ public final class AssetTransferTest {
             Context ctx = mock(Context.class);
             ChaincodeStub stub = mock(ChaincodeStub.class);
             when(ctx.getStub()).thenReturn(stub);
-            when(stub.getStringState("asset1"))
-                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5, \"owner\": \"Tomoko\", \"appraisedValue\": 300 }");
+            when(stub.getState("asset1"))
+                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5, \"owner\": \"Tomoko\", \"appraisedValue\": 300 }".getBytes());
 
             Throwable thrown = catchThrowable(() -> {
                 contract.CreateAsset(ctx, "asset1", "blue", 45, "Siobhán", 60);
@@ -185,7 +264,7 @@ public final class AssetTransferTest {
             Context ctx = mock(Context.class);
             ChaincodeStub stub = mock(ChaincodeStub.class);
             when(ctx.getStub()).thenReturn(stub);
-            when(stub.getStringState("asset1")).thenReturn("");
+            when(stub.getState("asset1")).thenReturn("".getBytes());
 
             Asset asset = contract.CreateAsset(ctx, "asset1", "blue", 45, "Siobhán", 60);
 
@@ -212,6 +291,176 @@ public final class AssetTransferTest {
 
     }
 
+    @Nested
+    class GetAllAssetsWithPaginationTransaction {
+
+        @Test
+        public void whenPageIsFull() throws Exception {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            when(stub.getStateByRangeWithPagination("", "", 2, "")).thenReturn(new MockAssetResultsIteratorWithMetadata("asset3",
+                    new MockKeyValue("asset1",
+                            "{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5, \"owner\": \"Tomoko\", \"appraisedValue\": 300 }"),
+                    new MockKeyValue("asset2",
+                            "{ \"assetID\": \"asset2\", \"color\": \"red\", \"size\": 5,\"owner\": \"Brad\", \"appraisedValue\": 400 }")));
+
+            String page = contract.GetAllAssetsWithPagination(ctx, 2, "");
+
+            assertThat(page).isEqualTo("{\"records\":["
+                    + "{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Tomoko\",\"size\":5},"
+                    + "{\"appraisedValue\":400,\"assetID\":\"asset2\",\"color\":\"red\",\"owner\":\"Brad\",\"size\":5}],"
+                    + "\"fetchedRecordsCount\":2,\"bookmark\":\"asset3\"}");
+        }
+
+        @Test
+        public void whenPageIsEmpty() throws Exception {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            when(stub.getStateByRangeWithPagination("", "", 2, "asset7")).thenReturn(new MockAssetResultsIteratorWithMetadata(""));
+
+            String page = contract.GetAllAssetsWithPagination(ctx, 2, "asset7");
+
+            assertThat(page).isEqualTo("{\"records\":[],\"fetchedRecordsCount\":0,\"bookmark\":\"\"}");
+        }
+
+        @Test
+        public void whenPageSizeIsInvalid() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+
+            Throwable thrown = catchThrowable(() -> {
+                contract.GetAllAssetsWithPagination(ctx, 0, "");
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                    .hasMessage("Page size must be between 1 and 1000");
+            assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("INVALID_PAGE_SIZE".getBytes());
+
+            verifyZeroInteractions(ctx);
+        }
+    }
+
+    @Nested
+    class CreateAssetsTransaction {
+
+        private static final String ASSETS_JSON = "[{\"assetID\":\"asset1\",\"color\":\"blue\",\"size\":5,"
+                + "\"owner\":\"Tomoko\",\"appraisedValue\":300},{\"assetID\":\"asset2\",\"color\":\"red\","
+                + "\"size\":5,\"owner\":\"Brad\",\"appraisedValue\":400},{\"assetID\":\"asset1\"},{\"color\":\"green\"}]";
+
+        @Test
+        public void whenAllAssetsAreNew() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+
+            String result = contract.CreateAssets(ctx, "[{\"assetID\":\"asset1\",\"color\":\"blue\",\"size\":5,"
+                    + "\"owner\":\"Tomoko\",\"appraisedValue\":300},{\"assetID\":\"asset2\"}]", false);
+
+            assertThat(result).isEqualTo("{\"created\":2,\"failures\":[]}");
+            InOrder inOrder = inOrder(stub);
+            inOrder.verify(stub).putState("asset1",
+                    "{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Tomoko\",\"size\":5}".getBytes());
+            inOrder.verify(stub).putState("asset2",
+                    "{\"appraisedValue\":0,\"assetID\":\"asset2\",\"color\":null,\"owner\":null,\"size\":0}".getBytes());
+        }
+
+        @Test
+        public void whenContinuingOnError() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            when(stub.getState("asset2")).thenReturn("{\"assetID\":\"asset2\"}".getBytes());
+
+            String result = contract.CreateAssets(ctx, ASSETS_JSON, true);
+
+            assertThat(result).isEqualTo("{\"created\":1,\"failures\":["
+                    + "{\"index\":1,\"assetID\":\"asset2\",\"error\":\"ASSET_ALREADY_EXISTS\","
+                    + "\"message\":\"Asset asset2 already exists\"},"
+                    + "{\"index\":2,\"assetID\":\"asset1\",\"error\":\"ASSET_ALREADY_EXISTS\","
+                    + "\"message\":\"Asset asset1 already exists\"},"
+                    + "{\"index\":3,\"assetID\":null,\"error\":\"INVALID_ASSET\","
+                    + "\"message\":\"Asset at index 3 has no assetID\"}]}");
+            verify(stub, times(2)).putState(anyString(), any());
+            verify(stub).putState("asset1",
+                    "{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Tomoko\",\"size\":5}".getBytes());
+            verify(stub).putState(ownerIndexKey("Tomoko", "asset1"), new byte[] {0});
+        }
+
+        @Test
+        public void whenAbortingOnError() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+
+            Throwable thrown = catchThrowable(() -> {
+                contract.CreateAssets(ctx, ASSETS_JSON, false);
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                    .hasMessage("Asset asset1 already exists");
+            assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("ASSET_ALREADY_EXISTS".getBytes());
+        }
+
+        @Test
+        public void whenAssetsAreMalformed() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+
+            Throwable thrown = catchThrowable(() -> {
+                contract.CreateAssets(ctx, "[{\"assetID\":\"asset1\"},{\"assetID\":\"asset2\",\"size\":\"big\"}]", true);
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                    .hasMessageStartingWith("Invalid assets: Expected an integer");
+            assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("INVALID_ASSET".getBytes());
+            verify(stub, never()).putState(anyString(), any());
+        }
+
+        @Test
+        public void whenBatchIsEmpty() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+
+            Throwable thrown = catchThrowable(() -> {
+                contract.CreateAssets(ctx, "[]", true);
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                    .hasMessage("Batch size must be between 1 and 1000");
+            assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("INVALID_BATCH_SIZE".getBytes());
+
+            verifyZeroInteractions(ctx);
+        }
+
+        @Test
+        public void whenBatchIsTooLarge() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+            StringBuilder assetsJSON = new StringBuilder("[{}");
+            for (int i = 0; i < 1000; i++) {
+                assetsJSON.append(",{}");
+            }
+
+            Throwable thrown = catchThrowable(() -> {
+                contract.CreateAssets(ctx, assetsJSON.append(']').toString(), true);
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                    .hasMessage("Batch size must be between 1 and 1000");
+
+            verifyZeroInteractions(ctx);
+        }
+    }
+
     @Nested
     class TransferAssetTransaction {
 
@@ -221,8 +470,8 @@ public final class AssetTransferTest {
             Context ctx = mock(Context.class);
             ChaincodeStub stub = mock(ChaincodeStub.class);
             when(ctx.getStub()).thenReturn(stub);
-            when(stub.getStringState("asset1"))
-                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5, \"owner\": \"Tomoko\", \"appraisedValue\": 300 }");
+            when(stub.getState("asset1"))
+                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5, \"owner\": \"Tomoko\", \"appraisedValue\": 300 }".getBytes());
 
             Asset asset = contract.TransferAsset(ctx, "asset1", "Dr Evil");
 
@@ -235,7 +484,7 @@ public final class AssetTransferTest {
             Context ctx = mock(Context.class);
             ChaincodeStub stub = mock(ChaincodeStub.class);
             when(ctx.getStub()).thenReturn(stub);
-            when(stub.getStringState("asset1")).thenReturn("");
+            when(stub.getState("asset1")).thenReturn("".getBytes());
 
             Throwable thrown = catchThrowable(() -> {
                 contract.TransferAsset(ctx, "asset1", "Dr Evil");
@@ -256,8 +505,8 @@ public final class AssetTransferTest {
             Context ctx = mock(Context.class);
             ChaincodeStub stub = mock(ChaincodeStub.class);
             when(ctx.getStub()).thenReturn(stub);
-            when(stub.getStringState("asset1"))
-                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 45, \"owner\": \"Arturo\", \"appraisedValue\": 60 }");
+            when(stub.getState("asset1"))
+                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 45, \"owner\": \"Arturo\", \"appraisedValue\": 60 }".getBytes());
 
             Asset asset = contract.UpdateAsset(ctx, "asset1", "pink", 45, "Arturo", 600);
 
@@ -270,7 +519,7 @@ public final class AssetTransferTest {
             Context ctx = mock(Context.class);
             ChaincodeStub stub = mock(ChaincodeStub.class);
             when(ctx.getStub()).thenReturn(stub);
-            when(stub.getStringState("asset1")).thenReturn("");
+            when(stub.getState("asset1")).thenReturn("".getBytes());
 
             Throwable thrown = catchThrowable(() -> {
                 contract.TransferAsset(ctx, "asset1", "Alex");
@@ -291,7 +540,7 @@ public final class AssetTransferTest {
             Context ctx = mock(Context.class);
             ChaincodeStub stub = mock(ChaincodeStub.class);
             when(ctx.getStub()).thenReturn(stub);
-            when(stub.getStringState("asset1")).thenReturn("");
+            when(stub.getState("asset1")).thenReturn("".getBytes());
 
             Throwable thrown = catchThrowable(() -> {
                 contract.DeleteAsset(ctx, "asset1");
@@ -302,4 +551,220 @@ public final class AssetTransferTest {
             assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("ASSET_NOT_FOUND".getBytes());
         }
     }
+
+    @Nested
+    class BinaryAssetFormat {
+
+        @Test
+        public void writesBinaryAssets() {
+            AssetTransfer contract = new AssetTransfer(AssetFormat.BINARY);
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            when(stub.getState("asset1"))
+                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5, \"owner\": \"Tomoko\", \"appraisedValue\": 300 }".getBytes());
+
+            Asset asset = contract.TransferAsset(ctx, "asset1", "Dr Evil");
+
+            verify(stub).putState("asset1", BinaryAssetCodec.encode(asset));
+        }
+
+        @Test
+        public void readsBinaryAssets() {
+            AssetTransfer contract = new AssetTransfer(AssetFormat.JSON);
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            when(stub.getState("asset1")).thenReturn(BinaryAssetCodec.encode(new Asset("asset1", "blue", 5, "Tomoko", 300)));
+
+            Asset asset = contract.ReadAsset(ctx, "asset1");
+
+            assertThat(asset).isEqualTo(new Asset("asset1", "blue", 5, "Tomoko", 300));
+        }
+
+        @Test
+        public void returnsJSONForMixedFormats() {
+            AssetTransfer contract = new AssetTransfer(AssetFormat.BINARY);
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            QueryResultsIterator<KeyValue> results = new QueryResultsIterator<KeyValue>() {
+                private final List<KeyValue> values = Arrays.asList(
+                        new BinaryKeyValue("asset1", BinaryAssetCodec.encode(new Asset("asset1", "blue", 5, "Tomoko", 300))),
+                        new MockKeyValue("asset2", "{\"assetID\":\"asset2\",\"color\":\"red\",\"size\":5,"
+                                + "\"owner\":\"Brad\",\"appraisedValue\":400}"));
+
+                @Override
+                public Iterator<KeyValue> iterator() {
+                    return values.iterator();
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+            when(stub.getStateByRange("", "")).thenReturn(results);
+
+            String assets = contract.GetAllAssets(ctx);
+
+            assertThat(assets).isEqualTo("[{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Tomoko\",\"size\":5},"
+                    + "{\"appraisedValue\":400,\"assetID\":\"asset2\",\"color\":\"red\",\"owner\":\"Brad\",\"size\":5}]");
+        }
+    }
+
+    @Nested
+    class OwnerIndex {
+
+        private final AssetTransfer contract = new AssetTransfer(AssetFormat.JSON);
+        private final InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+
+        private void run(final String function, final Consumer<Context> transaction) {
+            stub.beginTransaction(function);
+            transaction.accept(contract.createContext(stub));
+            stub.commit();
+        }
+
+        private String getAssetsByOwner(final String owner) throws Exception {
+            stub.beginTransaction("GetAssetsByOwner", owner);
+            return contract.GetAssetsByOwner(contract.createContext(stub), owner);
+        }
+
+        @Test
+        public void findsAssetsOfOwner() throws Exception {
+            run("InitLedger", contract::InitLedger);
+            run("CreateAssets", ctx -> contract.CreateAssets(ctx,
+                    "[{\"assetID\":\"asset7\",\"color\":\"pink\",\"size\":2,\"owner\":\"Tomoko\",\"appraisedValue\":90},"
+                    + "{\"assetID\":\"asset8\"}]", false));
+
+            assertThat(getAssetsByOwner("Tomoko"))
+                    .isEqualTo("[{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Tomoko\",\"size\":5},"
+                    + "{\"appraisedValue\":90,\"assetID\":\"asset7\",\"color\":\"pink\",\"owner\":\"Tomoko\",\"size\":2}]");
+            assertThat(getAssetsByOwner("Tom")).isEqualTo("[]");
+            assertThat(getAssetsByOwner("Nobody")).isEqualTo("[]");
+        }
+
+        @Test
+        public void followsTransfersUpdatesAndDeletes() throws Exception {
+            run("InitLedger", contract::InitLedger);
+            run("TransferAsset", ctx -> contract.TransferAsset(ctx, "asset1", "Brad"));
+            run("UpdateAsset", ctx -> contract.UpdateAsset(ctx, "asset3", "green", 10, "Brad", 550));
+            run("DeleteAsset", ctx -> contract.DeleteAsset(ctx, "asset2"));
+
+            assertThat(getAssetsByOwner("Brad"))
+                    .isEqualTo("[{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Brad\",\"size\":5},"
+                    + "{\"appraisedValue\":550,\"assetID\":\"asset3\",\"color\":\"green\",\"owner\":\"Brad\",\"size\":10}]");
+            assertThat(getAssetsByOwner("Tomoko")).isEqualTo("[]");
+            assertThat(getAssetsByOwner("Jin Soo")).isEqualTo("[]");
+        }
+
+        @Test
+        public void doesNotRewriteEntryWhenOwnerIsUnchanged() {
+            run("InitLedger", contract::InitLedger);
+
+            stub.beginTransaction("UpdateAsset");
+            contract.UpdateAsset(contract.createContext(stub), "asset1", "pink", 5, "Tomoko", 350);
+
+            assertThat(stub.getWriteSet()).containsOnlyKeys("asset1");
+        }
+
+        @Test
+        public void skipsEntriesWithoutAsset() throws Exception {
+            stub.beginTransaction("Index");
+            stub.putState(ownerIndexKey("Tomoko", "asset1"), new byte[] {0});
+            stub.commit();
+
+            assertThat(getAssetsByOwner("Tomoko")).isEqualTo("[]");
+        }
+
+        @Test
+        public void indexesAssetsCreatedBeforeTheIndexInBatches() throws Exception {
+            stub.beginTransaction("Unindexed");
+            stub.putState("asset1", AssetFormat.JSON.encode(new Asset("asset1", "blue", 5, "Tomoko", 300)));
+            stub.putState("asset2", AssetFormat.BINARY.encode(new Asset("asset2", "red", 5, "Tomoko", 400)));
+            stub.putState("asset3", AssetFormat.JSON.encode(new Asset("asset3", "green", 10, null, 500)));
+            stub.commit();
+
+            assertThat(getAssetsByOwner("Tomoko")).isEqualTo("[]");
+
+            stub.beginTransaction("IndexAssetsByOwner", "", "2");
+            assertThat(contract.IndexAssetsByOwner(contract.createContext(stub), "", 2)).isEqualTo("asset3");
+            assertThat(stub.getWriteSet()).containsOnlyKeys(ownerIndexKey("Tomoko", "asset1"),
+                    ownerIndexKey("Tomoko", "asset2"));
+            stub.commit();
+
+            stub.beginTransaction("IndexAssetsByOwner", "asset3", "2");
+            assertThat(contract.IndexAssetsByOwner(contract.createContext(stub), "asset3", 2)).isEmpty();
+            assertThat(stub.getWriteSet()).isEmpty();
+            stub.commit();
+
+            assertThat(getAssetsByOwner("Tomoko"))
+                    .isEqualTo("[{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Tomoko\",\"size\":5},"
+                    + "{\"appraisedValue\":400,\"assetID\":\"asset2\",\"color\":\"red\",\"owner\":\"Tomoko\",\"size\":5}]");
+        }
+
+        @Test
+        public void indexingAgainLeavesTheIndexUnchanged() throws Exception {
+            run("InitLedger", contract::InitLedger);
+            run("TransferAsset", ctx -> contract.TransferAsset(ctx, "asset1", "Brad"));
+
+            stub.beginTransaction("IndexAssetsByOwner", "", "1000");
+            assertThat(contract.IndexAssetsByOwner(contract.createContext(stub), "", 1000)).isEmpty();
+            stub.commit();
+
+            assertThat(getAssetsByOwner("Tomoko")).isEqualTo("[]");
+            assertThat(getAssetsByOwner("Brad")).contains("\"assetID\":\"asset1\"", "\"assetID\":\"asset2\"");
+        }
+
+        @Test
+        public void rejectsInvalidIndexBatchSize() {
+            for (int batchSize : new int[] {0, 1001}) {
+                stub.beginTransaction("IndexAssetsByOwner");
+                Throwable thrown = catchThrowable(() -> {
+                    contract.IndexAssetsByOwner(contract.createContext(stub), "", batchSize);
+                });
+
+                assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                        .hasMessage("Batch size must be between 1 and 1000");
+                assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("INVALID_BATCH_SIZE".getBytes());
+            }
+        }
+    }
+
+    @Nested
+    class StateCacheTransactions {
+
+        @Test
+        public void readsEachKeyOnceWithAssetTransferContext() {
+            AssetTransfer contract = new AssetTransfer();
+            AssetTransferContext ctx = mock(AssetTransferContext.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            when(ctx.getStateCache()).thenReturn(new StateCache(stub));
+            when(stub.getState("asset1"))
+                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5, \"owner\": \"Tomoko\", \"appraisedValue\": 300 }".getBytes());
+
+            assertThat(contract.AssetExists(ctx, "asset1")).isTrue();
+            Asset asset = contract.TransferAsset(ctx, "asset1", "Dr Evil");
+            contract.DeleteAsset(ctx, "asset1");
+
+            assertThat(asset).isEqualTo(new Asset("asset1", "blue", 5, "Dr Evil", 300));
+            verify(stub, times(1)).getState("asset1");
+            verify(stub).delState("asset1");
+        }
+
+        @Test
+        public void readsCommittedStateAfterWrite() {
+            AssetTransfer contract = new AssetTransfer();
+            AssetTransferContext ctx = mock(AssetTransferContext.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            when(ctx.getStateCache()).thenReturn(new StateCache(stub));
+            when(stub.getState("asset1")).thenReturn("".getBytes());
+
+            contract.CreateAsset(ctx, "asset1", "blue", 5, "Tomoko", 300);
+
+            assertThat(contract.AssetExists(ctx, "asset1")).isFalse();
+            verify(stub, times(1)).getState("asset1");
+        }
+    }
 }
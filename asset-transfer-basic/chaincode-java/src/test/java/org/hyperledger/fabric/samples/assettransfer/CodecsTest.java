@@ -0,0 +1,179 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.owlike.genson.Genson;
+
+public final class CodecsTest {
+
+    private final Genson genson = new Genson();
+
+    @Test
+    public void returnsRegisteredCodec() {
+        assertThat(Codecs.forType(Asset.class)).isSameAs(Codecs.ASSET);
+    }
+
+    @Test
+    public void rejectsUnregisteredType() {
+        Throwable thrown = catchThrowable(() -> {
+            Codecs.forType(String.class);
+        });
+
+        assertThat(thrown).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("No codec registered for java.lang.String");
+    }
+
+    @Nested
+    class AssetEncoding {
+
+        @Test
+        public void matchesGenson() {
+            Asset asset = new Asset("asset1", "blue", 5, "Tomoko", 300);
+
+            assertThat(Codecs.ASSET.encode(asset)).isEqualTo(genson.serialize(asset));
+        }
+
+        @Test
+        public void escapesLikeGenson() {
+            Asset asset = new Asset("asset\"1\\", "b\b\f\n\r\t\u0001", -5, "Siobhán\u2028\u2029/", -300);
+
+            assertThat(Codecs.ASSET.encode(asset)).isEqualTo(genson.serialize(asset));
+        }
+
+        @Test
+        public void writesNullsLikeGenson() {
+            Asset asset = new Asset("asset1", null, 5, null, 300);
+
+            assertThat(Codecs.ASSET.encode(asset)).isEqualTo(genson.serialize(asset));
+        }
+    }
+
+    @Nested
+    class AssetDecoding {
+
+        @Test
+        public void readsFieldsInAnyOrder() {
+            Asset asset = Codecs.ASSET.decode(
+                    " { \"owner\" : \"Tomoko\", \"size\": 5, \"assetID\": \"asset1\", \"appraisedValue\": 300, \"color\": \"blue\" } ");
+
+            assertThat(asset).isEqualTo(new Asset("asset1", "blue", 5, "Tomoko", 300));
+        }
+
+        @Test
+        public void roundTripsEscapedStrings() {
+            Asset asset = new Asset("asset\"1\\", "b\b\f\n\r\t\u0001", -5, "Siobhán\u2028\u2029", -300);
+
+            assertThat(Codecs.ASSET.decode(Codecs.ASSET.encode(asset))).isEqualTo(asset);
+        }
+
+        @Test
+        public void readsEscapedSolidus() {
+            Asset asset = Codecs.ASSET.decode("{\"assetID\":\"a\\/b\\u00e1\"}");
+
+            assertThat(asset.getAssetID()).isEqualTo("a/bá");
+        }
+
+        @Test
+        public void ignoresUnknownFields() {
+            Asset asset = Codecs.ASSET.decode("{\"docType\":\"asset\",\"assetID\":\"asset1\",\"extra\":{\"a\":[1,\"]}\",{}]},"
+                    + "\"flag\":true,\"ratio\":1.5,\"none\":null,\"size\":5}");
+
+            assertThat(asset).isEqualTo(new Asset("asset1", null, 5, null, 0));
+        }
+
+        @Test
+        public void readsNulls() {
+            Asset asset = Codecs.ASSET.decode("{\"assetID\":\"asset1\",\"color\":null,\"owner\":null}");
+
+            assertThat(asset).isEqualTo(new Asset("asset1", null, 0, null, 0));
+        }
+
+        @Test
+        public void readsEmptyObject() {
+            assertThat(Codecs.ASSET.decode("{}")).isEqualTo(new Asset(null, null, 0, null, 0));
+        }
+
+        @Test
+        public void rejectsMalformedDocuments() {
+            String[] malformed = {
+                "",
+                "[]",
+                "{\"assetID\" \"asset1\"}",
+                "{\"assetID\":\"asset1\" \"size\":5}",
+                "{\"assetID\":\"asset1",
+                "{\"assetID\":\"asset1\\",
+                "{\"assetID\":\"\\u0",
+                "{\"assetID\":\"\\u00\"}",
+                "{\"assetID\":\"\\u00zz\"}",
+                "{\"assetID\":nul}",
+                "{\"size\":\"5\"}",
+                "{\"size\":}",
+                "{} {}",
+            };
+
+            for (String json : malformed) {
+                Throwable thrown = catchThrowable(() -> {
+                    Codecs.ASSET.decode(json);
+                });
+
+                assertThat(thrown).as(json).isInstanceOf(IllegalArgumentException.class);
+            }
+        }
+    }
+
+    @Nested
+    class AssetListCodec {
+
+        @Test
+        public void matchesGenson() {
+            Asset[] assets = {new Asset("asset1", "blue", 5, "Tomoko", 300), new Asset("asset2", null, 5, "Brad", 400)};
+
+            assertThat(Codecs.ASSET_LIST.encode(Arrays.asList(assets))).isEqualTo(genson.serialize(assets));
+        }
+
+        @Test
+        public void roundTrips() {
+            Asset[] assets = {new Asset("asset1", "blue", 5, "Tomoko", 300), new Asset("asset2", null, 5, "Brad", 400)};
+
+            assertThat(Codecs.ASSET_LIST.decode(Codecs.ASSET_LIST.encode(Arrays.asList(assets)))).containsExactly(assets);
+        }
+
+        @Test
+        public void readsEmptyArray() {
+            assertThat(Codecs.ASSET_LIST.decode(" [ ] ")).isEmpty();
+            assertThat(Codecs.ASSET_LIST.encode(Collections.emptyList())).isEqualTo("[]");
+        }
+
+        @Test
+        public void rejectsMalformedArrays() {
+            String[] malformed = {
+                "{}",
+                "[",
+                "[{}",
+                "[{} {}]",
+                "[{},]",
+                "[1]",
+                "[{}] []",
+            };
+
+            for (String json : malformed) {
+                Throwable thrown = catchThrowable(() -> {
+                    Codecs.ASSET_LIST.decode(json);
+                });
+
+                assertThat(thrown).as(json).isInstanceOf(IllegalArgumentException.class);
+            }
+        }
+    }
+}
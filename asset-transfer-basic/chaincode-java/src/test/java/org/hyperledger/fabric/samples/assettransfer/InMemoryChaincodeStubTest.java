@@ -0,0 +1,519 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.protos.common.ChannelHeader;
+import org.hyperledger.fabric.protos.common.Header;
+import org.hyperledger.fabric.protos.peer.ChaincodeInvocationSpec;
+import org.hyperledger.fabric.protos.peer.ChaincodeProposalPayload;
+import org.hyperledger.fabric.protos.peer.Proposal;
+import org.hyperledger.fabric.samples.testing.InMemoryChaincodeStub;
+import org.hyperledger.fabric.shim.Chaincode.Response;
+import org.hyperledger.fabric.shim.ResponseUtils;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public final class InMemoryChaincodeStubTest {
+
+    private static final int PAGE_SIZE = 3;
+
+    private static List<String> keys(final Iterable<KeyValue> results) {
+        List<String> keys = new ArrayList<>();
+        for (KeyValue result : results) {
+            keys.add(result.getKey());
+        }
+        return keys;
+    }
+
+    private static byte[] bytes(final String value) {
+        return value.getBytes(UTF_8);
+    }
+
+    @Nested
+    class Transactions {
+
+        @Test
+        public void readsCommittedStateOnly() {
+            InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+            stub.beginTransaction("create");
+            stub.putStringState("CAR0", "a");
+
+            assertThat(stub.getStringState("CAR0")).isEmpty();
+            assertThat(stub.getWriteSet()).containsOnlyKeys("CAR0");
+
+            stub.commit();
+
+            assertThat(stub.getStringState("CAR0")).isEqualTo("a");
+            assertThat(stub.getWriteSet()).isEmpty();
+        }
+
+        @Test
+        public void discardsWritesOnRollback() {
+            InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+            stub.beginTransaction("create");
+            stub.putStringState("CAR0", "a");
+            stub.rollback();
+            stub.commit();
+
+            assertThat(stub.getState("CAR0")).isEmpty();
+        }
+
+        @Test
+        public void capturesReadAndWriteSets() {
+            InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+            stub.beginTransaction("create");
+            stub.putStringState("CAR0", "a");
+            stub.commit();
+
+            stub.beginTransaction("update", "CAR0");
+            stub.getState("CAR0");
+            stub.getState("CAR1");
+            stub.putStringState("CAR1", "b");
+            stub.delState("CAR0");
+
+            assertThat(stub.getReadSet()).containsExactly("CAR0", "CAR1");
+            assertThat(stub.getWriteSet()).containsOnlyKeys("CAR1", "CAR0").containsEntry("CAR0", null);
+
+            stub.commit();
+
+            assertThat(stub.getState("CAR0")).isEmpty();
+            assertThat(stub.getStringState("CAR1")).isEqualTo("b");
+        }
+
+        @Test
+        public void describesTheTransaction() {
+            InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+            stub.beginTransaction("changeCarOwner", "CAR0", "Dave");
+            stub.setTransient(Collections.singletonMap("key", bytes("value")));
+
+            assertThat(stub.getTxId()).isEqualTo("tx1");
+            assertThat(stub.getTxTimestamp()).isNotNull();
+            assertThat(stub.getChannelId()).isEqualTo("mychannel");
+            assertThat(stub.getFunction()).isEqualTo("changeCarOwner");
+            assertThat(stub.getParameters()).containsExactly("CAR0", "Dave");
+            assertThat(stub.getStringArgs()).containsExactly("changeCarOwner", "CAR0", "Dave");
+            assertThat(stub.getTransient()).containsOnlyKeys("key");
+
+            stub.commit();
+
+            assertThat(stub.getTransient()).isEmpty();
+        }
+
+        @Test
+        public void capturesKeysReadByQueries() {
+            InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+            stub.beginTransaction("create");
+            stub.putStringState("CAR0", "a");
+            stub.putStringState("CAR1", "b");
+            stub.putStringState(stub.createCompositeKey("owner~key", "Tom", "CAR0").toString(), "");
+            stub.commit();
+
+            stub.beginTransaction("query");
+            stub.getStateByRange("", "").forEach(result -> { });
+            stub.getStateByPartialCompositeKey("owner~key", "Tom").forEach(result -> { });
+            stub.getQueryResult("{\"selector\":{}}").forEach(result -> { });
+
+            assertThat(stub.getReadSet()).containsExactly("CAR0", "CAR1",
+                    stub.createCompositeKey("owner~key", "Tom", "CAR0").toString());
+
+            stub.beginTransaction("page");
+            keys(stub.getStateByRangeWithPagination("", "", 1, ""));
+
+            assertThat(stub.getReadSet()).containsExactly("CAR0");
+        }
+
+        @Test
+        public void rejectsEmptyKeys() {
+            InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+
+            Throwable thrown = catchThrowable(() -> {
+                stub.putState("", bytes("a"));
+            });
+
+            assertThat(thrown).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    class Queries {
+
+        private final InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+
+        Queries() {
+            stub.beginTransaction("load");
+            for (String key : new String[] {"CAR0", "CAR1", "CAR2", "CAR3"}) {
+                stub.putStringState(key, key);
+            }
+            stub.putStringState(stub.createCompositeKey("owner~key", "Tom", "CAR0").toString(), "");
+            stub.putStringState(stub.createCompositeKey("owner~key", "Tom", "CAR2").toString(), "");
+            stub.putStringState(stub.createCompositeKey("owner~key", "Tomoko", "CAR1").toString(), "");
+            stub.commit();
+        }
+
+        @Test
+        public void excludesCompositeKeysFromRanges() {
+            assertThat(keys(stub.getStateByRange("", ""))).containsExactly("CAR0", "CAR1", "CAR2", "CAR3");
+            assertThat(keys(stub.getStateByRange("CAR1", "CAR3"))).containsExactly("CAR1", "CAR2");
+        }
+
+        @Test
+        public void pagesThroughRanges() throws Exception {
+            try (QueryResultsIteratorWithMetadata<KeyValue> page =
+                    stub.getStateByRangeWithPagination("", "", PAGE_SIZE, "")) {
+                assertThat(keys(page)).containsExactly("CAR0", "CAR1", "CAR2");
+                assertThat(page.getMetadata().getFetchedRecordsCount()).isEqualTo(PAGE_SIZE);
+                assertThat(page.getMetadata().getBookmark()).isEqualTo("CAR3");
+            }
+
+            QueryResultsIteratorWithMetadata<KeyValue> last =
+                    stub.getStateByRangeWithPagination("", "", PAGE_SIZE, "CAR3");
+            assertThat(keys(last)).containsExactly("CAR3");
+            assertThat(last.getMetadata().getBookmark()).isEmpty();
+        }
+
+        @Test
+        public void matchesWholeCompositeKeyAttributes() {
+            CompositeKey tom = stub.createCompositeKey("owner~key", "Tom");
+
+            List<String> cars = new ArrayList<>();
+            for (KeyValue result : stub.getStateByPartialCompositeKey(tom)) {
+                cars.add(stub.splitCompositeKey(result.getKey()).getAttributes().get(1));
+            }
+
+            assertThat(cars).containsExactly("CAR0", "CAR2");
+            assertThat(keys(stub.getStateByPartialCompositeKey("owner~key", "Tomoko"))).hasSize(1);
+            assertThat(keys(stub.getStateByPartialCompositeKey("owner~key"))).hasSize(cars.size() + 1);
+            assertThat(keys(stub.getStateByPartialCompositeKey(tom.toString()))).hasSize(2);
+        }
+
+        @Test
+        public void pagesThroughCompositeKeys() {
+            CompositeKey owners = stub.createCompositeKey("owner~key");
+
+            QueryResultsIteratorWithMetadata<KeyValue> page =
+                    stub.getStateByPartialCompositeKeyWithPagination(owners, 2, "");
+            assertThat(keys(page)).hasSize(2);
+
+            page = stub.getStateByPartialCompositeKeyWithPagination(owners, 2, page.getMetadata().getBookmark());
+            assertThat(keys(page)).hasSize(1);
+            assertThat(page.getMetadata().getBookmark()).isEmpty();
+        }
+
+        @Test
+        public void recordsHistory() {
+            stub.beginTransaction("delete");
+            stub.delState("CAR0");
+            stub.commit();
+
+            List<KeyModification> history = new ArrayList<>();
+            stub.getHistoryForKey("CAR0").forEach(history::add);
+
+            assertThat(history).hasSize(2);
+            assertThat(history.get(0).getStringValue()).isEqualTo("CAR0");
+            assertThat(history.get(0).getTxId()).isEqualTo("tx1");
+            assertThat(history.get(1).isDeleted()).isTrue();
+            assertThat(history.get(1).getTxId()).isEqualTo("tx2");
+        }
+
+        @Test
+        public void rejectsHistoryWhenNotRecorded() {
+            Throwable thrown = catchThrowable(() -> {
+                new InMemoryChaincodeStub(false).getHistoryForKey("CAR0");
+            });
+
+            assertThat(thrown).isInstanceOf(UnsupportedOperationException.class);
+        }
+    }
+
+    @Nested
+    class RichQueries {
+
+        private final InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+
+        RichQueries() {
+            stub.beginTransaction("load");
+            stub.putStringState("CAR0", "{\"owner\":\"Tom\",\"size\":5,\"paint\":{\"color\":\"blue\"}}");
+            stub.putStringState("CAR1", "{\"owner\":\"Tomoko\",\"size\":15,\"paint\":{\"color\":\"red\"}}");
+            stub.putStringState("CAR2", "{\"owner\":\"Tom\",\"size\":10.0,\"sold\":true,\"tags\":[\"a\"]}");
+            stub.putStringState("CAR3", "{\"owner\":null,\"size\":\"large\"}");
+            stub.putStringState(stub.createCompositeKey("owner~key", "Tom", "CAR0").toString(), "\u0000");
+            stub.commit();
+        }
+
+        private List<String> query(final String selector) {
+            return keys(stub.getQueryResult("{\"selector\":" + selector + ",\"use_index\":\"ownerIndex\"}"));
+        }
+
+        @Test
+        public void matchesFieldValues() {
+            assertThat(query("{}")).containsExactly("CAR0", "CAR1", "CAR2", "CAR3");
+            assertThat(query("{\"owner\":\"Tom\"}")).containsExactly("CAR0", "CAR2");
+            assertThat(query("{\"owner\":null}")).containsExactly("CAR3");
+            assertThat(query("{\"size\":10}")).containsExactly("CAR2");
+            assertThat(query("{\"paint.color\":\"red\"}")).containsExactly("CAR1");
+            assertThat(query("{\"paint\":{\"color\":\"blue\"}}")).containsExactly("CAR0");
+            assertThat(query("{\"owner\":\"Tom\",\"sold\":true}")).containsExactly("CAR2");
+            assertThat(query("{\"tags\":[\"a\"]}")).containsExactly("CAR2");
+        }
+
+        @Test
+        public void comparesInCollationOrder() {
+            assertThat(query("{\"size\":{\"$gt\":5}}")).containsExactly("CAR1", "CAR2", "CAR3");
+            assertThat(query("{\"size\":{\"$gte\":5,\"$lt\":15}}")).containsExactly("CAR0", "CAR2");
+            assertThat(query("{\"size\":{\"$lte\":10}}")).containsExactly("CAR0", "CAR2");
+            assertThat(query("{\"owner\":{\"$ne\":\"Tom\"}}")).containsExactly("CAR1", "CAR3");
+            assertThat(query("{\"owner\":{\"$gt\":null}}")).containsExactly("CAR0", "CAR1", "CAR2");
+            assertThat(query("{\"sold\":{\"$eq\":true}}")).containsExactly("CAR2");
+            assertThat(query("{\"tags\":{\"$gt\":[]}}")).containsExactly("CAR2");
+            assertThat(query("{\"paint\":{\"$gt\":{\"color\":\"green\"}}}")).containsExactly("CAR1");
+        }
+
+        @Test
+        public void combinesConditions() {
+            assertThat(query("{\"sold\":{\"$exists\":true}}")).containsExactly("CAR2");
+            assertThat(query("{\"sold\":{\"$exists\":false}}")).containsExactly("CAR0", "CAR1", "CAR3");
+            assertThat(query("{\"owner\":{\"$in\":[\"Tomoko\",null]}}")).containsExactly("CAR1", "CAR3");
+            assertThat(query("{\"owner\":{\"$nin\":[\"Tomoko\",null]}}")).containsExactly("CAR0", "CAR2");
+            assertThat(query("{\"$or\":[{\"size\":5},{\"owner\":\"Tomoko\"}]}")).containsExactly("CAR0", "CAR1");
+            assertThat(query("{\"$and\":[{\"owner\":\"Tom\"},{\"size\":5}]}")).containsExactly("CAR0");
+            assertThat(query("{\"$nor\":[{\"owner\":\"Tom\"}]}")).containsExactly("CAR1", "CAR3");
+            assertThat(query("{\"$not\":{\"owner\":\"Tom\"}}")).containsExactly("CAR1", "CAR3");
+        }
+
+        @Test
+        public void pagesWithTheNextKeyAsBookmark() {
+            String query = "{\"selector\":{\"owner\":{\"$exists\":true}}}";
+
+            QueryResultsIteratorWithMetadata<KeyValue> page = stub.getQueryResultWithPagination(query, 2, "");
+            assertThat(keys(page)).containsExactly("CAR0", "CAR1");
+            assertThat(page.getMetadata().getBookmark()).isEqualTo("CAR2");
+
+            page = stub.getQueryResultWithPagination(query, 2, page.getMetadata().getBookmark());
+            assertThat(keys(page)).containsExactly("CAR2", "CAR3");
+            assertThat(page.getMetadata().getBookmark()).isEmpty();
+        }
+
+        @Test
+        public void queriesPrivateDataCollections() {
+            stub.beginTransaction("load");
+            stub.putPrivateData("assetCollection", "CAR0", "{\"owner\":\"Tom\",\"size\":5}");
+            stub.commit();
+
+            assertThat(keys(stub.getPrivateDataQueryResult("assetCollection", "{\"selector\":{\"size\":5}}")))
+                    .containsExactly("CAR0");
+            assertThat(stub.getPrivateReadSet("assetCollection")).isEmpty();
+        }
+
+        @Test
+        public void rejectsWhatIsNotSimulated() {
+            assertThat(catchThrowable(() -> stub.getQueryResult("{\"selector\":{},\"sort\":[\"size\"]}")))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Query field sort is not simulated");
+            assertThat(catchThrowable(() -> query("{\"owner\":{\"$regex\":\"^T\"}}")))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Selector operator $regex is not simulated");
+            assertThat(catchThrowable(() -> query("{\"$text\":\"Tom\"}")))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThat(catchThrowable(() -> query("{\"$or\":{}}")))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThat(catchThrowable(() -> stub.getQueryResult("{\"use_index\":\"ownerIndex\"}")))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThat(catchThrowable(() -> stub.getQueryResult("[]")))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        public void rejectsInvalidJson() {
+            for (String query : new String[] {"", "{", "{\"selector\":{}", "{\"selector\":{}}x", "{selector:{}}",
+                    "{\"selector\" {}}", "{\"selector\":{\"a\":tru}}", "{\"selector\":{\"a\":-}}",
+                    "{\"selector\":{\"a\":\"\\x\"}}", "{\"selector\":{\"a\":\"\\u12\"}}",
+                    "{\"selector\":{\"a\":\"b}}", "{\"selector\":{\"a\":[1,2}}", "{\"selector\":{\"a\":}}"}) {
+                assertThat(catchThrowable(() -> stub.getQueryResult(query))).as(query)
+                        .isInstanceOf(IllegalArgumentException.class);
+            }
+        }
+
+        @Test
+        public void parsesEscapedStrings() {
+            stub.beginTransaction("load");
+            stub.putStringState("CAR4", "{\"owner\":\"\\\"T\\\\o\\/m\\b\\f\\n\\r\\t\\u00e9\", \"size\" : [ ] }");
+            stub.commit();
+
+            assertThat(query("{\"owner\":\"\\\"T\\\\o/m\\b\\f\\n\\r\\t\u00e9\"}")).containsExactly("CAR4");
+        }
+    }
+
+    @Nested
+    class PrivateData {
+
+        @Test
+        public void keepsCollectionsSeparate() throws Exception {
+            InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+            stub.beginTransaction("create");
+            stub.putPrivateData("Org1MSPPrivateCollection", "CAR0", bytes("secret"));
+            stub.putPrivateData("assetCollection", "CAR0", "public");
+
+            assertThat(stub.getPrivateData("assetCollection", "CAR0")).isEmpty();
+            assertThat(stub.getPrivateWriteSet("assetCollection")).containsOnlyKeys("CAR0");
+
+            stub.commit();
+
+            assertThat(stub.getPrivateDataUTF8("assetCollection", "CAR0")).isEqualTo("public");
+            assertThat(stub.getPrivateDataUTF8("Org1MSPPrivateCollection", "CAR0")).isEqualTo("secret");
+            assertThat(stub.getState("CAR0")).isEmpty();
+            assertThat(stub.getPrivateDataHash("Org1MSPPrivateCollection", "CAR0"))
+                    .isEqualTo(MessageDigest.getInstance("SHA-256").digest(bytes("secret")));
+            assertThat(keys(stub.getPrivateDataByRange("assetCollection", "", ""))).containsExactly("CAR0");
+        }
+
+        @Test
+        public void deletesPrivateData() {
+            InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+            stub.beginTransaction("create");
+            stub.putPrivateData("assetCollection", "CAR0", "public");
+            stub.commit();
+
+            stub.beginTransaction("delete");
+            stub.delPrivateData("assetCollection", "CAR0");
+            stub.commit();
+
+            assertThat(stub.getPrivateData("assetCollection", "CAR0")).isEmpty();
+            assertThat(stub.getPrivateDataHash("assetCollection", "CAR0")).isEmpty();
+        }
+
+        @Test
+        public void capturesPrivateReadSets() {
+            InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+            stub.beginTransaction("create");
+            stub.putPrivateData("assetCollection", "CAR0", "a");
+            stub.putPrivateData("assetCollection", stub.createCompositeKey("owner~key", "Tom", "CAR0").toString(), "");
+            stub.putPrivateData("Org1MSPPrivateCollection", "CAR0", "secret");
+            stub.commit();
+
+            stub.beginTransaction("read");
+            stub.getPrivateData("assetCollection", "CAR1");
+            stub.getPrivateDataByRange("assetCollection", "", "").forEach(result -> { });
+            stub.getPrivateDataByPartialCompositeKey("assetCollection", "owner~key", "Tom").forEach(result -> { });
+            stub.getPrivateDataHash("Org1MSPPrivateCollection", "CAR0");
+
+            assertThat(stub.getPrivateReadSet("assetCollection")).containsExactly("CAR1", "CAR0",
+                    stub.createCompositeKey("owner~key", "Tom", "CAR0").toString());
+            assertThat(stub.getPrivateReadSet("Org1MSPPrivateCollection")).containsExactly("CAR0");
+            assertThat(stub.getReadSet()).isEmpty();
+
+            stub.rollback();
+
+            assertThat(stub.getPrivateReadSet("assetCollection")).isEmpty();
+        }
+    }
+
+    @Nested
+    class Identity {
+
+        @Test
+        public void providesClientIdentityForContext() {
+            InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+            stub.setMspId("Org2MSP");
+
+            Context ctx = new AssetTransfer().createContext(stub);
+
+            assertThat(ctx.getClientIdentity().getMSPID()).isEqualTo("Org2MSP");
+            assertThat(ctx.getClientIdentity().getId()).contains("CN=testuser");
+            assertThat(stub.getMspId()).isEqualTo("Org2MSP");
+        }
+
+        @Test
+        public void emitsEvents() {
+            InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+            stub.beginTransaction("create");
+            stub.setEvent("CreateCar", bytes("CAR0"));
+
+            assertThat(stub.getEvent().getEventName()).isEqualTo("CreateCar");
+            assertThat(stub.getEvent().getTxId()).isEqualTo("tx1");
+            assertThat(stub.getEvent().getPayload().toStringUtf8()).isEqualTo("CAR0");
+        }
+
+        @Test
+        public void buildsUnsignedProposalForTheTransaction() throws Exception {
+            InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+            stub.beginTransaction("ReadAsset", "asset1");
+            stub.setTransient(Collections.singletonMap("key", bytes("value")));
+
+            Proposal proposal = Proposal.parseFrom(stub.getSignedProposal().getProposalBytes());
+            ChannelHeader channelHeader = ChannelHeader.parseFrom(Header.parseFrom(proposal.getHeader())
+                    .getChannelHeader());
+            ChaincodeProposalPayload payload = ChaincodeProposalPayload.parseFrom(proposal.getPayload());
+
+            assertThat(channelHeader.getTxId()).isEqualTo("tx1");
+            assertThat(channelHeader.getChannelId()).isEqualTo("mychannel");
+            assertThat(channelHeader.getTimestamp().getSeconds()).isEqualTo(stub.getTxTimestamp().getEpochSecond());
+            assertThat(ChaincodeInvocationSpec.parseFrom(payload.getInput()).getChaincodeSpec().getInput()
+                    .getArgs(1).toStringUtf8()).isEqualTo("asset1");
+            assertThat(payload.getTransientMapMap()).containsOnlyKeys("key");
+            assertThat(catchThrowable(() -> new InMemoryChaincodeStub().getSignedProposal()))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+
+        @Test
+        public void callsRegisteredChaincodes() {
+            InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+            stub.setChaincode("other", args -> ResponseUtils.newSuccessResponse(args.get(0)));
+
+            Response response = stub.invokeChaincode("other", Collections.singletonList(bytes("ping")), "");
+            Response missing = stub.invokeChaincode("missing", Collections.emptyList(), "");
+
+            assertThat(response.getStatus()).isEqualTo(Response.Status.SUCCESS);
+            assertThat(response.getPayload()).isEqualTo(bytes("ping"));
+            assertThat(missing.getStatus()).isEqualTo(Response.Status.INTERNAL_SERVER_ERROR);
+            assertThat(missing.getMessage()).isEqualTo("chaincode missing not found");
+        }
+    }
+
+    @Nested
+    class Contract {
+
+        @Test
+        public void runsAssetTransferTransactions() {
+            AssetTransfer contract = new AssetTransfer();
+            InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+
+            stub.beginTransaction("InitLedger");
+            contract.InitLedger(contract.createContext(stub));
+            stub.commit();
+
+            stub.beginTransaction("TransferAsset", "asset1", "Dave");
+            Asset asset = contract.TransferAsset(contract.createContext(stub), "asset1", "Dave");
+
+            assertThat(stub.getReadSet()).containsExactly("asset1");
+            assertThat(stub.getWriteSet()).containsOnlyKeys("asset1",
+                    new CompositeKey(AssetTransfer.OWNER_INDEX, "Tomoko", "asset1").toString(),
+                    new CompositeKey(AssetTransfer.OWNER_INDEX, "Dave", "asset1").toString());
+
+            stub.commit();
+
+            stub.beginTransaction("ReadAsset", "asset1");
+            assertThat(contract.ReadAsset(contract.createContext(stub), "asset1")).isEqualTo(asset);
+
+            stub.beginTransaction("GetAllAssets");
+            assertThat(contract.GetAllAssets(contract.createContext(stub)))
+                    .startsWith("[{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\","
+                            + "\"owner\":\"Dave\",\"size\":5}");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.junit.jupiter.api.Test;
+
+public final class StateCacheTest {
+
+    @Test
+    public void readsEachKeyOnce() {
+        ChaincodeStub stub = mock(ChaincodeStub.class);
+        byte[] value = "{}".getBytes();
+        when(stub.getState("asset1")).thenReturn(value);
+        StateCache cache = new StateCache(stub);
+
+        assertThat(cache.getState("asset1")).isSameAs(value);
+        assertThat(cache.getState("asset1")).isSameAs(value);
+
+        verify(stub, times(1)).getState("asset1");
+    }
+
+    @Test
+    public void cachesMissingKeys() {
+        ChaincodeStub stub = mock(ChaincodeStub.class);
+        StateCache cache = new StateCache(stub);
+
+        assertThat(cache.getState("asset1")).isNull();
+        assertThat(cache.getState("asset1")).isNull();
+
+        verify(stub, times(1)).getState("asset1");
+    }
+
+    @Test
+    public void readsKeysIndependently() {
+        ChaincodeStub stub = mock(ChaincodeStub.class);
+        when(stub.getState("asset1")).thenReturn("{\"assetID\":\"asset1\"}".getBytes());
+        when(stub.getState("asset2")).thenReturn(new byte[0]);
+        StateCache cache = new StateCache(stub);
+
+        assertThat(cache.getState("asset1")).isEqualTo("{\"assetID\":\"asset1\"}".getBytes());
+        assertThat(cache.getState("asset2")).isEmpty();
+
+        verify(stub).getState("asset1");
+        verify(stub).getState("asset2");
+    }
+}
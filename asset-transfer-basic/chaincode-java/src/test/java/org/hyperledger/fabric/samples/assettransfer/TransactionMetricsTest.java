@@ -0,0 +1,82 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.samples.metrics.Metrics;
+import org.hyperledger.fabric.samples.metrics.TransactionMetrics;
+import org.hyperledger.fabric.samples.testing.InMemoryChaincodeStub;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.junit.jupiter.api.Test;
+
+public final class TransactionMetricsTest {
+
+    private static final String DURATION = "chaincode_transaction_duration_seconds";
+
+    private final TransactionMetrics metrics = new TransactionMetrics();
+    private final AssetTransfer contract = new AssetTransfer(AssetFormat.JSON);
+    private final InMemoryChaincodeStub ledger = new InMemoryChaincodeStub();
+
+    @Test
+    public void recordsLatencyAndStateAccessPerFunction() {
+        ledger.beginTransaction("CreateAsset");
+        Context ctx = new AssetTransferContext(metrics.meter(ledger));
+        metrics.beforeTransaction(ctx);
+        contract.CreateAsset(ctx, "asset1", "blue", 5, "Tomoko", 300);
+        metrics.afterTransaction(ctx);
+        ledger.commit();
+
+        ledger.beginTransaction("GetAllAssets");
+        ctx = new AssetTransferContext(metrics.meter(ledger));
+        metrics.beforeTransaction(ctx);
+        contract.GetAllAssets(ctx);
+        metrics.afterTransaction(ctx);
+
+        assertThat(metrics.scrape())
+                .contains(DURATION + "_count{function=\"CreateAsset\",outcome=\"success\"} 1\n")
+                .contains(DURATION + "_count{function=\"GetAllAssets\",outcome=\"success\"} 1\n")
+                .contains("chaincode_state_reads_total{function=\"CreateAsset\",outcome=\"success\"} 1\n")
+                .contains("chaincode_state_writes_total{function=\"CreateAsset\",outcome=\"success\"} 2\n")
+                .contains("chaincode_state_write_bytes_total{function=\"CreateAsset\",outcome=\"success\"} 83\n")
+                .contains("chaincode_range_queries_total{function=\"GetAllAssets\",outcome=\"success\"} 1\n")
+                .contains("chaincode_range_query_results_total{function=\"GetAllAssets\",outcome=\"success\"} 1\n")
+                .contains("chaincode_range_query_bytes_total{function=\"GetAllAssets\",outcome=\"success\"} 82\n");
+    }
+
+    @Test
+    public void recordsTransactionsThroughContractHooks() {
+        ledger.beginTransaction("basic:ReadAssetThroughHooks");
+        Context ctx = contract.createContext(ledger);
+        contract.beforeTransaction(ctx);
+        contract.AssetExists(ctx, "asset1");
+        contract.afterTransaction(ctx, Boolean.FALSE);
+
+        assertThat(Metrics.getRegistry().scrape())
+                .contains(DURATION + "_count{function=\"basic:ReadAssetThroughHooks\",outcome=\"success\"} 1\n")
+                .contains("chaincode_state_reads_total{function=\"basic:ReadAssetThroughHooks\",outcome=\"success\"} 1\n");
+    }
+
+    @Test
+    public void recordsFailedTransactionsThroughContractHooks() {
+        ledger.beginTransaction("basic:ReadMissingAssetThroughHooks");
+        Context failed = contract.createContext(ledger);
+        contract.beforeTransaction(failed);
+        catchThrowable(() -> contract.ReadAsset(failed, "missing"));
+
+        ledger.beginTransaction("basic:MadeUpThroughHooks");
+        Context unknown = contract.createContext(ledger);
+        contract.beforeTransaction(unknown);
+        Throwable thrown = catchThrowable(() -> contract.unknownTransaction(unknown));
+
+        assertThat(thrown).isInstanceOf(ChaincodeException.class);
+        assertThat(Metrics.getRegistry().scrape())
+                .contains("chaincode_state_reads_total{function=\"basic:ReadMissingAssetThroughHooks\",outcome=\"failure\"} 1\n")
+                .contains(DURATION + "_count{function=\"(unknown)\",outcome=\"failure\"} ")
+                .doesNotContain("basic:MadeUpThroughHooks");
+    }
+}
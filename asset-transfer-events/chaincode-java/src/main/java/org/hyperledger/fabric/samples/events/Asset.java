@@ -4,8 +4,6 @@
 
 package org.hyperledger.fabric.samples.events;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Objects;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -13,9 +11,6 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import org.hyperledger.fabric.contract.annotation.DataType;
 import org.hyperledger.fabric.contract.annotation.Property;
 
-
-import org.json.JSONObject;
-
 @DataType()
 public final class Asset {
 
@@ -82,20 +77,14 @@ public final class Asset {
 
     // Serialize asset without private properties
     public byte[] serialize() {
-        return serialize(null).getBytes(UTF_8);
+        return Codecs.ASSET.encode(this).getBytes(UTF_8);
     }
 
     public String serialize(final String privateProps) {
-        Map<String, Object> tMap = new HashMap();
-        tMap.put("ID", assetID);
-        tMap.put("Color",  color);
-        tMap.put("Owner",  owner);
-        tMap.put("Size", Integer.toString(size));
-        tMap.put("AppraisedValue", Integer.toString(appraisedValue));
         if (privateProps != null && privateProps.length() > 0) {
-            tMap.put("asset_properties", new JSONObject(privateProps));
+            return Codecs.encode(this, privateProps);
         }
-        return new JSONObject(tMap).toString();
+        return Codecs.ASSET.encode(this);
     }
 
     public static Asset deserialize(final byte[] assetJSON) {
@@ -103,23 +92,7 @@ public final class Asset {
     }
 
     public static Asset deserialize(final String assetJSON) {
-
-        JSONObject json = new JSONObject(assetJSON);
-        Map<String, Object> tMap = json.toMap();
-        final String id = (String) tMap.get("ID");
-
-        final String color = (String) tMap.get("Color");
-        final String owner = (String) tMap.get("Owner");
-        int size = 0;
-        int appraisedValue = 0;
-        if (tMap.containsKey("Size")) {
-            size = Integer.parseInt((String) tMap.get("Size"));
-        }
-        if (tMap.containsKey("AppraisedValue")) {
-            appraisedValue = Integer.parseInt((String) tMap.get("AppraisedValue"));
-        }
-        return new Asset(id, color, size, owner, appraisedValue);
-
+        return Codecs.ASSET.decode(assetJSON);
     }
 
     @Override
@@ -14,10 +14,15 @@ import org.hyperledger.fabric.contract.annotation.Default;
 import org.hyperledger.fabric.contract.annotation.Info;
 import org.hyperledger.fabric.contract.annotation.License;
 import org.hyperledger.fabric.contract.annotation.Transaction;
+import org.hyperledger.fabric.samples.logging.Logging;
+import org.hyperledger.fabric.samples.metrics.MeteredSerializer;
+import org.hyperledger.fabric.samples.metrics.Metrics;
+import org.hyperledger.fabric.samples.metrics.TransactionMetrics;
 import org.hyperledger.fabric.shim.ChaincodeException;
 import org.hyperledger.fabric.shim.ChaincodeStub;
 
 import java.util.Map;
+import java.util.logging.Logger;
 
 /**
  * Main Chaincode class.
@@ -41,13 +46,70 @@ import java.util.Map;
                 contact = @Contact(
                         email = "a.transfer@example.com",
                         name = "Fabric Development Team",
-                        url = "https://hyperledger.example.com")))
+                        url = "https://hyperledger.example.com")),
+        transactionSerializer = MeteredSerializer.NAME)
 @Default
 public final class AssetTransfer implements ContractInterface {
 
+    private static final Logger LOG = Logging.getLogger(AssetTransfer.class);
+
+    private static final TransactionMetrics METRICS = Metrics.getRegistry();
+
     static final String IMPLICIT_COLLECTION_NAME_PREFIX = "_implicit_org_";
     static final String PRIVATE_PROPS_KEY = "asset_properties";
 
+    /**
+     * Creates the contract and starts serving the chaincode metrics. The shim creates each
+     * contract once, when the chaincode starts.
+     */
+    public AssetTransfer() {
+        Metrics.start();
+    }
+
+    /**
+     * Creates a context whose stub counts the state the transaction reads and writes.
+     *
+     * @param stub the stub for the transaction
+     * @return the transaction context
+     */
+    @Override
+    public Context createContext(final ChaincodeStub stub) {
+        return new Context(METRICS.meter(stub));
+    }
+
+    /**
+     * Starts timing the transaction, and records a transaction that threw before it on this
+     * thread as failed.
+     *
+     * @param ctx the transaction context
+     */
+    @Override
+    public void beforeTransaction(final Context ctx) {
+        METRICS.beforeTransaction(ctx);
+    }
+
+    /**
+     * Records the latency and state access of the transaction.
+     *
+     * @param ctx the transaction context
+     * @param result the value returned by the transaction function
+     */
+    @Override
+    public void afterTransaction(final Context ctx, final Object result) {
+        METRICS.afterTransaction(ctx);
+    }
+
+    /**
+     * Records the call to a function this contract does not have, then rejects it.
+     *
+     * @param ctx the transaction context
+     */
+    @Override
+    public void unknownTransaction(final Context ctx) {
+        METRICS.unknownTransaction(ctx);
+        throw new ChaincodeException("Undefined contract method called");
+    }
+
     /**
      * Retrieves the asset details with the specified ID
      *
@@ -57,7 +119,7 @@ public final class AssetTransfer implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public String ReadAsset(final Context ctx, final String assetID) {
-        System.out.printf("ReadAsset: ID %s\n", assetID);
+        LOG.fine(() -> String.format("ReadAsset: ID %s", assetID));
 
         Asset asset = getState(ctx, assetID);
         String privData = readPrivateData(ctx, assetID);
@@ -89,14 +151,14 @@ public final class AssetTransfer implements ContractInterface {
         }
 
         if (errorMessage != null) {
-            System.err.println(errorMessage);
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
         // Check if asset already exists
         byte[] assetJSON = ctx.getStub().getState(assetID);
         if (assetJSON != null && assetJSON.length > 0) {
             errorMessage = String.format("Asset %s already exists", assetID);
-            System.err.println(errorMessage);
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_ALREADY_EXISTS.toString());
         }
 
@@ -104,7 +166,7 @@ public final class AssetTransfer implements ContractInterface {
 
         savePrivateData(ctx, assetID);
         assetJSON = asset.serialize();
-        System.out.printf("CreateAsset Put: ID %s Data %s\n", assetID, new String(assetJSON));
+        LOG.fine(() -> String.format("CreateAsset Put: ID %s Data %s", assetID, new String(asset.serialize())));
 
         stub.putState(assetID, assetJSON);
         // add Event data to the transaction data. Event will be published after the block containing
@@ -135,15 +197,15 @@ public final class AssetTransfer implements ContractInterface {
             errorMessage = "Empty input: newOwner";
         }
         if (errorMessage != null) {
-            System.err.println(errorMessage);
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
-        System.out.printf("TransferAsset: verify asset %s exists\n", assetID);
+        LOG.fine(() -> String.format("TransferAsset: verify asset %s exists", assetID));
         Asset thisAsset = getState(ctx, assetID);
         // Transfer asset to new owner
         thisAsset.setOwner(newOwner);
 
-        System.out.printf(" Transfer Asset: ID %s to owner %s\n", assetID, newOwner);
+        LOG.fine(() -> String.format(" Transfer Asset: ID %s to owner %s", assetID, newOwner));
         savePrivateData(ctx, assetID); // save private data if any
         byte[] assetJSON = thisAsset.serialize();
 
@@ -174,7 +236,7 @@ public final class AssetTransfer implements ContractInterface {
         }
 
         if (errorMessage != null) {
-            System.err.println(errorMessage);
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
         // reads from the Statedb. Check if asset already exists
@@ -195,7 +257,7 @@ public final class AssetTransfer implements ContractInterface {
 
         savePrivateData(ctx, assetID);
         byte[] assetJSON = asset.serialize();
-        System.out.printf("UpdateAsset Put: ID %s Data %s\n", assetID, new String(assetJSON));
+        LOG.fine(() -> String.format("UpdateAsset Put: ID %s Data %s", assetID, new String(assetJSON)));
         stub.putState(assetID, assetJSON);
         stub.setEvent("UpdateAsset", assetJSON); //publish Event
         return asset;
@@ -210,10 +272,10 @@ public final class AssetTransfer implements ContractInterface {
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public void DeleteAsset(final Context ctx, final String assetID) {
         ChaincodeStub stub = ctx.getStub();
-        System.out.printf("DeleteAsset: verify asset %s exists\n", assetID);
+        LOG.fine(() -> String.format("DeleteAsset: verify asset %s exists", assetID));
         Asset asset = getState(ctx, assetID);
 
-        System.out.printf(" DeleteAsset:  ID %s\n", assetID);
+        LOG.fine(() -> String.format(" DeleteAsset:  ID %s", assetID));
         // delete private details of asset
         removePrivateData(ctx, assetID);
         stub.delState(assetID);         // delete the key from Statedb
@@ -224,7 +286,7 @@ public final class AssetTransfer implements ContractInterface {
         byte[] assetJSON = ctx.getStub().getState(assetID);
         if (assetJSON == null || assetJSON.length == 0) {
             String errorMessage = String.format("Asset %s does not exist", assetID);
-            System.err.println(errorMessage);
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_NOT_FOUND.toString());
         }
 
@@ -243,7 +305,7 @@ public final class AssetTransfer implements ContractInterface {
         String privData = null;
         //only if ClientOrgMatchesPeerOrg
         if (peerMSPID.equals(clientMSPID)) {
-            System.out.printf(" ReadPrivateData from collection %s, ID %s\n", implicitCollectionName, assetKey);
+            LOG.fine(() -> String.format(" ReadPrivateData from collection %s, ID %s", implicitCollectionName, assetKey));
             byte[] propJSON = ctx.getStub().getPrivateData(implicitCollectionName, assetKey);
 
             if (propJSON != null && propJSON.length > 0) {
@@ -263,7 +325,7 @@ public final class AssetTransfer implements ContractInterface {
             if (transientMap != null && transientMap.containsKey(PRIVATE_PROPS_KEY)) {
                 byte[] transientAssetJSON = transientMap.get(PRIVATE_PROPS_KEY);
 
-                System.out.printf("Asset's PrivateData Put in collection %s, ID %s\n", implicitCollectionName, assetKey);
+                LOG.fine(() -> String.format("Asset's PrivateData Put in collection %s, ID %s", implicitCollectionName, assetKey));
                 ctx.getStub().putPrivateData(implicitCollectionName, assetKey, transientAssetJSON);
             }
         }
@@ -275,7 +337,7 @@ public final class AssetTransfer implements ContractInterface {
         String implicitCollectionName = getCollectionName(ctx);
 
         if (peerMSPID.equals(clientMSPID)) {
-            System.out.printf("PrivateData Delete from collection %s, ID %s\n", implicitCollectionName, assetKey);
+            LOG.fine(() -> String.format("PrivateData Delete from collection %s, ID %s", implicitCollectionName, assetKey));
             ctx.getStub().delPrivateData(implicitCollectionName, assetKey);
         }
     }
@@ -0,0 +1,141 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.events;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of the codecs for the data types stored by this chaincode. Sizes and appraised values
+ * are written as strings, as the JSONObject serialization the codecs replace wrote them.
+ */
+public final class Codecs {
+
+    /**
+     * Codec for {@link Asset}, without private properties.
+     */
+    public static final Codec<Asset> ASSET = new AssetCodec();
+
+    private static final Map<Class<?>, Codec<?>> REGISTRY;
+
+    static {
+        Map<Class<?>, Codec<?>> registry = new HashMap<>();
+        registry.put(Asset.class, ASSET);
+        REGISTRY = Collections.unmodifiableMap(registry);
+    }
+
+    private Codecs() {
+    }
+
+    /**
+     * Returns the codec registered for a data type.
+     *
+     * @param <T> the data type
+     * @param type the class of the data type
+     * @return the codec for the data type
+     * @throws IllegalArgumentException if no codec is registered for the type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Codec<T> forType(final Class<T> type) {
+        Codec<?> codec = REGISTRY.get(type);
+        if (codec == null) {
+            throw new IllegalArgumentException("No codec registered for " + type.getName());
+        }
+        return (Codec<T>) codec;
+    }
+
+    /**
+     * Encodes an asset together with its private properties, which are written as they were
+     * stored under the asset_properties field.
+     *
+     * @param asset the asset to encode
+     * @param properties the JSON object holding the private properties of the asset
+     * @return the encoded asset
+     * @throws IllegalArgumentException if properties is not a JSON object
+     */
+    static String encode(final Asset asset, final String properties) {
+        Json.Reader reader = new Json.Reader(properties);
+        reader.beginObject();
+        while (reader.hasNextField()) {
+            reader.nextName();
+            reader.skipValue();
+        }
+        reader.endDocument();
+
+        StringBuilder out = new StringBuilder();
+        AssetCodec.writeFields(asset, out);
+        return out.append(",\"asset_properties\":").append(properties.trim()).append('}').toString();
+    }
+
+    private static void writeField(final StringBuilder out, final String name, final String value) {
+        if (value != null) {
+            out.append(out.charAt(out.length() - 1) == '{' ? "\"" : ",\"").append(name).append("\":");
+            Json.writeString(out, value);
+        }
+    }
+
+    private static int readInt(final String value) {
+        try {
+            return value == null ? 0 : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected an integer: " + value);
+        }
+    }
+
+    private static final class AssetCodec implements Codec<Asset> {
+
+        static void writeFields(final Asset asset, final StringBuilder out) {
+            out.append('{');
+            writeField(out, "ID", asset.getAssetID());
+            writeField(out, "Color", asset.getColor());
+            writeField(out, "Owner", asset.getOwner());
+            writeField(out, "Size", Integer.toString(asset.getSize()));
+            writeField(out, "AppraisedValue", Integer.toString(asset.getAppraisedValue()));
+        }
+
+        @Override
+        public void encode(final Asset asset, final StringBuilder out) {
+            writeFields(asset, out);
+            out.append('}');
+        }
+
+        @Override
+        public Asset decode(final String json) {
+            String id = null;
+            String color = null;
+            String owner = null;
+            String size = null;
+            String appraisedValue = null;
+
+            Json.Reader reader = new Json.Reader(json);
+            reader.beginObject();
+            while (reader.hasNextField()) {
+                switch (reader.nextName()) {
+                    case "ID":
+                        id = reader.nextString();
+                        break;
+                    case "Color":
+                        color = reader.nextString();
+                        break;
+                    case "Owner":
+                        owner = reader.nextString();
+                        break;
+                    case "Size":
+                        size = reader.nextString();
+                        break;
+                    case "AppraisedValue":
+                        appraisedValue = reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endDocument();
+
+            return new Asset(id, color, readInt(size), owner, readInt(appraisedValue));
+        }
+    }
+}
@@ -0,0 +1,392 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+
+// Exporting every asset to export/assets.ndjson.gz, after running App once to enroll appUser:
+// gradle runExport -PexportArgs="--prefix asset --alphabet 0123456789 --partitions 10"
+// If the export fails part way, running the same command again carries on where it stopped.
+
+package application.java;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+
+import org.hyperledger.fabric.gateway.Contract;
+import org.hyperledger.fabric.gateway.Gateway;
+
+/**
+ * Exports every asset to a gzip-compressed file of newline-delimited JSON, one asset per line in
+ * key order, using GetAssetsByRangeWithPagination.
+ *
+ * <p>The key space is split into ranges at a set of boundary keys, and the ranges are read
+ * concurrently, each into its own part file. A part file is a series of gzip members, one per
+ * page, and after each page is written a checkpoint records how far the file is complete and the
+ * bookmark to carry on from. An export that fails is resumed by running it again: the boundaries
+ * are read back from the export directory, finished ranges are skipped, and each part file is cut
+ * back to its last checkpoint. Once every range is done the part files, which are valid gzip
+ * files, are joined into one.
+ *
+ * <p>The Java chaincode returns a bookmark with each page. The Go and JavaScript chaincodes return
+ * only the page of assets, so for those the next page starts after the last key read.
+ */
+public final class LedgerExporter {
+
+	static final String EXPORT_FILE_NAME = "assets.ndjson.gz";
+	private static final String PLAN_FILE_NAME = "plan.properties";
+	private static final String DEFAULT_ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Contract contract;
+	private final Path directory;
+	private final int pageSize;
+
+	LedgerExporter(Contract contract, Path directory, int pageSize) {
+		this.contract = contract;
+		this.directory = directory;
+		this.pageSize = pageSize;
+	}
+
+	public static void main(String[] args) throws Exception {
+		String channelName = "mychannel";
+		String chaincodeName = "ledger";
+		Path directory = Paths.get("export");
+		String prefix = "";
+		String alphabet = DEFAULT_ALPHABET;
+		List<String> boundaries = null;
+		int partitions = 16;
+		int threads = 8;
+		int pageSize = 500;
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			String value = args[i + 1];
+			switch (args[i]) {
+				case "--channel": channelName = value; break;
+				case "--chaincode": chaincodeName = value; break;
+				case "--directory": directory = Paths.get(value); break;
+				case "--prefix": prefix = value; break;
+				case "--alphabet": alphabet = value; break;
+				case "--boundaries": boundaries = Arrays.asList(value.split(",")); break;
+				case "--partitions": partitions = Integer.parseInt(value); break;
+				case "--threads": threads = Integer.parseInt(value); break;
+				case "--page-size": pageSize = Integer.parseInt(value); break;
+				default: throw new IllegalArgumentException("Unknown option " + args[i]
+						+ "\nOptions: --channel name --chaincode name --directory path --page-size n --threads n"
+						+ " and either --boundaries key,key,... or --prefix text --alphabet characters --partitions n");
+			}
+		}
+		if (boundaries == null) {
+			boundaries = boundaries(prefix, alphabet, partitions);
+		}
+
+		try (Gateway gateway = App.connect()) {
+			Contract contract = gateway.getNetwork(channelName).getContract(chaincodeName);
+			new LedgerExporter(contract, directory, pageSize).export(boundaries, threads);
+		}
+	}
+
+	/**
+	 * Spreads boundaries evenly over the keys that start with the prefix followed by one of the
+	 * alphabet's characters, which suits keys such as asset1, asset2, ... with a digit alphabet.
+	 */
+	static List<String> boundaries(String prefix, String alphabet, int partitions) {
+		char[] characters = alphabet.toCharArray();
+		Arrays.sort(characters);
+		TreeSet<String> boundaries = new TreeSet<>();
+		for (int i = 1; i < partitions; i++) {
+			boundaries.add(prefix + characters[i * characters.length / partitions]);
+		}
+		return new ArrayList<>(boundaries);
+	}
+
+	void export(List<String> requestedBoundaries, int threads) throws Exception {
+		Path exportFile = directory.resolve(EXPORT_FILE_NAME);
+		if (Files.exists(exportFile)) {
+			throw new IllegalStateException(exportFile + " already exists");
+		}
+		Files.createDirectories(directory);
+		List<String> boundaries = plan(requestedBoundaries);
+
+		List<Range> ranges = new ArrayList<>();
+		for (int i = 0; i <= boundaries.size(); i++) {
+			String startKey = i == 0 ? "" : boundaries.get(i - 1);
+			String endKey = i == boundaries.size() ? "" : boundaries.get(i);
+			ranges.add(new Range(i, startKey, endKey));
+		}
+		System.out.println("Exporting " + ranges.size() + " key ranges with " + threads + " threads to " + exportFile);
+
+		long start = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		long records = 0;
+		int failed = 0;
+		try {
+			List<Future<Long>> exports = new ArrayList<>();
+			for (Range range : ranges) {
+				exports.add(executor.submit(() -> exportRange(range)));
+			}
+			for (int i = 0; i < exports.size(); i++) {
+				try {
+					records += exports.get(i).get();
+				} catch (ExecutionException e) {
+					failed++;
+					System.err.println("Failed to export " + ranges.get(i) + ": " + e.getCause());
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+		if (failed > 0) {
+			throw new IllegalStateException(failed + " of " + ranges.size()
+					+ " key ranges failed to export; run the export again to resume it");
+		}
+
+		join(ranges, exportFile);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("Exported %d assets to %s (%d bytes) in %.1fs%n", records, exportFile, Files.size(exportFile),
+				seconds);
+	}
+
+	// Uses the boundaries of an earlier, unfinished export if there is one, so its part files still apply
+	private List<String> plan(List<String> requestedBoundaries) throws IOException {
+		Path planFile = directory.resolve(PLAN_FILE_NAME);
+		Properties plan = new Properties();
+		if (Files.exists(planFile)) {
+			try (InputStream in = Files.newInputStream(planFile)) {
+				plan.load(in);
+			}
+			List<String> boundaries = new ArrayList<>();
+			int count = Integer.parseInt(plan.getProperty("boundaries"));
+			for (int i = 0; i < count; i++) {
+				boundaries.add(plan.getProperty("boundary." + i));
+			}
+			System.out.println("Resuming the export in " + directory);
+			return boundaries;
+		}
+
+		List<String> boundaries = new ArrayList<>(new TreeSet<>(requestedBoundaries));
+		boundaries.remove("");
+		plan.setProperty("boundaries", Integer.toString(boundaries.size()));
+		for (int i = 0; i < boundaries.size(); i++) {
+			plan.setProperty("boundary." + i, boundaries.get(i));
+		}
+		store(plan, planFile);
+		return boundaries;
+	}
+
+	private long exportRange(Range range) throws Exception {
+		Checkpoint checkpoint = Checkpoint.load(range.checkpointFile(), range.startKey);
+		if (checkpoint.done) {
+			return checkpoint.records;
+		}
+
+		try (FileChannel part = FileChannel.open(range.partFile(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			// Anything after the checkpoint was written by a run that failed before finishing the page
+			part.truncate(checkpoint.length);
+			part.position(checkpoint.length);
+			OutputStream out = Channels.newOutputStream(part);
+
+			while (!checkpoint.done) {
+				byte[] response = contract.evaluateTransaction("GetAssetsByRangeWithPagination", checkpoint.startKey,
+						range.endKey, Integer.toString(pageSize), checkpoint.bookmark);
+				Page page = Page.parse(response);
+
+				if (!page.lines.isEmpty()) {
+					try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(keptOpen(out), BUFFER_SIZE), UTF_8)) {
+						for (String line : page.lines) {
+							writer.write(line);
+							writer.write('\n');
+						}
+					}
+					part.force(false);
+				}
+
+				checkpoint.length = part.position();
+				checkpoint.records += page.lines.size();
+				checkpoint.done = page.lines.size() < pageSize;
+				if (page.bookmark != null) {
+					checkpoint.bookmark = page.bookmark;
+					checkpoint.done |= page.bookmark.isEmpty();
+				} else if (page.lastKey != null) {
+					// The smallest key after the last one read
+					checkpoint.startKey = page.lastKey + '\u0000';
+				}
+				checkpoint.save(range.checkpointFile());
+			}
+		}
+		return checkpoint.records;
+	}
+
+	// Lets each page's gzip stream be closed, which frees its deflater, without closing the part file
+	private static OutputStream keptOpen(OutputStream out) {
+		return new FilterOutputStream(out) {
+			@Override
+			public void write(byte[] bytes, int offset, int length) throws IOException {
+				out.write(bytes, offset, length);
+			}
+
+			@Override
+			public void close() throws IOException {
+				flush();
+			}
+		};
+	}
+
+	private void join(List<Range> ranges, Path exportFile) throws IOException {
+		Path joining = directory.resolve(EXPORT_FILE_NAME + ".tmp");
+		try (FileChannel out = FileChannel.open(joining, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			for (Range range : ranges) {
+				try (FileChannel in = FileChannel.open(range.partFile(), StandardOpenOption.READ)) {
+					long size = in.size();
+					for (long copied = 0; copied < size;) {
+						copied += in.transferTo(copied, size - copied, out);
+					}
+				}
+			}
+			out.force(true);
+		}
+		Files.move(joining, exportFile, StandardCopyOption.ATOMIC_MOVE);
+
+		for (Range range : ranges) {
+			Files.delete(range.partFile());
+			Files.delete(range.checkpointFile());
+		}
+		Files.delete(directory.resolve(PLAN_FILE_NAME));
+	}
+
+	private static void store(Properties properties, Path file) throws IOException {
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try (OutputStream out = Files.newOutputStream(temporary)) {
+			properties.store(out, null);
+		}
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private final class Range {
+		private final int index;
+		private final String startKey;
+		private final String endKey;
+
+		Range(int index, String startKey, String endKey) {
+			this.index = index;
+			this.startKey = startKey;
+			this.endKey = endKey;
+		}
+
+		Path partFile() {
+			return directory.resolve(String.format("part-%05d.ndjson.gz", index));
+		}
+
+		Path checkpointFile() {
+			return directory.resolve(String.format("part-%05d.checkpoint", index));
+		}
+
+		@Override
+		public String toString() {
+			return "key range " + index + " [\"" + startKey + "\", \"" + endKey + "\")";
+		}
+	}
+
+	private static final class Checkpoint {
+		private String startKey;
+		private String bookmark = "";
+		private long length;
+		private long records;
+		private boolean done;
+
+		static Checkpoint load(Path file, String startKey) throws IOException {
+			Checkpoint checkpoint = new Checkpoint();
+			checkpoint.startKey = startKey;
+			if (Files.exists(file)) {
+				Properties properties = new Properties();
+				try (InputStream in = Files.newInputStream(file)) {
+					properties.load(in);
+				}
+				checkpoint.startKey = properties.getProperty("startKey");
+				checkpoint.bookmark = properties.getProperty("bookmark");
+				checkpoint.length = Long.parseLong(properties.getProperty("length"));
+				checkpoint.records = Long.parseLong(properties.getProperty("records"));
+				checkpoint.done = Boolean.parseBoolean(properties.getProperty("done"));
+			}
+			return checkpoint;
+		}
+
+		void save(Path file) throws IOException {
+			Properties properties = new Properties();
+			properties.setProperty("startKey", startKey);
+			properties.setProperty("bookmark", bookmark);
+			properties.setProperty("length", Long.toString(length));
+			properties.setProperty("records", Long.toString(records));
+			properties.setProperty("done", Boolean.toString(done));
+			store(properties, file);
+		}
+	}
+
+	private static final class Page {
+		private final List<String> lines = new ArrayList<>();
+		private String bookmark;
+		private String lastKey;
+
+		// Either {"records":[...],"bookmark":"..."} from the Java chaincode, or an array of assets
+		// from the Go chaincode or of {"Key":...,"Record":{...}} from the JavaScript chaincode
+		static Page parse(byte[] response) {
+			JsonStructure json;
+			try (JsonReader reader = Json.createReader(new ByteArrayInputStream(response))) {
+				json = reader.read();
+			}
+
+			Page page = new Page();
+			JsonArray records;
+			if (json.getValueType() == JsonValue.ValueType.OBJECT) {
+				records = json.asJsonObject().getJsonArray("records");
+				page.bookmark = json.asJsonObject().getString("bookmark", "");
+			} else {
+				records = json.asJsonArray();
+			}
+
+			for (JsonValue value : records) {
+				JsonObject record = value.asJsonObject();
+				if (record.containsKey("Key") && record.containsKey("Record")) {
+					page.lastKey = record.getString("Key");
+					page.lines.add(record.get("Record").toString());
+				} else {
+					page.lastKey = record.getString("ID", null);
+					page.lines.add(record.toString());
+				}
+			}
+			if (page.bookmark == null && page.lastKey == null && !page.lines.isEmpty()) {
+				throw new IllegalStateException("Cannot tell which key to read the next page from");
+			}
+			return page;
+		}
+	}
+}
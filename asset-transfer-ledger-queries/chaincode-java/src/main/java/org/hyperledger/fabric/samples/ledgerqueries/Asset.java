@@ -0,0 +1,127 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.ledgerqueries;
+
+import java.util.Objects;
+
+import org.hyperledger.fabric.contract.annotation.DataType;
+import org.hyperledger.fabric.contract.annotation.Property;
+
+import com.owlike.genson.annotation.JsonProperty;
+
+/**
+ * An asset as stored by the Go and JavaScript versions of this chaincode, so that the JSON
+ * queries and the CouchDB index work whichever version wrote the ledger.
+ */
+@DataType()
+public final class Asset {
+
+    /**
+     * The docType of every asset, which JSON queries select on.
+     */
+    public static final String DOC_TYPE = "asset";
+
+    @Property()
+    private final String docType;
+
+    @Property()
+    private final String assetID;
+
+    @Property()
+    private final String color;
+
+    @Property()
+    private final int size;
+
+    @Property()
+    private final String owner;
+
+    @Property()
+    private final int appraisedValue;
+
+    public Asset(final String assetID, final String color, final int size, final String owner,
+            final int appraisedValue) {
+        this(DOC_TYPE, assetID, color, size, owner, appraisedValue);
+    }
+
+    public Asset(@JsonProperty("docType") final String docType, @JsonProperty("ID") final String assetID,
+            @JsonProperty("color") final String color, @JsonProperty("size") final int size,
+            @JsonProperty("owner") final String owner, @JsonProperty("appraisedValue") final int appraisedValue) {
+        this.docType = docType;
+        this.assetID = assetID;
+        this.color = color;
+        this.size = size;
+        this.owner = owner;
+        this.appraisedValue = appraisedValue;
+    }
+
+    public String getDocType() {
+        return docType;
+    }
+
+    @JsonProperty("ID")
+    public String getAssetID() {
+        return assetID;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public int getAppraisedValue() {
+        return appraisedValue;
+    }
+
+    /**
+     * Returns a copy of this asset with a new owner.
+     *
+     * @param newOwner the new owner
+     * @return the transferred asset
+     */
+    public Asset withOwner(final String newOwner) {
+        return new Asset(docType, assetID, color, size, newOwner, appraisedValue);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if ((obj == null) || (getClass() != obj.getClass())) {
+            return false;
+        }
+
+        Asset other = (Asset) obj;
+
+        return Objects.deepEquals(
+                new String[] {getDocType(), getAssetID(), getColor(), getOwner()},
+                new String[] {other.getDocType(), other.getAssetID(), other.getColor(), other.getOwner()})
+                &&
+                Objects.deepEquals(
+                new int[] {getSize(), getAppraisedValue()},
+                new int[] {other.getSize(), other.getAppraisedValue()});
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getDocType(), getAssetID(), getColor(), getSize(), getOwner(), getAppraisedValue());
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "@" + Integer.toHexString(hashCode()) + " [docType=" + docType
+                + ", ID=" + assetID + ", color=" + color + ", size=" + size + ", owner=" + owner
+                + ", appraisedValue=" + appraisedValue + "]";
+    }
+}
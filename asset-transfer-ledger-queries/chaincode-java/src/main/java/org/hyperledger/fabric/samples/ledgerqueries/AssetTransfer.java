@@ -0,0 +1,468 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.ledgerqueries;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.logging.Logger;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.contract.ContractInterface;
+import org.hyperledger.fabric.contract.annotation.Contact;
+import org.hyperledger.fabric.contract.annotation.Contract;
+import org.hyperledger.fabric.contract.annotation.Default;
+import org.hyperledger.fabric.contract.annotation.Info;
+import org.hyperledger.fabric.contract.annotation.License;
+import org.hyperledger.fabric.contract.annotation.Transaction;
+import org.hyperledger.fabric.samples.logging.Logging;
+import org.hyperledger.fabric.samples.metrics.MeteredSerializer;
+import org.hyperledger.fabric.samples.metrics.Metrics;
+import org.hyperledger.fabric.samples.metrics.TransactionMetrics;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+
+import com.owlike.genson.Genson;
+
+/**
+ * The Java version of the ledger queries chaincode. It stores assets in the same JSON as the Go
+ * and JavaScript versions, and adds a capped, time filtered history query.
+ *
+ * <p>Query results are copied from the ledger into the response as they are read, without
+ * decoding the assets or collecting them into a list first.
+ */
+@Contract(
+        name = "ledger",
+        info = @Info(
+                title = "Asset Transfer Ledger Queries",
+                description = "The hyperlegendary asset transfer ledger queries sample",
+                version = "0.0.1-SNAPSHOT",
+                license = @License(
+                        name = "Apache 2.0 License",
+                        url = "http://www.apache.org/licenses/LICENSE-2.0.html"),
+                contact = @Contact(
+                        email = "a.transfer@example.com",
+                        name = "Adrian Transfer",
+                        url = "https://hyperledger.example.com")),
+        transactionSerializer = MeteredSerializer.NAME)
+@Default
+public final class AssetTransfer implements ContractInterface {
+
+    private static final Logger LOG = Logging.getLogger(AssetTransfer.class);
+
+    private static final TransactionMetrics METRICS = Metrics.getRegistry();
+
+    // Composite key index of assets by color. Each entry holds a single byte, since a composite
+    // key with an empty value is treated as deleted.
+    static final String COLOR_INDEX = "color~name";
+    private static final byte[] INDEX_VALUE = {0};
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final int MAX_HISTORY_RESULTS = 1000;
+
+    private final Genson genson = new Genson();
+
+    private enum AssetTransferErrors {
+        ASSET_NOT_FOUND,
+        ASSET_ALREADY_EXISTS,
+        INVALID_PAGE_SIZE,
+        INVALID_HISTORY_FILTER
+    }
+
+    /**
+     * Creates the contract and starts serving the chaincode metrics. The shim creates each
+     * contract once, when the chaincode starts.
+     */
+    public AssetTransfer() {
+        Metrics.start();
+    }
+
+    /**
+     * Creates a context whose stub counts the state the transaction reads and writes.
+     *
+     * @param stub the stub for the transaction
+     * @return the transaction context
+     */
+    @Override
+    public Context createContext(final ChaincodeStub stub) {
+        return new Context(METRICS.meter(stub));
+    }
+
+    /**
+     * Starts timing the transaction, and records a transaction that threw before it on this
+     * thread as failed.
+     *
+     * @param ctx the transaction context
+     */
+    @Override
+    public void beforeTransaction(final Context ctx) {
+        METRICS.beforeTransaction(ctx);
+    }
+
+    /**
+     * Records the latency and state access of the transaction.
+     *
+     * @param ctx the transaction context
+     * @param result the value returned by the transaction function
+     */
+    @Override
+    public void afterTransaction(final Context ctx, final Object result) {
+        METRICS.afterTransaction(ctx);
+    }
+
+    /**
+     * Records the call to a function this contract does not have, then rejects it.
+     *
+     * @param ctx the transaction context
+     */
+    @Override
+    public void unknownTransaction(final Context ctx) {
+        METRICS.unknownTransaction(ctx);
+        throw new ChaincodeException("Undefined contract method called");
+    }
+
+    /**
+     * Creates the initial set of assets on the ledger.
+     *
+     * @param ctx the transaction context
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public void InitLedger(final Context ctx) {
+        CreateAsset(ctx, "asset1", "blue", 5, "Tomoko", 300);
+        CreateAsset(ctx, "asset2", "red", 5, "Brad", 400);
+        CreateAsset(ctx, "asset3", "green", 10, "Jin Soo", 500);
+        CreateAsset(ctx, "asset4", "yellow", 10, "Max", 600);
+        CreateAsset(ctx, "asset5", "black", 15, "Adriana", 700);
+        CreateAsset(ctx, "asset6", "white", 15, "Michel", 800);
+    }
+
+    /**
+     * Creates a new asset on the ledger, along with its entry in the color index.
+     *
+     * @param ctx the transaction context
+     * @param assetID the ID of the new asset
+     * @param color the color of the new asset
+     * @param size the size for the new asset
+     * @param owner the owner of the new asset
+     * @param appraisedValue the appraisedValue of the new asset
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public void CreateAsset(final Context ctx, final String assetID, final String color, final int size,
+        final String owner, final int appraisedValue) {
+        ChaincodeStub stub = ctx.getStub();
+
+        if (AssetExists(ctx, assetID)) {
+            String errorMessage = String.format("Asset %s already exists", assetID);
+            LOG.info(errorMessage);
+            throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_ALREADY_EXISTS.toString());
+        }
+
+        Asset asset = new Asset(assetID, color, size, owner, appraisedValue);
+        stub.putState(assetID, genson.serializeBytes(asset));
+        stub.putState(colorIndexKey(asset), INDEX_VALUE);
+    }
+
+    /**
+     * Retrieves an asset with the specified ID from the ledger.
+     *
+     * @param ctx the transaction context
+     * @param assetID the ID of the asset
+     * @return the asset found on the ledger
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String ReadAsset(final Context ctx, final String assetID) {
+        return new String(readAssetState(ctx, assetID), UTF_8);
+    }
+
+    /**
+     * Deletes an asset and its color index entry from the ledger.
+     *
+     * @param ctx the transaction context
+     * @param assetID the ID of the asset being deleted
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public void DeleteAsset(final Context ctx, final String assetID) {
+        ChaincodeStub stub = ctx.getStub();
+        Asset asset = genson.deserialize(readAssetState(ctx, assetID), Asset.class);
+
+        stub.delState(assetID);
+        stub.delState(colorIndexKey(asset));
+    }
+
+    /**
+     * Changes the owner of an asset on the ledger.
+     *
+     * @param ctx the transaction context
+     * @param assetID the ID of the asset being transferred
+     * @param newOwner the new owner
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public void TransferAsset(final Context ctx, final String assetID, final String newOwner) {
+        Asset asset = genson.deserialize(readAssetState(ctx, assetID), Asset.class);
+
+        ctx.getStub().putState(assetID, genson.serializeBytes(asset.withOwner(newOwner)));
+    }
+
+    /**
+     * Checks the existence of the asset on the ledger.
+     *
+     * @param ctx the transaction context
+     * @param assetID the ID of the asset
+     * @return boolean indicating the existence of the asset
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public boolean AssetExists(final Context ctx, final String assetID) {
+        byte[] assetState = ctx.getStub().getState(assetID);
+
+        return assetState != null && assetState.length > 0;
+    }
+
+    /**
+     * Retrieves the assets with keys between startKey (inclusive) and endKey (exclusive) in
+     * lexical order. Range queries are re-executed when the transaction is validated, so they
+     * are also safe to base updates on.
+     *
+     * @param ctx the transaction context
+     * @param startKey the first key of the range, or empty for the start of the ledger
+     * @param endKey the key after the end of the range, or empty for the end of the ledger
+     * @return array of the assets in the range
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAssetsByRange(final Context ctx, final String startKey, final String endKey) throws Exception {
+        try (QueryResultsIterator<KeyValue> results = ctx.getStub().getStateByRange(startKey, endKey)) {
+            StringBuilder buffer = new StringBuilder().append('[');
+            appendRecords(buffer, results);
+            return buffer.append(']').toString();
+        }
+    }
+
+    /**
+     * Transfers every asset of a color to a new owner, finding them through the color index.
+     *
+     * @param ctx the transaction context
+     * @param color the color of the assets to transfer
+     * @param newOwner the new owner
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public void TransferAssetByColor(final Context ctx, final String color, final String newOwner) throws Exception {
+        ChaincodeStub stub = ctx.getStub();
+
+        try (QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(COLOR_INDEX, color)) {
+            for (KeyValue result: results) {
+                TransferAsset(ctx, stub.splitCompositeKey(result.getKey()).getAttributes().get(1), newOwner);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the assets of an owner with a JSON query. Only available on CouchDB.
+     *
+     * @param ctx the transaction context
+     * @param owner the owner of the assets
+     * @return array of the owner's assets
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String QueryAssetsByOwner(final Context ctx, final String owner) throws Exception {
+        String queryString = "{\"selector\":{\"docType\":" + genson.serialize(Asset.DOC_TYPE)
+                + ",\"owner\":" + genson.serialize(owner) + "}}";
+        return QueryAssets(ctx, queryString);
+    }
+
+    /**
+     * Retrieves the assets matching a CouchDB JSON query, which is passed to the state database
+     * as it is. Only available on CouchDB.
+     *
+     * @param ctx the transaction context
+     * @param queryString the JSON query
+     * @return array of the matching assets
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String QueryAssets(final Context ctx, final String queryString) throws Exception {
+        try (QueryResultsIterator<KeyValue> results = ctx.getStub().getQueryResult(queryString)) {
+            StringBuilder buffer = new StringBuilder().append('[');
+            appendRecords(buffer, results);
+            return buffer.append(']').toString();
+        }
+    }
+
+    /**
+     * Retrieves one page of the assets with keys between startKey (inclusive) and endKey
+     * (exclusive) in lexical order. Paginated queries are only valid in evaluated transactions.
+     *
+     * @param ctx the transaction context
+     * @param startKey the first key of the range, or empty for the start of the ledger
+     * @param endKey the key after the end of the range, or empty for the end of the ledger
+     * @param pageSize the maximum number of assets to return
+     * @param bookmark the bookmark returned with the previous page, or empty for the first page
+     * @return the page of assets with the fetched record count and the bookmark for the next page
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAssetsByRangeWithPagination(final Context ctx, final String startKey, final String endKey,
+        final int pageSize, final String bookmark) throws Exception {
+        checkPageSize(pageSize);
+
+        try (QueryResultsIteratorWithMetadata<KeyValue> results =
+                ctx.getStub().getStateByRangeWithPagination(startKey, endKey, pageSize, bookmark)) {
+            return page(results);
+        }
+    }
+
+    /**
+     * Retrieves one page of the assets matching a CouchDB JSON query. Paginated queries are only
+     * valid in evaluated transactions, and only available on CouchDB.
+     *
+     * @param ctx the transaction context
+     * @param queryString the JSON query
+     * @param pageSize the maximum number of assets to return
+     * @param bookmark the bookmark returned with the previous page, or empty for the first page
+     * @return the page of assets with the fetched record count and the bookmark for the next page
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String QueryAssetsWithPagination(final Context ctx, final String queryString, final int pageSize,
+        final String bookmark) throws Exception {
+        checkPageSize(pageSize);
+
+        try (QueryResultsIteratorWithMetadata<KeyValue> results =
+                ctx.getStub().getQueryResultWithPagination(queryString, pageSize, bookmark)) {
+            return page(results);
+        }
+    }
+
+    /**
+     * Retrieves the most recent changes to an asset, up to {@value #MAX_HISTORY_RESULTS} of them.
+     *
+     * @param ctx the transaction context
+     * @param assetID the ID of the asset
+     * @return array of the changes, each with the asset as it was written, or null for a delete
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAssetHistory(final Context ctx, final String assetID) throws Exception {
+        return GetAssetHistoryInRange(ctx, assetID, "", "", MAX_HISTORY_RESULTS);
+    }
+
+    /**
+     * Retrieves the changes made to an asset between two times, in the order the peer returns
+     * them. The history is read one change at a time and the query stops as soon as limit
+     * changes have been found, so a long-lived asset does not have to be read in full.
+     *
+     * @param ctx the transaction context
+     * @param assetID the ID of the asset
+     * @param startTime the ISO-8601 time of the earliest change to return, or empty for no limit
+     * @param endTime the ISO-8601 time after the latest change to return, or empty for no limit
+     * @param limit the maximum number of changes to return
+     * @return array of the changes, each with the asset as it was written, or null for a delete
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAssetHistoryInRange(final Context ctx, final String assetID, final String startTime,
+        final String endTime, final int limit) throws Exception {
+        if (limit <= 0 || limit > MAX_HISTORY_RESULTS) {
+            String errorMessage = String.format("History limit must be between 1 and %d", MAX_HISTORY_RESULTS);
+            LOG.info(errorMessage);
+            throw new ChaincodeException(errorMessage, AssetTransferErrors.INVALID_HISTORY_FILTER.toString());
+        }
+        Instant start = parseTime(startTime);
+        Instant end = parseTime(endTime);
+        LOG.fine(() -> String.format("GetAssetHistory: ID %s", assetID));
+
+        StringBuilder buffer = new StringBuilder().append('[');
+        int count = 0;
+        try (QueryResultsIterator<KeyModification> results = ctx.getStub().getHistoryForKey(assetID)) {
+            for (KeyModification modification: results) {
+                Instant timestamp = modification.getTimestamp();
+                if (start != null && timestamp.isBefore(start) || end != null && !timestamp.isBefore(end)) {
+                    continue;
+                }
+
+                if (count > 0) {
+                    buffer.append(',');
+                }
+                buffer.append("{\"record\":");
+                byte[] value = modification.getValue();
+                if (modification.isDeleted() || value == null || value.length == 0) {
+                    buffer.append("null");
+                } else {
+                    buffer.append(new String(value, UTF_8));
+                }
+                buffer.append(",\"txId\":").append(genson.serialize(modification.getTxId()));
+                buffer.append(",\"timestamp\":\"").append(timestamp).append('"');
+                buffer.append(",\"isDelete\":").append(modification.isDeleted()).append('}');
+
+                if (++count == limit) {
+                    break;
+                }
+            }
+        }
+
+        return buffer.append(']').toString();
+    }
+
+    private byte[] readAssetState(final Context ctx, final String assetID) {
+        byte[] assetState = ctx.getStub().getState(assetID);
+
+        if (assetState == null || assetState.length == 0) {
+            String errorMessage = String.format("Asset %s does not exist", assetID);
+            LOG.info(errorMessage);
+            throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_NOT_FOUND.toString());
+        }
+
+        return assetState;
+    }
+
+    private static String colorIndexKey(final Asset asset) {
+        return new CompositeKey(COLOR_INDEX, asset.getColor(), asset.getAssetID()).toString();
+    }
+
+    private static void checkPageSize(final int pageSize) {
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            String errorMessage = String.format("Page size must be between 1 and %d", MAX_PAGE_SIZE);
+            LOG.info(errorMessage);
+            throw new ChaincodeException(errorMessage, AssetTransferErrors.INVALID_PAGE_SIZE.toString());
+        }
+    }
+
+    private static Instant parseTime(final String time) {
+        if (time == null || time.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return Instant.parse(time);
+        } catch (DateTimeParseException e) {
+            String errorMessage = String.format("Invalid time %s, expected an ISO-8601 instant", time);
+            LOG.info(errorMessage);
+            throw new ChaincodeException(errorMessage, AssetTransferErrors.INVALID_HISTORY_FILTER.toString());
+        }
+    }
+
+    private String page(final QueryResultsIteratorWithMetadata<KeyValue> results) {
+        StringBuilder buffer = new StringBuilder("{\"records\":[");
+        int fetchedRecordsCount = appendRecords(buffer, results);
+        buffer.append("],\"fetchedRecordsCount\":").append(fetchedRecordsCount);
+        buffer.append(",\"bookmark\":").append(genson.serialize(results.getMetadata().getBookmark()));
+        return buffer.append('}').toString();
+    }
+
+    // Appends the stored JSON of each asset in results to buffer as a comma separated list,
+    // returning the number of assets appended.
+    private static int appendRecords(final StringBuilder buffer, final Iterable<KeyValue> results) {
+        int count = 0;
+        for (KeyValue result: results) {
+            if (count > 0) {
+                buffer.append(',');
+            }
+            buffer.append(result.getStringValue());
+            count++;
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,406 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.ledgerqueries;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.protos.peer.QueryResponseMetadata;
+import org.hyperledger.fabric.samples.metrics.Metrics;
+import org.hyperledger.fabric.samples.testing.InMemoryChaincodeStub;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public final class AssetTransferTest {
+
+    private static final String ASSET1 = "{\"appraisedValue\":300,\"color\":\"blue\",\"docType\":\"asset\","
+            + "\"ID\":\"asset1\",\"owner\":\"Tomoko\",\"size\":5}";
+    private static final String ASSET2 = "{\"appraisedValue\":400,\"color\":\"red\",\"docType\":\"asset\","
+            + "\"ID\":\"asset2\",\"owner\":\"Brad\",\"size\":5}";
+
+    private final AssetTransfer contract = new AssetTransfer();
+    private final InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+
+    private void run(final String function, final Consumer<Context> transaction) {
+        stub.beginTransaction(function);
+        transaction.accept(contract.createContext(stub));
+        stub.commit();
+    }
+
+    private Context evaluate(final String function) {
+        stub.beginTransaction(function);
+        return contract.createContext(stub);
+    }
+
+    private static final class Modification implements KeyModification {
+
+        private final String txId;
+        private final Instant timestamp;
+        private final String value;
+
+        Modification(final String txId, final Instant timestamp, final String value) {
+            this.txId = txId;
+            this.timestamp = timestamp;
+            this.value = value;
+        }
+
+        @Override
+        public String getTxId() {
+            return txId;
+        }
+
+        @Override
+        public byte[] getValue() {
+            return value == null ? new byte[0] : value.getBytes(UTF_8);
+        }
+
+        @Override
+        public String getStringValue() {
+            return value;
+        }
+
+        @Override
+        public Instant getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public boolean isDeleted() {
+            return value == null;
+        }
+    }
+
+    // Counts the modifications the contract pulls, to check that it stops reading early.
+    private static final class HistoryIterator implements QueryResultsIterator<KeyModification> {
+
+        private final List<KeyModification> modifications;
+        private int read;
+        private boolean closed;
+
+        HistoryIterator(final KeyModification... modifications) {
+            this.modifications = Arrays.asList(modifications);
+        }
+
+        @Override
+        public Iterator<KeyModification> iterator() {
+            Iterator<KeyModification> delegate = modifications.iterator();
+            return new Iterator<KeyModification>() {
+                @Override
+                public boolean hasNext() {
+                    return delegate.hasNext();
+                }
+
+                @Override
+                public KeyModification next() {
+                    read++;
+                    return delegate.next();
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static final class Record implements KeyValue {
+
+        private final String value;
+
+        Record(final String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String getKey() {
+            return null;
+        }
+
+        @Override
+        public byte[] getValue() {
+            return value.getBytes(UTF_8);
+        }
+
+        @Override
+        public String getStringValue() {
+            return value;
+        }
+    }
+
+    private static final class Page implements QueryResultsIterator<KeyValue>, QueryResultsIteratorWithMetadata<KeyValue> {
+
+        private final List<KeyValue> values = new ArrayList<>();
+        private final String bookmark;
+
+        Page(final String bookmark, final String... records) {
+            this.bookmark = bookmark;
+            for (String record : records) {
+                values.add(new Record(record));
+            }
+        }
+
+        @Override
+        public QueryResponseMetadata getMetadata() {
+            return QueryResponseMetadata.newBuilder()
+                    .setFetchedRecordsCount(values.size())
+                    .setBookmark(bookmark)
+                    .build();
+        }
+
+        @Override
+        public Iterator<KeyValue> iterator() {
+            return values.iterator();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Nested
+    class AssetTransactions {
+
+        @Test
+        public void createsAssetsWithColorIndex() {
+            run("InitLedger", contract::InitLedger);
+
+            assertThat(contract.ReadAsset(evaluate("ReadAsset"), "asset1")).isEqualTo(ASSET1);
+            assertThat(contract.AssetExists(evaluate("AssetExists"), "asset7")).isFalse();
+
+            stub.beginTransaction("CreateAsset");
+            contract.CreateAsset(contract.createContext(stub), "asset13", "yellow", 5, "Tom", 1300);
+            assertThat(stub.getWriteSet()).containsOnlyKeys("asset13",
+                    new CompositeKey(AssetTransfer.COLOR_INDEX, "yellow", "asset13").toString());
+        }
+
+        @Test
+        public void whenAssetAlreadyExists() {
+            run("InitLedger", contract::InitLedger);
+
+            Throwable thrown = catchThrowable(() -> {
+                contract.CreateAsset(evaluate("CreateAsset"), "asset1", "blue", 5, "Tomoko", 300);
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                    .hasMessage("Asset asset1 already exists");
+            assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("ASSET_ALREADY_EXISTS".getBytes());
+        }
+
+        @Test
+        public void whenAssetDoesNotExist() {
+            Throwable thrown = catchThrowable(() -> {
+                contract.ReadAsset(evaluate("ReadAsset"), "asset1");
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                    .hasMessage("Asset asset1 does not exist");
+            assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("ASSET_NOT_FOUND".getBytes());
+        }
+
+        @Test
+        public void deletesAssetAndIndexEntry() throws Exception {
+            run("InitLedger", contract::InitLedger);
+            run("DeleteAsset", ctx -> contract.DeleteAsset(ctx, "asset1"));
+
+            assertThat(contract.AssetExists(evaluate("AssetExists"), "asset1")).isFalse();
+            run("TransferAssetByColor", ctx -> transferAssetByColor(ctx, "blue", "Michel"));
+            assertThat(contract.GetAssetsByRange(evaluate("GetAssetsByRange"), "asset1", "asset2")).isEqualTo("[]");
+        }
+
+        @Test
+        public void transfersAssetsByColor() throws Exception {
+            run("InitLedger", contract::InitLedger);
+            run("CreateAsset", ctx -> contract.CreateAsset(ctx, "asset13", "yellow", 5, "Tom", 1300));
+            run("TransferAsset", ctx -> contract.TransferAsset(ctx, "asset2", "Tom"));
+            run("TransferAssetByColor", ctx -> transferAssetByColor(ctx, "yellow", "Michel"));
+
+            assertThat(contract.GetAssetsByRange(evaluate("GetAssetsByRange"), "asset13", "asset3"))
+                    .isEqualTo("[{\"appraisedValue\":1300,\"color\":\"yellow\",\"docType\":\"asset\","
+                            + "\"ID\":\"asset13\",\"owner\":\"Michel\",\"size\":5},"
+                            + "{\"appraisedValue\":400,\"color\":\"red\",\"docType\":\"asset\","
+                            + "\"ID\":\"asset2\",\"owner\":\"Tom\",\"size\":5}]");
+            assertThat(contract.ReadAsset(evaluate("ReadAsset"), "asset4")).contains("\"owner\":\"Michel\"");
+        }
+
+        private void transferAssetByColor(final Context ctx, final String color, final String newOwner) {
+            try {
+                contract.TransferAssetByColor(ctx, color, newOwner);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Nested
+    class PaginatedQueries {
+
+        @Test
+        public void pagesThroughRange() throws Exception {
+            run("InitLedger", contract::InitLedger);
+
+            String first = contract.GetAssetsByRangeWithPagination(evaluate("GetAssetsByRangeWithPagination"),
+                    "asset1", "asset6", 1, "");
+            String second = contract.GetAssetsByRangeWithPagination(evaluate("GetAssetsByRangeWithPagination"),
+                    "asset1", "asset6", 1, "asset2");
+
+            assertThat(first).isEqualTo("{\"records\":[" + ASSET1 + "],\"fetchedRecordsCount\":1,\"bookmark\":\"asset2\"}");
+            assertThat(second).isEqualTo("{\"records\":[" + ASSET2 + "],\"fetchedRecordsCount\":1,\"bookmark\":\"asset3\"}");
+        }
+
+        @Test
+        public void pagesThroughJSONQuery() throws Exception {
+            ChaincodeStub mockStub = mock(ChaincodeStub.class);
+            Context ctx = mock(Context.class);
+            when(ctx.getStub()).thenReturn(mockStub);
+            when(mockStub.getQueryResultWithPagination("{\"selector\":{\"owner\":\"Tom\"}}", 2, ""))
+                    .thenReturn(new Page("g1AAAA\"", ASSET1, ASSET2));
+
+            String page = contract.QueryAssetsWithPagination(ctx, "{\"selector\":{\"owner\":\"Tom\"}}", 2, "");
+
+            assertThat(page).isEqualTo("{\"records\":[" + ASSET1 + "," + ASSET2
+                    + "],\"fetchedRecordsCount\":2,\"bookmark\":\"g1AAAA\\\"\"}");
+        }
+
+        @Test
+        public void rejectsInvalidPageSizes() {
+            for (int pageSize : new int[] {0, 1001}) {
+                Throwable thrown = catchThrowable(() -> {
+                    contract.QueryAssetsWithPagination(evaluate("QueryAssetsWithPagination"), "{}", pageSize, "");
+                });
+
+                assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                        .hasMessage("Page size must be between 1 and 1000");
+                assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("INVALID_PAGE_SIZE".getBytes());
+            }
+        }
+    }
+
+    @Nested
+    class RichQueries {
+
+        @Test
+        public void queriesAssetsOfOwner() throws Exception {
+            ChaincodeStub mockStub = mock(ChaincodeStub.class);
+            Context ctx = mock(Context.class);
+            when(ctx.getStub()).thenReturn(mockStub);
+            when(mockStub.getQueryResult("{\"selector\":{\"docType\":\"asset\",\"owner\":\"Tom \\\"T\\\"\"}}"))
+                    .thenReturn(new Page("", ASSET1));
+
+            assertThat(contract.QueryAssetsByOwner(ctx, "Tom \"T\"")).isEqualTo("[" + ASSET1 + "]");
+        }
+    }
+
+    @Nested
+    class History {
+
+        private final Instant t0 = Instant.parse("2021-01-05T10:00:00Z");
+
+        private Context mockHistory(final HistoryIterator history) {
+            ChaincodeStub mockStub = mock(ChaincodeStub.class);
+            Context ctx = mock(Context.class);
+            when(ctx.getStub()).thenReturn(mockStub);
+            when(mockStub.getHistoryForKey("asset1")).thenReturn(history);
+            return ctx;
+        }
+
+        @Test
+        public void returnsEveryChange() throws Exception {
+            run("CreateAsset", ctx -> contract.CreateAsset(ctx, "asset1", "blue", 5, "Tomoko", 300));
+            run("DeleteAsset", ctx -> contract.DeleteAsset(ctx, "asset1"));
+
+            String history = contract.GetAssetHistory(evaluate("GetAssetHistory"), "asset1");
+
+            assertThat(history)
+                    .startsWith("[{\"record\":" + ASSET1 + ",\"txId\":\"tx1\",\"timestamp\":\"")
+                    .contains("\"isDelete\":false},{\"record\":null,\"txId\":\"tx2\",\"timestamp\":\"")
+                    .endsWith("\"isDelete\":true}]");
+        }
+
+        @Test
+        public void filtersByTime() throws Exception {
+            HistoryIterator history = new HistoryIterator(
+                    new Modification("tx3", t0.plusSeconds(2), null),
+                    new Modification("tx2", t0.plusSeconds(1), ASSET2),
+                    new Modification("tx1", t0, ASSET1));
+
+            String result = contract.GetAssetHistoryInRange(mockHistory(history), "asset1",
+                    "2021-01-05T10:00:01Z", "2021-01-05T10:00:02Z", 10);
+
+            assertThat(result).isEqualTo("[{\"record\":" + ASSET2
+                    + ",\"txId\":\"tx2\",\"timestamp\":\"2021-01-05T10:00:01Z\",\"isDelete\":false}]");
+            assertThat(history.closed).isTrue();
+        }
+
+        @Test
+        public void stopsReadingAtLimit() throws Exception {
+            HistoryIterator history = new HistoryIterator(
+                    new Modification("tx3", t0.plusSeconds(2), ASSET1),
+                    new Modification("tx2", t0.plusSeconds(1), ASSET1),
+                    new Modification("tx1", t0, ASSET1));
+
+            String result = contract.GetAssetHistoryInRange(mockHistory(history), "asset1", "", "", 1);
+
+            assertThat(result).isEqualTo("[{\"record\":" + ASSET1
+                    + ",\"txId\":\"tx3\",\"timestamp\":\"2021-01-05T10:00:02Z\",\"isDelete\":false}]");
+            assertThat(history.read).isEqualTo(1);
+            assertThat(history.closed).isTrue();
+        }
+
+        @Test
+        public void rejectsInvalidFilters() {
+            String[][] filters = {
+                {"yesterday", "", "10"},
+                {"", "2021-01-05", "10"},
+                {"", "", "0"},
+                {"", "", "1001"},
+            };
+
+            for (String[] filter : filters) {
+                Throwable thrown = catchThrowable(() -> {
+                    contract.GetAssetHistoryInRange(evaluate("GetAssetHistoryInRange"), "asset1",
+                            filter[0], filter[1], Integer.parseInt(filter[2]));
+                });
+
+                assertThat(thrown).as(String.join(",", filter)).isInstanceOf(ChaincodeException.class).hasNoCause();
+                assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("INVALID_HISTORY_FILTER".getBytes());
+            }
+        }
+    }
+
+    @Nested
+    class Metering {
+
+        @Test
+        public void recordsTransactionsThroughContractHooks() {
+            stub.beginTransaction("ledger:AssetExistsThroughHooks");
+            Context ctx = contract.createContext(stub);
+            contract.beforeTransaction(ctx);
+            contract.AssetExists(ctx, "asset1");
+            contract.afterTransaction(ctx, Boolean.FALSE);
+
+            assertThat(Metrics.getRegistry().scrape())
+                    .contains("chaincode_state_reads_total{function=\"ledger:AssetExistsThroughHooks\",outcome=\"success\"} 1\n");
+        }
+    }
+}
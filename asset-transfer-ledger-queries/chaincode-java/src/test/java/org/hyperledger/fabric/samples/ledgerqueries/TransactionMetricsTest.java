@@ -0,0 +1,88 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.ledgerqueries;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.samples.metrics.Metrics;
+import org.hyperledger.fabric.samples.metrics.TransactionMetrics;
+import org.hyperledger.fabric.samples.testing.InMemoryChaincodeStub;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.junit.jupiter.api.Test;
+
+public final class TransactionMetricsTest {
+
+    private static final String DURATION = "chaincode_transaction_duration_seconds";
+
+    private final TransactionMetrics metrics = new TransactionMetrics();
+    private final AssetTransfer contract = new AssetTransfer();
+    private final InMemoryChaincodeStub ledger = new InMemoryChaincodeStub();
+
+    @Test
+    public void recordsLatencyAndStateAccessPerFunction() throws Exception {
+        ledger.beginTransaction("setup");
+        contract.CreateAsset(new Context(ledger), "asset1", "blue", 5, "Tom", 300);
+        ledger.commit();
+        byte[] asset = ledger.getState("asset1");
+
+        ledger.beginTransaction("ReadAsset");
+        Context ctx = new Context(metrics.meter(ledger));
+        metrics.beforeTransaction(ctx);
+        contract.ReadAsset(ctx, "asset1");
+        metrics.afterTransaction(ctx);
+
+        ledger.beginTransaction("GetAssetsByRange");
+        ctx = new Context(metrics.meter(ledger));
+        metrics.beforeTransaction(ctx);
+        contract.GetAssetsByRange(ctx, "", "");
+        metrics.afterTransaction(ctx);
+
+        assertThat(metrics.scrape())
+                .contains(DURATION + "_count{function=\"ReadAsset\",outcome=\"success\"} 1\n")
+                .contains(DURATION + "_count{function=\"GetAssetsByRange\",outcome=\"success\"} 1\n")
+                .contains("chaincode_state_reads_total{function=\"ReadAsset\",outcome=\"success\"} 1\n")
+                .contains("chaincode_state_read_bytes_total{function=\"ReadAsset\",outcome=\"success\"} "
+                        + asset.length + "\n")
+                .contains("chaincode_state_reads_total{function=\"GetAssetsByRange\",outcome=\"success\"} 0\n")
+                .contains("chaincode_range_queries_total{function=\"GetAssetsByRange\",outcome=\"success\"} 1\n")
+                .contains("chaincode_range_query_results_total{function=\"GetAssetsByRange\",outcome=\"success\"} 1\n")
+                .contains("chaincode_range_query_bytes_total{function=\"GetAssetsByRange\",outcome=\"success\"} "
+                        + asset.length + "\n");
+    }
+
+    @Test
+    public void recordsTransactionsThroughContractHooks() {
+        ledger.beginTransaction("ledger:ReadAssetThroughHooks");
+        Context ctx = contract.createContext(ledger);
+        contract.beforeTransaction(ctx);
+        contract.AssetExists(ctx, "asset1");
+        contract.afterTransaction(ctx, Boolean.FALSE);
+
+        assertThat(Metrics.getRegistry().scrape())
+                .contains(DURATION + "_count{function=\"ledger:ReadAssetThroughHooks\",outcome=\"success\"} 1\n")
+                .contains("chaincode_state_reads_total{function=\"ledger:ReadAssetThroughHooks\",outcome=\"success\"} 1\n");
+    }
+
+    @Test
+    public void recordsFailedTransactionsThroughContractHooks() {
+        ledger.beginTransaction("ledger:ReadMissingAssetThroughHooks");
+        Context failed = contract.createContext(ledger);
+        contract.beforeTransaction(failed);
+        catchThrowable(() -> contract.ReadAsset(failed, "missing"));
+
+        ledger.beginTransaction("ledger:MadeUpThroughHooks");
+        Context unknown = contract.createContext(ledger);
+        contract.beforeTransaction(unknown);
+        Throwable thrown = catchThrowable(() -> contract.unknownTransaction(unknown));
+
+        assertThat(thrown).isInstanceOf(ChaincodeException.class);
+        assertThat(Metrics.getRegistry().scrape())
+                .contains("chaincode_state_reads_total{function=\"ledger:ReadMissingAssetThroughHooks\",outcome=\"failure\"} 1\n")
+                .contains(DURATION + "_count{function=\"(unknown)\",outcome=\"failure\"} ")
+                .doesNotContain("ledger:MadeUpThroughHooks");
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.privatedata;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the codecs with the JSONObject serialization they replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AssetCodecBenchmark {
+
+    private final Asset asset = new Asset("testasset", "asset1", "blue", 5, "testOrg1User");
+
+    private final String assetJSON = new JSONObject(asset).toString();
+
+    private final AssetPrivateDetails details = new AssetPrivateDetails("asset1", 300);
+
+    /**
+     * Serializes an asset with JSONObject.
+     *
+     * @return the asset JSON
+     */
+    @Benchmark
+    public byte[] jsonObjectEncodeAsset() {
+        return new JSONObject(asset).toString().getBytes(UTF_8);
+    }
+
+    /**
+     * Deserializes an asset with JSONObject.
+     *
+     * @return the asset
+     */
+    @Benchmark
+    public Asset jsonObjectDecodeAsset() {
+        JSONObject json = new JSONObject(assetJSON);
+        return new Asset(json.getString("objectType"), json.getString("assetID"), json.getString("color"),
+                json.getInt("size"), json.getString("owner"));
+    }
+
+    /**
+     * Serializes asset private details with JSONObject.
+     *
+     * @return the private details JSON
+     */
+    @Benchmark
+    public byte[] jsonObjectEncodePrivateDetails() {
+        return new JSONObject(details).toString().getBytes(UTF_8);
+    }
+
+    /**
+     * Serializes an asset with the codec.
+     *
+     * @return the asset JSON
+     */
+    @Benchmark
+    public byte[] codecEncodeAsset() {
+        return asset.serialize();
+    }
+
+    /**
+     * Deserializes an asset with the codec.
+     *
+     * @return the asset
+     */
+    @Benchmark
+    public Asset codecDecodeAsset() {
+        return Asset.deserialize(assetJSON);
+    }
+
+    /**
+     * Serializes asset private details with the codec.
+     *
+     * @return the private details JSON
+     */
+    @Benchmark
+    public byte[] codecEncodePrivateDetails() {
+        return details.serialize();
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.privatedata;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.samples.testing.InMemoryChaincodeStub;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the transaction functions of {@link AssetTransfer} against in-memory private data
+ * collections holding {@code assetCount} assets, each of which Org2 has agreed to buy. Each
+ * invocation runs one transaction as an Org1 client, so the results include context creation,
+ * transient data parsing and state encoding. The build runs the GC profiler, which reports the
+ * allocation per transaction alongside the latency.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AssetTransferBenchmark {
+
+    private static final String ORG1_MSP = "Org1MSP";
+    private static final String ORG2_MSP = "Org2MSP";
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"100", "10000"})
+    private int assetCount;
+
+    private final AssetTransfer contract = new AssetTransfer();
+    private InMemoryChaincodeStub stub;
+    private String[] assetIDs;
+    private int next;
+
+    /**
+     * Creates the assets as Org1 and agrees to buy each of them as Org2.
+     */
+    @Setup
+    public void setUp() {
+        stub = new InMemoryChaincodeStub(false);
+        assetIDs = new String[assetCount];
+
+        for (int i = 0; i < assetCount; i++) {
+            assetIDs[i] = String.format("asset%06d", i);
+            contract.CreateAsset(submit(ORG1_MSP, "CreateAsset", "asset_properties", assetProperties(assetIDs[i])));
+            stub.commit();
+            contract.AgreeToTransfer(submit(ORG2_MSP, "AgreeToTransfer", "asset_value", assetValue(assetIDs[i])));
+            stub.commit();
+        }
+        stub.setMspId(ORG1_MSP);
+    }
+
+    private Context submit(final String mspId, final String function, final String transientKey,
+            final String transientValue) {
+        stub.setMspId(mspId);
+        stub.beginTransaction(function);
+        stub.setTransient(Collections.singletonMap(transientKey, transientValue.getBytes(UTF_8)));
+        return contract.createContext(stub);
+    }
+
+    private static String assetProperties(final String assetID) {
+        return "{\"objectType\":\"asset\",\"assetID\":\"" + assetID + "\",\"color\":\"blue\",\"size\":5,"
+                + "\"appraisedValue\":300}";
+    }
+
+    private static String assetValue(final String assetID) {
+        return "{\"assetID\":\"" + assetID + "\",\"appraisedValue\":300}";
+    }
+
+    private String nextAssetID() {
+        next = next + 1 == assetCount ? 0 : next + 1;
+        return assetIDs[next];
+    }
+
+    /**
+     * Reads the public details of one asset.
+     *
+     * @return the asset
+     */
+    @Benchmark
+    public Asset readAsset() {
+        String assetID = nextAssetID();
+        stub.beginTransaction("ReadAsset", assetID);
+        return contract.ReadAsset(contract.createContext(stub), assetID);
+    }
+
+    /**
+     * Reads the appraised value of one asset from the Org1 collection.
+     *
+     * @return the private details
+     */
+    @Benchmark
+    public AssetPrivateDetails readAssetPrivateDetails() {
+        String assetID = nextAssetID();
+        stub.beginTransaction("ReadAssetPrivateDetails", "Org1MSPPrivateCollection", assetID);
+        return contract.ReadAssetPrivateDetails(contract.createContext(stub), "Org1MSPPrivateCollection", assetID);
+    }
+
+    /**
+     * Creates one asset from transient data and rolls the transaction back, so the collections
+     * keep their size.
+     *
+     * @return the created asset
+     */
+    @Benchmark
+    public Asset createAsset() {
+        Asset asset = contract.CreateAsset(submit(ORG1_MSP, "CreateAsset", "asset_properties",
+                assetProperties("asset")));
+        stub.rollback();
+        return asset;
+    }
+
+    /**
+     * Transfers one asset to Org2, verifying the agreement, and rolls the transaction back so
+     * the asset can be transferred again.
+     */
+    @Benchmark
+    public void transferAsset() {
+        contract.TransferAsset(submit(ORG1_MSP, "TransferAsset", "asset_owner",
+                "{\"assetID\":\"" + nextAssetID() + "\",\"buyerMSP\":\"Org2MSP\"}"));
+        stub.rollback();
+    }
+
+    /**
+     * Scans every asset in the asset collection.
+     *
+     * @return the assets
+     * @throws Exception if the query fails
+     */
+    @Benchmark
+    public Asset[] getAssetByRange() throws Exception {
+        stub.beginTransaction("GetAssetByRange", "", "");
+        return contract.GetAssetByRange(contract.createContext(stub), "", "");
+    }
+
+    /**
+     * Reads the first page of 100 assets in the asset collection.
+     *
+     * @return the page
+     * @throws Exception if the query fails
+     */
+    @Benchmark
+    public String getAssetByRangeWithPagination() throws Exception {
+        stub.beginTransaction("GetAssetByRangeWithPagination", "", "", "100", "");
+        return contract.GetAssetByRangeWithPagination(contract.createContext(stub), "", "", PAGE_SIZE, "");
+    }
+}
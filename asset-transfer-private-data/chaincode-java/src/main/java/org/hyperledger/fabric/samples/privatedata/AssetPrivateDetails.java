@@ -4,7 +4,6 @@ import org.hyperledger.fabric.contract.annotation.DataType;
 import org.hyperledger.fabric.contract.annotation.Property;
 
 import org.hyperledger.fabric.shim.ChaincodeException;
-import org.json.JSONObject;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -32,17 +31,13 @@ public final class AssetPrivateDetails {
     }
 
     public byte[] serialize() {
-        String jsonStr = new JSONObject(this).toString();
-        return jsonStr.getBytes(UTF_8);
+        return Codecs.ASSET_PRIVATE_DETAILS.encode(this).getBytes(UTF_8);
     }
 
     public static AssetPrivateDetails deserialize(final byte[] assetJSON) {
         try {
-            JSONObject json = new JSONObject(new String(assetJSON, UTF_8));
-            final String id = json.getString("assetID");
-            final int appraisedValue = json.getInt("appraisedValue");
-            return new AssetPrivateDetails(id, appraisedValue);
-        } catch (Exception e) {
+            return Codecs.ASSET_PRIVATE_DETAILS.decode(new String(assetJSON, UTF_8));
+        } catch (IllegalArgumentException e) {
             throw new ChaincodeException("Deserialize error: " + e.getMessage(), "DATA_ERROR");
         }
     }
@@ -14,18 +14,26 @@ import org.hyperledger.fabric.contract.annotation.Default;
 import org.hyperledger.fabric.contract.annotation.Info;
 import org.hyperledger.fabric.contract.annotation.License;
 import org.hyperledger.fabric.contract.annotation.Transaction;
+import org.hyperledger.fabric.samples.logging.Logging;
+import org.hyperledger.fabric.samples.metrics.MeteredSerializer;
+import org.hyperledger.fabric.samples.metrics.Metrics;
+import org.hyperledger.fabric.samples.metrics.TransactionMetrics;
 import org.hyperledger.fabric.shim.ChaincodeException;
 import org.hyperledger.fabric.shim.ChaincodeStub;
 import org.hyperledger.fabric.shim.ledger.CompositeKey;
 
 import org.hyperledger.fabric.shim.ledger.KeyValue;
 import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
-import org.json.JSONObject;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
 
 /**
  * Main Chaincode class. A ContractInterface gets converted to Chaincode internally.
@@ -56,18 +64,105 @@ import java.util.Map;
                 contact = @Contact(
                         email = "a.transfer@example.com",
                         name = "Private Transfer",
-                        url = "https://hyperledger.example.com")))
+                        url = "https://hyperledger.example.com")),
+        transactionSerializer = MeteredSerializer.NAME)
 @Default
 public final class AssetTransfer implements ContractInterface {
 
+    private static final Logger LOG = Logging.getLogger(AssetTransfer.class);
+
+    private static final TransactionMetrics METRICS = Metrics.getRegistry();
+
     static final String ASSET_COLLECTION_NAME = "assetCollection";
     static final String AGREEMENT_KEYPREFIX = "transferAgreement";
 
+    // Composite key index of the assets in the asset collection by owner. Each entry is keyed
+    // owner~assetID and holds a single byte, since a composite key with an empty value is treated
+    // as deleted. The value is not JSON, so rich queries against the collection never match it.
+    static final String OWNER_INDEX = "owner~assetID";
+    private static final byte[] INDEX_VALUE = {0};
+
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    // Initial capacity of the per-thread response buffer, and the capacity above which the
+    // buffer is dropped after use rather than being kept for the next query on that thread.
+    private static final int RESPONSE_BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    // The private collection of each org, by MSP ID
+    private static final int MAX_CACHED_COLLECTION_NAMES = 64;
+    private static final ConcurrentMap<String, String> COLLECTION_NAMES = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<StringBuilder> RESPONSE_BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(RESPONSE_BUFFER_SIZE));
+
+    private static final String[] ASSET_PROPERTIES_FIELDS = {"objectType", "assetID", "color", "size", "appraisedValue"};
+    private static final String[] ASSET_VALUE_FIELDS = {"assetID", "appraisedValue"};
+    private static final String[] ASSET_OWNER_FIELDS = {"assetID", "buyerMSP"};
+    private static final String[] ASSET_DELETE_FIELDS = {"assetID"};
+
     private enum AssetTransferErrors {
         INCOMPLETE_INPUT,
         INVALID_ACCESS,
         ASSET_NOT_FOUND,
-        ASSET_ALREADY_EXISTS
+        ASSET_ALREADY_EXISTS,
+        INVALID_BATCH_SIZE,
+        DUPLICATE_BATCH_ASSET,
+        INVALID_PAGE_SIZE,
+        INVALID_BOOKMARK
+    }
+
+    /**
+     * Creates the contract and starts serving the chaincode metrics. The shim creates each
+     * contract once, when the chaincode starts.
+     */
+    public AssetTransfer() {
+        Metrics.start();
+    }
+
+    /**
+     * Creates a context whose stub counts the state the transaction reads and writes.
+     *
+     * @param stub the stub for the transaction
+     * @return the transaction context
+     */
+    @Override
+    public Context createContext(final ChaincodeStub stub) {
+        return new Context(METRICS.meter(stub));
+    }
+
+    /**
+     * Starts timing the transaction, and records a transaction that threw before it on this
+     * thread as failed.
+     *
+     * @param ctx the transaction context
+     */
+    @Override
+    public void beforeTransaction(final Context ctx) {
+        METRICS.beforeTransaction(ctx);
+    }
+
+    /**
+     * Records the latency and state access of the transaction.
+     *
+     * @param ctx the transaction context
+     * @param result the value returned by the transaction function
+     */
+    @Override
+    public void afterTransaction(final Context ctx, final Object result) {
+        METRICS.afterTransaction(ctx);
+    }
+
+    /**
+     * Records the call to a function this contract does not have, then rejects it.
+     *
+     * @param ctx the transaction context
+     */
+    @Override
+    public void unknownTransaction(final Context ctx) {
+        METRICS.unknownTransaction(ctx);
+        throw new ChaincodeException("Undefined contract method called");
     }
 
     /**
@@ -80,11 +175,11 @@ public final class AssetTransfer implements ContractInterface {
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public Asset ReadAsset(final Context ctx, final String assetID) {
         ChaincodeStub stub = ctx.getStub();
-        System.out.printf("ReadAsset: collection %s, ID %s\n", ASSET_COLLECTION_NAME, assetID);
+        LOG.fine(() -> String.format("ReadAsset: collection %s, ID %s", ASSET_COLLECTION_NAME, assetID));
         byte[] assetJSON = stub.getPrivateData(ASSET_COLLECTION_NAME, assetID);
 
         if (assetJSON == null || assetJSON.length == 0) {
-            System.out.printf("Asset not found: ID %s\n", assetID);
+            LOG.fine(() -> String.format("Asset not found: ID %s", assetID));
             return null;
         }
 
@@ -103,12 +198,12 @@ public final class AssetTransfer implements ContractInterface {
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public AssetPrivateDetails ReadAssetPrivateDetails(final Context ctx, final String collection, final String assetID) {
         ChaincodeStub stub = ctx.getStub();
-        System.out.printf("ReadAssetPrivateDetails: collection %s, ID %s\n", collection, assetID);
+        LOG.fine(() -> String.format("ReadAssetPrivateDetails: collection %s, ID %s", collection, assetID));
         byte[] assetPrvJSON = stub.getPrivateData(collection, assetID);
 
         if (assetPrvJSON == null || assetPrvJSON.length == 0) {
             String errorMessage = String.format("AssetPrivateDetails %s does not exist in collection %s", assetID, collection);
-            System.out.println(errorMessage);
+            LOG.info(errorMessage);
             return null;
         }
 
@@ -128,12 +223,12 @@ public final class AssetTransfer implements ContractInterface {
         ChaincodeStub stub = ctx.getStub();
 
         CompositeKey aggKey = stub.createCompositeKey(AGREEMENT_KEYPREFIX, assetID);
-        System.out.printf("ReadTransferAgreement Get: collection %s, ID %s, Key %s\n", ASSET_COLLECTION_NAME, assetID, aggKey);
+        LOG.fine(() -> String.format("ReadTransferAgreement Get: collection %s, ID %s, Key %s", ASSET_COLLECTION_NAME, assetID, aggKey));
         byte[] buyerIdentity = stub.getPrivateData(ASSET_COLLECTION_NAME, aggKey.toString());
 
         if (buyerIdentity == null || buyerIdentity.length == 0) {
             String errorMessage = String.format("BuyerIdentity for asset %s does not exist in TransferAgreement ", assetID);
-            System.out.println(errorMessage);
+            LOG.info(errorMessage);
             return null;
         }
 
@@ -154,19 +249,84 @@ public final class AssetTransfer implements ContractInterface {
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public Asset[] GetAssetByRange(final Context ctx, final String startKey, final String endKey) throws Exception {
         ChaincodeStub stub = ctx.getStub();
-        System.out.printf("GetAssetByRange: start %s, end %s\n", startKey, endKey);
+        LOG.fine(() -> String.format("GetAssetByRange: start %s, end %s", startKey, endKey));
 
         List<Asset> queryResults = new ArrayList<>();
         // retrieve asset with keys between startKey (inclusive) and endKey(exclusive) in lexical order.
         try (QueryResultsIterator<KeyValue> results = stub.getPrivateDataByRange(ASSET_COLLECTION_NAME, startKey, endKey)) {
             for (KeyValue result : results) {
                 if (result.getStringValue() == null || result.getStringValue().length() == 0) {
-                    System.err.printf("Invalid Asset json: %s\n", result.getStringValue());
+                    LOG.warning(() -> String.format("Invalid Asset json: %s", result.getStringValue()));
                     continue;
                 }
                 Asset asset = Asset.deserialize(result.getStringValue());
                 queryResults.add(asset);
-                System.out.println("QueryResult: " + asset.toString());
+                LOG.fine(() -> "QueryResult: " + asset);
+            }
+        }
+        return queryResults.toArray(new Asset[0]);
+    }
+
+    /**
+     * Retrieves one page of the assets with keys between startKey (inclusive) and endKey
+     * (exclusive) in lexical order. Private data range queries cannot be paginated by the peer,
+     * so the page is cut from an ordinary range query that starts at the bookmark, and the
+     * query is closed once the first asset of the next page has been seen.
+     *
+     * @param ctx      the transaction context
+     * @param startKey for ID range of the asset
+     * @param endKey   for ID range of the asset
+     * @param pageSize the maximum number of assets to return
+     * @param bookmark the bookmark returned with the previous page, or empty for the first page
+     * @return the page of assets with the fetched record count and the bookmark for the next page
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAssetByRangeWithPagination(final Context ctx, final String startKey, final String endKey,
+            final int pageSize, final String bookmark) throws Exception {
+        checkPageSize(pageSize);
+        ChaincodeStub stub = ctx.getStub();
+        // the bookmark is the key of the first asset on the page
+        String start = bookmark == null || bookmark.isEmpty() ? startKey : bookmark;
+        LOG.fine(() -> String.format("GetAssetByRangeWithPagination: start %s, end %s, page size %d", start, endKey, pageSize));
+
+        try (QueryResultsIterator<KeyValue> results = stub.getPrivateDataByRange(ASSET_COLLECTION_NAME, start, endKey)) {
+            Iterator<KeyValue> iterator = results.iterator();
+            StringBuilder buffer = acquireResponseBuffer();
+            try {
+                int fetchedRecordsCount = appendAssets(buffer, iterator, pageSize);
+                return endPage(buffer, fetchedRecordsCount, iterator.hasNext() ? iterator.next().getKey() : "");
+            } finally {
+                releaseResponseBuffer(buffer);
+            }
+        }
+    }
+
+    /**
+     * GetAssetsByOwner retrieves the assets of an owner from the owner index kept in the asset
+     * collection. Unlike QueryAssetByOwner it does not need a CouchDB state database: it scans the
+     * owner's index entries and reads each asset by the ID held in the entry's key. Assets created
+     * before the index was added are found once they have been transferred.
+     *
+     * @param ctx   the transaction context
+     * @param owner the client identity that owns the assets, or empty for the submitting client
+     * @return array of the owner's assets in assetID order
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public Asset[] GetAssetsByOwner(final Context ctx, final String owner) throws Exception {
+        ChaincodeStub stub = ctx.getStub();
+        String ownerID = owner == null || owner.isEmpty() ? ctx.getClientIdentity().getId() : owner;
+        LOG.fine(() -> String.format("GetAssetsByOwner: %s", ownerID));
+
+        List<Asset> queryResults = new ArrayList<>();
+        try (QueryResultsIterator<KeyValue> results =
+                stub.getPrivateDataByPartialCompositeKey(ASSET_COLLECTION_NAME, new CompositeKey(OWNER_INDEX, ownerID))) {
+            for (KeyValue result : results) {
+                String assetID = stub.splitCompositeKey(result.getKey()).getAttributes().get(1);
+                byte[] assetJSON = stub.getPrivateData(ASSET_COLLECTION_NAME, assetID);
+                if (assetJSON == null || assetJSON.length == 0) {
+                    continue;
+                }
+                queryResults.add(Asset.deserialize(assetJSON));
             }
         }
         return queryResults.toArray(new Asset[0]);
@@ -188,7 +348,8 @@ public final class AssetTransfer implements ContractInterface {
     /**
      * QueryAssetByOwner queries for assets based on assetType, owner.
      * This is an example of a parameterized query where the query logic is baked into the chaincode,
-     * and accepting a single query parameter (owner).
+     * and accepting a single query parameter (owner). GetAssetsByOwner finds an owner's assets
+     * without a rich query.
      *
      * @param ctx       the transaction context
      * @param assetType type to query for
@@ -197,8 +358,12 @@ public final class AssetTransfer implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public Asset[] QueryAssetByOwner(final Context ctx, final String assetType, final String owner) throws Exception {
-        String queryString = String.format("{\"selector\":{\"objectType\":\"%s\",\"owner\":\"%s\"}}", assetType, owner);
-        return getQueryResult(ctx, queryString);
+        // the parameters are escaped, so that they cannot change the shape of the selector
+        StringBuilder queryString = new StringBuilder("{\"selector\":{\"objectType\":");
+        Json.writeString(queryString, assetType);
+        queryString.append(",\"owner\":");
+        Json.writeString(queryString, owner);
+        return getQueryResult(ctx, queryString.append("}}").toString());
     }
 
     /**
@@ -215,21 +380,127 @@ public final class AssetTransfer implements ContractInterface {
         return getQueryResult(ctx, queryString);
     }
 
+    /**
+     * QueryAssetsWithPagination uses a query string to retrieve one page of assets. The peer
+     * cannot paginate rich queries of private data, so paging is emulated: each page runs the
+     * whole query again and steps over the results on the earlier pages without decoding them.
+     * Reading every page of n results therefore steps over O(n^2) results in all, so a large
+     * result set is better read with GetAssetByRangeWithPagination, whose bookmark is a key.
+     *
+     * <p>The bookmark holds the number of results on the earlier pages rather than the key of the
+     * next one, because rich query results come back in the order of the index the query uses,
+     * not in key order. An asset added or removed between pages moves the later pages along, so
+     * that another asset may be returned twice or not at all.
+     *
+     * @param ctx         the transaction context
+     * @param queryString query string matching state database syntax
+     * @param pageSize    the maximum number of assets to return
+     * @param bookmark    the bookmark returned with the previous page, or empty for the first page
+     * @return the page of assets with the fetched record count and the bookmark for the next page
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String QueryAssetsWithPagination(final Context ctx, final String queryString, final int pageSize,
+            final String bookmark) throws Exception {
+        checkPageSize(pageSize);
+        long skip = parseBookmark(bookmark);
+        ChaincodeStub stub = ctx.getStub();
+        LOG.fine(() -> String.format("QueryAssetsWithPagination: %s, page size %d, skip %d", queryString, pageSize, skip));
+
+        try (QueryResultsIterator<KeyValue> results = stub.getPrivateDataQueryResult(ASSET_COLLECTION_NAME, queryString)) {
+            Iterator<KeyValue> iterator = results.iterator();
+            for (long i = 0; i < skip && iterator.hasNext(); i++) {
+                iterator.next();
+            }
+            StringBuilder buffer = acquireResponseBuffer();
+            try {
+                int fetchedRecordsCount = appendAssets(buffer, iterator, pageSize);
+                return endPage(buffer, fetchedRecordsCount, iterator.hasNext() ? Long.toString(skip + pageSize) : "");
+            } finally {
+                releaseResponseBuffer(buffer);
+            }
+        }
+    }
+
+    private static void checkPageSize(final int pageSize) {
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            String errorMessage = String.format("Page size must be between 1 and %d", MAX_PAGE_SIZE);
+            LOG.info(errorMessage);
+            throw new ChaincodeException(errorMessage, AssetTransferErrors.INVALID_PAGE_SIZE.toString());
+        }
+    }
+
+    private static long parseBookmark(final String bookmark) {
+        if (bookmark == null || bookmark.isEmpty()) {
+            return 0;
+        }
+        try {
+            long skip = Long.parseLong(bookmark);
+            if (skip >= 0) {
+                return skip;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        String errorMessage = String.format("Invalid bookmark %s", bookmark);
+        LOG.info(errorMessage);
+        throw new ChaincodeException(errorMessage, AssetTransferErrors.INVALID_BOOKMARK.toString());
+    }
+
+    // Appends the assets in the next pageSize results to buffer as the start of a page, returning
+    // the number of assets appended
+    private static int appendAssets(final StringBuilder buffer, final Iterator<KeyValue> results, final int pageSize) {
+        buffer.append("{\"records\":[");
+        int count = 0;
+        for (int read = 0; read < pageSize && results.hasNext(); read++) {
+            KeyValue result = results.next();
+            String value = result.getStringValue();
+            if (value == null || value.isEmpty()) {
+                LOG.warning(() -> String.format("Invalid Asset json: %s", value));
+                continue;
+            }
+            if (count > 0) {
+                buffer.append(',');
+            }
+            Codecs.ASSET.encode(Asset.deserialize(value), buffer);
+            count++;
+        }
+        return count;
+    }
+
+    private static String endPage(final StringBuilder buffer, final int fetchedRecordsCount, final String bookmark) {
+        buffer.append("],\"fetchedRecordsCount\":").append(fetchedRecordsCount).append(",\"bookmark\":");
+        Json.writeString(buffer, bookmark);
+        return buffer.append('}').toString();
+    }
+
+    private static StringBuilder acquireResponseBuffer() {
+        StringBuilder buffer = RESPONSE_BUFFER.get();
+        buffer.setLength(0);
+        return buffer;
+    }
+
+    private static void releaseResponseBuffer(final StringBuilder buffer) {
+        buffer.setLength(0);
+        if (buffer.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+            RESPONSE_BUFFER.remove();
+        }
+    }
+
     private Asset[] getQueryResult(final Context ctx, final String queryString) throws Exception {
         ChaincodeStub stub = ctx.getStub();
-        System.out.printf("QueryAssets: %s\n", queryString);
+        LOG.fine(() -> String.format("QueryAssets: %s", queryString));
 
         List<Asset> queryResults = new ArrayList<Asset>();
         // retrieve asset with keys between startKey (inclusive) and endKey(exclusive) in lexical order.
         try (QueryResultsIterator<KeyValue> results = stub.getPrivateDataQueryResult(ASSET_COLLECTION_NAME, queryString)) {
             for (KeyValue result : results) {
                 if (result.getStringValue() == null || result.getStringValue().length() == 0) {
-                    System.err.printf("Invalid Asset json: %s\n", result.getStringValue());
+                    LOG.warning(() -> String.format("Invalid Asset json: %s", result.getStringValue()));
                     continue;
                 }
                 Asset asset = Asset.deserialize(result.getStringValue());
                 queryResults.add(asset);
-                System.out.println("QueryResult: " + asset.toString());
+                LOG.fine(() -> "QueryResult: " + asset);
             }
         }
         return queryResults.toArray(new Asset[0]);
@@ -247,67 +518,16 @@ public final class AssetTransfer implements ContractInterface {
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public Asset CreateAsset(final Context ctx) {
         ChaincodeStub stub = ctx.getStub();
-        Map<String, byte[]> transientMap = ctx.getStub().getTransient();
-        if (!transientMap.containsKey("asset_properties")) {
-            String errorMessage = String.format("CreateAsset call must specify asset_properties in Transient map input");
-            System.err.println(errorMessage);
-            throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
-        }
+        TransientInput input = TransientInput.read(stub, "CreateAsset", "asset_properties");
+        AssetProperties properties = AssetProperties.read(input);
+        input.endDocument();
+        Asset asset = properties.toAsset(input);
+        AssetPrivateDetails assetPriv = properties.toPrivateDetails(input);
 
-        byte[] transientAssetJSON = transientMap.get("asset_properties");
-        final String assetID;
-        final String type;
-        final String color;
-        int appraisedValue = 0;
-        int size = 0;
-        try {
-            JSONObject json = new JSONObject(new String(transientAssetJSON, UTF_8));
-            Map<String, Object> tMap = json.toMap();
-
-            type = (String) tMap.get("objectType");
-            assetID = (String) tMap.get("assetID");
-            color = (String) tMap.get("color");
-            if (tMap.containsKey("size")) {
-                size = (Integer) tMap.get("size");
-            }
-            if (tMap.containsKey("appraisedValue")) {
-                appraisedValue = (Integer) tMap.get("appraisedValue");
-            }
-        } catch (Exception err) {
-            String errorMessage = String.format("TransientMap deserialized error: %s ", err);
-            System.err.println(errorMessage);
-            throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
-        }
-
-        //input validations
-        String errorMessage = null;
-        if (assetID.equals("")) {
-            errorMessage = String.format("Empty input in Transient map: assetID");
-        }
-        if (type.equals("")) {
-            errorMessage = String.format("Empty input in Transient map: objectType");
-        }
-        if (color.equals("")) {
-            errorMessage = String.format("Empty input in Transient map: color");
-        }
-        if (size <= 0) {
-            errorMessage = String.format("Empty input in Transient map: size");
-        }
-        if (appraisedValue <= 0) {
-            errorMessage = String.format("Empty input in Transient map: appraisedValue");
-        }
-
-        if (errorMessage != null) {
-            System.err.println(errorMessage);
-            throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
-        }
-
-        Asset asset = new Asset(type, assetID, color, size, "");
         // Check if asset already exists
-        byte[] assetJSON = ctx.getStub().getPrivateData(ASSET_COLLECTION_NAME, assetID);
-        if (assetJSON != null && assetJSON.length > 0) {
-            errorMessage = String.format("Asset %s already exists", assetID);
-            System.err.println(errorMessage);
+        if (assetExists(stub, asset.getAssetID())) {
+            String errorMessage = String.format("Asset %s already exists", asset.getAssetID());
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_ALREADY_EXISTS.toString());
         }
 
@@ -319,21 +539,108 @@ public final class AssetTransfer implements ContractInterface {
         // write private data from this peer.
         verifyClientOrgMatchesPeerOrg(ctx);
 
-        //Make submitting client the owner
-        asset.setOwner(clientID);
-        System.out.printf("CreateAsset Put: collection %s, ID %s\n", ASSET_COLLECTION_NAME, assetID);
-        System.out.printf("Put: collection %s, ID %s\n", ASSET_COLLECTION_NAME, new String(asset.serialize()));
-        stub.putPrivateData(ASSET_COLLECTION_NAME, assetID, asset.serialize());
+        putAsset(stub, asset, clientID, getCollectionName(ctx), assetPriv);
+        return asset;
+    }
 
-        // Get collection name for this organization.
+    /**
+     * Creates a batch of new assets from asset properties passed in the transient map, in one
+     * transaction. The client's org is verified once for the whole batch, which is read before
+     * any asset is written. When continueOnError is false the first asset that cannot be created
+     * fails the transaction, so nothing is written; otherwise the remaining assets are created and
+     * each failure is reported in the result.
+     *
+     * @param ctx the transaction context
+     *            Transient map with assets_properties key with a JSON array of the asset_properties
+     *            that CreateAsset takes as value
+     * @param continueOnError whether to create the remaining assets when one cannot be created
+     * @return the number of assets created and the index, ID and error of each asset that was not
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String CreateAssets(final Context ctx, final boolean continueOnError) {
+        ChaincodeStub stub = ctx.getStub();
+        TransientInput input = TransientInput.read(stub, "CreateAssets", "assets_properties");
+        List<AssetProperties> batch = new ArrayList<>();
+        input.beginArray();
+        while (input.hasNextElement()) {
+            batch.add(AssetProperties.read(input));
+        }
+        input.endDocument();
+        checkBatchSize(batch.size());
+
+        String clientID = ctx.getClientIdentity().getId();
+        verifyClientOrgMatchesPeerOrg(ctx);
         String orgCollectionName = getCollectionName(ctx);
 
+        // The ledger does not show a transaction its own writes, so duplicates within the batch
+        // have to be caught here rather than by assetExists.
+        Set<String> batchAssetIDs = new HashSet<>();
+        BatchResult result = new BatchResult("created");
+        for (int i = 0; i < batch.size(); i++) {
+            AssetProperties properties = batch.get(i);
+            try {
+                Asset asset = properties.toAsset(input);
+                AssetPrivateDetails assetPriv = properties.toPrivateDetails(input);
+                if (!batchAssetIDs.add(asset.getAssetID()) || assetExists(stub, asset.getAssetID())) {
+                    String errorMessage = String.format("Asset %s already exists", asset.getAssetID());
+                    LOG.info(errorMessage);
+                    throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_ALREADY_EXISTS.toString());
+                }
+                putAsset(stub, asset, clientID, orgCollectionName, assetPriv);
+                result.succeeded();
+            } catch (ChaincodeException e) {
+                if (!continueOnError) {
+                    throw e;
+                }
+                result.failed(i, properties.assetID, e);
+            }
+        }
+        return result.toString();
+    }
+
+    private static boolean assetExists(final ChaincodeStub stub, final String assetID) {
+        byte[] assetJSON = stub.getPrivateData(ASSET_COLLECTION_NAME, assetID);
+        return assetJSON != null && assetJSON.length > 0;
+    }
+
+    // Makes the submitting client the owner, and saves the asset to the asset collection and its
+    // appraised value to the org's collection
+    private static void putAsset(final ChaincodeStub stub, final Asset asset, final String clientID,
+            final String orgCollectionName, final AssetPrivateDetails assetPriv) {
+        String assetID = asset.getAssetID();
+        asset.setOwner(clientID);
+        LOG.fine(() -> String.format("CreateAsset Put: collection %s, ID %s", ASSET_COLLECTION_NAME, assetID));
+        LOG.fine(() -> String.format("Put: collection %s, ID %s", ASSET_COLLECTION_NAME, new String(asset.serialize())));
+        stub.putPrivateData(ASSET_COLLECTION_NAME, assetID, asset.serialize());
+        indexOwner(stub, asset, null);
+
         //Save AssetPrivateDetails to org collection
-        AssetPrivateDetails assetPriv = new AssetPrivateDetails(assetID, appraisedValue);
-        System.out.printf("Put AssetPrivateDetails: collection %s, ID %s\n", orgCollectionName, assetID);
+        LOG.fine(() -> String.format("Put AssetPrivateDetails: collection %s, ID %s", orgCollectionName, assetID));
         stub.putPrivateData(orgCollectionName, assetID, assetPriv.serialize());
+    }
 
-        return asset;
+    // Moves an asset from its old owner's index entry to the entry for its current owner. A null
+    // oldOwner means the asset has just been created.
+    private static void indexOwner(final ChaincodeStub stub, final Asset asset, final String oldOwner) {
+        if (asset.getOwner().equals(oldOwner)) {
+            return;
+        }
+        if (oldOwner != null) {
+            stub.delPrivateData(ASSET_COLLECTION_NAME, ownerIndexKey(oldOwner, asset.getAssetID()));
+        }
+        stub.putPrivateData(ASSET_COLLECTION_NAME, ownerIndexKey(asset.getOwner(), asset.getAssetID()), INDEX_VALUE);
+    }
+
+    private static String ownerIndexKey(final String owner, final String assetID) {
+        return new CompositeKey(OWNER_INDEX, owner, assetID).toString();
+    }
+
+    private static void checkBatchSize(final int size) {
+        if (size == 0 || size > MAX_BATCH_SIZE) {
+            String errorMessage = String.format("Batch size must be between 1 and %d", MAX_BATCH_SIZE);
+            LOG.info(errorMessage);
+            throw new ChaincodeException(errorMessage, AssetTransferErrors.INVALID_BATCH_SIZE.toString());
+        }
     }
 
     /**
@@ -348,43 +655,36 @@ public final class AssetTransfer implements ContractInterface {
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public void AgreeToTransfer(final Context ctx) {
         ChaincodeStub stub = ctx.getStub();
-        Map<String, byte[]> transientMap = ctx.getStub().getTransient();
-        if (!transientMap.containsKey("asset_value")) {
-            String errorMessage = String.format("AgreeToTransfer call must specify \"asset_value\" in Transient map input");
-            System.err.println(errorMessage);
-            throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
-        }
-
-        byte[] transientAssetJSON = transientMap.get("asset_value");
-        AssetPrivateDetails assetPriv;
-        String assetID;
-        try {
-            JSONObject json = new JSONObject(new String(transientAssetJSON, UTF_8));
-            assetID = json.getString("assetID");
-            final int appraisedValue = json.getInt("appraisedValue");
-
-            assetPriv = new AssetPrivateDetails(assetID, appraisedValue);
-        } catch (Exception err) {
-            String errorMessage = String.format("TransientMap deserialized error %s ", err);
-            System.err.println(errorMessage);
-            throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
+        String id = null;
+        int value = 0;
+        boolean valueGiven = false;
+
+        TransientInput input = TransientInput.read(stub, "AgreeToTransfer", "asset_value");
+        input.beginObject();
+        while (input.hasNextField()) {
+            switch (input.nextField(ASSET_VALUE_FIELDS)) {
+                case "assetID":
+                    id = input.nextString("assetID");
+                    break;
+                case "appraisedValue":
+                    value = input.nextInt("appraisedValue");
+                    valueGiven = true;
+                    break;
+                default:
+                    input.skipValue();
+            }
         }
+        input.endDocument();
 
-        if (assetID.equals("")) {
-            String errorMessage = String.format("Invalid input in Transient map: assetID");
-            System.err.println(errorMessage);
-            throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
-        }
-        if (assetPriv.getAppraisedValue() <= 0) { // appraisedValue field must be a positive integer
-            String errorMessage = String.format("Input must be positive integer: appraisedValue");
-            System.err.println(errorMessage);
-            throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
-        }
-        System.out.printf("AgreeToTransfer: verify asset %s exists\n", assetID);
+        final String assetID = input.require(id, "assetID");
+        // appraisedValue field must be a positive integer
+        AssetPrivateDetails assetPriv = new AssetPrivateDetails(assetID,
+                input.requirePositive(value, valueGiven, "appraisedValue"));
+        LOG.fine(() -> String.format("AgreeToTransfer: verify asset %s exists", assetID));
         Asset existing = ReadAsset(ctx, assetID);
         if (existing == null) {
             String errorMessage = String.format("Asset does not exist in the collection: ", assetID);
-            System.err.println(errorMessage);
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
         // Get collection name for this organization.
@@ -393,13 +693,13 @@ public final class AssetTransfer implements ContractInterface {
         verifyClientOrgMatchesPeerOrg(ctx);
 
         //Save AssetPrivateDetails to org collection
-        System.out.printf("Put AssetPrivateDetails: collection %s, ID %s\n", orgCollectionName, assetID);
+        LOG.fine(() -> String.format("Put AssetPrivateDetails: collection %s, ID %s", orgCollectionName, assetID));
         stub.putPrivateData(orgCollectionName, assetID, assetPriv.serialize());
 
         String clientID = ctx.getClientIdentity().getId();
         //Write the AgreeToTransfer key in assetCollection
         CompositeKey aggKey = stub.createCompositeKey(AGREEMENT_KEYPREFIX, assetID);
-        System.out.printf("AgreeToTransfer Put: collection %s, ID %s, Key %s\n", ASSET_COLLECTION_NAME, assetID, aggKey);
+        LOG.fine(() -> String.format("AgreeToTransfer Put: collection %s, ID %s, Key %s", ASSET_COLLECTION_NAME, assetID, aggKey));
         stub.putPrivateData(ASSET_COLLECTION_NAME, aggKey.toString(), clientID);
     }
 
@@ -413,75 +713,119 @@ public final class AssetTransfer implements ContractInterface {
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public void TransferAsset(final Context ctx) {
         ChaincodeStub stub = ctx.getStub();
-        Map<String, byte[]> transientMap = ctx.getStub().getTransient();
-        if (!transientMap.containsKey("asset_owner")) {
-            String errorMessage = "TransferAsset call must specify \"asset_owner\" in Transient map input";
-            System.err.println(errorMessage);
-            throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
-        }
+        TransientInput input = TransientInput.read(stub, "TransferAsset", "asset_owner");
+        AssetOwner assetOwner = AssetOwner.read(input);
+        input.endDocument();
+        String assetID = input.require(assetOwner.assetID, "assetID");
+        String buyerMSP = input.require(assetOwner.buyerMSP, "buyerMSP");
 
-        byte[] transientAssetJSON = transientMap.get("asset_owner");
-        final String assetID;
-        final String buyerMSP;
-        try {
-            JSONObject json = new JSONObject(new String(transientAssetJSON, UTF_8));
-            assetID = json.getString("assetID");
-            buyerMSP = json.getString("buyerMSP");
+        transferAsset(ctx, ctx.getClientIdentity().getId(), getCollectionName(ctx), assetID, buyerMSP);
+    }
 
-        } catch (Exception err) {
-            String errorMessage = String.format("TransientMap deserialized error %s ", err);
-            System.err.println(errorMessage);
-            throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
+    /**
+     * Transfers a batch of assets to the owners that agreed to buy them, in one transaction. The
+     * whole batch is read before any asset is transferred, and each asset is checked as
+     * TransferAsset checks it. When continueOnError is false the first asset that cannot be transferred fails
+     * the transaction, so nothing is written; otherwise the remaining assets are transferred and
+     * each failure is reported in the result.
+     *
+     * @param ctx the transaction context
+     *            Transient map with assets_owner key with a JSON array of the asset_owner that
+     *            TransferAsset takes as value
+     * @param continueOnError whether to transfer the remaining assets when one cannot be transferred
+     * @return the number of assets transferred and the index, ID and error of each asset that was not
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String TransferAssets(final Context ctx, final boolean continueOnError) {
+        ChaincodeStub stub = ctx.getStub();
+        TransientInput input = TransientInput.read(stub, "TransferAssets", "assets_owner");
+        List<AssetOwner> batch = new ArrayList<>();
+        input.beginArray();
+        while (input.hasNextElement()) {
+            batch.add(AssetOwner.read(input));
         }
+        input.endDocument();
+        checkBatchSize(batch.size());
 
-        if (assetID.equals("")) {
-            String errorMessage = String.format("Invalid input in Transient map: " + "assetID");
-            System.err.println(errorMessage);
-            throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
-        }
-        if (buyerMSP.equals("")) {
-            String errorMessage = String.format("Invalid input in Transient map: " + "buyerMSP");
-            System.err.println(errorMessage);
-            throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
+        String clientID = ctx.getClientIdentity().getId();
+        String ownersCollectionName = getCollectionName(ctx);
+
+        // A second transfer of an asset would read the state from before the first one
+        Set<String> batchAssetIDs = new HashSet<>();
+        BatchResult result = new BatchResult("transferred");
+        for (int i = 0; i < batch.size(); i++) {
+            AssetOwner assetOwner = batch.get(i);
+            try {
+                String assetID = input.require(assetOwner.assetID, "assetID");
+                String buyerMSP = input.require(assetOwner.buyerMSP, "buyerMSP");
+                if (!batchAssetIDs.add(assetID)) {
+                    String errorMessage = String.format("Asset %s is transferred more than once in the batch", assetID);
+                    LOG.info(errorMessage);
+                    throw new ChaincodeException(errorMessage, AssetTransferErrors.DUPLICATE_BATCH_ASSET.toString());
+                }
+                transferAsset(ctx, clientID, ownersCollectionName, assetID, buyerMSP);
+                result.succeeded();
+            } catch (ChaincodeException e) {
+                if (!continueOnError) {
+                    throw e;
+                }
+                result.failed(i, assetOwner.assetID, e);
+            }
         }
+        return result.toString();
+    }
 
-        System.out.printf("TransferAsset: verify asset %s exists\n", assetID);
+    // Transfers an asset owned by the client to the buyer that agreed to its appraised value.
+    // Everything is checked before anything is written, in the order TransferAsset has always
+    // checked it, so clients see the same error for the same request. The Java shim sends each
+    // read to the peer on its own and waits for the answer, so these four reads are as few as the
+    // checks allow.
+    private void transferAsset(final Context ctx, final String clientID, final String ownersCollectionName,
+            final String assetID, final String buyerMSP) {
+        ChaincodeStub stub = ctx.getStub();
+        LOG.fine(() -> String.format("TransferAsset: verify asset %s exists", assetID));
         byte[] assetJSON = stub.getPrivateData(ASSET_COLLECTION_NAME, assetID);
 
         if (assetJSON == null || assetJSON.length == 0) {
             String errorMessage = String.format("Asset %s does not exist in the collection", assetID);
-            System.err.println(errorMessage);
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
 
         verifyClientOrgMatchesPeerOrg(ctx);
         Asset thisAsset = Asset.deserialize(assetJSON);
-        // Verify transfer details and transfer owner
-        verifyAgreement(ctx, assetID, thisAsset.getOwner(), buyerMSP);
+        // Check 1: verify that the transfer is being initiatied by the owner
+        if (!clientID.equals(thisAsset.getOwner())) {
+            throw new ChaincodeException("Submitting client identity does not own the asset", AssetTransferErrors.INVALID_ACCESS.toString());
+        }
+
+        // Check 2: verify that the buyer has agreed to the appraised value
+        verifyAgreement(stub, ownersCollectionName, collectionName(buyerMSP), assetID);
 
-        TransferAgreement transferAgreement = ReadTransferAgreement(ctx, assetID);
-        if (transferAgreement == null) {
+        // Check 3: verify that the buyer has agreed to buy the asset
+        String aggKey = stub.createCompositeKey(AGREEMENT_KEYPREFIX, assetID).toString();
+        byte[] buyerIdentity = stub.getPrivateData(ASSET_COLLECTION_NAME, aggKey);
+        if (buyerIdentity == null || buyerIdentity.length == 0) {
             String errorMessage = String.format("TransferAgreement does not exist for asset: %s", assetID);
-            System.err.println(errorMessage);
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
         }
 
         // Transfer asset in private data collection to new owner
-        String newOwner = transferAgreement.getBuyerID();
+        String newOwner = new String(buyerIdentity, UTF_8);
         thisAsset.setOwner(newOwner);
 
         //Save updated Asset to collection
-        System.out.printf("Transfer Asset: collection %s, ID %s to owner %s\n", ASSET_COLLECTION_NAME, assetID, newOwner);
+        LOG.fine(() -> String.format("Transfer Asset: collection %s, ID %s to owner %s", ASSET_COLLECTION_NAME, assetID, newOwner));
         stub.putPrivateData(ASSET_COLLECTION_NAME, assetID, thisAsset.serialize());
+        indexOwner(stub, thisAsset, clientID);
 
         // delete the key from owners collection
-        String ownersCollectionName = getCollectionName(ctx);
         stub.delPrivateData(ownersCollectionName, assetID);
 
         //Delete the transfer agreement from the asset collection
-        CompositeKey aggKey = stub.createCompositeKey(AGREEMENT_KEYPREFIX, assetID);
-        System.out.printf("AgreeToTransfer deleteKey: collection %s, ID %s, Key %s\n", ASSET_COLLECTION_NAME, assetID, aggKey);
-        stub.delPrivateData(ASSET_COLLECTION_NAME, aggKey.toString());
+        LOG.fine(() -> String.format("AgreeToTransfer deleteKey: collection %s, ID %s, Key %s", ASSET_COLLECTION_NAME, assetID, aggKey));
+        stub.delPrivateData(ASSET_COLLECTION_NAME, aggKey);
     }
 
     /**
@@ -493,32 +837,29 @@ public final class AssetTransfer implements ContractInterface {
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public void DeleteAsset(final Context ctx) {
         ChaincodeStub stub = ctx.getStub();
-        Map<String, byte[]> transientMap = ctx.getStub().getTransient();
-        if (!transientMap.containsKey("asset_delete")) {
-            String errorMessage = String.format("DeleteAsset call must specify 'asset_delete' in Transient map input");
-            System.err.println(errorMessage);
-            throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
+        String id = null;
+
+        TransientInput input = TransientInput.read(stub, "DeleteAsset", "asset_delete");
+        input.beginObject();
+        while (input.hasNextField()) {
+            switch (input.nextField(ASSET_DELETE_FIELDS)) {
+                case "assetID":
+                    id = input.nextString("assetID");
+                    break;
+                default:
+                    input.skipValue();
+            }
         }
+        input.endDocument();
 
-        byte[] transientAssetJSON = transientMap.get("asset_delete");
-        final String assetID;
-
-        try {
-            JSONObject json = new JSONObject(new String(transientAssetJSON, UTF_8));
-            assetID = json.getString("assetID");
-
-        } catch (Exception err) {
-            String errorMessage = String.format("TransientMap deserialized error: %s ", err);
-            System.err.println(errorMessage);
-            throw new ChaincodeException(errorMessage, AssetTransferErrors.INCOMPLETE_INPUT.toString());
-        }
+        final String assetID = input.require(id, "assetID");
 
-        System.out.printf("DeleteAsset: verify asset %s exists\n", assetID);
+        LOG.fine(() -> String.format("DeleteAsset: verify asset %s exists", assetID));
         byte[] assetJSON = stub.getPrivateData(ASSET_COLLECTION_NAME, assetID);
 
         if (assetJSON == null || assetJSON.length == 0) {
             String errorMessage = String.format("Asset %s does not exist", assetID);
-            System.err.println(errorMessage);
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_NOT_FOUND.toString());
         }
         String ownersCollectionName = getCollectionName(ctx);
@@ -526,14 +867,15 @@ public final class AssetTransfer implements ContractInterface {
 
         if (apdJSON == null || apdJSON.length == 0) {
             String errorMessage = String.format("Failed to read asset from owner's Collection %s", ownersCollectionName);
-            System.err.println(errorMessage);
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_NOT_FOUND.toString());
         }
         verifyClientOrgMatchesPeerOrg(ctx);
 
         // delete the key from asset collection
-        System.out.printf("DeleteAsset: collection %s, ID %s\n", ASSET_COLLECTION_NAME, assetID);
+        LOG.fine(() -> String.format("DeleteAsset: collection %s, ID %s", ASSET_COLLECTION_NAME, assetID));
         stub.delPrivateData(ASSET_COLLECTION_NAME, assetID);
+        stub.delPrivateData(ASSET_COLLECTION_NAME, ownerIndexKey(Asset.deserialize(assetJSON).getOwner(), assetID));
 
         // Finally, delete private details of asset
         stub.delPrivateData(ownersCollectionName, assetID);
@@ -541,43 +883,42 @@ public final class AssetTransfer implements ContractInterface {
 
     // Used by TransferAsset to verify that the transfer is being initiated by the owner and that
     // the buyer has agreed to the same appraisal value as the owner
-    private void verifyAgreement(final Context ctx, final String assetID, final String owner, final String buyerMSP) {
-        String clienID = ctx.getClientIdentity().getId();
-
-        // Check 1: verify that the transfer is being initiatied by the owner
-        if (!clienID.equals(owner)) {
-            throw new ChaincodeException("Submitting client identity does not own the asset", AssetTransferErrors.INVALID_ACCESS.toString());
-        }
-
-        // Check 2: verify that the buyer has agreed to the appraised value
-        String collectionOwner = getCollectionName(ctx); // get owner collection from caller identity
-        String collectionBuyer = buyerMSP + "PrivateCollection";
-
+    private void verifyAgreement(final ChaincodeStub stub, final String collectionOwner, final String collectionBuyer,
+            final String assetID) {
         // Get hash of owners agreed to value
-        byte[] ownerAppraisedValueHash = ctx.getStub().getPrivateDataHash(collectionOwner, assetID);
+        byte[] ownerAppraisedValueHash = stub.getPrivateDataHash(collectionOwner, assetID);
         if (ownerAppraisedValueHash == null) {
             throw new ChaincodeException(String.format("Hash of appraised value for %s does not exist in collection %s", assetID, collectionOwner));
         }
 
         // Get hash of buyers agreed to value
-        byte[] buyerAppraisedValueHash = ctx.getStub().getPrivateDataHash(collectionBuyer, assetID);
+        byte[] buyerAppraisedValueHash = stub.getPrivateDataHash(collectionBuyer, assetID);
         if (buyerAppraisedValueHash == null) {
             throw new ChaincodeException(String.format("Hash of appraised value for %s does not exist in collection %s. AgreeToTransfer must be called by the buyer first.", assetID, collectionBuyer));
         }
 
         // Verify that the two hashes match
         if (!Arrays.equals(ownerAppraisedValueHash, buyerAppraisedValueHash)) {
-            throw new ChaincodeException(String.format("Hash for appraised value for owner %x does not match value for seller %x", ownerAppraisedValueHash, buyerAppraisedValueHash));
+            throw new ChaincodeException(String.format("Hash for appraised value for owner %s does not match value for seller %s",
+                    toHex(ownerAppraisedValueHash), toHex(buyerAppraisedValueHash)));
         }
     }
 
+    private static String toHex(final byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
     private void verifyClientOrgMatchesPeerOrg(final Context ctx) {
         String clientMSPID = ctx.getClientIdentity().getMSPID();
         String peerMSPID = ctx.getStub().getMspId();
 
         if (!peerMSPID.equals(clientMSPID)) {
             String errorMessage = String.format("Client from org %s is not authorized to read or write private data from an org %s peer", clientMSPID, peerMSPID);
-            System.err.println(errorMessage);
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.INVALID_ACCESS.toString());
         }
     }
@@ -587,7 +928,128 @@ public final class AssetTransfer implements ContractInterface {
         // Get the MSP ID of submitting client identity
         String clientMSPID = ctx.getClientIdentity().getMSPID();
         // Create the collection name
-        return clientMSPID + "PrivateCollection";
+        return collectionName(clientMSPID);
+    }
+
+    private static String collectionName(final String mspID) {
+        String collectionName = COLLECTION_NAMES.get(mspID);
+        if (collectionName == null) {
+            collectionName = mspID + "PrivateCollection";
+            // buyerMSP comes from the client, so only as many names are kept as a channel has orgs
+            if (COLLECTION_NAMES.size() < MAX_CACHED_COLLECTION_NAMES) {
+                COLLECTION_NAMES.putIfAbsent(mspID, collectionName);
+            }
+        }
+        return collectionName;
+    }
+
+    // The fields of an asset_properties object, as read before they are checked
+    private static final class AssetProperties {
+        private String objectType;
+        private String assetID;
+        private String color;
+        private int size;
+        private boolean sizeGiven;
+        private int appraisedValue;
+        private boolean appraisedValueGiven;
+
+        static AssetProperties read(final TransientInput input) {
+            AssetProperties properties = new AssetProperties();
+            input.beginObject();
+            while (input.hasNextField()) {
+                switch (input.nextField(ASSET_PROPERTIES_FIELDS)) {
+                    case "objectType":
+                        properties.objectType = input.nextString("objectType");
+                        break;
+                    case "assetID":
+                        properties.assetID = input.nextString("assetID");
+                        break;
+                    case "color":
+                        properties.color = input.nextString("color");
+                        break;
+                    case "size":
+                        properties.size = input.nextInt("size");
+                        properties.sizeGiven = true;
+                        break;
+                    case "appraisedValue":
+                        properties.appraisedValue = input.nextInt("appraisedValue");
+                        properties.appraisedValueGiven = true;
+                        break;
+                    default:
+                        input.skipValue();
+                }
+            }
+            return properties;
+        }
+
+        Asset toAsset(final TransientInput input) {
+            String id = input.require(assetID, "assetID");
+            return new Asset(input.require(objectType, "objectType"), id, input.require(color, "color"),
+                    input.requirePositive(size, sizeGiven, "size"), "");
+        }
+
+        AssetPrivateDetails toPrivateDetails(final TransientInput input) {
+            return new AssetPrivateDetails(assetID,
+                    input.requirePositive(appraisedValue, appraisedValueGiven, "appraisedValue"));
+        }
     }
 
+    // The fields of an asset_owner object, as read before they are checked
+    private static final class AssetOwner {
+        private String assetID;
+        private String buyerMSP;
+
+        static AssetOwner read(final TransientInput input) {
+            AssetOwner assetOwner = new AssetOwner();
+            input.beginObject();
+            while (input.hasNextField()) {
+                switch (input.nextField(ASSET_OWNER_FIELDS)) {
+                    case "assetID":
+                        assetOwner.assetID = input.nextString("assetID");
+                        break;
+                    case "buyerMSP":
+                        assetOwner.buyerMSP = input.nextString("buyerMSP");
+                        break;
+                    default:
+                        input.skipValue();
+                }
+            }
+            return assetOwner;
+        }
+    }
+
+    // Builds the result of a batch transaction, such as
+    // {"created":1,"failures":[{"index":1,"assetID":"asset1","error":"ASSET_ALREADY_EXISTS","message":"..."}]}
+    private static final class BatchResult {
+        private final String countName;
+        private final StringBuilder failures = new StringBuilder();
+        private int count;
+
+        BatchResult(final String countName) {
+            this.countName = countName;
+        }
+
+        void succeeded() {
+            count++;
+        }
+
+        void failed(final int index, final String assetID, final ChaincodeException e) {
+            failures.append(failures.length() == 0 ? "{\"index\":" : ",{\"index\":").append(index);
+            failures.append(",\"assetID\":");
+            Json.writeString(failures, assetID);
+            failures.append(",\"error\":");
+            Json.writeString(failures, e.getPayload() == null ? null : new String(e.getPayload(), UTF_8));
+            failures.append(",\"message\":");
+            Json.writeString(failures, e.getMessage());
+            failures.append('}');
+        }
+
+        @Override
+        public String toString() {
+            return new StringBuilder()
+                    .append("{\"").append(countName).append("\":").append(count)
+                    .append(",\"failures\":[").append(failures).append("]}")
+                    .toString();
+        }
+    }
 }
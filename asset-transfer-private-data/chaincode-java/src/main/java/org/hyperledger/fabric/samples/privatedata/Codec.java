@@ -0,0 +1,44 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.privatedata;
+
+/**
+ * Converts a data type to and from the JSON stored on the ledger, without using reflection.
+ * Codecs hold no state, so a single instance can be shared by all transactions.
+ *
+ * @param <T> the data type handled by the codec
+ */
+public interface Codec<T> {
+
+    /**
+     * Appends the JSON representation of value to out.
+     *
+     * @param value the value to encode
+     * @param out the buffer to append to
+     */
+    void encode(T value, StringBuilder out);
+
+    /**
+     * Returns the JSON representation of value.
+     *
+     * @param value the value to encode
+     * @return the encoded value
+     */
+    default String encode(final T value) {
+        StringBuilder out = new StringBuilder();
+        encode(value, out);
+        return out.toString();
+    }
+
+    /**
+     * Reads a value from its JSON representation. Fields may appear in any order and unknown
+     * fields are ignored, but every field of the data type must be present.
+     *
+     * @param json the encoded value
+     * @return the decoded value
+     * @throws IllegalArgumentException if json is not a valid encoding
+     */
+    T decode(String json);
+}
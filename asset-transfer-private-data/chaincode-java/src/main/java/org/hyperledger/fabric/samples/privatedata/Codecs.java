@@ -0,0 +1,209 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.privatedata;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of the codecs for the data types stored by this chaincode. The encoders write fields
+ * in declaration order and leave out null fields, giving documents equivalent to the
+ * {@code org.json.JSONObject} serialization they replace. {@link AssetPrivateDetails} is the
+ * exception: its hash is compared across org collections, so it keeps the exact bytes that
+ * JSONObject wrote for values already on the ledger.
+ */
+public final class Codecs {
+
+    /**
+     * Codec for {@link Asset}.
+     */
+    public static final Codec<Asset> ASSET = new AssetCodec();
+
+    /**
+     * Codec for {@link AssetPrivateDetails}.
+     */
+    public static final Codec<AssetPrivateDetails> ASSET_PRIVATE_DETAILS = new AssetPrivateDetailsCodec();
+
+    /**
+     * Codec for {@link TransferAgreement}.
+     */
+    public static final Codec<TransferAgreement> TRANSFER_AGREEMENT = new TransferAgreementCodec();
+
+    private static final Map<Class<?>, Codec<?>> REGISTRY;
+
+    static {
+        Map<Class<?>, Codec<?>> registry = new HashMap<>();
+        registry.put(Asset.class, ASSET);
+        registry.put(AssetPrivateDetails.class, ASSET_PRIVATE_DETAILS);
+        registry.put(TransferAgreement.class, TRANSFER_AGREEMENT);
+        REGISTRY = Collections.unmodifiableMap(registry);
+    }
+
+    private Codecs() {
+    }
+
+    /**
+     * Returns the codec registered for a data type.
+     *
+     * @param <T> the data type
+     * @param type the class of the data type
+     * @return the codec for the data type
+     * @throws IllegalArgumentException if no codec is registered for the type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Codec<T> forType(final Class<T> type) {
+        Codec<?> codec = REGISTRY.get(type);
+        if (codec == null) {
+            throw new IllegalArgumentException("No codec registered for " + type.getName());
+        }
+        return (Codec<T>) codec;
+    }
+
+    private static void writeField(final StringBuilder out, final String name, final String value) {
+        if (value != null) {
+            writeName(out, name);
+            Json.writeString(out, value);
+        }
+    }
+
+    private static void writeField(final StringBuilder out, final String name, final int value) {
+        writeName(out, name);
+        out.append(value);
+    }
+
+    private static void writeName(final StringBuilder out, final String name) {
+        out.append(out.charAt(out.length() - 1) == '{' ? "\"" : ",\"").append(name).append("\":");
+    }
+
+    private static <V> V require(final V value, final String name) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing field " + name);
+        }
+        return value;
+    }
+
+    private static final class AssetCodec implements Codec<Asset> {
+
+        @Override
+        public void encode(final Asset asset, final StringBuilder out) {
+            out.append('{');
+            writeField(out, "assetID", asset.getAssetID());
+            writeField(out, "objectType", asset.getObjectType());
+            writeField(out, "color", asset.getColor());
+            writeField(out, "size", asset.getSize());
+            writeField(out, "owner", asset.getOwner());
+            out.append('}');
+        }
+
+        @Override
+        public Asset decode(final String json) {
+            String assetID = null;
+            String objectType = null;
+            String color = null;
+            Integer size = null;
+            String owner = null;
+
+            Json.Reader reader = new Json.Reader(json);
+            reader.beginObject();
+            while (reader.hasNextField()) {
+                switch (reader.nextName()) {
+                    case "assetID":
+                        assetID = reader.nextString();
+                        break;
+                    case "objectType":
+                        objectType = reader.nextString();
+                        break;
+                    case "color":
+                        color = reader.nextString();
+                        break;
+                    case "size":
+                        size = reader.nextInt();
+                        break;
+                    case "owner":
+                        owner = reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endDocument();
+
+            return new Asset(require(objectType, "objectType"), require(assetID, "assetID"),
+                    require(color, "color"), require(size, "size"), require(owner, "owner"));
+        }
+    }
+
+    private static final class AssetPrivateDetailsCodec implements Codec<AssetPrivateDetails> {
+
+        @Override
+        public void encode(final AssetPrivateDetails details, final StringBuilder out) {
+            // The order JSONObject wrote, so hashes of existing values still match
+            out.append('{');
+            writeField(out, "appraisedValue", details.getAppraisedValue());
+            writeField(out, "assetID", details.getAssetID());
+            out.append('}');
+        }
+
+        @Override
+        public AssetPrivateDetails decode(final String json) {
+            String assetID = null;
+            Integer appraisedValue = null;
+
+            Json.Reader reader = new Json.Reader(json);
+            reader.beginObject();
+            while (reader.hasNextField()) {
+                switch (reader.nextName()) {
+                    case "assetID":
+                        assetID = reader.nextString();
+                        break;
+                    case "appraisedValue":
+                        appraisedValue = reader.nextInt();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endDocument();
+
+            return new AssetPrivateDetails(require(assetID, "assetID"), require(appraisedValue, "appraisedValue"));
+        }
+    }
+
+    private static final class TransferAgreementCodec implements Codec<TransferAgreement> {
+
+        @Override
+        public void encode(final TransferAgreement agreement, final StringBuilder out) {
+            out.append('{');
+            writeField(out, "assetID", agreement.getAssetID());
+            writeField(out, "buyerID", agreement.getBuyerID());
+            out.append('}');
+        }
+
+        @Override
+        public TransferAgreement decode(final String json) {
+            String assetID = null;
+            String buyerID = null;
+
+            Json.Reader reader = new Json.Reader(json);
+            reader.beginObject();
+            while (reader.hasNextField()) {
+                switch (reader.nextName()) {
+                    case "assetID":
+                        assetID = reader.nextString();
+                        break;
+                    case "buyerID":
+                        buyerID = reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endDocument();
+
+            return new TransferAgreement(require(assetID, "assetID"), require(buyerID, "buyerID"));
+        }
+    }
+}
@@ -3,7 +3,6 @@ package org.hyperledger.fabric.samples.privatedata;
 import org.hyperledger.fabric.contract.annotation.DataType;
 import org.hyperledger.fabric.contract.annotation.Property;
 import org.hyperledger.fabric.shim.ChaincodeException;
-import org.json.JSONObject;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -32,17 +31,13 @@ public final class TransferAgreement {
     }
 
     public byte[] serialize() {
-        String jsonStr = new JSONObject(this).toString();
-        return jsonStr.getBytes(UTF_8);
+        return Codecs.TRANSFER_AGREEMENT.encode(this).getBytes(UTF_8);
     }
 
     public static TransferAgreement deserialize(final byte[] assetJSON) {
         try {
-            JSONObject json = new JSONObject(new String(assetJSON, UTF_8));
-            final String id = json.getString("assetID");
-            final String buyerID = json.getString("buyerID");
-            return new TransferAgreement(id, buyerID);
-        } catch (Exception e) {
+            return Codecs.TRANSFER_AGREEMENT.decode(new String(assetJSON, UTF_8));
+        } catch (IllegalArgumentException e) {
             throw new ChaincodeException("Deserialize error: " + e.getMessage(), "DATA_ERROR");
         }
     }
@@ -0,0 +1,555 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.privatedata;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import org.hyperledger.fabric.samples.logging.Logging;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+/**
+ * Reads a JSON object passed in the transient map straight from its bytes, without first
+ * decoding the whole value to a string or building a map of its fields. Field names are matched
+ * against the names the transaction expects without being decoded, numbers are read into
+ * {@code int}s, and only the string values that are kept are decoded.
+ *
+ * <p>The transaction reads the fields it needs in a single loop and unknown fields are skipped:
+ *
+ * <pre>
+ * TransientInput input = TransientInput.read(stub, "AgreeToTransfer", "asset_value");
+ * input.beginObject();
+ * while (input.hasNextField()) {
+ *     switch (input.nextField(ASSET_VALUE_FIELDS)) {
+ *         case "assetID":
+ *             assetID = input.nextString("assetID");
+ *             break;
+ *         ...
+ *         default:
+ *             input.skipValue();
+ *     }
+ * }
+ * input.endDocument();
+ * </pre>
+ *
+ * <p>A batch is an array of such objects, read with {@link #beginArray} and {@link #hasNextElement}.
+ *
+ * <p>Every problem with the input is thrown as a {@link ChaincodeException} whose payload is one
+ * of the {@link Problem} codes, so clients can tell a missing field from a malformed document.
+ */
+final class TransientInput {
+
+    /**
+     * Why the input was rejected, sent to the client as the error payload.
+     */
+    enum Problem {
+        /** The transient key or one of the fields the transaction needs was not given. */
+        INCOMPLETE_INPUT,
+        /** The transient value is not a JSON object, or names a field more than once. */
+        MALFORMED_INPUT,
+        /** A field has the wrong type, or a value the transaction does not accept. */
+        INVALID_INPUT
+    }
+
+    private static final Logger LOG = Logging.getLogger(TransientInput.class);
+
+    private static final String UNKNOWN_FIELD = "";
+    private static final int DECIMAL_RADIX = 10;
+    private static final int HEX_RADIX = 16;
+    private static final int UNICODE_ESCAPE_LENGTH = 4;
+    private static final int MAX_SKIPPED_DEPTH = 64;
+
+    private final String key;
+    private final byte[] json;
+    private int pos;
+    private boolean first;
+    // The fields of the current object read so far: the known ones by their index in the names
+    // the transaction reads, and the unknown ones, which are rare, by name
+    private long knownFields;
+    private Set<String> unknownFields;
+
+    private TransientInput(final String key, final byte[] json) {
+        this.key = key;
+        this.json = json;
+    }
+
+    /**
+     * Starts reading the JSON object held under a key of the transaction's transient map.
+     *
+     * @param stub the stub for the transaction
+     * @param function the transaction function, for the error message
+     * @param key the transient map key
+     * @return the input, positioned at the start of the value
+     * @throws ChaincodeException if the key is not in the transient map
+     */
+    static TransientInput read(final ChaincodeStub stub, final String function, final String key) {
+        byte[] json = stub.getTransient().get(key);
+        if (json == null) {
+            throw fail(Problem.INCOMPLETE_INPUT,
+                    String.format("%s call must specify %s in Transient map input", function, key));
+        }
+        return new TransientInput(key, json);
+    }
+
+    void beginObject() {
+        expect('{');
+        first = true;
+        knownFields = 0;
+        unknownFields = null;
+    }
+
+    /**
+     * Moves to the next field of the current object.
+     *
+     * @return false when the end of the object has been reached
+     */
+    boolean hasNextField() {
+        return hasNext('}');
+    }
+
+    void beginArray() {
+        expect('[');
+        first = true;
+    }
+
+    /**
+     * Moves to the next element of the current array.
+     *
+     * @return false when the end of the array has been reached
+     */
+    boolean hasNextElement() {
+        return hasNext(']');
+    }
+
+    private boolean hasNext(final char end) {
+        if (peek() == end) {
+            pos++;
+            // the enclosing object or array, if any, has already read the value holding this one
+            first = false;
+            return false;
+        }
+        if (!first) {
+            expect(',');
+        }
+        first = false;
+        return true;
+    }
+
+    /**
+     * Checks that nothing other than whitespace follows the value.
+     */
+    void endDocument() {
+        skipWhitespace();
+        if (pos != json.length) {
+            throw malformed("Unexpected trailing content");
+        }
+    }
+
+    /**
+     * Reads the name of the current field.
+     *
+     * @param names the field names the transaction reads, at most 64 of them
+     * @return the matching element of names, or an empty string if the field is not one of them
+     * @throws ChaincodeException if the object already had a field of the same name
+     */
+    String nextField(final String[] names) {
+        expect('"');
+        int start = pos;
+        while (pos < json.length && json[pos] != '"' && json[pos] != '\\' && !isControl(json[pos])) {
+            pos++;
+        }
+
+        int match = -1;
+        String name = null;
+        if (pos < json.length && json[pos] == '"') {
+            for (int i = 0; i < names.length; i++) {
+                if (rawEquals(start, pos, names[i])) {
+                    match = i;
+                    break;
+                }
+            }
+            if (match < 0) {
+                name = new String(json, start, pos - start, UTF_8);
+            }
+            pos++;
+        } else {
+            // an escaped name is rare enough to be decoded rather than compared in place
+            pos = start - 1;
+            name = readString();
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    match = i;
+                    break;
+                }
+            }
+        }
+
+        if (match >= 0 ? !firstKnownField(match) : !firstUnknownField(name)) {
+            pos = start - 1;
+            throw malformed("Duplicate field");
+        }
+        expect(':');
+        return match >= 0 ? names[match] : UNKNOWN_FIELD;
+    }
+
+    private boolean firstKnownField(final int index) {
+        long field = 1L << index;
+        if ((knownFields & field) != 0) {
+            return false;
+        }
+        knownFields |= field;
+        return true;
+    }
+
+    private boolean firstUnknownField(final String name) {
+        if (unknownFields == null) {
+            unknownFields = new HashSet<>();
+        }
+        return unknownFields.add(name);
+    }
+
+    private boolean rawEquals(final int start, final int end, final String name) {
+        if (end - start != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (json[start + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the value of the current field as a string.
+     *
+     * @param field the field name, for the error message
+     * @return the value, or null if it is a JSON null
+     */
+    String nextString(final String field) {
+        byte c = peek();
+        if (c == 'n') {
+            expectLiteral("null");
+            return null;
+        }
+        if (c != '"') {
+            throw invalid("Input must be a string: " + field);
+        }
+        return readString();
+    }
+
+    /**
+     * Reads the value of the current field as an integer.
+     *
+     * @param field the field name, for the error message
+     * @return the value
+     */
+    int nextInt(final String field) {
+        byte c = peek();
+        boolean negative = c == '-';
+        if (negative) {
+            pos++;
+        }
+
+        int start = pos;
+        long value = 0;
+        while (pos < json.length && json[pos] >= '0' && json[pos] <= '9') {
+            value = value * DECIMAL_RADIX + (json[pos] - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw invalid("Input is out of range: " + field);
+            }
+            pos++;
+        }
+        if (pos == start || pos < json.length && (json[pos] == '.' || json[pos] == 'e' || json[pos] == 'E')) {
+            throw invalid("Input must be an integer: " + field);
+        }
+
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw invalid("Input is out of range: " + field);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Skips the value of a field the transaction does not read. The value is checked as strictly
+     * as the values that are read.
+     */
+    void skipValue() {
+        skipValue(0);
+    }
+
+    private void skipValue(final int depth) {
+        if (depth > MAX_SKIPPED_DEPTH) {
+            throw malformed("Too deeply nested");
+        }
+        byte c = peek();
+        switch (c) {
+            case '"':
+                skipString();
+                break;
+            case '{':
+                skipObject(depth);
+                break;
+            case '[':
+                pos++;
+                if (peek() == ']') {
+                    pos++;
+                    break;
+                }
+                do {
+                    skipValue(depth + 1);
+                } while (consume(','));
+                expect(']');
+                break;
+            case 't':
+                expectLiteral("true");
+                break;
+            case 'f':
+                expectLiteral("false");
+                break;
+            case 'n':
+                expectLiteral("null");
+                break;
+            default:
+                skipNumber();
+        }
+    }
+
+    private void skipObject(final int depth) {
+        pos++;
+        if (peek() == '}') {
+            pos++;
+            return;
+        }
+        Set<String> names = new HashSet<>();
+        do {
+            peek();
+            int start = pos;
+            if (!names.add(readString())) {
+                pos = start;
+                throw malformed("Duplicate field");
+            }
+            expect(':');
+            skipValue(depth + 1);
+        } while (consume(','));
+        expect('}');
+    }
+
+    private void skipNumber() {
+        skipByte('-');
+        if (!skipByte('0') && skipDigits() == 0) {
+            throw malformed("Unexpected character");
+        }
+        if (skipByte('.') && skipDigits() == 0) {
+            throw malformed("Invalid number");
+        }
+        if (skipByte('e') || skipByte('E')) {
+            if (!skipByte('+')) {
+                skipByte('-');
+            }
+            if (skipDigits() == 0) {
+                throw malformed("Invalid number");
+            }
+        }
+    }
+
+    private boolean skipByte(final char c) {
+        if (pos < json.length && json[pos] == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private int skipDigits() {
+        int start = pos;
+        while (pos < json.length && json[pos] >= '0' && json[pos] <= '9') {
+            pos++;
+        }
+        return pos - start;
+    }
+
+    /**
+     * Checks that a string field was given and is not empty.
+     *
+     * @param value the value read, or null if the field was not given
+     * @param field the field name
+     * @return the value
+     */
+    String require(final String value, final String field) {
+        if (value == null) {
+            throw fail(Problem.INCOMPLETE_INPUT, "Missing input in Transient map " + key + ": " + field);
+        }
+        if (value.isEmpty()) {
+            throw fail(Problem.INCOMPLETE_INPUT, "Empty input in Transient map " + key + ": " + field);
+        }
+        return value;
+    }
+
+    /**
+     * Checks that an integer field was given and is positive.
+     *
+     * @param value the value read
+     * @param given whether the field was given
+     * @param field the field name
+     * @return the value
+     */
+    int requirePositive(final int value, final boolean given, final String field) {
+        if (!given) {
+            throw fail(Problem.INCOMPLETE_INPUT, "Missing input in Transient map " + key + ": " + field);
+        }
+        if (value <= 0) {
+            throw invalid("Input must be positive integer: " + field);
+        }
+        return value;
+    }
+
+    private String readString() {
+        expect('"');
+        StringBuilder value = null;
+        int start = pos;
+        while (true) {
+            if (pos >= json.length) {
+                throw malformed("Unterminated string");
+            }
+            byte c = json[pos];
+            if (c == '"') {
+                String segment = new String(json, start, pos - start, UTF_8);
+                pos++;
+                return value == null ? segment : value.append(segment).toString();
+            }
+            if (c == '\\') {
+                if (value == null) {
+                    value = new StringBuilder();
+                }
+                // escapes are ASCII, so they never split a multi-byte character
+                value.append(new String(json, start, pos - start, UTF_8));
+                value.append(readEscape());
+                start = pos;
+            } else if (isControl(c)) {
+                throw malformed("Unescaped control character");
+            } else {
+                pos++;
+            }
+        }
+    }
+
+    private void skipString() {
+        expect('"');
+        while (true) {
+            if (pos >= json.length) {
+                throw malformed("Unterminated string");
+            }
+            byte c = json[pos];
+            if (c == '"') {
+                pos++;
+                return;
+            }
+            if (c == '\\') {
+                readEscape();
+            } else if (isControl(c)) {
+                throw malformed("Unescaped control character");
+            } else {
+                pos++;
+            }
+        }
+    }
+
+    // Bytes of multi-byte UTF-8 characters are negative, so are never taken for control characters
+    private static boolean isControl(final byte c) {
+        return c >= 0 && c < ' ';
+    }
+
+    private char readEscape() {
+        pos++;
+        if (pos >= json.length) {
+            throw malformed("Unterminated escape sequence");
+        }
+        byte c = json[pos++];
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return (char) c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                if (pos + UNICODE_ESCAPE_LENGTH > json.length) {
+                    throw malformed("Invalid unicode escape");
+                }
+                int unicode = 0;
+                for (int i = 0; i < UNICODE_ESCAPE_LENGTH; i++) {
+                    int digit = Character.digit(json[pos++], HEX_RADIX);
+                    if (digit < 0) {
+                        throw malformed("Invalid unicode escape");
+                    }
+                    unicode = unicode * HEX_RADIX + digit;
+                }
+                return (char) unicode;
+            default:
+                pos--;
+                throw malformed("Invalid escape sequence");
+        }
+    }
+
+    private void expectLiteral(final String literal) {
+        if (!rawEquals(pos, Math.min(pos + literal.length(), json.length), literal)) {
+            throw malformed("Expected " + literal);
+        }
+        pos += literal.length();
+    }
+
+    private void expect(final char c) {
+        if (!consume(c)) {
+            throw malformed("Expected '" + c + "'");
+        }
+    }
+
+    private boolean consume(final char c) {
+        skipWhitespace();
+        return skipByte(c);
+    }
+
+    private byte peek() {
+        skipWhitespace();
+        if (pos >= json.length) {
+            throw malformed("Unexpected end of JSON");
+        }
+        return json[pos];
+    }
+
+    private void skipWhitespace() {
+        while (pos < json.length && (json[pos] == ' ' || json[pos] == '\t' || json[pos] == '\r' || json[pos] == '\n')) {
+            pos++;
+        }
+    }
+
+    private ChaincodeException malformed(final String message) {
+        return fail(Problem.MALFORMED_INPUT,
+                String.format("TransientMap deserialized error: %s at position %d of %s", message, pos, key));
+    }
+
+    private ChaincodeException invalid(final String message) {
+        return fail(Problem.INVALID_INPUT, message);
+    }
+
+    private static ChaincodeException fail(final Problem problem, final String message) {
+        LOG.info(message);
+        return new ChaincodeException(message, problem.toString());
+    }
+}
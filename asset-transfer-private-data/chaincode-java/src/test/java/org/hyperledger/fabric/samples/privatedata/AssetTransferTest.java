@@ -9,18 +9,25 @@ import static org.assertj.core.api.ThrowableAssert.catchThrowable;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hyperledger.fabric.samples.privatedata.AssetTransfer.AGREEMENT_KEYPREFIX;
 import static org.hyperledger.fabric.samples.privatedata.AssetTransfer.ASSET_COLLECTION_NAME;
+import static org.hyperledger.fabric.samples.privatedata.AssetTransfer.OWNER_INDEX;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.security.cert.CertificateException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import org.hyperledger.fabric.contract.ClientIdentity;
 import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.samples.testing.InMemoryChaincodeStub;
 import org.hyperledger.fabric.shim.ChaincodeException;
 import org.hyperledger.fabric.shim.ChaincodeStub;
 import org.hyperledger.fabric.shim.ledger.CompositeKey;
@@ -53,6 +60,27 @@ public final class AssetTransferTest {
             assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("ASSET_ALREADY_EXISTS".getBytes());
         }
 
+        @Test
+        public void createAssetWhenAppraisedValueIsNotPositive() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            Map<String, byte[]> m = new HashMap<String, byte[]>();
+            m.put("asset_properties", ("{ \"objectType\": \"testasset\", \"assetID\": \"asset1\", \"color\": \"blue\","
+                    + " \"size\": 5, \"appraisedValue\": 0 }").getBytes(UTF_8));
+            when(ctx.getStub().getTransient()).thenReturn(m);
+
+            Throwable thrown = catchThrowable(() -> {
+                contract.CreateAsset(ctx);
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                    .hasMessage("Input must be positive integer: appraisedValue");
+            assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("INVALID_INPUT".getBytes());
+            verify(stub, never()).putPrivateData(anyString(), anyString(), any(byte[].class));
+        }
+
         @Test
         public void createAssetWhenNewAssetIsCreated() throws CertificateException, IOException {
              AssetTransfer contract = new AssetTransfer();
@@ -107,10 +135,355 @@ public final class AssetTransferTest {
             Asset exptectedAfterTransfer  = Asset.deserialize("{ \"objectType\": \"testasset\", \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5, \"owner\": \"" +  buyerIdentity + "\", \"appraisedValue\": 300 }");
 
             verify(stub).putPrivateData(ASSET_COLLECTION_NAME, testAsset1ID, exptectedAfterTransfer.serialize());
+            verify(stub).delPrivateData(ASSET_COLLECTION_NAME, new CompositeKey(OWNER_INDEX, testOrg1Client, testAsset1ID).toString());
+            verify(stub).putPrivateData(ASSET_COLLECTION_NAME, new CompositeKey(OWNER_INDEX, buyerIdentity, testAsset1ID).toString(),
+                    new byte[] {0});
             String collectionOwner = testOrgOneMSP + "PrivateCollection";
             verify(stub).delPrivateData(collectionOwner, testAsset1ID);
             verify(stub).delPrivateData(ASSET_COLLECTION_NAME, AGREEMENT_KEYPREFIX + testAsset1ID);
         }
+
+        @Test
+        public void transferAssetWhenAppraisedValuesDoNotMatch() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mockOrg1Context();
+            ChaincodeStub stub = ctx.getStub();
+            mockTransfer(stub);
+            when(stub.getPrivateDataHash(testOrgOneMSP + "PrivateCollection", testAsset1ID)).thenReturn(new byte[] {0x0a, (byte) 0xff});
+            when(stub.getPrivateDataHash("TestOrg2PrivateCollection", testAsset1ID)).thenReturn(new byte[] {0x0b});
+
+            Throwable thrown = catchThrowable(() -> {
+                contract.TransferAsset(ctx);
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                    .hasMessage("Hash for appraised value for owner 0aff does not match value for seller 0b");
+            verify(stub, never()).putPrivateData(anyString(), anyString(), any(byte[].class));
+        }
+
+        @Test
+        public void transferAssetWhenBuyerHasNotAgreed() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mockOrg1Context();
+            ChaincodeStub stub = ctx.getStub();
+            mockTransfer(stub);
+            when(stub.getPrivateData(ASSET_COLLECTION_NAME, AGREEMENT_KEYPREFIX + testAsset1ID)).thenReturn(null);
+
+            Throwable thrown = catchThrowable(() -> {
+                contract.TransferAsset(ctx);
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                    .hasMessage("TransferAgreement does not exist for asset: asset1");
+            assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("INCOMPLETE_INPUT".getBytes());
+            verify(stub, never()).putPrivateData(anyString(), anyString(), any(byte[].class));
+        }
+
+        @Test
+        public void transferAssetChecksExistenceBeforeOrg() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mockOrg1Context();
+            ChaincodeStub stub = ctx.getStub();
+            mockTransfer(stub);
+            when(stub.getMspId()).thenReturn("TestOrg2");
+            when(stub.getPrivateData(ASSET_COLLECTION_NAME, testAsset1ID)).thenReturn(null);
+
+            Throwable thrown = catchThrowable(() -> {
+                contract.TransferAsset(ctx);
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                    .hasMessage("Asset asset1 does not exist in the collection");
+            assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("INCOMPLETE_INPUT".getBytes());
+        }
+
+        @Test
+        public void transferAssetChecksOrgBeforeOwner() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mockOrg1Context();
+            ChaincodeStub stub = ctx.getStub();
+            mockTransfer(stub);
+            when(stub.getMspId()).thenReturn("TestOrg2");
+            when(ctx.getClientIdentity().getId()).thenReturn("TestOrg2User");
+
+            Throwable thrown = catchThrowable(() -> {
+                contract.TransferAsset(ctx);
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                    .hasMessageStartingWith("Client from org TestOrg1 is not authorized");
+            verify(stub, never()).getPrivateDataHash(anyString(), anyString());
+        }
+
+        @Test
+        public void createAssetsReportsFailuresWhenContinuingOnError() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mockOrg1Context();
+            ChaincodeStub stub = ctx.getStub();
+            Map<String, byte[]> m = new HashMap<String, byte[]>();
+            m.put("assets_properties", ("[" + new String(dataAsset1Bytes, UTF_8) + ","
+                    + "{ \"objectType\": \"testasset\", \"assetID\": \"asset2\", \"color\": \"red\", \"size\": 0, \"appraisedValue\": 300 },"
+                    + new String(dataAsset1Bytes, UTF_8) + "]").getBytes(UTF_8));
+            when(stub.getTransient()).thenReturn(m);
+
+            String result = contract.CreateAssets(ctx, true);
+
+            assertThat(result).isEqualTo("{\"created\":1,\"failures\":["
+                    + "{\"index\":1,\"assetID\":\"asset2\",\"error\":\"INVALID_INPUT\",\"message\":\"Input must be positive integer: size\"},"
+                    + "{\"index\":2,\"assetID\":\"asset1\",\"error\":\"ASSET_ALREADY_EXISTS\",\"message\":\"Asset asset1 already exists\"}]}");
+            verify(stub).putPrivateData(ASSET_COLLECTION_NAME, testAsset1ID, testAsset1.serialize());
+            verify(stub).putPrivateData(testOrgOneMSP + "PrivateCollection", testAsset1ID,
+                    new AssetPrivateDetails(testAsset1ID, 300).serialize());
+            verify(stub, never()).putPrivateData(anyString(), eq("asset2"), any(byte[].class));
+        }
+
+        @Test
+        public void createAssetsFailsOnFirstErrorWhenNotContinuing() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mockOrg1Context();
+            ChaincodeStub stub = ctx.getStub();
+            Map<String, byte[]> m = new HashMap<String, byte[]>();
+            m.put("assets_properties", ("[" + new String(dataAsset1Bytes, UTF_8) + "," + new String(dataAsset1Bytes, UTF_8) + "]")
+                    .getBytes(UTF_8));
+            when(stub.getTransient()).thenReturn(m);
+
+            Throwable thrown = catchThrowable(() -> {
+                contract.CreateAssets(ctx, false);
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                    .hasMessage("Asset asset1 already exists");
+            assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("ASSET_ALREADY_EXISTS".getBytes());
+        }
+
+        @Test
+        public void createAssetsWhenBatchIsEmpty() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mockOrg1Context();
+            Map<String, byte[]> m = new HashMap<String, byte[]>();
+            m.put("assets_properties", "[]".getBytes(UTF_8));
+            when(ctx.getStub().getTransient()).thenReturn(m);
+
+            Throwable thrown = catchThrowable(() -> {
+                contract.CreateAssets(ctx, true);
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                    .hasMessage("Batch size must be between 1 and 1000");
+            assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("INVALID_BATCH_SIZE".getBytes());
+        }
+
+        @Test
+        public void transferAssetsRejectsRepeatedAssets() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mockOrg1Context();
+            ChaincodeStub stub = ctx.getStub();
+            final String buyerIdentity = "TestOrg2User";
+            String assetOwner = "{ \"buyerMSP\": \"TestOrg2\", \"assetID\": \"" + testAsset1ID + "\" }";
+            Map<String, byte[]> m = new HashMap<String, byte[]>();
+            m.put("assets_owner", ("[" + assetOwner + "," + assetOwner + "]").getBytes(UTF_8));
+            when(stub.getTransient()).thenReturn(m);
+            when(stub.getPrivateDataHash(anyString(), anyString())).thenReturn("TestHashValue".getBytes());
+            when(stub.getPrivateData(ASSET_COLLECTION_NAME, testAsset1ID)).thenReturn(dataAsset1Bytes);
+            CompositeKey ck = mock(CompositeKey.class);
+            when(ck.toString()).thenReturn(AGREEMENT_KEYPREFIX + testAsset1ID);
+            when(stub.createCompositeKey(AGREEMENT_KEYPREFIX, testAsset1ID)).thenReturn(ck);
+            when(stub.getPrivateData(ASSET_COLLECTION_NAME, AGREEMENT_KEYPREFIX + testAsset1ID)).thenReturn(buyerIdentity.getBytes(UTF_8));
+
+            String result = contract.TransferAssets(ctx, true);
+
+            assertThat(result).isEqualTo("{\"transferred\":1,\"failures\":[{\"index\":1,\"assetID\":\"asset1\",\"error\":\"DUPLICATE_BATCH_ASSET\","
+                    + "\"message\":\"Asset asset1 is transferred more than once in the batch\"}]}");
+            verify(stub).delPrivateData(testOrgOneMSP + "PrivateCollection", testAsset1ID);
+            verify(stub).delPrivateData(ASSET_COLLECTION_NAME, AGREEMENT_KEYPREFIX + testAsset1ID);
+        }
+    }
+
+    // Org1 owns asset1 and TestOrg2User has agreed to buy it for the same appraised value
+    private static void mockTransfer(final ChaincodeStub stub) {
+        Map<String, byte[]> m = new HashMap<String, byte[]>();
+        m.put("asset_owner", ("{ \"buyerMSP\": \"TestOrg2\", \"assetID\": \"" + testAsset1ID + "\" }").getBytes(UTF_8));
+        when(stub.getTransient()).thenReturn(m);
+        when(stub.getPrivateDataHash(anyString(), anyString())).thenReturn("TestHashValue".getBytes());
+        when(stub.getPrivateData(ASSET_COLLECTION_NAME, testAsset1ID)).thenReturn(dataAsset1Bytes);
+        CompositeKey ck = mock(CompositeKey.class);
+        when(ck.toString()).thenReturn(AGREEMENT_KEYPREFIX + testAsset1ID);
+        when(stub.createCompositeKey(AGREEMENT_KEYPREFIX, testAsset1ID)).thenReturn(ck);
+        when(stub.getPrivateData(ASSET_COLLECTION_NAME, AGREEMENT_KEYPREFIX + testAsset1ID)).thenReturn("TestOrg2User".getBytes(UTF_8));
+    }
+
+    private static Context mockOrg1Context() {
+        Context ctx = mock(Context.class);
+        ChaincodeStub stub = mock(ChaincodeStub.class);
+        when(ctx.getStub()).thenReturn(stub);
+        when(stub.getMspId()).thenReturn(testOrgOneMSP);
+        ClientIdentity ci = mock(ClientIdentity.class);
+        when(ci.getId()).thenReturn(testOrg1Client);
+        when(ci.getMSPID()).thenReturn(testOrgOneMSP);
+        when(ctx.getClientIdentity()).thenReturn(ci);
+        return ctx;
+    }
+
+    @Nested
+    class QueryWithPaginationTransaction {
+
+        private final AssetTransfer contract = new AssetTransfer();
+        private final InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+
+        private Context putAssets(final String... assetIDs) {
+            stub.beginTransaction("CreateAsset");
+            for (String assetID : assetIDs) {
+                stub.putPrivateData(ASSET_COLLECTION_NAME, assetID,
+                        new Asset("testasset", assetID, "blue", 5, testOrg1Client).serialize());
+            }
+            stub.putPrivateData(ASSET_COLLECTION_NAME, stub.createCompositeKey(AGREEMENT_KEYPREFIX, "asset1").toString(),
+                    "TestOrg2User".getBytes(UTF_8));
+            stub.commit();
+            stub.beginTransaction("Query");
+            return contract.createContext(stub);
+        }
+
+        private String record(final String assetID) {
+            return "{\"assetID\":\"" + assetID + "\",\"objectType\":\"testasset\",\"color\":\"blue\",\"size\":5,"
+                    + "\"owner\":\"testOrg1User\"}";
+        }
+
+        @Test
+        public void pagesThroughRange() throws Exception {
+            Context ctx = putAssets("asset1", "asset2", "asset3", "asset4");
+
+            String page = contract.GetAssetByRangeWithPagination(ctx, "", "", 2, "");
+            assertThat(page).isEqualTo("{\"records\":[" + record("asset1") + "," + record("asset2") + "],"
+                    + "\"fetchedRecordsCount\":2,\"bookmark\":\"asset3\"}");
+
+            page = contract.GetAssetByRangeWithPagination(ctx, "", "", 2, "asset3");
+            assertThat(page).isEqualTo("{\"records\":[" + record("asset3") + "," + record("asset4") + "],"
+                    + "\"fetchedRecordsCount\":2,\"bookmark\":\"\"}");
+        }
+
+        @Test
+        public void stopsAtEndOfRange() throws Exception {
+            Context ctx = putAssets("asset1", "asset2", "asset3");
+
+            String page = contract.GetAssetByRangeWithPagination(ctx, "asset2", "asset3", 2, "");
+
+            assertThat(page).isEqualTo("{\"records\":[" + record("asset2") + "],\"fetchedRecordsCount\":1,\"bookmark\":\"\"}");
+        }
+
+        @Test
+        public void pagesThroughQueryResults() throws Exception {
+            Context ctx = mock(Context.class);
+            ChaincodeStub queryStub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(queryStub);
+            String query = "{\"selector\":{\"objectType\":\"testasset\"}}";
+            when(queryStub.getPrivateDataQueryResult(ASSET_COLLECTION_NAME, query)).thenAnswer(invocation ->
+                    putAssets("asset1", "asset2", "asset3").getStub().getPrivateDataByRange(ASSET_COLLECTION_NAME, "", ""));
+
+            String page = contract.QueryAssetsWithPagination(ctx, query, 2, "");
+            assertThat(page).isEqualTo("{\"records\":[" + record("asset1") + "," + record("asset2") + "],"
+                    + "\"fetchedRecordsCount\":2,\"bookmark\":\"2\"}");
+
+            page = contract.QueryAssetsWithPagination(ctx, query, 2, "2");
+            assertThat(page).isEqualTo("{\"records\":[" + record("asset3") + "],\"fetchedRecordsCount\":1,\"bookmark\":\"\"}");
+        }
+
+        @Test
+        public void whenPageSizeIsInvalid() {
+            Context ctx = mock(Context.class);
+
+            Throwable thrown = catchThrowable(() -> {
+                contract.GetAssetByRangeWithPagination(ctx, "", "", 1001, "");
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                    .hasMessage("Page size must be between 1 and 1000");
+            assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("INVALID_PAGE_SIZE".getBytes());
+            verifyZeroInteractions(ctx);
+        }
+
+        @Test
+        public void whenBookmarkIsInvalid() {
+            Context ctx = mock(Context.class);
+
+            Throwable thrown = catchThrowable(() -> {
+                contract.QueryAssetsWithPagination(ctx, "{}", 2, "asset3");
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                    .hasMessage("Invalid bookmark asset3");
+            assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("INVALID_BOOKMARK".getBytes());
+            verifyZeroInteractions(ctx);
+        }
+    }
+
+    @Nested
+    class GetAssetsByOwnerTransaction {
+
+        private final AssetTransfer contract = new AssetTransfer();
+        private final InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+
+        private Context submit(final String function, final String transientKey, final String transientValue) {
+            stub.setMspId("Org1MSP");
+            stub.beginTransaction(function);
+            stub.setTransient(Collections.singletonMap(transientKey, transientValue.getBytes(UTF_8)));
+            return contract.createContext(stub);
+        }
+
+        private void createAsset(final String assetID) {
+            contract.CreateAsset(submit("CreateAsset", "asset_properties", "{\"objectType\":\"testasset\",\"assetID\":\""
+                    + assetID + "\",\"color\":\"blue\",\"size\":5,\"appraisedValue\":300}"));
+            stub.commit();
+        }
+
+        @Test
+        public void findsTheAssetsOfTheSubmittingClient() throws Exception {
+            createAsset("asset2");
+            createAsset("asset1");
+            Context ctx = submit("GetAssetsByOwner", "none", "");
+            String owner = ctx.getClientIdentity().getId();
+
+            Asset[] assets = contract.GetAssetsByOwner(ctx, "");
+
+            assertThat(assets).containsExactly(new Asset("testasset", "asset1", "blue", 5, owner),
+                    new Asset("testasset", "asset2", "blue", 5, owner));
+            assertThat(contract.GetAssetsByOwner(ctx, owner)).isEqualTo(assets);
+            assertThat(contract.GetAssetsByOwner(ctx, "someone else")).isEmpty();
+        }
+
+        @Test
+        public void dropsDeletedAssets() throws Exception {
+            createAsset("asset1");
+            createAsset("asset2");
+            contract.DeleteAsset(submit("DeleteAsset", "asset_delete", "{\"assetID\":\"asset2\"}"));
+            stub.commit();
+
+            Asset[] assets = contract.GetAssetsByOwner(submit("GetAssetsByOwner", "none", ""), "");
+
+            assertThat(assets).extracting(Asset::getAssetID).containsExactly("asset1");
+        }
+
+        @Test
+        public void indexesAssetsWithoutCopyingThem() throws Exception {
+            createAsset("asset1");
+            Context ctx = submit("GetAssetsByOwner", "none", "");
+            String owner = ctx.getClientIdentity().getId();
+
+            assertThat(stub.getPrivateData(ASSET_COLLECTION_NAME, new CompositeKey(OWNER_INDEX, owner, "asset1").toString()))
+                    .containsExactly(0);
+        }
+
+        @Test
+        public void skipsIndexEntriesWithoutAnAsset() throws Exception {
+            createAsset("asset1");
+            Context ctx = submit("GetAssetsByOwner", "none", "");
+            String owner = ctx.getClientIdentity().getId();
+            stub.putPrivateData(ASSET_COLLECTION_NAME, new CompositeKey(OWNER_INDEX, owner, "asset0").toString(), new byte[] {0});
+            stub.commit();
+
+            Asset[] assets = contract.GetAssetsByOwner(submit("GetAssetsByOwner", "none", ""), "");
+
+            assertThat(assets).extracting(Asset::getAssetID).containsExactly("asset1");
+        }
     }
 
     @Nested
@@ -155,7 +528,8 @@ public final class AssetTransferTest {
                     .hasMessage("Undefined contract method called");
             assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo(null);
 
-            verifyZeroInteractions(ctx);
+            verify(ctx).getStub();
+            verifyNoMoreInteractions(ctx);
         }
 
     }
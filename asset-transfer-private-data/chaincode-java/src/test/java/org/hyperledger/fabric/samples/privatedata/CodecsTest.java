@@ -0,0 +1,193 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.privatedata;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public final class CodecsTest {
+
+    @Test
+    public void returnsRegisteredCodecs() {
+        assertThat(Codecs.forType(Asset.class)).isSameAs(Codecs.ASSET);
+        assertThat(Codecs.forType(AssetPrivateDetails.class)).isSameAs(Codecs.ASSET_PRIVATE_DETAILS);
+        assertThat(Codecs.forType(TransferAgreement.class)).isSameAs(Codecs.TRANSFER_AGREEMENT);
+    }
+
+    @Test
+    public void rejectsUnregisteredType() {
+        Throwable thrown = catchThrowable(() -> {
+            Codecs.forType(String.class);
+        });
+
+        assertThat(thrown).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("No codec registered for java.lang.String");
+    }
+
+    @Nested
+    class AssetCodec {
+
+        @Test
+        public void matchesJSONObject() {
+            Asset asset = new Asset("testasset", "asset\"1</b>", "b\b\f\n\r\t\u0001/\\", 5, "Siobhán\u0085\u2028\u20ac\u2100");
+
+            assertThat(new JSONObject(new String(asset.serialize(), UTF_8)).similar(new JSONObject(asset))).isTrue();
+        }
+
+        @Test
+        public void omitsNullFieldsLikeJSONObject() {
+            Asset asset = new Asset("testasset", "asset1", "blue", 5, null);
+
+            String json = Codecs.ASSET.encode(asset);
+
+            assertThat(json).isEqualTo("{\"assetID\":\"asset1\",\"objectType\":\"testasset\",\"color\":\"blue\",\"size\":5}");
+            assertThat(new JSONObject(json).similar(new JSONObject(asset))).isTrue();
+        }
+
+        @Test
+        public void roundTrips() {
+            Asset asset = new Asset("testasset", "asset\"1", "b\b\f\n\r\t\u0001", 5, "Siobhán\u2028");
+
+            assertThat(Asset.deserialize(asset.serialize())).isEqualTo(asset);
+        }
+
+        @Test
+        public void ignoresUnknownFields() {
+            Asset asset = Asset.deserialize("{ \"objectType\": \"testasset\", \"assetID\": \"asset1\", \"color\": \"blue\","
+                    + " \"size\": 5, \"owner\": \"testOrg1User\", \"appraisedValue\": 300, \"tags\": [\"a\", {}] }");
+
+            assertThat(asset).isEqualTo(new Asset("testasset", "asset1", "blue", 5, "testOrg1User"));
+        }
+
+        @Test
+        public void rejectsMissingFields() {
+            String[] incomplete = {
+                "{\"assetID\":\"asset1\",\"color\":\"blue\",\"size\":5,\"owner\":\"Tom\"}",
+                "{\"objectType\":\"testasset\",\"color\":\"blue\",\"size\":5,\"owner\":\"Tom\"}",
+                "{\"objectType\":\"testasset\",\"assetID\":\"asset1\",\"size\":5,\"owner\":\"Tom\"}",
+                "{\"objectType\":\"testasset\",\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Tom\"}",
+                "{\"objectType\":\"testasset\",\"assetID\":\"asset1\",\"color\":\"blue\",\"size\":5,\"owner\":null}",
+            };
+
+            for (String json : incomplete) {
+                Throwable thrown = catchThrowable(() -> {
+                    Asset.deserialize(json);
+                });
+
+                assertThat(thrown).as(json).isInstanceOf(ChaincodeException.class)
+                        .hasMessageStartingWith("Deserialize error: Missing field");
+                assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("DATA_ERROR".getBytes());
+            }
+        }
+
+        @Test
+        public void rejectsMalformedDocuments() {
+            String[] malformed = {
+                "",
+                "[]",
+                "{\"assetID\" \"asset1\"}",
+                "{\"assetID\":\"asset1\" \"size\":5}",
+                "{\"assetID\":\"asset1",
+                "{\"assetID\":\"asset1\\",
+                "{\"assetID\":\"\\u0",
+                "{\"assetID\":\"\\u00\"}",
+                "{\"assetID\":\"\\u00zz\"}",
+                "{\"assetID\":nul}",
+                "{\"size\":\"5\"}",
+                "{} {}",
+            };
+
+            for (String json : malformed) {
+                Throwable thrown = catchThrowable(() -> {
+                    Codecs.ASSET.decode(json);
+                });
+
+                assertThat(thrown).as(json).isInstanceOf(IllegalArgumentException.class);
+            }
+        }
+
+        @Test
+        public void readsEscapedSolidus() {
+            Asset asset = Asset.deserialize("{\"objectType\":\"a\\/b\\u00e1\",\"assetID\":\"asset1\",\"color\":\"blue\","
+                    + "\"size\":5,\"owner\":\"Tom\"}");
+
+            assertThat(asset.getObjectType()).isEqualTo("a/bá");
+        }
+    }
+
+    @Nested
+    class AssetPrivateDetailsCodec {
+
+        @Test
+        public void matchesJSONObject() {
+            AssetPrivateDetails details = new AssetPrivateDetails("asset1", 300);
+
+            assertThat(details.serialize()).isEqualTo(new JSONObject(details).toString().getBytes(UTF_8));
+        }
+
+        @Test
+        public void roundTrips() {
+            AssetPrivateDetails details = AssetPrivateDetails.deserialize(
+                    new AssetPrivateDetails("asset1", -300).serialize());
+
+            assertThat(details.getAssetID()).isEqualTo("asset1");
+            assertThat(details.getAppraisedValue()).isEqualTo(-300);
+        }
+
+        @Test
+        public void ignoresUnknownFields() {
+            AssetPrivateDetails details = AssetPrivateDetails.deserialize(
+                    "{\"assetID\":\"asset1\",\"appraisedValue\":300,\"salt\":\"abc\"}".getBytes(UTF_8));
+
+            assertThat(details.getAppraisedValue()).isEqualTo(300);
+        }
+
+        @Test
+        public void rejectsMissingFields() {
+            Throwable thrown = catchThrowable(() -> {
+                AssetPrivateDetails.deserialize("{\"assetID\":\"asset1\"}".getBytes(UTF_8));
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class)
+                    .hasMessage("Deserialize error: Missing field appraisedValue");
+        }
+    }
+
+    @Nested
+    class TransferAgreementCodec {
+
+        @Test
+        public void matchesJSONObject() {
+            TransferAgreement agreement = new TransferAgreement("asset1", "x509::CN=buyer,OU=client</");
+
+            assertThat(new JSONObject(new String(agreement.serialize(), UTF_8)).similar(new JSONObject(agreement))).isTrue();
+        }
+
+        @Test
+        public void roundTrips() {
+            TransferAgreement agreement = TransferAgreement.deserialize(
+                    "{\"buyerID\":\"x509::CN=buyer\",\"assetID\":\"asset1\",\"note\":null}".getBytes(UTF_8));
+
+            assertThat(agreement.getAssetID()).isEqualTo("asset1");
+            assertThat(agreement.getBuyerID()).isEqualTo("x509::CN=buyer");
+        }
+
+        @Test
+        public void rejectsMissingFields() {
+            Throwable thrown = catchThrowable(() -> {
+                TransferAgreement.deserialize("{\"buyerID\":\"x509::CN=buyer\"}".getBytes(UTF_8));
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class)
+                    .hasMessage("Deserialize error: Missing field assetID");
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.privatedata;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.samples.testing.InMemoryChaincodeStub;
+import org.junit.jupiter.api.Test;
+
+public final class InMemoryChaincodeStubTest {
+
+    private final AssetTransfer contract = new AssetTransfer();
+    private final InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+
+    private Context submit(final String mspId, final String function, final String transientKey,
+            final String transientValue) {
+        stub.setMspId(mspId);
+        stub.beginTransaction(function);
+        stub.setTransient(Collections.singletonMap(transientKey, transientValue.getBytes(UTF_8)));
+        return contract.createContext(stub);
+    }
+
+    @Test
+    public void runsPrivateDataTransactions() {
+        contract.CreateAsset(submit("Org1MSP", "CreateAsset", "asset_properties",
+                "{\"objectType\":\"asset\",\"assetID\":\"asset1\",\"color\":\"blue\",\"size\":5,"
+                + "\"appraisedValue\":300}"));
+        stub.commit();
+
+        contract.AgreeToTransfer(submit("Org2MSP", "AgreeToTransfer", "asset_value",
+                "{\"assetID\":\"asset1\",\"appraisedValue\":300}"));
+        stub.commit();
+
+        contract.TransferAsset(submit("Org1MSP", "TransferAsset", "asset_owner",
+                "{\"assetID\":\"asset1\",\"buyerMSP\":\"Org2MSP\"}"));
+        assertThat(stub.getPrivateWriteSet("Org1MSPPrivateCollection")).containsEntry("asset1", null);
+        stub.commit();
+
+        stub.beginTransaction("ReadAssetPrivateDetails");
+        Context ctx = contract.createContext(stub);
+
+        assertThat(contract.ReadAsset(ctx, "asset1").getColor()).isEqualTo("blue");
+        assertThat(contract.ReadAssetPrivateDetails(ctx, "Org2MSPPrivateCollection", "asset1").getAppraisedValue())
+                .isEqualTo(300);
+        assertThat(contract.ReadTransferAgreement(ctx, "asset1")).isNull();
+    }
+}
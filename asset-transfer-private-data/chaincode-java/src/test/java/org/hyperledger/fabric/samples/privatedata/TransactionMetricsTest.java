@@ -0,0 +1,88 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.privatedata;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.samples.metrics.Metrics;
+import org.hyperledger.fabric.samples.metrics.TransactionMetrics;
+import org.hyperledger.fabric.samples.testing.InMemoryChaincodeStub;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.junit.jupiter.api.Test;
+
+public final class TransactionMetricsTest {
+
+    private static final String DURATION = "chaincode_transaction_duration_seconds";
+
+    private final TransactionMetrics metrics = new TransactionMetrics();
+    private final AssetTransfer contract = new AssetTransfer();
+    private final InMemoryChaincodeStub ledger = new InMemoryChaincodeStub();
+    private final byte[] asset = new Asset("asset", "asset1", "blue", 5, "Tom").serialize();
+
+    @Test
+    public void recordsLatencyAndStateAccessPerFunction() throws Exception {
+        ledger.beginTransaction("setup");
+        ledger.putPrivateData(AssetTransfer.ASSET_COLLECTION_NAME, "asset1", asset);
+        ledger.commit();
+
+        ledger.beginTransaction("ReadAsset");
+        Context ctx = new Context(metrics.meter(ledger));
+        metrics.beforeTransaction(ctx);
+        contract.ReadAsset(ctx, "asset1");
+        metrics.afterTransaction(ctx);
+
+        ledger.beginTransaction("GetAssetByRange");
+        ctx = new Context(metrics.meter(ledger));
+        metrics.beforeTransaction(ctx);
+        contract.GetAssetByRange(ctx, "", "");
+        metrics.afterTransaction(ctx);
+
+        assertThat(metrics.scrape())
+                .contains(DURATION + "_count{function=\"ReadAsset\",outcome=\"success\"} 1\n")
+                .contains(DURATION + "_count{function=\"GetAssetByRange\",outcome=\"success\"} 1\n")
+                .contains("chaincode_state_reads_total{function=\"ReadAsset\",outcome=\"success\"} 1\n")
+                .contains("chaincode_state_read_bytes_total{function=\"ReadAsset\",outcome=\"success\"} "
+                        + asset.length + "\n")
+                .contains("chaincode_state_reads_total{function=\"GetAssetByRange\",outcome=\"success\"} 0\n")
+                .contains("chaincode_range_queries_total{function=\"GetAssetByRange\",outcome=\"success\"} 1\n")
+                .contains("chaincode_range_query_results_total{function=\"GetAssetByRange\",outcome=\"success\"} 1\n")
+                .contains("chaincode_range_query_bytes_total{function=\"GetAssetByRange\",outcome=\"success\"} "
+                        + asset.length + "\n");
+    }
+
+    @Test
+    public void recordsTransactionsThroughContractHooks() {
+        ledger.beginTransaction("private:ReadAssetThroughHooks");
+        Context ctx = contract.createContext(ledger);
+        contract.beforeTransaction(ctx);
+        contract.ReadAsset(ctx, "asset1");
+        contract.afterTransaction(ctx, null);
+
+        assertThat(Metrics.getRegistry().scrape())
+                .contains(DURATION + "_count{function=\"private:ReadAssetThroughHooks\",outcome=\"success\"} 1\n")
+                .contains("chaincode_state_reads_total{function=\"private:ReadAssetThroughHooks\",outcome=\"success\"} 1\n");
+    }
+
+    @Test
+    public void recordsFailedTransactionsThroughContractHooks() {
+        ledger.beginTransaction("private:TransferAssetThroughHooks");
+        Context failed = contract.createContext(ledger);
+        contract.beforeTransaction(failed);
+        catchThrowable(() -> contract.TransferAsset(failed));
+
+        ledger.beginTransaction("private:MadeUpThroughHooks");
+        Context unknown = contract.createContext(ledger);
+        contract.beforeTransaction(unknown);
+        Throwable thrown = catchThrowable(() -> contract.unknownTransaction(unknown));
+
+        assertThat(thrown).isInstanceOf(ChaincodeException.class);
+        assertThat(Metrics.getRegistry().scrape())
+                .contains(DURATION + "_count{function=\"private:TransferAssetThroughHooks\",outcome=\"failure\"} 1\n")
+                .contains(DURATION + "_count{function=\"(unknown)\",outcome=\"failure\"} ")
+                .doesNotContain("private:MadeUpThroughHooks");
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.privatedata;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public final class TransientInputTest {
+
+    private static final String[] FIELDS = {"assetID", "size"};
+
+    private static TransientInput input(final String json) {
+        ChaincodeStub stub = mock(ChaincodeStub.class);
+        when(stub.getTransient()).thenReturn(Collections.singletonMap("asset_properties", json.getBytes(UTF_8)));
+        return TransientInput.read(stub, "CreateAsset", "asset_properties");
+    }
+
+    // Reads every field, returning name=value for the known ones and skipping the rest
+    private static List<String> readAll(final String json) {
+        TransientInput input = input(json);
+        List<String> fields = new ArrayList<>();
+        input.beginObject();
+        while (input.hasNextField()) {
+            String field = input.nextField(FIELDS);
+            switch (field) {
+                case "assetID":
+                    fields.add(field + "=" + input.nextString(field));
+                    break;
+                case "size":
+                    fields.add(field + "=" + input.nextInt(field));
+                    break;
+                default:
+                    input.skipValue();
+            }
+        }
+        input.endDocument();
+        return fields;
+    }
+
+    private static void assertProblem(final Throwable thrown, final TransientInput.Problem problem) {
+        assertThat(thrown).isInstanceOf(ChaincodeException.class);
+        assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo(problem.toString().getBytes(UTF_8));
+    }
+
+    @Nested
+    class Reading {
+
+        @Test
+        public void readsKnownFieldsAndSkipsUnknownOnes() {
+            List<String> fields = readAll(" { \"color\" : \"b\\\"}lue\", \"assetID\" : \"asset1\", \"tags\": [\"a\", {\"b\": [1]}],"
+                    + " \"size\" : 5, \"owner\": null, \"valid\": true } ");
+
+            assertThat(fields).containsExactly("assetID=asset1", "size=5");
+        }
+
+        @Test
+        public void skipsEveryKindOfValue() {
+            List<String> fields = readAll("{\"a\":-0.5e+3,\"b\":0,\"c\":12E-1,\"d\":false,\"e\":[],\"f\":{},"
+                    + "\"g\":[[{\"x\":{\"x\":\"\\\"\\u00e1\"}}]],\"h\":\"\\/\\b\\f\\n\\r\\t\",\"size\":1}");
+
+            assertThat(fields).containsExactly("size=1");
+        }
+
+        @Test
+        public void readsSameFieldsInEachObjectOfArray() {
+            TransientInput input = input("[{\"assetID\":\"asset1\",\"color\":1},{\"assetID\":\"asset2\",\"color\":2}]");
+            List<String> assetIDs = new ArrayList<>();
+            input.beginArray();
+            while (input.hasNextElement()) {
+                input.beginObject();
+                while (input.hasNextField()) {
+                    if (input.nextField(FIELDS).equals("assetID")) {
+                        assetIDs.add(input.nextString("assetID"));
+                    } else {
+                        input.skipValue();
+                    }
+                }
+            }
+            input.endDocument();
+
+            assertThat(assetIDs).containsExactly("asset1", "asset2");
+        }
+
+        @Test
+        public void readsArrayOfObjects() {
+            TransientInput input = input(" [ {\"assetID\":\"asset1\"} , {}, {\"tags\":[{}],\"assetID\":\"asset2\"} ] ");
+            List<String> assetIDs = new ArrayList<>();
+            input.beginArray();
+            while (input.hasNextElement()) {
+                input.beginObject();
+                while (input.hasNextField()) {
+                    if (input.nextField(FIELDS).equals("assetID")) {
+                        assetIDs.add(input.nextString("assetID"));
+                    } else {
+                        input.skipValue();
+                    }
+                }
+            }
+            input.endDocument();
+
+            assertThat(assetIDs).containsExactly("asset1", "asset2");
+        }
+
+        @Test
+        public void readsEmptyObject() {
+            assertThat(readAll("{}")).isEmpty();
+        }
+
+        @Test
+        public void decodesEscapesAndMultiByteCharacters() {
+            assertThat(readAll("{\"assetID\":\"Siobh\u00e1n\\n\\u00e1\\/\\\\\u2028\"}"))
+                    .containsExactly("assetID=Siobh\u00e1n\n\u00e1/\\\u2028");
+        }
+
+        @Test
+        public void matchesEscapedFieldNames() {
+            assertThat(readAll("{\"asset\\u0049D\":\"asset1\"}")).containsExactly("assetID=asset1");
+        }
+
+        @Test
+        public void doesNotMatchFieldNamePrefixes() {
+            assertThat(readAll("{\"asset\":\"asset1\",\"assetIDs\":\"asset2\"}")).isEmpty();
+        }
+
+        @Test
+        public void readsNullString() {
+            assertThat(readAll("{\"assetID\":null}")).containsExactly("assetID=null");
+        }
+
+        @Test
+        public void readsIntegerRange() {
+            assertThat(readAll("{\"size\":2147483647}")).containsExactly("size=2147483647");
+            assertThat(readAll("{\"size\":-2147483648}")).containsExactly("size=-2147483648");
+        }
+    }
+
+    @Nested
+    class Rejecting {
+
+        @Test
+        public void missingTransientKey() {
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(stub.getTransient()).thenReturn(Collections.emptyMap());
+
+            Throwable thrown = catchThrowable(() -> {
+                TransientInput.read(stub, "CreateAsset", "asset_properties");
+            });
+
+            assertProblem(thrown, TransientInput.Problem.INCOMPLETE_INPUT);
+            assertThat(thrown).hasMessage("CreateAsset call must specify asset_properties in Transient map input");
+        }
+
+        @Test
+        public void malformedDocuments() {
+            String[] malformed = {
+                "",
+                "[]",
+                "{\"assetID\" \"asset1\"}",
+                "{\"assetID\":\"asset1\" \"size\":5}",
+                "{\"assetID\":\"asset1",
+                "{\"assetID\":\"asset1\\",
+                "{\"assetID\":\"\\u00\"}",
+                "{\"assetID\":\"\\u00zz\"}",
+                "{\"assetID\":nul}",
+                "{\"tags\":[\"a\"",
+                "{} {}",
+                "{\"owner\":tom}",
+                "{\"tags\":[1 2]}",
+                "{\"tags\":[1,]}",
+                "{\"tags\":{\"a\"}}",
+                "{\"tags\":{\"a\":1,}}",
+                "{\"appraisedValue\":01}",
+                "{\"appraisedValue\":1.}",
+                "{\"appraisedValue\":1e}",
+                "{\"appraisedValue\":-}",
+                "{\"assetID\":\"asset\\x1\"}",
+                "{\"color\":\"b\\lue\"}",
+                "{\"assetID\":\"asset\n1\"}",
+                "{\"color\":\"blue\t\"}",
+                "{\"asset\u0001ID\":\"asset1\"}",
+                "{\"assetID\":\"asset1\",\"assetID\":\"asset2\"}",
+                "{\"assetID\":\"asset1\",\"asset\\u0049D\":\"asset2\"}",
+                "{\"color\":\"blue\",\"color\":\"red\"}",
+                "{\"tags\":{\"a\":1,\"a\":2}}",
+                "{\"tags\":" + String.join("", Collections.nCopies(100, "[")) + String.join("", Collections.nCopies(100, "]")) + "}",
+            };
+
+            for (String json : malformed) {
+                Throwable thrown = catchThrowable(() -> {
+                    readAll(json);
+                });
+
+                assertProblem(thrown, TransientInput.Problem.MALFORMED_INPUT);
+                assertThat(thrown).as(json).hasMessageStartingWith("TransientMap deserialized error: ");
+            }
+        }
+
+        @Test
+        public void wrongTypes() {
+            String[] invalid = {
+                "{\"assetID\":5}",
+                "{\"size\":\"5\"}",
+                "{\"size\":5.5}",
+                "{\"size\":5e2}",
+                "{\"size\":-}",
+                "{\"size\":null}",
+                "{\"size\":2147483648}",
+                "{\"size\":-2147483649}",
+                "{\"size\":99999999999999999999}",
+            };
+
+            for (String json : invalid) {
+                Throwable thrown = catchThrowable(() -> {
+                    readAll(json);
+                });
+
+                assertProblem(thrown, TransientInput.Problem.INVALID_INPUT);
+            }
+        }
+
+        @Test
+        public void missingAndEmptyStrings() {
+            TransientInput input = input("{}");
+
+            assertProblem(catchThrowable(() -> {
+                input.require(null, "assetID");
+            }), TransientInput.Problem.INCOMPLETE_INPUT);
+            Throwable thrown = catchThrowable(() -> {
+                input.require("", "assetID");
+            });
+            assertProblem(thrown, TransientInput.Problem.INCOMPLETE_INPUT);
+            assertThat(thrown).hasMessage("Empty input in Transient map asset_properties: assetID");
+            assertThat(input.require("asset1", "assetID")).isEqualTo("asset1");
+        }
+
+        @Test
+        public void missingAndNonPositiveIntegers() {
+            TransientInput input = input("{}");
+
+            Throwable thrown = catchThrowable(() -> {
+                input.requirePositive(0, false, "size");
+            });
+            assertProblem(thrown, TransientInput.Problem.INCOMPLETE_INPUT);
+            assertThat(thrown).hasMessage("Missing input in Transient map asset_properties: size");
+            thrown = catchThrowable(() -> {
+                input.requirePositive(0, true, "size");
+            });
+            assertProblem(thrown, TransientInput.Problem.INVALID_INPUT);
+            assertThat(thrown).hasMessage("Input must be positive integer: size");
+            assertThat(input.requirePositive(1, true, "size")).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.sbe;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.fabric.samples.testing.InMemoryChaincodeStub;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the transaction functions of {@link AssetContract} against an in-memory ledger of
+ * {@code assetCount} assets. Each invocation runs one transaction from start to commit, so the
+ * results include context creation, state encoding and building the state-based endorsement
+ * policy. The build runs the GC profiler, which reports the allocation per transaction alongside
+ * the latency.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AssetContractBenchmark {
+
+    @Param({"100", "10000"})
+    private int assetCount;
+
+    private final AssetContract contract = new AssetContract();
+    private InMemoryChaincodeStub stub;
+    private String[] assetIds;
+    private int next;
+
+    /**
+     * Loads the ledger with assets owned by Org1.
+     */
+    @Setup
+    public void setUp() {
+        stub = new InMemoryChaincodeStub(false);
+        assetIds = new String[assetCount];
+
+        stub.beginTransaction("CreateAsset");
+        for (int i = 0; i < assetCount; i++) {
+            assetIds[i] = String.format("asset%06d", i);
+            contract.CreateAsset(contract.createContext(stub), assetIds[i], 100, "Tomoko");
+        }
+        stub.commit();
+    }
+
+    private String nextAssetId() {
+        next = next + 1 == assetCount ? 0 : next + 1;
+        return assetIds[next];
+    }
+
+    /**
+     * Reads one asset.
+     *
+     * @return the asset JSON
+     */
+    @Benchmark
+    public String readAsset() {
+        String assetId = nextAssetId();
+        stub.beginTransaction("ReadAsset", assetId);
+        return contract.ReadAsset(contract.createContext(stub), assetId);
+    }
+
+    /**
+     * Creates one asset and rolls the transaction back, so the ledger keeps its size.
+     *
+     * @return the created asset
+     */
+    @Benchmark
+    public Asset createAsset() {
+        stub.beginTransaction("CreateAsset", "asset");
+        Asset asset = contract.CreateAsset(contract.createContext(stub), "asset", 100, "Tomoko");
+        stub.rollback();
+        return asset;
+    }
+
+    /**
+     * Updates the value of one asset and commits the transaction.
+     *
+     * @return the updated asset
+     */
+    @Benchmark
+    public Asset updateAsset() {
+        String assetId = nextAssetId();
+        stub.beginTransaction("UpdateAsset", assetId);
+        Asset asset = contract.UpdateAsset(contract.createContext(stub), assetId, 200);
+        stub.commit();
+        return asset;
+    }
+
+    /**
+     * Transfers one asset within Org1, resetting its endorsement policy, and commits the
+     * transaction.
+     *
+     * @return the transferred asset
+     */
+    @Benchmark
+    public Asset transferAsset() {
+        String assetId = nextAssetId();
+        stub.beginTransaction("TransferAsset", assetId);
+        Asset asset = contract.TransferAsset(contract.createContext(stub), assetId, "Max", "Org1MSP");
+        stub.commit();
+        return asset;
+    }
+}
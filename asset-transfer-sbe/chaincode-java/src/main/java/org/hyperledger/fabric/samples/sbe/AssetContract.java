@@ -11,19 +11,24 @@ import org.hyperledger.fabric.contract.annotation.Default;
 import org.hyperledger.fabric.contract.annotation.Info;
 import org.hyperledger.fabric.contract.annotation.License;
 import org.hyperledger.fabric.contract.annotation.Transaction;
-import org.hyperledger.fabric.protos.common.MspPrincipal;
-import org.hyperledger.fabric.protos.common.Policies;
+import org.hyperledger.fabric.protos.common.MSPPrincipal;
+import org.hyperledger.fabric.protos.common.MSPRole;
+import org.hyperledger.fabric.protos.common.SignaturePolicy;
+import org.hyperledger.fabric.protos.common.SignaturePolicyEnvelope;
+import org.hyperledger.fabric.samples.logging.Logging;
+import org.hyperledger.fabric.samples.metrics.MeteredSerializer;
+import org.hyperledger.fabric.samples.metrics.Metrics;
+import org.hyperledger.fabric.samples.metrics.TransactionMetrics;
 import org.hyperledger.fabric.shim.ChaincodeException;
 import org.hyperledger.fabric.shim.ChaincodeStub;
 import org.hyperledger.fabric.shim.ext.sbe.StateBasedEndorsement;
 import org.hyperledger.fabric.shim.ext.sbe.impl.StateBasedEndorsementFactory;
 
-import com.owlike.genson.Genson;
-
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.logging.Logger;
 
 @Contract(
         name = "sbe",
@@ -33,17 +38,72 @@ import java.util.List;
                 version = "0.0.1-SNAPSHOT",
                 license = @License(
                         name = "Apache 2.0 License",
-                        url = "http://www.apache.org/licenses/LICENSE-2.0.html")))
+                        url = "http://www.apache.org/licenses/LICENSE-2.0.html")),
+        transactionSerializer = MeteredSerializer.NAME)
 @Default
 public final class AssetContract implements ContractInterface {
 
-    private final Genson genson = new Genson();
+    private static final Logger LOG = Logging.getLogger(AssetContract.class);
+
+    private static final TransactionMetrics METRICS = Metrics.getRegistry();
 
     private enum AssetTransferErrors {
         ASSET_NOT_FOUND,
         ASSET_ALREADY_EXISTS
     }
 
+    /**
+     * Creates the contract and starts serving the chaincode metrics. The shim creates each
+     * contract once, when the chaincode starts.
+     */
+    public AssetContract() {
+        Metrics.start();
+    }
+
+    /**
+     * Creates a context whose stub counts the state the transaction reads and writes.
+     *
+     * @param stub the stub for the transaction
+     * @return the transaction context
+     */
+    @Override
+    public Context createContext(final ChaincodeStub stub) {
+        return new Context(METRICS.meter(stub));
+    }
+
+    /**
+     * Starts timing the transaction, and records a transaction that threw before it on this
+     * thread as failed.
+     *
+     * @param ctx the transaction context
+     */
+    @Override
+    public void beforeTransaction(final Context ctx) {
+        METRICS.beforeTransaction(ctx);
+    }
+
+    /**
+     * Records the latency and state access of the transaction.
+     *
+     * @param ctx the transaction context
+     * @param result the value returned by the transaction function
+     */
+    @Override
+    public void afterTransaction(final Context ctx, final Object result) {
+        METRICS.afterTransaction(ctx);
+    }
+
+    /**
+     * Records the call to a function this contract does not have, then rejects it.
+     *
+     * @param ctx the transaction context
+     */
+    @Override
+    public void unknownTransaction(final Context ctx) {
+        METRICS.unknownTransaction(ctx);
+        throw new ChaincodeException("Undefined contract method called");
+    }
+
     /**
      * Creates a new asset.
      * Sets the endorsement policy of the assetId Key, such that current owner Org Peer is required to endorse future updates.
@@ -61,13 +121,13 @@ public final class AssetContract implements ContractInterface {
 
         if (AssetExists(ctx, assetId)) {
             String errorMessage = String.format("Asset %s already exists", assetId);
-            System.out.println(errorMessage);
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_ALREADY_EXISTS.toString());
         }
 
         final String ownerOrg = getClientOrgId(ctx);
         Asset asset = new Asset(assetId, value, owner, ownerOrg);
-        String assetJSON = genson.serialize(asset);
+        String assetJSON = Codecs.ASSET.encode(asset);
         stub.putStringState(assetId, assetJSON);
 
         // Set the endorsement policy of the assetId Key, such that current owner Org is required to endorse future updates
@@ -93,7 +153,7 @@ public final class AssetContract implements ContractInterface {
 
         if (assetJSON == null || assetJSON.isEmpty()) {
             String errorMessage = String.format("Asset %s does not exist", assetId);
-            System.out.println(errorMessage);
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_NOT_FOUND.toString());
         }
 
@@ -114,9 +174,9 @@ public final class AssetContract implements ContractInterface {
         ChaincodeStub stub = ctx.getStub();
 
         String assetString = ReadAsset(ctx, assetId);
-        Asset asset = genson.deserialize(assetString, Asset.class);
+        Asset asset = Codecs.ASSET.decode(assetString);
         asset.setValue(newValue);
-        String updatedAssetJSON = genson.serialize(asset);
+        String updatedAssetJSON = Codecs.ASSET.encode(asset);
         stub.putStringState(assetId, updatedAssetJSON);
 
         return asset;
@@ -135,7 +195,7 @@ public final class AssetContract implements ContractInterface {
 
         if (!AssetExists(ctx, assetId)) {
             String errorMessage = String.format("Asset %s does not exist", assetId);
-            System.out.println(errorMessage);
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_NOT_FOUND.toString());
         }
 
@@ -158,10 +218,10 @@ public final class AssetContract implements ContractInterface {
         ChaincodeStub stub = ctx.getStub();
 
         String assetString = ReadAsset(ctx, assetId);
-        Asset asset = genson.deserialize(assetString, Asset.class);
+        Asset asset = Codecs.ASSET.decode(assetString);
         asset.setOwner(newOwner);
         asset.setOwnerOrg(newOwnerOrg);
-        String updatedAssetJSON = genson.serialize(asset);
+        String updatedAssetJSON = Codecs.ASSET.encode(asset);
         stub.putStringState(assetId, updatedAssetJSON);
 
         // Re-Set the endorsement policy of the assetId Key, such that a new owner Org Peer is required to endorse future updates
@@ -232,24 +292,24 @@ public final class AssetContract implements ContractInterface {
      */
     private static byte[] policy(final int nOrgs, final List<String> mspids) {
         mspids.sort(Comparator.naturalOrder());
-        final List<MspPrincipal.MSPPrincipal> principals = new ArrayList<>();
-        final List<Policies.SignaturePolicy> signPolicy = new ArrayList<>();
+        final List<MSPPrincipal> principals = new ArrayList<>();
+        final List<SignaturePolicy> signPolicy = new ArrayList<>();
         for (int i = 0; i < mspids.size(); i++) {
             final String mspid = mspids.get(i);
-            principals.add(MspPrincipal.MSPPrincipal.newBuilder().setPrincipalClassification(MspPrincipal.MSPPrincipal.Classification.ROLE)
-                    .setPrincipal(MspPrincipal.MSPRole.newBuilder().setMspIdentifier(mspid).setRole(MspPrincipal.MSPRole.MSPRoleType.MEMBER).build().toByteString()).build());
+            principals.add(MSPPrincipal.newBuilder().setPrincipalClassification(MSPPrincipal.Classification.ROLE)
+                    .setPrincipal(MSPRole.newBuilder().setMspIdentifier(mspid).setRole(MSPRole.MSPRoleType.MEMBER).build().toByteString()).build());
             signPolicy.add(signedBy(i));
         }
         // Create the policy such that it requires any N signature's from all of the principals provided
-        return Policies.SignaturePolicyEnvelope.newBuilder().setVersion(0).setRule(nOutOf(nOrgs, signPolicy))
+        return SignaturePolicyEnvelope.newBuilder().setVersion(0).setRule(nOutOf(nOrgs, signPolicy))
                 .addAllIdentities(principals).build().toByteArray();
     }
 
-    private static Policies.SignaturePolicy signedBy(final int index) {
-        return Policies.SignaturePolicy.newBuilder().setSignedBy(index).build();
+    private static SignaturePolicy signedBy(final int index) {
+        return SignaturePolicy.newBuilder().setSignedBy(index).build();
     }
 
-    private static Policies.SignaturePolicy nOutOf(final int n, final List<Policies.SignaturePolicy> policies) {
-        return Policies.SignaturePolicy.newBuilder().setNOutOf(Policies.SignaturePolicy.NOutOf.newBuilder().setN(n).addAllRules(policies).build()).build();
+    private static SignaturePolicy nOutOf(final int n, final List<SignaturePolicy> policies) {
+        return SignaturePolicy.newBuilder().setNOutOf(SignaturePolicy.NOutOf.newBuilder().setN(n).addAllRules(policies).build()).build();
     }
 }
@@ -0,0 +1,94 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.sbe;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of the codecs for the data types stored by this chaincode.
+ */
+public final class Codecs {
+
+    /**
+     * Codec for {@link Asset}, writing fields in the same order as Genson.
+     */
+    public static final Codec<Asset> ASSET = new AssetCodec();
+
+    private static final Map<Class<?>, Codec<?>> REGISTRY;
+
+    static {
+        Map<Class<?>, Codec<?>> registry = new HashMap<>();
+        registry.put(Asset.class, ASSET);
+        REGISTRY = Collections.unmodifiableMap(registry);
+    }
+
+    private Codecs() {
+    }
+
+    /**
+     * Returns the codec registered for a data type.
+     *
+     * @param <T> the data type
+     * @param type the class of the data type
+     * @return the codec for the data type
+     * @throws IllegalArgumentException if no codec is registered for the type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Codec<T> forType(final Class<T> type) {
+        Codec<?> codec = REGISTRY.get(type);
+        if (codec == null) {
+            throw new IllegalArgumentException("No codec registered for " + type.getName());
+        }
+        return (Codec<T>) codec;
+    }
+
+    private static final class AssetCodec implements Codec<Asset> {
+
+        @Override
+        public void encode(final Asset asset, final StringBuilder out) {
+            out.append("{\"ID\":");
+            Json.writeString(out, asset.getID());
+            out.append(",\"Owner\":");
+            Json.writeString(out, asset.getOwner());
+            out.append(",\"OwnerOrg\":");
+            Json.writeString(out, asset.getOwnerOrg());
+            out.append(",\"Value\":").append(asset.getValue()).append('}');
+        }
+
+        @Override
+        public Asset decode(final String json) {
+            String id = null;
+            int value = 0;
+            String owner = null;
+            String ownerOrg = null;
+
+            Json.Reader reader = new Json.Reader(json);
+            reader.beginObject();
+            while (reader.hasNextField()) {
+                switch (reader.nextName()) {
+                    case "ID":
+                        id = reader.nextString();
+                        break;
+                    case "Value":
+                        value = reader.nextInt();
+                        break;
+                    case "Owner":
+                        owner = reader.nextString();
+                        break;
+                    case "OwnerOrg":
+                        ownerOrg = reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endDocument();
+
+            return new Asset(id, value, owner, ownerOrg);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.sbe;
+
+/**
+ * Minimal JSON support used by the codecs. Strings are escaped the same way Genson escapes
+ * them, so encoded states are byte for byte identical to the ones Genson produces.
+ */
+final class Json {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final char FIRST_PRINTABLE = 0x20;
+    private static final int NIBBLE_BITS = 4;
+    private static final int NIBBLE_MASK = 0xf;
+    private static final int UNICODE_ESCAPE_LENGTH = 4;
+    private static final int HEX_RADIX = 16;
+
+    private Json() {
+    }
+
+    /**
+     * Appends value to out as a quoted JSON string, or as null.
+     *
+     * @param out the buffer to append to
+     * @param value the string to append
+     */
+    static void writeString(final StringBuilder out, final String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\b':
+                    out.append("\\b");
+                    break;
+                case '\f':
+                    out.append("\\f");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < FIRST_PRINTABLE || c == '\u2028' || c == '\u2029') {
+                        out.append("\\u");
+                        for (int shift = (UNICODE_ESCAPE_LENGTH - 1) * NIBBLE_BITS; shift >= 0; shift -= NIBBLE_BITS) {
+                            out.append(HEX_DIGITS[(c >> shift) & NIBBLE_MASK]);
+                        }
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Pull parser over a single JSON document. Only the value types used by the ledger states
+     * are read directly; any other value can be skipped.
+     */
+    static final class Reader {
+
+        private final String json;
+        private int pos;
+        private boolean first;
+
+        Reader(final String json) {
+            this.json = json;
+        }
+
+        void beginObject() {
+            expect('{');
+            first = true;
+        }
+
+        void beginArray() {
+            expect('[');
+            first = true;
+        }
+
+        /**
+         * Moves to the next element of the current array.
+         *
+         * @return false when the end of the array has been reached
+         */
+        boolean hasNextElement() {
+            if (peek() == ']') {
+                pos++;
+                first = false;
+                return false;
+            }
+            if (!first) {
+                expect(',');
+            }
+            first = false;
+            return true;
+        }
+
+        /**
+         * Moves to the next field of the current object.
+         *
+         * @return false when the end of the object has been reached
+         */
+        boolean hasNextField() {
+            if (peek() == '}') {
+                pos++;
+                // the enclosing object, if any, has already read the field holding this one
+                first = false;
+                return false;
+            }
+            if (!first) {
+                expect(',');
+            }
+            first = false;
+            return true;
+        }
+
+        String nextName() {
+            String name = readString();
+            expect(':');
+            return name;
+        }
+
+        /**
+         * Consumes the next value if it is null.
+         *
+         * @return true if the value was null
+         */
+        boolean nextIsNull() {
+            if (peek() == 'n') {
+                expectLiteral("null");
+                return true;
+            }
+            return false;
+        }
+
+        String nextString() {
+            return nextIsNull() ? null : readString();
+        }
+
+        int nextInt() {
+            skipWhitespace();
+            int start = pos;
+            if (pos < json.length() && json.charAt(pos) == '-') {
+                pos++;
+            }
+            while (pos < json.length() && Character.isDigit(json.charAt(pos))) {
+                pos++;
+            }
+            try {
+                return Integer.parseInt(json.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("Expected an integer");
+            }
+        }
+
+        void skipValue() {
+            char c = peek();
+            if (c == '"') {
+                readString();
+            } else if (c == '{' || c == '[') {
+                skipNested();
+            } else {
+                // number, true, false or null
+                while (pos < json.length() && ",}] \t\r\n".indexOf(json.charAt(pos)) < 0) {
+                    pos++;
+                }
+            }
+        }
+
+        /**
+         * Returns the offset in the document of the next character to be read.
+         *
+         * @return the current position
+         */
+        int position() {
+            return pos;
+        }
+
+        /**
+         * Checks that nothing other than whitespace follows the parsed document.
+         */
+        void endDocument() {
+            skipWhitespace();
+            if (pos != json.length()) {
+                throw error("Unexpected trailing content");
+            }
+        }
+
+        private void skipNested() {
+            int depth = 0;
+            do {
+                char c = peek();
+                if (c == '"') {
+                    readString();
+                    continue;
+                }
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+                pos++;
+            } while (depth > 0);
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder value = null;
+            int start = pos;
+            while (true) {
+                if (pos >= json.length()) {
+                    throw error("Unterminated string");
+                }
+                char c = json.charAt(pos);
+                if (c == '"') {
+                    String result = value == null
+                            ? json.substring(start, pos)
+                            : value.append(json, start, pos).toString();
+                    pos++;
+                    return result;
+                }
+                if (c == '\\') {
+                    if (value == null) {
+                        value = new StringBuilder();
+                    }
+                    value.append(json, start, pos);
+                    value.append(readEscape());
+                    start = pos;
+                } else {
+                    pos++;
+                }
+            }
+        }
+
+        private char readEscape() {
+            pos++;
+            if (pos >= json.length()) {
+                throw error("Unterminated escape sequence");
+            }
+            char c = json.charAt(pos++);
+            switch (c) {
+                case 'b':
+                    return '\b';
+                case 'f':
+                    return '\f';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 't':
+                    return '\t';
+                case 'u':
+                    if (pos + UNICODE_ESCAPE_LENGTH > json.length()) {
+                        throw error("Invalid unicode escape");
+                    }
+                    try {
+                        String digits = json.substring(pos, pos + UNICODE_ESCAPE_LENGTH);
+                        char unicode = (char) Integer.parseInt(digits, HEX_RADIX);
+                        pos += UNICODE_ESCAPE_LENGTH;
+                        return unicode;
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid unicode escape");
+                    }
+                default:
+                    // covers \" \\ and \/
+                    return c;
+            }
+        }
+
+        private void expectLiteral(final String literal) {
+            if (!json.startsWith(literal, pos)) {
+                throw error("Expected " + literal);
+            }
+            pos += literal.length();
+        }
+
+        private void expect(final char c) {
+            if (peek() != c) {
+                throw error("Expected '" + c + "'");
+            }
+            pos++;
+        }
+
+        private char peek() {
+            skipWhitespace();
+            if (pos >= json.length()) {
+                throw error("Unexpected end of JSON");
+            }
+            return json.charAt(pos);
+        }
+
+        private void skipWhitespace() {
+            while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(final String message) {
+            return new IllegalArgumentException(message + " at position " + pos);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.logging;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Log handler that passes records through a bounded ring buffer to a background thread, which
+ * writes them to the handlers of a destination logger. Publishing never blocks the thread running
+ * the transaction: when the buffer is full the record is dropped, and the number of dropped
+ * records is reported as soon as the writer catches up.
+ */
+final class AsyncLogHandler extends Handler {
+
+    private final Logger destination;
+    private final BlockingQueue<LogRecord> buffer;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * Creates a handler and starts its writer thread.
+     *
+     * @param destination the logger whose handlers write the records
+     * @param capacity the number of records the buffer holds
+     */
+    AsyncLogHandler(final Logger destination, final int capacity) {
+        this.destination = destination;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::writeRecords, "chaincode-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void publish(final LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+
+        // The caller is found by walking the stack, so it has to be done on the logging thread.
+        record.getSourceClassName();
+        if (!buffer.offer(record)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void flush() {
+        for (Handler handler : destination.getHandlers()) {
+            handler.flush();
+        }
+    }
+
+    /**
+     * Stops the writer thread and writes any records left in the buffer. Records published
+     * after the handler is closed are discarded.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        writer.interrupt();
+
+        // Wait for the record being written even if this thread is interrupted, then restore
+        // the interrupt for the caller.
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        reportDropped();
+        for (LogRecord record = buffer.poll(); record != null; record = buffer.poll()) {
+            write(record);
+        }
+        flush();
+    }
+
+    /**
+     * Returns the number of records dropped because the buffer was full and not yet reported.
+     *
+     * @return the number of dropped records
+     */
+    long getDropped() {
+        return dropped.get();
+    }
+
+    private void writeRecords() {
+        try {
+            while (true) {
+                LogRecord record = buffer.take();
+                reportDropped();
+                write(record);
+            }
+        } catch (InterruptedException e) {
+            // Closed; close() writes whatever is left in the buffer.
+        }
+    }
+
+    private void reportDropped() {
+        long count = dropped.getAndSet(0);
+        if (count > 0) {
+            LogRecord record = new LogRecord(Level.WARNING, count + " log records dropped because the buffer was full");
+            record.setLoggerName(AsyncLogHandler.class.getName());
+            record.setSourceClassName(AsyncLogHandler.class.getName());
+            record.setSourceMethodName("publish");
+            write(record);
+        }
+    }
+
+    private void write(final LogRecord record) {
+        for (Handler handler : destination.getHandlers()) {
+            handler.publish(record);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.logging;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+/**
+ * Creates the loggers for a chaincode. Their level is inherited from the root logger, which the
+ * shim sets from {@code CORE_CHAINCODE_LOGGING_LEVEL}. Records that pass the level are handed to
+ * an {@link AsyncLogHandler}, which writes them to the root logger's handlers on a background
+ * thread, so that logging does not hold up the transaction.
+ *
+ * <p>Log detail with a message supplier, for example
+ * {@code LOG.fine(() -> String.format("Put %s", key))}, so that the message is only built when
+ * that level is enabled.
+ */
+public final class Logging {
+
+    private static final int BUFFER_CAPACITY = 8192;
+
+    private static final AsyncLogHandler HANDLER = new AsyncLogHandler(Logger.getLogger(""), BUFFER_CAPACITY);
+
+    // The log manager only keeps weak references to loggers, so hold on to the ones carrying the
+    // handler for as long as this class is loaded.
+    private static final ConcurrentMap<String, Logger> PACKAGE_LOGGERS = new ConcurrentHashMap<>();
+
+    private Logging() {
+    }
+
+    /**
+     * Returns the logger for a class of a chaincode. The first call for a package routes the
+     * records of every logger in that package through the asynchronous handler.
+     *
+     * @param type the class that logs
+     * @return the logger
+     */
+    public static Logger getLogger(final Class<?> type) {
+        PACKAGE_LOGGERS.computeIfAbsent(type.getPackage().getName(), Logging::configure);
+        return Logger.getLogger(type.getName());
+    }
+
+    private static Logger configure(final String name) {
+        Logger logger = Logger.getLogger(name);
+        logger.addHandler(HANDLER);
+        logger.setUseParentHandlers(false);
+        return logger;
+    }
+}
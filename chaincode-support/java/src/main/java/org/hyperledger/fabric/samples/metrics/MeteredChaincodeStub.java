@@ -0,0 +1,385 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.metrics;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.hyperledger.fabric.protos.peer.ChaincodeEvent;
+import org.hyperledger.fabric.protos.peer.QueryResponseMetadata;
+import org.hyperledger.fabric.protos.peer.SignedProposal;
+import org.hyperledger.fabric.samples.metrics.TransactionMetrics.Counter;
+import org.hyperledger.fabric.shim.Chaincode.Response;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+
+/**
+ * Stub that passes every call to the stub of a transaction, counting the keys and bytes the
+ * transaction reads, writes and queries, and when it last called the ledger. A transaction runs
+ * on a single thread, so these are plain fields; {@link TransactionMetrics} adds them to the
+ * shared metrics once the transaction has finished.
+ */
+final class MeteredChaincodeStub implements ChaincodeStub {
+
+    private final ChaincodeStub stub;
+    private final long[] counts = new long[TransactionMetrics.COUNTERS.length];
+    private String startedFunction;
+    private long startNanos;
+    private long lastCallNanos;
+    private boolean started;
+
+    MeteredChaincodeStub(final ChaincodeStub stub) {
+        this.stub = stub;
+    }
+
+    void start() {
+        startedFunction = stub.getFunction();
+        startNanos = System.nanoTime();
+        lastCallNanos = startNanos;
+        started = true;
+    }
+
+    boolean isStarted() {
+        return started;
+    }
+
+    String getStartedFunction() {
+        return startedFunction;
+    }
+
+    long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    long getNanosToLastCall() {
+        return lastCallNanos - startNanos;
+    }
+
+    long getCount(final Counter counter) {
+        return counts[counter.ordinal()];
+    }
+
+    private void add(final Counter counter, final long amount) {
+        counts[counter.ordinal()] += amount;
+    }
+
+    private void called() {
+        lastCallNanos = System.nanoTime();
+    }
+
+    private static int length(final byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private byte[] read(final byte[] value) {
+        called();
+        add(Counter.STATE_READS, 1);
+        add(Counter.STATE_READ_BYTES, length(value));
+        return value;
+    }
+
+    private void write(final byte[] value) {
+        called();
+        add(Counter.STATE_WRITES, 1);
+        add(Counter.STATE_WRITE_BYTES, length(value));
+    }
+
+    private void delete() {
+        called();
+        add(Counter.STATE_DELETES, 1);
+    }
+
+    private Results query(final QueryResultsIterator<KeyValue> results) {
+        called();
+        add(Counter.RANGE_QUERIES, 1);
+        return new Results(results, results, null);
+    }
+
+    private Results query(final QueryResultsIteratorWithMetadata<KeyValue> results) {
+        called();
+        add(Counter.RANGE_QUERIES, 1);
+        return new Results(results, results, results.getMetadata());
+    }
+
+    /**
+     * Query results that count the keys and bytes returned as they are iterated.
+     */
+    private final class Results implements QueryResultsIterator<KeyValue>, QueryResultsIteratorWithMetadata<KeyValue> {
+
+        private final Iterable<KeyValue> results;
+        private final AutoCloseable closeable;
+        private final QueryResponseMetadata metadata;
+
+        Results(final Iterable<KeyValue> results, final AutoCloseable closeable, final QueryResponseMetadata metadata) {
+            this.results = results;
+            this.closeable = closeable;
+            this.metadata = metadata;
+        }
+
+        @Override
+        public Iterator<KeyValue> iterator() {
+            Iterator<KeyValue> iterator = results.iterator();
+            return new Iterator<KeyValue>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public KeyValue next() {
+                    KeyValue result = iterator.next();
+                    called();
+                    add(Counter.RANGE_QUERY_RESULTS, 1);
+                    add(Counter.RANGE_QUERY_BYTES, length(result.getValue()));
+                    return result;
+                }
+            };
+        }
+
+        @Override
+        public QueryResponseMetadata getMetadata() {
+            return metadata;
+        }
+
+        @Override
+        public void close() throws Exception {
+            closeable.close();
+        }
+    }
+
+    @Override
+    public List<byte[]> getArgs() {
+        return stub.getArgs();
+    }
+
+    @Override
+    public List<String> getStringArgs() {
+        return stub.getStringArgs();
+    }
+
+    @Override
+    public String getFunction() {
+        return stub.getFunction();
+    }
+
+    @Override
+    public List<String> getParameters() {
+        return stub.getParameters();
+    }
+
+    @Override
+    public String getTxId() {
+        return stub.getTxId();
+    }
+
+    @Override
+    public String getChannelId() {
+        return stub.getChannelId();
+    }
+
+    @Override
+    public Response invokeChaincode(final String chaincodeName, final List<byte[]> args, final String channel) {
+        return stub.invokeChaincode(chaincodeName, args, channel);
+    }
+
+    @Override
+    public byte[] getState(final String key) {
+        return read(stub.getState(key));
+    }
+
+    @Override
+    public byte[] getStateValidationParameter(final String key) {
+        return stub.getStateValidationParameter(key);
+    }
+
+    @Override
+    public void putState(final String key, final byte[] value) {
+        write(value);
+        stub.putState(key, value);
+    }
+
+    @Override
+    public void setStateValidationParameter(final String key, final byte[] value) {
+        stub.setStateValidationParameter(key, value);
+    }
+
+    @Override
+    public void delState(final String key) {
+        delete();
+        stub.delState(key);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByRange(final String startKey, final String endKey) {
+        return query(stub.getStateByRange(startKey, endKey));
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByRangeWithPagination(final String startKey,
+            final String endKey, final int pageSize, final String bookmark) {
+        return query(stub.getStateByRangeWithPagination(startKey, endKey, pageSize, bookmark));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final String compositeKey) {
+        return query(stub.getStateByPartialCompositeKey(compositeKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final String objectType,
+            final String... attributes) {
+        return query(stub.getStateByPartialCompositeKey(objectType, attributes));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final CompositeKey compositeKey) {
+        return query(stub.getStateByPartialCompositeKey(compositeKey));
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByPartialCompositeKeyWithPagination(
+            final CompositeKey compositeKey, final int pageSize, final String bookmark) {
+        return query(stub.getStateByPartialCompositeKeyWithPagination(compositeKey, pageSize, bookmark));
+    }
+
+    @Override
+    public CompositeKey createCompositeKey(final String objectType, final String... attributes) {
+        return stub.createCompositeKey(objectType, attributes);
+    }
+
+    @Override
+    public CompositeKey splitCompositeKey(final String compositeKey) {
+        return stub.splitCompositeKey(compositeKey);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getQueryResult(final String query) {
+        return query(stub.getQueryResult(query));
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getQueryResultWithPagination(final String query,
+            final int pageSize, final String bookmark) {
+        return query(stub.getQueryResultWithPagination(query, pageSize, bookmark));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyModification> getHistoryForKey(final String key) {
+        return stub.getHistoryForKey(key);
+    }
+
+    @Override
+    public byte[] getPrivateData(final String collection, final String key) {
+        return read(stub.getPrivateData(collection, key));
+    }
+
+    @Override
+    public byte[] getPrivateDataHash(final String collection, final String key) {
+        return stub.getPrivateDataHash(collection, key);
+    }
+
+    @Override
+    public byte[] getPrivateDataValidationParameter(final String collection, final String key) {
+        return stub.getPrivateDataValidationParameter(collection, key);
+    }
+
+    @Override
+    public void putPrivateData(final String collection, final String key, final byte[] value) {
+        write(value);
+        stub.putPrivateData(collection, key, value);
+    }
+
+    @Override
+    public void setPrivateDataValidationParameter(final String collection, final String key, final byte[] value) {
+        stub.setPrivateDataValidationParameter(collection, key, value);
+    }
+
+    @Override
+    public void delPrivateData(final String collection, final String key) {
+        delete();
+        stub.delPrivateData(collection, key);
+    }
+
+    @Override
+    public void purgePrivateData(final String collection, final String key) {
+        delete();
+        stub.purgePrivateData(collection, key);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByRange(final String collection, final String startKey,
+            final String endKey) {
+        return query(stub.getPrivateDataByRange(collection, startKey, endKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+            final String compositeKey) {
+        return query(stub.getPrivateDataByPartialCompositeKey(collection, compositeKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+            final CompositeKey compositeKey) {
+        return query(stub.getPrivateDataByPartialCompositeKey(collection, compositeKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+            final String objectType, final String... attributes) {
+        return query(stub.getPrivateDataByPartialCompositeKey(collection, objectType, attributes));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataQueryResult(final String collection, final String query) {
+        return query(stub.getPrivateDataQueryResult(collection, query));
+    }
+
+    @Override
+    public void setEvent(final String name, final byte[] payload) {
+        stub.setEvent(name, payload);
+    }
+
+    @Override
+    public ChaincodeEvent getEvent() {
+        return stub.getEvent();
+    }
+
+    @Override
+    public SignedProposal getSignedProposal() {
+        return stub.getSignedProposal();
+    }
+
+    @Override
+    public Instant getTxTimestamp() {
+        return stub.getTxTimestamp();
+    }
+
+    @Override
+    public byte[] getCreator() {
+        return stub.getCreator();
+    }
+
+    @Override
+    public Map<String, byte[]> getTransient() {
+        return stub.getTransient();
+    }
+
+    @Override
+    public byte[] getBinding() {
+        return stub.getBinding();
+    }
+
+    @Override
+    public String getMspId() {
+        return stub.getMspId();
+    }
+}
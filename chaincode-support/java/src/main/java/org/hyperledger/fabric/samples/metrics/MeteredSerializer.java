@@ -0,0 +1,56 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.metrics;
+
+import org.hyperledger.fabric.contract.annotation.Serializer;
+import org.hyperledger.fabric.contract.execution.JSONTransactionSerializer;
+import org.hyperledger.fabric.contract.metadata.TypeSchema;
+import org.hyperledger.fabric.samples.metrics.TransactionMetrics.Conversion;
+
+/**
+ * The shim's JSON transaction serializer, timing each conversion of a transaction argument or
+ * result for {@link Metrics}. Contracts select it by name in their {@code @Contract} annotation.
+ */
+@Serializer(target = Serializer.TARGET.TRANSACTION)
+public final class MeteredSerializer extends JSONTransactionSerializer {
+
+    /**
+     * The name contracts use to select this serializer.
+     */
+    public static final String NAME = "org.hyperledger.fabric.samples.metrics.MeteredSerializer";
+
+    private final TransactionMetrics metrics;
+
+    /**
+     * Creates a serializer recording to the metrics of this chaincode.
+     */
+    public MeteredSerializer() {
+        this(Metrics.getRegistry());
+    }
+
+    MeteredSerializer(final TransactionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public byte[] toBuffer(final Object value, final TypeSchema ts) {
+        long start = System.nanoTime();
+        try {
+            return super.toBuffer(value, ts);
+        } finally {
+            metrics.recordConversion(Conversion.RESULT, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Object fromBuffer(final byte[] buffer, final TypeSchema ts) {
+        long start = System.nanoTime();
+        try {
+            return super.fromBuffer(buffer, ts);
+        } finally {
+            metrics.recordConversion(Conversion.ARGUMENTS, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.metrics;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Holds the {@link TransactionMetrics} of a chaincode. Once {@link #start} is called and when the
+ * {@value #PORT_ENVIRONMENT_VARIABLE} environment variable is set, the metrics are served in the
+ * Prometheus text format at {@code /metrics} on that port, for a Prometheus server to scrape.
+ */
+public final class Metrics {
+
+    /**
+     * Name of the environment variable holding the port to serve the metrics on.
+     */
+    public static final String PORT_ENVIRONMENT_VARIABLE = "CHAINCODE_METRICS_PORT";
+
+    private static final String PATH = "/metrics";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final int OK = 200;
+
+    private static final TransactionMetrics REGISTRY = new TransactionMetrics();
+
+    private static boolean started;
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the metrics of the chaincode.
+     *
+     * @return the metrics
+     */
+    public static TransactionMetrics getRegistry() {
+        return REGISTRY;
+    }
+
+    /**
+     * Starts serving the metrics of the chaincode on the port given by
+     * {@value #PORT_ENVIRONMENT_VARIABLE}, if it is set. Contracts call this when the shim
+     * creates them at startup; calls after the first do nothing.
+     *
+     * @throws UncheckedIOException if the port cannot be bound
+     */
+    public static synchronized void start() {
+        if (!started) {
+            started = true;
+            serve(REGISTRY, System.getenv(PORT_ENVIRONMENT_VARIABLE));
+        }
+    }
+
+    /**
+     * Starts serving metrics on a port, unless no port is given.
+     *
+     * @param metrics the metrics to serve
+     * @param port the port to listen on, 0 for any free port, or null or empty not to serve
+     * @return the running server, or null if no port was given
+     * @throws UncheckedIOException if the port cannot be bound
+     */
+    static HttpServer serve(final TransactionMetrics metrics, final String port) {
+        if (port == null || port.isEmpty()) {
+            return null;
+        }
+
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(Integer.parseInt(port)), 0);
+            server.createContext(PATH, exchange -> respond(exchange, metrics.scrape()));
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to serve metrics on port " + port, e);
+        }
+    }
+
+    private static void respond(final HttpExchange exchange, final String body) throws IOException {
+        byte[] bytes = body.getBytes(UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(OK, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
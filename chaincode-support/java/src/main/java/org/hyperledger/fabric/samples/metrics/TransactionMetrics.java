@@ -0,0 +1,266 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+/**
+ * Metrics of the transactions run by a chaincode: the latency of each transaction function, the
+ * state it read and wrote, and the time spent converting transaction arguments and results.
+ *
+ * <p>A contract passes its stub through {@link #meter} when it creates the transaction context,
+ * and calls {@link #beforeTransaction}, {@link #afterTransaction} and {@link #unknownTransaction}
+ * from the hooks of the same name. Every metric is labelled with the outcome of the transaction.
+ *
+ * <p>The shim does not call {@code afterTransaction} for a transaction function that throws, and
+ * has no hook for it either. The shim runs each transaction on a single thread, so a transaction
+ * still open when the next one starts on its thread has failed, and is recorded then. Its
+ * duration runs to its last ledger call, as the time it threw is not known.
+ */
+public final class TransactionMetrics {
+
+    /**
+     * The state access counted for each transaction function.
+     */
+    enum Counter {
+        STATE_READS("chaincode_state_reads_total", "Keys read from the world state or private data."),
+        STATE_READ_BYTES("chaincode_state_read_bytes_total", "Bytes read from the world state or private data."),
+        STATE_WRITES("chaincode_state_writes_total", "Keys written to the world state or private data."),
+        STATE_WRITE_BYTES("chaincode_state_write_bytes_total", "Bytes written to the world state or private data."),
+        STATE_DELETES("chaincode_state_deletes_total", "Keys deleted from the world state or private data."),
+        RANGE_QUERIES("chaincode_range_queries_total", "Range, partial composite key and rich queries run."),
+        RANGE_QUERY_RESULTS("chaincode_range_query_results_total", "Keys returned by queries."),
+        RANGE_QUERY_BYTES("chaincode_range_query_bytes_total", "Bytes of the values returned by queries.");
+
+        private final String metricName;
+        private final String help;
+
+        Counter(final String metricName, final String help) {
+            this.metricName = metricName;
+            this.help = help;
+        }
+    }
+
+    /**
+     * The conversions made by the transaction serializer.
+     */
+    enum Conversion {
+        ARGUMENTS,
+        RESULT;
+
+        private final String label = "conversion=\"" + name().toLowerCase(Locale.ROOT) + '"';
+    }
+
+    /**
+     * How a transaction ended.
+     */
+    enum Outcome {
+        SUCCESS,
+        FAILURE;
+
+        private final String label = ",outcome=\"" + name().toLowerCase(Locale.ROOT) + '"';
+    }
+
+    static final Counter[] COUNTERS = Counter.values();
+
+    private static final String DURATION = "chaincode_transaction_duration_seconds";
+    private static final String CONVERSION_SECONDS = "chaincode_serialization_seconds_total";
+    private static final String CONVERSIONS = "chaincode_serializations_total";
+
+    /**
+     * The function recorded for calls to a function the contract does not have, so that callers
+     * cannot add a series per name they make up.
+     */
+    static final String UNKNOWN_FUNCTION = "(unknown)";
+
+    private final List<ConcurrentMap<String, FunctionMetrics>> functions = new ArrayList<>();
+    private final ThreadLocal<MeteredChaincodeStub> running = new ThreadLocal<>();
+    private final LongAdder[] conversionNanos = new LongAdder[Conversion.values().length];
+    private final LongAdder[] conversions = new LongAdder[Conversion.values().length];
+
+    private static final class FunctionMetrics {
+
+        private final String label;
+        private final LatencyHistogram duration = new LatencyHistogram();
+        private final LongAdder[] counts = new LongAdder[COUNTERS.length];
+
+        FunctionMetrics(final String function, final Outcome outcome) {
+            this.label = "function=\"" + escape(function) + '"' + outcome.label;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+    }
+
+    /**
+     * Creates empty metrics.
+     */
+    public TransactionMetrics() {
+        for (int i = 0; i < Outcome.values().length; i++) {
+            functions.add(new ConcurrentHashMap<>());
+        }
+        for (int i = 0; i < conversions.length; i++) {
+            conversionNanos[i] = new LongAdder();
+            conversions[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Wraps the stub of a transaction so that its state access is counted.
+     *
+     * @param stub the stub for the transaction
+     * @return the stub to create the transaction context with
+     */
+    public ChaincodeStub meter(final ChaincodeStub stub) {
+        return new MeteredChaincodeStub(stub);
+    }
+
+    /**
+     * Starts timing a transaction whose context was created with a metered stub. A transaction
+     * left open on this thread threw, and is recorded as failed.
+     *
+     * @param ctx the transaction context
+     */
+    public void beforeTransaction(final Context ctx) {
+        ChaincodeStub stub = ctx.getStub();
+        if (!(stub instanceof MeteredChaincodeStub)) {
+            return;
+        }
+
+        MeteredChaincodeStub abandoned = running.get();
+        if (abandoned != null) {
+            record(abandoned, abandoned.getStartedFunction(), Outcome.FAILURE, abandoned.getNanosToLastCall());
+        }
+
+        MeteredChaincodeStub metered = (MeteredChaincodeStub) stub;
+        metered.start();
+        running.set(metered);
+    }
+
+    /**
+     * Records the latency and state access of a transaction started by
+     * {@link #beforeTransaction}.
+     *
+     * @param ctx the transaction context
+     */
+    public void afterTransaction(final Context ctx) {
+        MeteredChaincodeStub metered = finish(ctx);
+        if (metered != null) {
+            record(metered, metered.getStartedFunction(), Outcome.SUCCESS, metered.getElapsedNanos());
+        }
+    }
+
+    /**
+     * Records a call to a function the contract does not have as a failed transaction of
+     * {@value #UNKNOWN_FUNCTION}.
+     *
+     * @param ctx the transaction context
+     */
+    public void unknownTransaction(final Context ctx) {
+        MeteredChaincodeStub metered = finish(ctx);
+        if (metered != null) {
+            record(metered, UNKNOWN_FUNCTION, Outcome.FAILURE, metered.getElapsedNanos());
+        }
+    }
+
+    private MeteredChaincodeStub finish(final Context ctx) {
+        ChaincodeStub stub = ctx.getStub();
+        if (!(stub instanceof MeteredChaincodeStub) || !((MeteredChaincodeStub) stub).isStarted()) {
+            return null;
+        }
+
+        running.remove();
+        return (MeteredChaincodeStub) stub;
+    }
+
+    private void record(final MeteredChaincodeStub stub, final String function, final Outcome outcome,
+            final long elapsed) {
+        ConcurrentMap<String, FunctionMetrics> byFunction = functions.get(outcome.ordinal());
+        FunctionMetrics metrics = byFunction.get(function);
+        if (metrics == null) {
+            metrics = byFunction.computeIfAbsent(function, name -> new FunctionMetrics(name, outcome));
+        }
+
+        metrics.duration.record(elapsed);
+        for (Counter counter : COUNTERS) {
+            metrics.counts[counter.ordinal()].add(stub.getCount(counter));
+        }
+    }
+
+    /**
+     * Records the time the transaction serializer took for one conversion.
+     *
+     * @param conversion what was converted
+     * @param nanos the time taken in nanoseconds
+     */
+    void recordConversion(final Conversion conversion, final long nanos) {
+        conversionNanos[conversion.ordinal()].add(nanos);
+        conversions[conversion.ordinal()].increment();
+    }
+
+    /**
+     * Returns the metrics in the Prometheus text exposition format.
+     *
+     * @return the metrics
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder();
+        Map<String, FunctionMetrics> sorted = new TreeMap<>();
+        for (ConcurrentMap<String, FunctionMetrics> byFunction : functions) {
+            for (FunctionMetrics metrics : byFunction.values()) {
+                sorted.put(metrics.label, metrics);
+            }
+        }
+
+        writeHeader(out, DURATION, "histogram", "Time taken by transaction functions.");
+        for (FunctionMetrics metrics : sorted.values()) {
+            metrics.duration.writeTo(out, DURATION, metrics.label);
+        }
+
+        for (Counter counter : COUNTERS) {
+            writeHeader(out, counter.metricName, "counter", counter.help);
+            for (FunctionMetrics metrics : sorted.values()) {
+                long count = metrics.counts[counter.ordinal()].sum();
+                writeSample(out, counter.metricName, metrics.label, Long.toString(count));
+            }
+        }
+
+        writeHeader(out, CONVERSION_SECONDS, "counter", "Time taken to convert transaction arguments and results.");
+        for (Conversion conversion : Conversion.values()) {
+            writeSample(out, CONVERSION_SECONDS, conversion.label,
+                    LatencyHistogram.toSeconds(conversionNanos[conversion.ordinal()].sum()));
+        }
+        writeHeader(out, CONVERSIONS, "counter", "Transaction arguments and results converted.");
+        for (Conversion conversion : Conversion.values()) {
+            writeSample(out, CONVERSIONS, conversion.label, Long.toString(conversions[conversion.ordinal()].sum()));
+        }
+
+        return out.toString();
+    }
+
+    private static void writeHeader(final StringBuilder out, final String name, final String type, final String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void writeSample(final StringBuilder out, final String name, final String labels,
+            final String value) {
+        out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static String escape(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+
+public final class AsyncLogHandlerTest {
+
+    private static final int CAPACITY = 16;
+
+    private static final class CapturingHandler extends Handler {
+
+        private final List<LogRecord> records = new CopyOnWriteArrayList<>();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch released;
+
+        CapturingHandler(final CountDownLatch released) {
+            this.released = released;
+        }
+
+        @Override
+        public void publish(final LogRecord record) {
+            entered.countDown();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    released.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            records.add(record);
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static Logger destination(final Handler handler) {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
+        return logger;
+    }
+
+    private static LogRecord record(final String message) {
+        return new LogRecord(Level.INFO, message);
+    }
+
+    @Test
+    public void writesRecordsToDestinationHandlers() {
+        CapturingHandler captured = new CapturingHandler(new CountDownLatch(0));
+        AsyncLogHandler handler = new AsyncLogHandler(destination(captured), CAPACITY);
+
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
+        logger.info("first");
+        logger.fine(() -> "not logged");
+        logger.warning(() -> "second");
+        handler.close();
+
+        assertThat(captured.records).extracting(LogRecord::getMessage).containsExactly("first", "second");
+        assertThat(captured.records.get(0).getSourceClassName()).isEqualTo(AsyncLogHandlerTest.class.getName());
+        assertThat(captured.records.get(0).getSourceMethodName()).isEqualTo("writesRecordsToDestinationHandlers");
+    }
+
+    @Test
+    public void dropsRecordsWhenBufferIsFull() throws InterruptedException {
+        CountDownLatch released = new CountDownLatch(1);
+        CapturingHandler captured = new CapturingHandler(released);
+        AsyncLogHandler handler = new AsyncLogHandler(destination(captured), 1);
+
+        handler.publish(record("taken"));
+        captured.entered.await();
+        handler.publish(record("buffered"));
+        handler.publish(record("dropped"));
+
+        assertThat(handler.getDropped()).isEqualTo(1);
+
+        released.countDown();
+        handler.close();
+
+        assertThat(captured.records).extracting(LogRecord::getMessage)
+                .containsExactly("taken", "1 log records dropped because the buffer was full", "buffered");
+        assertThat(captured.records.get(1).getLevel()).isEqualTo(Level.WARNING);
+        assertThat(handler.getDropped()).isZero();
+    }
+
+    @Test
+    public void ignoresRecordsAfterClose() {
+        CapturingHandler captured = new CapturingHandler(new CountDownLatch(0));
+        AsyncLogHandler handler = new AsyncLogHandler(destination(captured), CAPACITY);
+
+        handler.close();
+        handler.publish(record("late"));
+        handler.close();
+
+        assertThat(captured.records).isEmpty();
+    }
+
+    @Test
+    public void waitsForWriterWhenInterrupted() throws InterruptedException {
+        CountDownLatch released = new CountDownLatch(1);
+        CapturingHandler captured = new CapturingHandler(released);
+        AsyncLogHandler handler = new AsyncLogHandler(destination(captured), CAPACITY);
+        handler.publish(record("pending"));
+        captured.entered.await();
+        handler.publish(record("buffered"));
+
+        // Let the writer finish only once close() has been interrupted and is waiting again.
+        Thread closing = Thread.currentThread();
+        Thread releaser = new Thread(() -> {
+            while (closing.getState() != Thread.State.WAITING) {
+                Thread.yield();
+            }
+            released.countDown();
+        });
+        releaser.start();
+
+        closing.interrupt();
+        handler.close();
+
+        assertThat(Thread.interrupted()).isTrue();
+        releaser.join();
+        assertThat(captured.records).extracting(LogRecord::getMessage).containsExactly("pending", "buffered");
+    }
+
+    @Test
+    public void routesChaincodeLoggersThroughAsyncHandler() {
+        Logger logger = Logging.getLogger(AsyncLogHandlerTest.class);
+        Logger packageLogger = logger.getParent();
+
+        assertThat(Logging.getLogger(CapturingHandler.class).getParent()).isSameAs(packageLogger);
+        assertThat(logger.getName()).isEqualTo(AsyncLogHandlerTest.class.getName());
+        assertThat(packageLogger.getName()).isEqualTo(AsyncLogHandlerTest.class.getPackage().getName());
+        assertThat(packageLogger.getUseParentHandlers()).isFalse();
+        assertThat(packageLogger.getHandlers()).hasSize(1).hasOnlyElementsOfType(AsyncLogHandler.class);
+    }
+}
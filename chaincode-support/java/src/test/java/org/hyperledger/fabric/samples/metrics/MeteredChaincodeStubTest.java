@@ -0,0 +1,270 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.metrics;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.hyperledger.fabric.protos.peer.ChaincodeEvent;
+import org.hyperledger.fabric.protos.peer.SignedProposal;
+import org.hyperledger.fabric.samples.metrics.TransactionMetrics.Counter;
+import org.hyperledger.fabric.samples.testing.InMemoryChaincodeStub;
+import org.hyperledger.fabric.shim.Chaincode.Response;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public final class MeteredChaincodeStubTest {
+
+    private static final int QUERY_METHODS = 11;
+    private static final int QUERY_METHODS_WITHOUT_METADATA = 9;
+
+    private static byte[] bytes(final String value) {
+        return value.getBytes(UTF_8);
+    }
+
+    private static int count(final Iterable<KeyValue> results) throws Exception {
+        int count = 0;
+        for (KeyValue ignored : results) {
+            count++;
+        }
+        ((AutoCloseable) results).close();
+        return count;
+    }
+
+    @Nested
+    class Counting {
+
+        private InMemoryChaincodeStub ledger;
+        private MeteredChaincodeStub stub;
+
+        @BeforeEach
+        public void setUp() {
+            ledger = new InMemoryChaincodeStub();
+            ledger.beginTransaction("setup");
+            ledger.putStringState("asset1", "one");
+            ledger.putStringState("asset2", "two");
+            ledger.putStringState("asset3", "three");
+            ledger.putPrivateData("collection", "secret", bytes("hidden"));
+            ledger.commit();
+
+            ledger.beginTransaction("ReadAsset");
+            stub = new MeteredChaincodeStub(ledger);
+        }
+
+        @Test
+        public void countsStateReadsAndWrites() {
+            stub.getState("asset1");
+            stub.getStringState("missing");
+            stub.putState("asset4", bytes("four"));
+            stub.putStringState("asset5", "five");
+            stub.delState("asset1");
+
+            assertThat(stub.getCount(Counter.STATE_READS)).isEqualTo(2);
+            assertThat(stub.getCount(Counter.STATE_READ_BYTES)).isEqualTo("one".length());
+            assertThat(stub.getCount(Counter.STATE_WRITES)).isEqualTo(2);
+            assertThat(stub.getCount(Counter.STATE_WRITE_BYTES)).isEqualTo("four".length() + "five".length());
+            assertThat(stub.getCount(Counter.STATE_DELETES)).isEqualTo(1);
+            assertThat(ledger.getWriteSet()).containsOnlyKeys("asset1", "asset4", "asset5");
+        }
+
+        @Test
+        public void countsPrivateDataReadsAndWrites() {
+            stub.getPrivateData("collection", "secret");
+            stub.putPrivateData("collection", "other", bytes("data"));
+            stub.delPrivateData("collection", "secret");
+
+            assertThat(stub.getCount(Counter.STATE_READS)).isEqualTo(1);
+            assertThat(stub.getCount(Counter.STATE_READ_BYTES)).isEqualTo("hidden".length());
+            assertThat(stub.getCount(Counter.STATE_WRITES)).isEqualTo(1);
+            assertThat(stub.getCount(Counter.STATE_WRITE_BYTES)).isEqualTo("data".length());
+            assertThat(stub.getCount(Counter.STATE_DELETES)).isEqualTo(1);
+        }
+
+        @Test
+        public void countsQueryResultsAsTheyAreRead() throws Exception {
+            assertThat(count(stub.getStateByRange("asset1", "asset3"))).isEqualTo(2);
+            QueryResultsIteratorWithMetadata<KeyValue> page = stub.getStateByRangeWithPagination("", "", 1, "");
+            assertThat(count(page)).isEqualTo(1);
+
+            assertThat(page.getMetadata().getBookmark()).isEqualTo("asset2");
+            assertThat(stub.getCount(Counter.RANGE_QUERIES)).isEqualTo(2);
+            assertThat(stub.getCount(Counter.RANGE_QUERY_RESULTS)).isEqualTo(2 + 1);
+            assertThat(stub.getCount(Counter.RANGE_QUERY_BYTES)).isEqualTo(
+                    "one".length() + "two".length() + "one".length());
+        }
+
+        @Test
+        public void timesTheTransactionOnceStarted() {
+            assertThat(stub.isStarted()).isFalse();
+
+            stub.start();
+
+            ledger.beginTransaction("NextTransaction");
+
+            assertThat(stub.isStarted()).isTrue();
+            assertThat(stub.getStartedFunction()).isEqualTo("ReadAsset");
+            assertThat(stub.getElapsedNanos()).isNotNegative();
+            assertThat(stub.getNanosToLastCall()).isZero();
+        }
+
+        @Test
+        public void notesTheLastLedgerCall() throws Exception {
+            stub.start();
+            stub.getState("asset1");
+            long afterRead = stub.getNanosToLastCall();
+            stub.delState("asset1");
+            long afterDelete = stub.getNanosToLastCall();
+            count(stub.getStateByRange("", ""));
+
+            assertThat(afterRead).isNotNegative();
+            assertThat(afterDelete).isGreaterThanOrEqualTo(afterRead);
+            assertThat(stub.getNanosToLastCall()).isGreaterThanOrEqualTo(afterDelete)
+                    .isLessThanOrEqualTo(stub.getElapsedNanos());
+        }
+    }
+
+    @Nested
+    class Delegation {
+
+        private final ChaincodeStub delegate = mock(ChaincodeStub.class);
+        private final MeteredChaincodeStub stub = new MeteredChaincodeStub(delegate);
+
+        @SuppressWarnings("unchecked")
+        private QueryResultsIterator<KeyValue> results() {
+            QueryResultsIterator<KeyValue> results = mock(QueryResultsIterator.class);
+            when(results.iterator()).thenReturn(Collections.emptyIterator());
+            return results;
+        }
+
+        @SuppressWarnings("unchecked")
+        private QueryResultsIteratorWithMetadata<KeyValue> resultsWithMetadata() {
+            QueryResultsIteratorWithMetadata<KeyValue> results = mock(QueryResultsIteratorWithMetadata.class);
+            when(results.iterator()).thenReturn(Collections.emptyIterator());
+            return results;
+        }
+
+        @Test
+        public void passesTransactionDetailsThrough() {
+            List<byte[]> args = Collections.singletonList(bytes("arg"));
+            Map<String, byte[]> transientData = Collections.singletonMap("asset", bytes("data"));
+            Instant timestamp = Instant.now();
+            when(delegate.getArgs()).thenReturn(args);
+            when(delegate.getStringArgs()).thenReturn(Collections.singletonList("arg"));
+            when(delegate.getFunction()).thenReturn("ReadAsset");
+            when(delegate.getParameters()).thenReturn(Collections.emptyList());
+            when(delegate.getTxId()).thenReturn("tx1");
+            when(delegate.getChannelId()).thenReturn("mychannel");
+            when(delegate.getEvent()).thenReturn(ChaincodeEvent.getDefaultInstance());
+            when(delegate.getSignedProposal()).thenReturn(SignedProposal.getDefaultInstance());
+            when(delegate.getTxTimestamp()).thenReturn(timestamp);
+            when(delegate.getCreator()).thenReturn(bytes("creator"));
+            when(delegate.getTransient()).thenReturn(transientData);
+            when(delegate.getBinding()).thenReturn(bytes("binding"));
+            when(delegate.getMspId()).thenReturn("Org1MSP");
+
+            assertThat(stub.getArgs()).isSameAs(args);
+            assertThat(stub.getStringArgs()).containsExactly("arg");
+            assertThat(stub.getFunction()).isEqualTo("ReadAsset");
+            assertThat(stub.getParameters()).isEmpty();
+            assertThat(stub.getTxId()).isEqualTo("tx1");
+            assertThat(stub.getChannelId()).isEqualTo("mychannel");
+            assertThat(stub.getEvent()).isEqualTo(ChaincodeEvent.getDefaultInstance());
+            assertThat(stub.getSignedProposal()).isEqualTo(SignedProposal.getDefaultInstance());
+            assertThat(stub.getTxTimestamp()).isEqualTo(timestamp);
+            assertThat(stub.getCreator()).isEqualTo(bytes("creator"));
+            assertThat(stub.getTransient()).isSameAs(transientData);
+            assertThat(stub.getBinding()).isEqualTo(bytes("binding"));
+            assertThat(stub.getMspId()).isEqualTo("Org1MSP");
+        }
+
+        @Test
+        public void passesOtherCallsThrough() {
+            Response response = mock(Response.class);
+            CompositeKey key = new CompositeKey("owner", "Tom");
+            @SuppressWarnings("unchecked")
+            QueryResultsIterator<KeyModification> history = mock(QueryResultsIterator.class);
+            List<byte[]> args = Collections.emptyList();
+            when(delegate.invokeChaincode("other", args, "mychannel")).thenReturn(response);
+            when(delegate.createCompositeKey("owner", "Tom")).thenReturn(key);
+            when(delegate.splitCompositeKey(key.toString())).thenReturn(key);
+            when(delegate.getHistoryForKey("asset1")).thenReturn(history);
+            when(delegate.getStateValidationParameter("asset1")).thenReturn(bytes("ep"));
+            when(delegate.getPrivateDataHash("collection", "asset1")).thenReturn(bytes("hash"));
+            when(delegate.getPrivateDataValidationParameter("collection", "asset1")).thenReturn(bytes("ep"));
+
+            assertThat(stub.invokeChaincode("other", args, "mychannel")).isSameAs(response);
+            assertThat(stub.createCompositeKey("owner", "Tom")).isSameAs(key);
+            assertThat(stub.splitCompositeKey(key.toString())).isSameAs(key);
+            assertThat(stub.getHistoryForKey("asset1")).isSameAs(history);
+            assertThat(stub.getStateValidationParameter("asset1")).isEqualTo(bytes("ep"));
+            assertThat(stub.getPrivateDataHash("collection", "asset1")).isEqualTo(bytes("hash"));
+            assertThat(stub.getPrivateDataValidationParameter("collection", "asset1")).isEqualTo(bytes("ep"));
+            assertThat(stub.getState("missing")).isNull();
+
+            stub.setStateValidationParameter("asset1", bytes("ep"));
+            stub.setPrivateDataValidationParameter("collection", "asset1", bytes("ep"));
+            stub.purgePrivateData("collection", "asset1");
+            stub.setEvent("Created", bytes("payload"));
+
+            verify(delegate).setStateValidationParameter("asset1", bytes("ep"));
+            verify(delegate).setPrivateDataValidationParameter("collection", "asset1", bytes("ep"));
+            verify(delegate).purgePrivateData("collection", "asset1");
+            verify(delegate).setEvent("Created", bytes("payload"));
+            assertThat(stub.getCount(Counter.STATE_DELETES)).isEqualTo(1);
+            assertThat(stub.getCount(Counter.STATE_READS)).isEqualTo(1);
+            assertThat(stub.getCount(Counter.STATE_READ_BYTES)).isZero();
+        }
+
+        @Test
+        public void countsEveryQuery() throws Exception {
+            CompositeKey key = new CompositeKey("owner", "Tom");
+            QueryResultsIterator<KeyValue> results = results();
+            QueryResultsIteratorWithMetadata<KeyValue> resultsWithMetadata = resultsWithMetadata();
+            when(delegate.getStateByPartialCompositeKey(key.toString())).thenReturn(results);
+            when(delegate.getStateByPartialCompositeKey("owner", "Tom")).thenReturn(results);
+            when(delegate.getStateByPartialCompositeKey(key)).thenReturn(results);
+            when(delegate.getStateByPartialCompositeKeyWithPagination(key, 1, "")).thenReturn(resultsWithMetadata);
+            when(delegate.getQueryResult("{}")).thenReturn(results);
+            when(delegate.getQueryResultWithPagination("{}", 1, "")).thenReturn(resultsWithMetadata);
+            when(delegate.getPrivateDataByRange("collection", "a", "b")).thenReturn(results);
+            when(delegate.getPrivateDataByPartialCompositeKey("collection", key.toString())).thenReturn(results);
+            when(delegate.getPrivateDataByPartialCompositeKey("collection", key)).thenReturn(results);
+            when(delegate.getPrivateDataByPartialCompositeKey("collection", "owner", "Tom")).thenReturn(results);
+            when(delegate.getPrivateDataQueryResult("collection", "{}")).thenReturn(results);
+
+            assertThat(count(stub.getStateByPartialCompositeKey(key.toString()))).isZero();
+            assertThat(count(stub.getStateByPartialCompositeKey("owner", "Tom"))).isZero();
+            assertThat(count(stub.getStateByPartialCompositeKey(key))).isZero();
+            assertThat(count(stub.getStateByPartialCompositeKeyWithPagination(key, 1, ""))).isZero();
+            assertThat(count(stub.getQueryResult("{}"))).isZero();
+            assertThat(count(stub.getQueryResultWithPagination("{}", 1, ""))).isZero();
+            assertThat(count(stub.getPrivateDataByRange("collection", "a", "b"))).isZero();
+            assertThat(count(stub.getPrivateDataByPartialCompositeKey("collection", key.toString()))).isZero();
+            assertThat(count(stub.getPrivateDataByPartialCompositeKey("collection", key))).isZero();
+            assertThat(count(stub.getPrivateDataByPartialCompositeKey("collection", "owner", "Tom"))).isZero();
+            assertThat(count(stub.getPrivateDataQueryResult("collection", "{}"))).isZero();
+
+            assertThat(stub.getCount(Counter.RANGE_QUERIES)).isEqualTo(QUERY_METHODS);
+            verify(results, times(QUERY_METHODS_WITHOUT_METADATA)).close();
+            verify(resultsWithMetadata, times(2)).close();
+        }
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.metrics;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.contract.metadata.TypeSchema;
+import org.hyperledger.fabric.samples.testing.InMemoryChaincodeStub;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+public final class TransactionMetricsTest {
+
+    private static final String DURATION = "chaincode_transaction_duration_seconds";
+
+    private static final int BUFFER_SIZE = 1024;
+
+    private static final long FIVE_MICROS = 5_000L;
+    private static final long THIRTY_MICROS = 30_000L;
+    private static final long TWENTY_SECONDS = 20_000_000_000L;
+
+    private static String read(final HttpURLConnection connection) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return new String(out.toByteArray(), UTF_8);
+    }
+
+    @Nested
+    class Transactions {
+
+        private final TransactionMetrics metrics = new TransactionMetrics();
+        private final InMemoryChaincodeStub ledger = new InMemoryChaincodeStub();
+
+        @BeforeEach
+        public void setUp() {
+            ledger.beginTransaction("setup");
+            ledger.putStringState("asset1", "one");
+            ledger.commit();
+        }
+
+        private Context begin(final String function) {
+            ledger.beginTransaction(function);
+            Context ctx = new Context(metrics.meter(ledger));
+            metrics.beforeTransaction(ctx);
+            return ctx;
+        }
+
+        @Test
+        public void recordsLatencyAndStateAccessPerFunction() {
+            Context ctx = begin("ReadAsset");
+            ctx.getStub().getStringState("asset1");
+            metrics.afterTransaction(ctx);
+
+            ctx = begin("CreateAsset");
+            ctx.getStub().putStringState("asset2", "two");
+            metrics.afterTransaction(ctx);
+
+            String scrape = metrics.scrape();
+            assertThat(scrape)
+                    .contains("# TYPE " + DURATION + " histogram\n")
+                    .contains(DURATION + "_count{function=\"ReadAsset\",outcome=\"success\"} 1\n")
+                    .contains(DURATION + "_bucket{function=\"ReadAsset\",outcome=\"success\",le=\"+Inf\"} 1\n")
+                    .contains(DURATION + "_count{function=\"CreateAsset\",outcome=\"success\"} 1\n")
+                    .contains("# TYPE chaincode_state_reads_total counter\n")
+                    .contains("chaincode_state_reads_total{function=\"ReadAsset\",outcome=\"success\"} 1\n")
+                    .contains("chaincode_state_read_bytes_total{function=\"ReadAsset\",outcome=\"success\"} 3\n")
+                    .contains("chaincode_state_writes_total{function=\"ReadAsset\",outcome=\"success\"} 0\n")
+                    .contains("chaincode_state_writes_total{function=\"CreateAsset\",outcome=\"success\"} 1\n");
+            assertThat(scrape.indexOf("function=\"CreateAsset\"")).isLessThan(scrape.indexOf("function=\"ReadAsset\""));
+        }
+
+        @Test
+        public void recordsTransactionLeftOpenAsFailedWhenNextOneStarts() {
+            Context failed = begin("TransferAsset");
+            failed.getStub().getStringState("asset1");
+            long nanosToRead = ((MeteredChaincodeStub) failed.getStub()).getNanosToLastCall();
+
+            assertThat(metrics.scrape()).doesNotContain("function=");
+
+            Context ctx = begin("ReadAsset");
+            metrics.afterTransaction(ctx);
+
+            assertThat(metrics.scrape())
+                    .contains(DURATION + "_count{function=\"TransferAsset\",outcome=\"failure\"} 1\n")
+                    .contains(DURATION + "_sum{function=\"TransferAsset\",outcome=\"failure\"} "
+                            + LatencyHistogram.toSeconds(nanosToRead) + "\n")
+                    .contains("chaincode_state_reads_total{function=\"TransferAsset\",outcome=\"failure\"} 1\n")
+                    .contains(DURATION + "_count{function=\"ReadAsset\",outcome=\"success\"} 1\n")
+                    .doesNotContain("function=\"TransferAsset\",outcome=\"success\"");
+        }
+
+        @Test
+        public void recordsFailedTransactionOnlyOnce() {
+            begin("TransferAsset");
+            metrics.afterTransaction(begin("ReadAsset"));
+            metrics.afterTransaction(begin("ReadAsset"));
+
+            assertThat(metrics.scrape())
+                    .contains(DURATION + "_count{function=\"TransferAsset\",outcome=\"failure\"} 1\n")
+                    .contains(DURATION + "_count{function=\"ReadAsset\",outcome=\"success\"} 2\n");
+        }
+
+        @Test
+        public void keepsTransactionsOnOtherThreadsOpen() throws Exception {
+            Context running = begin("TransferAsset");
+
+            CompletableFuture.runAsync(() -> {
+                InMemoryChaincodeStub other = new InMemoryChaincodeStub();
+                other.beginTransaction("ReadAsset");
+                Context ctx = new Context(metrics.meter(other));
+                metrics.beforeTransaction(ctx);
+                metrics.afterTransaction(ctx);
+            }).get();
+            metrics.afterTransaction(running);
+
+            assertThat(metrics.scrape())
+                    .contains(DURATION + "_count{function=\"TransferAsset\",outcome=\"success\"} 1\n")
+                    .contains(DURATION + "_count{function=\"ReadAsset\",outcome=\"success\"} 1\n")
+                    .doesNotContain("outcome=\"failure\"");
+        }
+
+        @Test
+        public void recordsUnknownFunctionsUnderOneName() {
+            metrics.unknownTransaction(begin("MadeUp1"));
+            metrics.unknownTransaction(begin("MadeUp2"));
+            metrics.afterTransaction(begin("ReadAsset"));
+
+            assertThat(metrics.scrape())
+                    .contains(DURATION + "_count{function=\"(unknown)\",outcome=\"failure\"} 2\n")
+                    .contains(DURATION + "_count{function=\"ReadAsset\",outcome=\"success\"} 1\n")
+                    .doesNotContain("MadeUp");
+        }
+
+        @Test
+        public void ignoresTransactionsThatWereNotStarted() {
+            ledger.beginTransaction("ReadAsset");
+            metrics.afterTransaction(new Context(metrics.meter(ledger)));
+            metrics.unknownTransaction(new Context(metrics.meter(ledger)));
+
+            Context unmetered = mock(Context.class);
+            when(unmetered.getStub()).thenReturn(mock(ChaincodeStub.class));
+            metrics.beforeTransaction(unmetered);
+            metrics.afterTransaction(unmetered);
+            metrics.unknownTransaction(unmetered);
+
+            assertThat(metrics.scrape()).doesNotContain("function=");
+        }
+
+        @Test
+        public void escapesFunctionNames() {
+            metrics.afterTransaction(begin("Odd\"Name\\\n"));
+
+            assertThat(metrics.scrape())
+                    .contains(DURATION + "_count{function=\"Odd\\\"Name\\\\\\n\",outcome=\"success\"} 1\n");
+        }
+    }
+
+    @Nested
+    class Histogram {
+
+        @Test
+        public void writesCumulativeBuckets() {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(FIVE_MICROS);
+            histogram.record(THIRTY_MICROS);
+            histogram.record(TWENTY_SECONDS);
+
+            StringBuilder out = new StringBuilder();
+            histogram.writeTo(out, "latency", "function=\"f\"");
+
+            assertThat(out.toString())
+                    .startsWith("latency_bucket{function=\"f\",le=\"1.0E-5\"} 1\n")
+                    .contains("latency_bucket{function=\"f\",le=\"2.5E-5\"} 1\n")
+                    .contains("latency_bucket{function=\"f\",le=\"5.0E-5\"} 2\n")
+                    .contains("latency_bucket{function=\"f\",le=\"10.0\"} 2\n")
+                    .contains("latency_bucket{function=\"f\",le=\"+Inf\"} 3\n")
+                    .contains("latency_sum{function=\"f\"} 20.000035\n")
+                    .endsWith("latency_count{function=\"f\"} 3\n");
+        }
+    }
+
+    @Nested
+    class Serialization {
+
+        @Test
+        public void timesArgumentsAndResults() {
+            TransactionMetrics metrics = new TransactionMetrics();
+            MeteredSerializer serializer = new MeteredSerializer(metrics);
+            TypeSchema schema = TypeSchema.typeConvert(String.class);
+
+            byte[] buffer = serializer.toBuffer("asset1", schema);
+            assertThat(serializer.fromBuffer(buffer, schema)).isEqualTo("asset1");
+            assertThat(serializer.fromBuffer(buffer, schema)).isEqualTo("asset1");
+
+            assertThat(metrics.scrape())
+                    .contains("chaincode_serializations_total{conversion=\"arguments\"} 2\n")
+                    .contains("chaincode_serializations_total{conversion=\"result\"} 1\n")
+                    .contains("chaincode_serialization_seconds_total{conversion=\"arguments\"} ");
+        }
+
+        @Test
+        public void recordsToChaincodeMetricsByDefault() {
+            new MeteredSerializer().toBuffer("asset1", TypeSchema.typeConvert(String.class));
+
+            assertThat(Metrics.getRegistry().scrape())
+                    .doesNotContain("chaincode_serializations_total{conversion=\"result\"} 0\n");
+        }
+
+        @Test
+        public void isSelectedByItsClassName() {
+            assertThat(MeteredSerializer.NAME).isEqualTo(MeteredSerializer.class.getName());
+        }
+    }
+
+    @Nested
+    class Endpoint {
+
+        @Test
+        public void servesMetricsOverHttp() throws IOException {
+            TransactionMetrics metrics = new TransactionMetrics();
+            metrics.recordConversion(TransactionMetrics.Conversion.RESULT, FIVE_MICROS);
+            HttpServer server = Metrics.serve(metrics, "0");
+            try {
+                URL url = new URL("http", "localhost", server.getAddress().getPort(), "/metrics");
+                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+
+                assertThat(connection.getResponseCode()).isEqualTo(HttpURLConnection.HTTP_OK);
+                assertThat(connection.getContentType()).startsWith("text/plain; version=0.0.4");
+                assertThat(read(connection)).isEqualTo(metrics.scrape());
+            } finally {
+                server.stop(0);
+            }
+        }
+
+        @Test
+        public void doesNotServeWithoutPort() {
+            assertThat(Metrics.serve(new TransactionMetrics(), null)).isNull();
+            assertThat(Metrics.serve(new TransactionMetrics(), "")).isNull();
+        }
+
+        @Test
+        public void startsWithoutServingWhenNoPortIsSet() {
+            Metrics.start();
+            Metrics.start();
+
+            assertThat(System.getenv(Metrics.PORT_ENVIRONMENT_VARIABLE)).isNull();
+        }
+
+        @Test
+        public void reportsPortInUse() {
+            HttpServer server = Metrics.serve(new TransactionMetrics(), "0");
+            try {
+                String port = Integer.toString(server.getAddress().getPort());
+
+                Throwable thrown = catchThrowable(() -> Metrics.serve(new TransactionMetrics(), port));
+
+                assertThat(thrown).isInstanceOf(UncheckedIOException.class)
+                        .hasMessage("Unable to serve metrics on port " + port);
+            } finally {
+                server.stop(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric_samples;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.fabric.samples.testing.InMemoryChaincodeStub;
+import org.hyperledger.fabric.shim.Chaincode.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the functions of {@link ABstore} against an in-memory ledger holding accounts a and b.
+ * Each invocation runs one transaction from start to commit. The build runs the GC profiler,
+ * which reports the allocation per transaction alongside the latency.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ABstoreBenchmark {
+
+    private final ABstore chaincode = new ABstore();
+    private InMemoryChaincodeStub stub;
+    private boolean reverse;
+
+    /**
+     * Initializes both accounts.
+     */
+    @Setup
+    public void setUp() {
+        stub = new InMemoryChaincodeStub(false);
+        stub.beginTransaction("init", "a", "1000000", "b", "1000000");
+        chaincode.init(stub);
+        stub.commit();
+    }
+
+    /**
+     * Moves one unit between the accounts and commits the transaction, alternating the
+     * direction so that the balances stay constant.
+     *
+     * @return the response
+     */
+    @Benchmark
+    public Response invoke() {
+        reverse = !reverse;
+        stub.beginTransaction("invoke", reverse ? "b" : "a", reverse ? "a" : "b", "1");
+        Response response = chaincode.invoke(stub);
+        stub.commit();
+        return response;
+    }
+
+    /**
+     * Queries the balance of account a.
+     *
+     * @return the response
+     */
+    @Benchmark
+    public Response query() {
+        stub.beginTransaction("query", "a");
+        return chaincode.invoke(stub);
+    }
+
+    /**
+     * Deletes account a and rolls the transaction back.
+     *
+     * @return the response
+     */
+    @Benchmark
+    public Response delete() {
+        stub.beginTransaction("delete", "a");
+        Response response = chaincode.invoke(stub);
+        stub.rollback();
+        return response;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.fabcar;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.owlike.genson.Genson;
+
+/**
+ * Compares the Car codec with the Genson serialization it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CarCodecBenchmark {
+
+    private final Genson genson = new Genson();
+
+    private final Car car = new Car("Toyota", "Prius", "blue", "Tomoko");
+
+    private final String carJSON = genson.serialize(car);
+
+    /**
+     * Serializes a car with Genson.
+     *
+     * @return the car JSON
+     */
+    @Benchmark
+    public String gensonEncode() {
+        return genson.serialize(car);
+    }
+
+    /**
+     * Deserializes a car with Genson.
+     *
+     * @return the car
+     */
+    @Benchmark
+    public Car gensonDecode() {
+        return genson.deserialize(carJSON, Car.class);
+    }
+
+    /**
+     * Serializes a car with the codec.
+     *
+     * @return the car JSON
+     */
+    @Benchmark
+    public String codecEncode() {
+        return Codecs.CAR.encode(car);
+    }
+
+    /**
+     * Deserializes a car with the codec.
+     *
+     * @return the car
+     */
+    @Benchmark
+    public Car codecDecode() {
+        return Codecs.CAR.decode(carJSON);
+    }
+}
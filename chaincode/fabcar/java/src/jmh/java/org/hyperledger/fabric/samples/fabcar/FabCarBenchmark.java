@@ -0,0 +1,108 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.fabcar;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.fabric.samples.testing.InMemoryChaincodeStub;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the transaction functions of {@link FabCar} against an in-memory ledger of
+ * {@code carCount} cars. Each invocation runs one transaction from start to commit, so the
+ * results include context creation and state encoding. The build runs the GC profiler, which
+ * reports the allocation per transaction alongside the latency.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FabCarBenchmark {
+
+    @Param({"100", "10000"})
+    private int carCount;
+
+    private final FabCar contract = new FabCar();
+    private InMemoryChaincodeStub stub;
+    private String[] keys;
+    private int next;
+
+    /**
+     * Loads the ledger with cars.
+     */
+    @Setup
+    public void setUp() {
+        stub = new InMemoryChaincodeStub(false);
+        keys = new String[carCount];
+
+        stub.beginTransaction("createCar");
+        for (int i = 0; i < carCount; i++) {
+            keys[i] = "CAR" + i;
+            contract.createCar(contract.createContext(stub), keys[i], "Toyota", "Prius", "blue", "Tomoko");
+        }
+        stub.commit();
+    }
+
+    private String nextKey() {
+        next = next + 1 == carCount ? 0 : next + 1;
+        return keys[next];
+    }
+
+    /**
+     * Reads one car.
+     *
+     * @return the car
+     */
+    @Benchmark
+    public Car queryCar() {
+        String key = nextKey();
+        stub.beginTransaction("queryCar", key);
+        return contract.queryCar(contract.createContext(stub), key);
+    }
+
+    /**
+     * Creates one car and rolls the transaction back, so the ledger keeps its size.
+     *
+     * @return the created car
+     */
+    @Benchmark
+    public Car createCar() {
+        stub.beginTransaction("createCar", "CAR");
+        Car car = contract.createCar(contract.createContext(stub), "CAR", "Toyota", "Prius", "blue", "Tomoko");
+        stub.rollback();
+        return car;
+    }
+
+    /**
+     * Changes the owner of one car and commits the transaction.
+     *
+     * @return the updated car
+     */
+    @Benchmark
+    public Car changeCarOwner() {
+        String key = nextKey();
+        stub.beginTransaction("changeCarOwner", key, "Dave");
+        Car car = contract.changeCarOwner(contract.createContext(stub), key, "Dave");
+        stub.commit();
+        return car;
+    }
+
+    /**
+     * Scans the cars in the range read by {@code queryAllCars}.
+     *
+     * @return the cars JSON
+     */
+    @Benchmark
+    public String queryAllCars() {
+        stub.beginTransaction("queryAllCars");
+        return contract.queryAllCars(contract.createContext(stub));
+    }
+}
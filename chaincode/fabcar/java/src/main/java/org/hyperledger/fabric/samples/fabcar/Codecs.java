@@ -0,0 +1,148 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.fabcar;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of the codecs for the data types stored and returned by this chaincode.
+ */
+public final class Codecs {
+
+    /**
+     * Codec for {@link Car}, writing fields in the same order as Genson.
+     */
+    public static final Codec<Car> CAR = new CarCodec();
+
+    /**
+     * Codec for {@link CarQueryResult}, writing fields in the same order as Genson.
+     */
+    public static final Codec<CarQueryResult> CAR_QUERY_RESULT = new CarQueryResultCodec();
+
+    private static final Map<Class<?>, Codec<?>> REGISTRY;
+
+    static {
+        Map<Class<?>, Codec<?>> registry = new HashMap<>();
+        registry.put(Car.class, CAR);
+        registry.put(CarQueryResult.class, CAR_QUERY_RESULT);
+        REGISTRY = Collections.unmodifiableMap(registry);
+    }
+
+    private Codecs() {
+    }
+
+    /**
+     * Returns the codec registered for a data type.
+     *
+     * @param <T> the data type
+     * @param type the class of the data type
+     * @return the codec for the data type
+     * @throws IllegalArgumentException if no codec is registered for the type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Codec<T> forType(final Class<T> type) {
+        Codec<?> codec = REGISTRY.get(type);
+        if (codec == null) {
+            throw new IllegalArgumentException("No codec registered for " + type.getName());
+        }
+        return (Codec<T>) codec;
+    }
+
+    private static final class CarCodec implements Codec<Car> {
+
+        @Override
+        public void encode(final Car car, final StringBuilder out) {
+            out.append("{\"color\":");
+            Json.writeString(out, car.getColor());
+            out.append(",\"make\":");
+            Json.writeString(out, car.getMake());
+            out.append(",\"model\":");
+            Json.writeString(out, car.getModel());
+            out.append(",\"owner\":");
+            Json.writeString(out, car.getOwner());
+            out.append('}');
+        }
+
+        @Override
+        public Car decode(final String json) {
+            Json.Reader reader = new Json.Reader(json);
+            Car car = read(reader);
+            reader.endDocument();
+
+            return car;
+        }
+
+        static Car read(final Json.Reader reader) {
+            String make = null;
+            String model = null;
+            String color = null;
+            String owner = null;
+
+            reader.beginObject();
+            while (reader.hasNextField()) {
+                switch (reader.nextName()) {
+                    case "make":
+                        make = reader.nextString();
+                        break;
+                    case "model":
+                        model = reader.nextString();
+                        break;
+                    case "color":
+                        color = reader.nextString();
+                        break;
+                    case "owner":
+                        owner = reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+
+            return new Car(make, model, color, owner);
+        }
+    }
+
+    private static final class CarQueryResultCodec implements Codec<CarQueryResult> {
+
+        @Override
+        public void encode(final CarQueryResult result, final StringBuilder out) {
+            out.append("{\"key\":");
+            Json.writeString(out, result.getKey());
+            out.append(",\"record\":");
+            if (result.getRecord() == null) {
+                out.append("null");
+            } else {
+                CAR.encode(result.getRecord(), out);
+            }
+            out.append('}');
+        }
+
+        @Override
+        public CarQueryResult decode(final String json) {
+            String key = null;
+            Car record = null;
+
+            Json.Reader reader = new Json.Reader(json);
+            reader.beginObject();
+            while (reader.hasNextField()) {
+                switch (reader.nextName()) {
+                    case "key":
+                        key = reader.nextString();
+                        break;
+                    case "record":
+                        record = reader.nextIsNull() ? null : CarCodec.read(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endDocument();
+
+            return new CarQueryResult(key, record);
+        }
+    }
+}
@@ -4,8 +4,7 @@
 
 package org.hyperledger.fabric.samples.fabcar;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.logging.Logger;
 
 import org.hyperledger.fabric.contract.Context;
 import org.hyperledger.fabric.contract.ContractInterface;
@@ -15,13 +14,15 @@ import org.hyperledger.fabric.contract.annotation.Default;
 import org.hyperledger.fabric.contract.annotation.Info;
 import org.hyperledger.fabric.contract.annotation.License;
 import org.hyperledger.fabric.contract.annotation.Transaction;
+import org.hyperledger.fabric.samples.logging.Logging;
+import org.hyperledger.fabric.samples.metrics.MeteredSerializer;
+import org.hyperledger.fabric.samples.metrics.Metrics;
+import org.hyperledger.fabric.samples.metrics.TransactionMetrics;
 import org.hyperledger.fabric.shim.ChaincodeException;
 import org.hyperledger.fabric.shim.ChaincodeStub;
 import org.hyperledger.fabric.shim.ledger.KeyValue;
 import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
 
-import com.owlike.genson.Genson;
-
 /**
  * Java implementation of the Fabric Car Contract described in the Writing Your
  * First Application tutorial
@@ -38,17 +39,74 @@ import com.owlike.genson.Genson;
                 contact = @Contact(
                         email = "f.carr@example.com",
                         name = "F Carr",
-                        url = "https://hyperledger.example.com")))
+                        url = "https://hyperledger.example.com")),
+        transactionSerializer = MeteredSerializer.NAME)
 @Default
 public final class FabCar implements ContractInterface {
 
-    private final Genson genson = new Genson();
+    private static final Logger LOG = Logging.getLogger(FabCar.class);
+
+    private static final TransactionMetrics METRICS = Metrics.getRegistry();
+
+    private final Codec<Car> carCodec = Codecs.CAR;
 
     private enum FabCarErrors {
         CAR_NOT_FOUND,
         CAR_ALREADY_EXISTS
     }
 
+    /**
+     * Creates the contract and starts serving the chaincode metrics. The shim creates each
+     * contract once, when the chaincode starts.
+     */
+    public FabCar() {
+        Metrics.start();
+    }
+
+    /**
+     * Creates a context whose stub counts the state the transaction reads and writes.
+     *
+     * @param stub the stub for the transaction
+     * @return the transaction context
+     */
+    @Override
+    public Context createContext(final ChaincodeStub stub) {
+        return new Context(METRICS.meter(stub));
+    }
+
+    /**
+     * Starts timing the transaction, and records a transaction that threw before it on this
+     * thread as failed.
+     *
+     * @param ctx the transaction context
+     */
+    @Override
+    public void beforeTransaction(final Context ctx) {
+        METRICS.beforeTransaction(ctx);
+    }
+
+    /**
+     * Records the latency and state access of the transaction.
+     *
+     * @param ctx the transaction context
+     * @param result the value returned by the transaction function
+     */
+    @Override
+    public void afterTransaction(final Context ctx, final Object result) {
+        METRICS.afterTransaction(ctx);
+    }
+
+    /**
+     * Records the call to a function this contract does not have, then rejects it.
+     *
+     * @param ctx the transaction context
+     */
+    @Override
+    public void unknownTransaction(final Context ctx) {
+        METRICS.unknownTransaction(ctx);
+        throw new ChaincodeException("Undefined contract method called");
+    }
+
     /**
      * Retrieves a car with the specified key from the ledger.
      *
@@ -63,11 +121,11 @@ public final class FabCar implements ContractInterface {
 
         if (carState.isEmpty()) {
             String errorMessage = String.format("Car %s does not exist", key);
-            System.out.println(errorMessage);
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, FabCarErrors.CAR_NOT_FOUND.toString());
         }
 
-        Car car = genson.deserialize(carState, Car.class);
+        Car car = carCodec.decode(carState);
 
         return car;
     }
@@ -97,8 +155,8 @@ public final class FabCar implements ContractInterface {
         for (int i = 0; i < carData.length; i++) {
             String key = String.format("CAR%d", i);
 
-            Car car = genson.deserialize(carData[i], Car.class);
-            String carState = genson.serialize(car);
+            Car car = carCodec.decode(carData[i]);
+            String carState = carCodec.encode(car);
             stub.putStringState(key, carState);
         }
     }
@@ -122,12 +180,12 @@ public final class FabCar implements ContractInterface {
         String carState = stub.getStringState(key);
         if (!carState.isEmpty()) {
             String errorMessage = String.format("Car %s already exists", key);
-            System.out.println(errorMessage);
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, FabCarErrors.CAR_ALREADY_EXISTS.toString());
         }
 
         Car car = new Car(make, model, color, owner);
-        carState = genson.serialize(car);
+        carState = carCodec.encode(car);
         stub.putStringState(key, carState);
 
         return car;
@@ -145,18 +203,22 @@ public final class FabCar implements ContractInterface {
 
         final String startKey = "CAR1";
         final String endKey = "CAR99";
-        List<CarQueryResult> queryResults = new ArrayList<CarQueryResult>();
+        StringBuilder response = new StringBuilder();
+        response.append('[');
 
         QueryResultsIterator<KeyValue> results = stub.getStateByRange(startKey, endKey);
 
         for (KeyValue result: results) {
-            Car car = genson.deserialize(result.getStringValue(), Car.class);
-            queryResults.add(new CarQueryResult(result.getKey(), car));
+            Car car = carCodec.decode(result.getStringValue());
+            if (response.length() > 1) {
+                response.append(',');
+            }
+            Codecs.CAR_QUERY_RESULT.encode(new CarQueryResult(result.getKey(), car), response);
         }
 
-        final String response = genson.serialize(queryResults);
+        response.append(']');
 
-        return response;
+        return response.toString();
     }
 
     /**
@@ -175,14 +237,14 @@ public final class FabCar implements ContractInterface {
 
         if (carState.isEmpty()) {
             String errorMessage = String.format("Car %s does not exist", key);
-            System.out.println(errorMessage);
+            LOG.info(errorMessage);
             throw new ChaincodeException(errorMessage, FabCarErrors.CAR_NOT_FOUND.toString());
         }
 
-        Car car = genson.deserialize(carState, Car.class);
+        Car car = carCodec.decode(carState);
 
         Car newCar = new Car(car.getMake(), car.getModel(), car.getColor(), newOwner);
-        String newCarState = genson.serialize(newCar);
+        String newCarState = carCodec.encode(newCar);
         stub.putStringState(key, newCarState);
 
         return newCar;
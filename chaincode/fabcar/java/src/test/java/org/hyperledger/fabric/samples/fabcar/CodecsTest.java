@@ -0,0 +1,174 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.fabcar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.owlike.genson.Genson;
+
+public final class CodecsTest {
+
+    private final Genson genson = new Genson();
+
+    @Test
+    public void returnsRegisteredCodecs() {
+        assertThat(Codecs.forType(Car.class)).isSameAs(Codecs.CAR);
+        assertThat(Codecs.forType(CarQueryResult.class)).isSameAs(Codecs.CAR_QUERY_RESULT);
+    }
+
+    @Test
+    public void rejectsUnregisteredType() {
+        Throwable thrown = catchThrowable(() -> {
+            Codecs.forType(String.class);
+        });
+
+        assertThat(thrown).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("No codec registered for java.lang.String");
+    }
+
+    @Nested
+    class CarEncoding {
+
+        @Test
+        public void matchesGenson() {
+            Car car = new Car("Toyota", "Prius", "blue", "Tomoko");
+
+            assertThat(Codecs.CAR.encode(car)).isEqualTo(genson.serialize(car));
+        }
+
+        @Test
+        public void escapesLikeGenson() {
+            Car car = new Car("Toyota\"\\", "b\b\f\n\r\t\u0001", "Siobhán\u2028\u2029/", null);
+
+            assertThat(Codecs.CAR.encode(car)).isEqualTo(genson.serialize(car));
+        }
+    }
+
+    @Nested
+    class CarDecoding {
+
+        @Test
+        public void readsFieldsInAnyOrder() {
+            Car car = Codecs.CAR.decode(
+                    " { \"owner\" : \"Tomoko\", \"model\": \"Prius\", \"make\": \"Toyota\", \"color\": \"blue\" } ");
+
+            assertThat(car).isEqualTo(new Car("Toyota", "Prius", "blue", "Tomoko"));
+        }
+
+        @Test
+        public void roundTripsEscapedStrings() {
+            Car car = new Car("Toyota\"\\", "b\b\f\n\r\t\u0001", "Siobhán\u2028\u2029", "a/b");
+
+            assertThat(Codecs.CAR.decode(Codecs.CAR.encode(car))).isEqualTo(car);
+        }
+
+        @Test
+        public void readsEscapedSolidus() {
+            Car car = Codecs.CAR.decode("{\"make\":\"a\\/b\\u00e1\",\"model\":null,\"color\":null,\"owner\":null}");
+
+            assertThat(car).isEqualTo(new Car("a/bá", null, null, null));
+        }
+
+        @Test
+        public void ignoresUnknownFields() {
+            Car car = Codecs.CAR.decode("{\"docType\":\"car\",\"make\":\"Toyota\",\"extra\":{\"a\":[1,\"]}\",{}]},"
+                    + "\"flag\":true,\"year\":2001,\"none\":null,\"owner\":\"Tomoko\"}");
+
+            assertThat(car).isEqualTo(new Car("Toyota", null, null, "Tomoko"));
+        }
+
+        @Test
+        public void rejectsMalformedDocuments() {
+            String[] malformed = {
+                "",
+                "[]",
+                "{\"make\" \"Toyota\"}",
+                "{\"make\":\"Toyota\" \"model\":\"Prius\"}",
+                "{\"make\":\"Toyota",
+                "{\"make\":\"Toyota\\",
+                "{\"make\":\"\\u0",
+                "{\"make\":\"\\u00\"}",
+                "{\"make\":\"\\u00zz\"}",
+                "{\"make\":nul}",
+                "{} {}",
+            };
+
+            for (String json : malformed) {
+                Throwable thrown = catchThrowable(() -> {
+                    Codecs.CAR.decode(json);
+                });
+
+                assertThat(thrown).as(json).isInstanceOf(IllegalArgumentException.class);
+            }
+        }
+
+        @Test
+        public void rejectsNonIntegerNumbers() {
+            Json.Reader reader = new Json.Reader("-");
+
+            Throwable thrown = catchThrowable(() -> {
+                reader.nextInt();
+            });
+
+            assertThat(thrown).isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Expected an integer at position 1");
+        }
+
+        @Test
+        public void readsIntegers() {
+            assertThat(new Json.Reader(" -1 ").nextInt()).isEqualTo(-1);
+        }
+    }
+
+    @Nested
+    class CarQueryResultEncoding {
+
+        @Test
+        public void matchesGenson() {
+            CarQueryResult result = new CarQueryResult("CAR1", new Car("Toyota", "Prius", "blue", "Tomoko"));
+
+            assertThat(Codecs.CAR_QUERY_RESULT.encode(result)).isEqualTo(genson.serialize(result));
+        }
+
+        @Test
+        public void writesNullRecordLikeGenson() {
+            CarQueryResult result = new CarQueryResult("CAR1", null);
+
+            assertThat(Codecs.CAR_QUERY_RESULT.encode(result)).isEqualTo(genson.serialize(result));
+        }
+    }
+
+    @Nested
+    class CarQueryResultDecoding {
+
+        @Test
+        public void readsNestedRecord() {
+            CarQueryResult result = Codecs.CAR_QUERY_RESULT.decode(
+                    "{\"record\":{\"color\":\"blue\",\"make\":\"Toyota\",\"model\":\"Prius\",\"owner\":\"Tomoko\"},"
+                    + "\"key\":\"CAR1\",\"extra\":0}");
+
+            assertThat(result).isEqualTo(new CarQueryResult("CAR1", new Car("Toyota", "Prius", "blue", "Tomoko")));
+        }
+
+        @Test
+        public void readsEmptyRecord() {
+            CarQueryResult result = Codecs.CAR_QUERY_RESULT.decode("{\"record\":{},\"key\":\"CAR1\"}");
+
+            assertThat(result).isEqualTo(new CarQueryResult("CAR1", new Car(null, null, null, null)));
+        }
+
+        @Test
+        public void readsNullRecord() {
+            CarQueryResult result = Codecs.CAR_QUERY_RESULT.decode("{\"key\":\"CAR1\",\"record\":null}");
+
+            assertThat(result.getKey()).isEqualTo("CAR1");
+            assertThat(result.getRecord()).isNull();
+        }
+    }
+}
@@ -8,7 +8,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.ThrowableAssert.catchThrowable;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
@@ -100,7 +101,8 @@ public final class FabCarTest {
                 .hasMessage("Undefined contract method called");
         assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo(null);
 
-        verifyZeroInteractions(ctx);
+        verify(ctx).getStub();
+        verifyNoMoreInteractions(ctx);
     }
 
     @Nested
@@ -0,0 +1,35 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.fabcar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hyperledger.fabric.samples.testing.InMemoryChaincodeStub;
+import org.junit.jupiter.api.Test;
+
+public final class InMemoryChaincodeStubTest {
+
+    @Test
+    public void runsFabCarTransactions() {
+        FabCar contract = new FabCar();
+        InMemoryChaincodeStub stub = new InMemoryChaincodeStub();
+
+        stub.beginTransaction("initLedger");
+        contract.initLedger(contract.createContext(stub));
+        stub.commit();
+
+        stub.beginTransaction("changeCarOwner", "CAR1", "Dave");
+        Car car = contract.changeCarOwner(contract.createContext(stub), "CAR1", "Dave");
+        stub.commit();
+
+        stub.beginTransaction("queryCar", "CAR1");
+        assertThat(contract.queryCar(contract.createContext(stub), "CAR1")).isEqualTo(car);
+
+        stub.beginTransaction("queryAllCars");
+        assertThat(contract.queryAllCars(contract.createContext(stub)))
+                .startsWith("[{\"key\":\"CAR1\",\"record\":{\"color\":\"red\",\"make\":\"Ford\","
+                        + "\"model\":\"Mustang\",\"owner\":\"Dave\"}}");
+    }
+}
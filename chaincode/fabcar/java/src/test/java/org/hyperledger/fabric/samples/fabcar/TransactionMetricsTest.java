@@ -0,0 +1,87 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.fabcar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.samples.metrics.Metrics;
+import org.hyperledger.fabric.samples.metrics.TransactionMetrics;
+import org.hyperledger.fabric.samples.testing.InMemoryChaincodeStub;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.junit.jupiter.api.Test;
+
+public final class TransactionMetricsTest {
+
+    private static final String DURATION = "chaincode_transaction_duration_seconds";
+
+    private final TransactionMetrics metrics = new TransactionMetrics();
+    private final FabCar contract = new FabCar();
+    private final InMemoryChaincodeStub ledger = new InMemoryChaincodeStub();
+    private final int carBytes = Codecs.CAR.encode(new Car("Toyota", "Prius", "blue", "Tomoko")).length();
+
+    @Test
+    public void recordsLatencyAndStateAccessPerFunction() {
+        ledger.beginTransaction("createCar");
+        Context ctx = new Context(metrics.meter(ledger));
+        metrics.beforeTransaction(ctx);
+        contract.createCar(ctx, "CAR1", "Toyota", "Prius", "blue", "Tomoko");
+        metrics.afterTransaction(ctx);
+        ledger.commit();
+
+        ledger.beginTransaction("queryAllCars");
+        ctx = new Context(metrics.meter(ledger));
+        metrics.beforeTransaction(ctx);
+        contract.queryAllCars(ctx);
+        metrics.afterTransaction(ctx);
+
+        assertThat(metrics.scrape())
+                .contains(DURATION + "_count{function=\"createCar\",outcome=\"success\"} 1\n")
+                .contains(DURATION + "_count{function=\"queryAllCars\",outcome=\"success\"} 1\n")
+                .contains("chaincode_state_reads_total{function=\"createCar\",outcome=\"success\"} 1\n")
+                .contains("chaincode_state_writes_total{function=\"createCar\",outcome=\"success\"} 1\n")
+                .contains("chaincode_state_write_bytes_total{function=\"createCar\",outcome=\"success\"} "
+                        + carBytes + "\n")
+                .contains("chaincode_range_queries_total{function=\"queryAllCars\",outcome=\"success\"} 1\n")
+                .contains("chaincode_range_query_results_total{function=\"queryAllCars\",outcome=\"success\"} 1\n")
+                .contains("chaincode_range_query_bytes_total{function=\"queryAllCars\",outcome=\"success\"} "
+                        + carBytes + "\n");
+    }
+
+    @Test
+    public void recordsTransactionsThroughContractHooks() {
+        ledger.beginTransaction("FabCar:createCarThroughHooks");
+        Context ctx = contract.createContext(ledger);
+        contract.beforeTransaction(ctx);
+        contract.createCar(ctx, "CAR1", "Toyota", "Prius", "blue", "Tomoko");
+        contract.afterTransaction(ctx, null);
+
+        assertThat(Metrics.getRegistry().scrape())
+                .contains(DURATION + "_count{function=\"FabCar:createCarThroughHooks\",outcome=\"success\"} 1\n")
+                .contains("chaincode_state_writes_total{function=\"FabCar:createCarThroughHooks\","
+                        + "outcome=\"success\"} 1\n");
+    }
+
+    @Test
+    public void recordsFailedTransactionsThroughContractHooks() {
+        ledger.beginTransaction("FabCar:queryMissingCarThroughHooks");
+        Context failed = contract.createContext(ledger);
+        contract.beforeTransaction(failed);
+        catchThrowable(() -> contract.queryCar(failed, "MISSING"));
+
+        ledger.beginTransaction("FabCar:madeUpThroughHooks");
+        Context unknown = contract.createContext(ledger);
+        contract.beforeTransaction(unknown);
+        Throwable thrown = catchThrowable(() -> contract.unknownTransaction(unknown));
+
+        assertThat(thrown).isInstanceOf(ChaincodeException.class);
+        assertThat(Metrics.getRegistry().scrape())
+                .contains("chaincode_state_reads_total{function=\"FabCar:queryMissingCarThroughHooks\","
+                        + "outcome=\"failure\"} 1\n")
+                .contains(DURATION + "_count{function=\"(unknown)\",outcome=\"failure\"} ")
+                .doesNotContain("FabCar:madeUpThroughHooks");
+    }
+}
@@ -0,0 +1,103 @@
+/*
+SPDX-License-Identifier: Apache-2.0
+*/
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.fabric.samples.testing.InMemoryChaincodeStub;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the transaction functions of {@link CommercialPaperContract} against an in-memory
+ * ledger of {@code paperCount} papers issued by MagnetoCorp. Each invocation runs one transaction
+ * and rolls it back, so every paper stays in the ISSUED state. The build runs the GC profiler,
+ * which reports the allocation per transaction alongside the latency.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CommercialPaperContractBenchmark {
+
+    private static final String ISSUER = "MagnetoCorp";
+
+    @Param({ "100", "10000" })
+    private int paperCount;
+
+    private final CommercialPaperContract contract = new CommercialPaperContract();
+    private InMemoryChaincodeStub stub;
+    private String[] paperNumbers;
+    private int next;
+
+    /**
+     * Issues the papers.
+     */
+    @Setup
+    public void setUp() {
+        stub = new InMemoryChaincodeStub(false);
+        paperNumbers = new String[paperCount];
+
+        stub.beginTransaction("issue");
+        for (int i = 0; i < paperCount; i++) {
+            paperNumbers[i] = String.format("%05d", i);
+            contract.issue(context(), ISSUER, paperNumbers[i], "2020-05-31", "2020-11-30", 5000000);
+        }
+        stub.commit();
+    }
+
+    private CommercialPaperContext context() {
+        return (CommercialPaperContext) contract.createContext(stub);
+    }
+
+    private String nextPaperNumber() {
+        next = next + 1 == paperCount ? 0 : next + 1;
+        return paperNumbers[next];
+    }
+
+    /**
+     * Issues one paper.
+     *
+     * @return the issued paper
+     */
+    @Benchmark
+    public CommercialPaper issue() {
+        stub.beginTransaction("issue");
+        CommercialPaper paper = contract.issue(context(), ISSUER, "paper", "2020-05-31", "2020-11-30", 5000000);
+        stub.rollback();
+        return paper;
+    }
+
+    /**
+     * Sells one paper to DigiBank.
+     *
+     * @return the bought paper
+     */
+    @Benchmark
+    public CommercialPaper buy() {
+        stub.beginTransaction("buy");
+        CommercialPaper paper = contract.buy(context(), ISSUER, nextPaperNumber(), ISSUER, "DigiBank", 4900000,
+                "2020-05-31");
+        stub.rollback();
+        return paper;
+    }
+
+    /**
+     * Redeems one paper.
+     *
+     * @return the redeemed paper
+     */
+    @Benchmark
+    public CommercialPaper redeem() {
+        stub.beginTransaction("redeem");
+        CommercialPaper paper = contract.redeem(context(), ISSUER, nextPaperNumber(), ISSUER, "2020-11-30");
+        stub.rollback();
+        return paper;
+    }
+}
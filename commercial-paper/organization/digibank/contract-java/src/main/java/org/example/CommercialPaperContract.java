@@ -14,6 +14,11 @@ import org.hyperledger.fabric.contract.annotation.Default;
 import org.hyperledger.fabric.contract.annotation.Info;
 import org.hyperledger.fabric.contract.annotation.License;
 import org.hyperledger.fabric.contract.annotation.Transaction;
+import org.hyperledger.fabric.samples.logging.Logging;
+import org.hyperledger.fabric.samples.metrics.MeteredSerializer;
+import org.hyperledger.fabric.samples.metrics.Metrics;
+import org.hyperledger.fabric.samples.metrics.TransactionMetrics;
+import org.hyperledger.fabric.shim.ChaincodeException;
 import org.hyperledger.fabric.shim.ChaincodeStub;
 
 /**
@@ -24,20 +29,39 @@ import org.hyperledger.fabric.shim.ChaincodeStub;
  * Define commercial paper smart contract by extending Fabric Contract class
  *
  */
-@Contract(name = "org.papernet.commercialpaper", info = @Info(title = "MyAsset contract", description = "", version = "0.0.1", license = @License(name = "SPDX-License-Identifier: ", url = ""), contact = @Contact(email = "java-contract@example.com", name = "java-contract", url = "http://java-contract.me")))
+@Contract(name = "org.papernet.commercialpaper", info = @Info(title = "MyAsset contract", description = "", version = "0.0.1", license = @License(name = "SPDX-License-Identifier: ", url = ""), contact = @Contact(email = "java-contract@example.com", name = "java-contract", url = "http://java-contract.me")), transactionSerializer = MeteredSerializer.NAME)
 @Default
 public class CommercialPaperContract implements ContractInterface {
 
     // use the classname for the logger, this way you can refactor
-    private final static Logger LOG = Logger.getLogger(CommercialPaperContract.class.getName());
+    private final static Logger LOG = Logging.getLogger(CommercialPaperContract.class);
+
+    // per-function latency and state access, see Metrics for how to scrape them
+    private final static TransactionMetrics METRICS = Metrics.getRegistry();
 
     @Override
     public Context createContext(ChaincodeStub stub) {
-        return new CommercialPaperContext(stub);
+        return new CommercialPaperContext(METRICS.meter(stub));
     }
 
-    public CommercialPaperContract() {
+    @Override
+    public void beforeTransaction(Context ctx) {
+        METRICS.beforeTransaction(ctx);
+    }
 
+    @Override
+    public void afterTransaction(Context ctx, Object result) {
+        METRICS.afterTransaction(ctx);
+    }
+
+    @Override
+    public void unknownTransaction(Context ctx) {
+        METRICS.unknownTransaction(ctx);
+        throw new ChaincodeException("Undefined contract method called");
+    }
+
+    public CommercialPaperContract() {
+        Metrics.start();
     }
 
     /**
@@ -70,7 +94,7 @@ public class CommercialPaperContract implements ContractInterface {
     public CommercialPaper issue(CommercialPaperContext ctx, String issuer, String paperNumber, String issueDateTime,
             String maturityDateTime, int faceValue) {
 
-        System.out.println(ctx);
+        LOG.fine(() -> ctx.toString());
 
         // create an instance of the paper
         CommercialPaper paper = CommercialPaper.createInstance(issuer, paperNumber, issueDateTime, maturityDateTime,
@@ -82,7 +106,7 @@ public class CommercialPaperContract implements ContractInterface {
         // Newly issued paper is owned by the issuer
         paper.setOwner(issuer);
 
-        System.out.println(paper);
+        LOG.fine(() -> paper.toString());
         // Add the paper to the list of all similar commercial papers in the ledger
         // world state
         ctx.paperList.addPaper(paper);
@@ -1,6 +1,7 @@
 package org.example.ledgerapi.impl;
 
 import java.util.Arrays;
+import java.util.logging.Logger;
 
 import org.example.ledgerapi.State;
 import org.example.ledgerapi.StateDeserializer;
@@ -21,6 +22,8 @@ SPDX-License-Identifier: Apache-2.0
  */
 public class StateListImpl implements StateList {
 
+    private final static Logger LOG = Logger.getLogger(StateListImpl.class.getName());
+
     private Context ctx;
     private String name;
     private Object supportedClasses;
@@ -45,20 +48,14 @@ public class StateListImpl implements StateList {
      */
     @Override
     public StateList addState(State state) {
-        System.out.println("Adding state " + this.name);
         ChaincodeStub stub = this.ctx.getStub();
-        System.out.println("Stub=" + stub);
         String[] splitKey = state.getSplitKey();
-        System.out.println("Split key " + Arrays.asList(splitKey));
-
         CompositeKey ledgerKey = stub.createCompositeKey(this.name, splitKey);
-        System.out.println("ledgerkey is ");
-        System.out.println(ledgerKey);
+        LOG.fine(() -> "Adding state " + this.name + " split key " + Arrays.asList(splitKey) + " ledger key "
+                + ledgerKey);
 
-        byte[] data = State.serialize(state);
-        System.out.println("ctx" + this.ctx);
-        System.out.println("stub" + this.ctx.getStub());
-        this.ctx.getStub().putState(ledgerKey.toString(), data);
+        byte[] data = state.serialize();
+        stub.putState(ledgerKey.toString(), data);
 
         return this;
     }
@@ -91,7 +88,7 @@ public class StateListImpl implements StateList {
     @Override
     public StateList updateState(State state) {
         CompositeKey ledgerKey = this.ctx.getStub().createCompositeKey(this.name, state.getSplitKey());
-        byte[] data = State.serialize(state);
+        byte[] data = state.serialize();
         this.ctx.getStub().putState(ledgerKey.toString(), data);
 
         return this;
@@ -5,6 +5,8 @@ package org.example.ledgerapi;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import java.util.logging.Logger;
+
 import org.json.JSONObject;
 
 /**
@@ -13,6 +15,8 @@ import org.json.JSONObject;
  */
 public class State {
 
+    private final static Logger LOG = Logger.getLogger(State.class.getName());
+
     protected String key;
 
     /**
@@ -43,6 +47,17 @@ public class State {
         return jsonStr.getBytes(UTF_8);
     }
 
+    /**
+     * Convert this state to a buffer containing its JSON data serialization. The
+     * default relies on reflection; subclasses written to the ledger on every
+     * transaction should override this with a hand written encoding.
+     *
+     * @return {buffer} buffer with the data to store
+     */
+    public byte[] serialize() {
+        return State.serialize(this);
+    }
+
     /**
      * Join the keyParts to make a unififed string
      *
@@ -53,8 +68,9 @@ public class State {
     }
 
     public static String[] splitKey(String key) {
-        System.out.println("splitting key " + key + "   " + java.util.Arrays.asList(key.split(":")));
-        return key.split(":");
+        String[] parts = key.split(":");
+        LOG.fine(() -> "splitting key " + key + "   " + java.util.Arrays.asList(parts));
+        return parts;
     }
 
 }
@@ -0,0 +1,762 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.testing;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.hyperledger.fabric.protos.common.ChannelHeader;
+import org.hyperledger.fabric.protos.common.Header;
+import org.hyperledger.fabric.protos.common.HeaderType;
+import org.hyperledger.fabric.protos.common.SignatureHeader;
+import org.hyperledger.fabric.protos.msp.SerializedIdentity;
+import org.hyperledger.fabric.protos.peer.ChaincodeEvent;
+import org.hyperledger.fabric.protos.peer.ChaincodeInput;
+import org.hyperledger.fabric.protos.peer.ChaincodeInvocationSpec;
+import org.hyperledger.fabric.protos.peer.ChaincodeProposalPayload;
+import org.hyperledger.fabric.protos.peer.ChaincodeSpec;
+import org.hyperledger.fabric.protos.peer.Proposal;
+import org.hyperledger.fabric.protos.peer.QueryResponseMetadata;
+import org.hyperledger.fabric.protos.peer.SignedProposal;
+import org.hyperledger.fabric.shim.Chaincode.Response;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ResponseUtils;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Timestamp;
+
+/**
+ * In-memory {@link ChaincodeStub} backed by sorted maps, for running contracts in unit tests
+ * and benchmarks without a Fabric network.
+ *
+ * <p>Each transaction is started with {@link #beginTransaction(String, String...)} and ended
+ * with {@link #commit()} or {@link #rollback()}. As on a peer, reads only see committed state;
+ * writes are collected in the transaction's write set and applied on commit. The keys read and
+ * the values written by the current transaction, in the world state and in each private data
+ * collection, are available for inspection.
+ *
+ * <p>Range and partial composite key queries behave as they do on a LevelDB peer. Rich queries
+ * are evaluated against the JSON values of the ledger, supporting the selector operators listed
+ * by {@link Selector}, and are paged with the key of the next result as the bookmark. Calls to
+ * other chaincodes are answered by the functions registered with
+ * {@link #setChaincode(String, Function)}, and the signed proposal is built from the current
+ * transaction but is not signed. Values are returned without copying, so callers must not modify
+ * them. Instances are not thread safe.
+ *
+ * <p>This source directory is added to the test or benchmark source set of each Java chaincode
+ * sample that uses it, rather than being copied into each sample.
+ */
+public final class InMemoryChaincodeStub implements ChaincodeStub {
+
+    /**
+     * Self-signed certificate of the client submitting the transactions.
+     */
+    public static final String CERTIFICATE = "-----BEGIN CERTIFICATE-----\n"
+            + "MIICFzCCAb2gAwIBAgIUfavVQd4EanyWGFli/tVwnuG8YYkwCgYIKoZIzj0EAwIw\n"
+            + "YDELMAkGA1UEBhMCVVMxFzAVBgNVBAgMDk5vcnRoIENhcm9saW5hMRQwEgYDVQQK\n"
+            + "DAtIeXBlcmxlZGdlcjEPMA0GA1UECwwGY2xpZW50MREwDwYDVQQDDAh0ZXN0dXNl\n"
+            + "cjAgFw0yNjEwMTgxMTMwNDlaGA8yMTI2MDkyNDExMzA0OVowYDELMAkGA1UEBhMC\n"
+            + "VVMxFzAVBgNVBAgMDk5vcnRoIENhcm9saW5hMRQwEgYDVQQKDAtIeXBlcmxlZGdl\n"
+            + "cjEPMA0GA1UECwwGY2xpZW50MREwDwYDVQQDDAh0ZXN0dXNlcjBZMBMGByqGSM49\n"
+            + "AgEGCCqGSM49AwEHA0IABDNb1Kg5KaRu+KzrugsXF9tk7QevYJBSNA2xnG2+QOL6\n"
+            + "thuaEHV8W1O0fMPCNyd7cKpuAjmudmakU9Z7DynAXIyjUzBRMB0GA1UdDgQWBBQJ\n"
+            + "WcAStSWSl0+m7LOiLxHQYX3cjjAfBgNVHSMEGDAWgBQJWcAStSWSl0+m7LOiLxHQ\n"
+            + "YX3cjjAPBgNVHRMBAf8EBTADAQH/MAoGCCqGSM49BAMCA0gAMEUCIQChg8PT9Fi1\n"
+            + "AXYYK+czMEb/Pub41a76q9l6zlPLT7UiCQIgeGAxR8ZtQC4JPvv+zOQEB1lYw4be\n"
+            + "O9xASUXIsRe6Z6c=\n"
+            + "-----END CERTIFICATE-----\n";
+
+    // The smallest simple key, as used by the peer for an empty range start, and the largest
+    // unicode code point, which ends the range of keys sharing a composite key prefix.
+    private static final String MIN_SIMPLE_KEY = "\u0001";
+    private static final String MAX_UNICODE_RUNE = new String(Character.toChars(Character.MAX_CODE_POINT));
+
+    private static final String CHANNEL_ID = "mychannel";
+
+    // The peer returns an empty value rather than null for a key that does not exist.
+    private static final byte[] NO_VALUE = new byte[0];
+
+    private final NavigableMap<String, byte[]> state = new TreeMap<>();
+    private final Map<String, NavigableMap<String, byte[]>> collections = new HashMap<>();
+    private final Map<String, byte[]> validationParameters = new HashMap<>();
+    private final Map<String, List<KeyModification>> history;
+
+    private final Map<String, Function<List<byte[]>, Response>> chaincodes = new HashMap<>();
+
+    private final Set<String> readSet = new LinkedHashSet<>();
+    private final Map<String, byte[]> writeSet = new LinkedHashMap<>();
+    private final Map<String, Set<String>> privateReadSets = new HashMap<>();
+    private final Map<String, Map<String, byte[]>> privateWriteSets = new HashMap<>();
+
+    private String mspId = "Org1MSP";
+    private byte[] creator;
+    private long transactionCount;
+    private String txId;
+    private Instant txTimestamp;
+    private List<byte[]> args = Collections.emptyList();
+    private Map<String, byte[]> transientData = Collections.emptyMap();
+    private ChaincodeEvent event;
+
+    /**
+     * Creates an empty ledger that records the history of each key.
+     */
+    public InMemoryChaincodeStub() {
+        this(true);
+    }
+
+    /**
+     * Creates an empty ledger.
+     *
+     * @param keepHistory whether to record the history of each key, which is needed by
+     *     {@link #getHistoryForKey(String)} but grows without bound under load
+     */
+    public InMemoryChaincodeStub(final boolean keepHistory) {
+        this.history = keepHistory ? new HashMap<>() : null;
+        setMspId(mspId);
+    }
+
+    /**
+     * Starts a new transaction, discarding anything written by an uncommitted one.
+     *
+     * @param function the name of the transaction function
+     * @param parameters the parameters of the transaction function
+     */
+    public void beginTransaction(final String function, final String... parameters) {
+        rollback();
+        transactionCount++;
+        txId = "tx" + transactionCount;
+        txTimestamp = Instant.now();
+
+        List<byte[]> arguments = new ArrayList<>(parameters.length + 1);
+        arguments.add(function.getBytes(UTF_8));
+        for (String parameter : parameters) {
+            arguments.add(parameter.getBytes(UTF_8));
+        }
+        args = arguments;
+    }
+
+    /**
+     * Applies the write set of the current transaction to the ledger.
+     */
+    public void commit() {
+        applyWrites(state, writeSet, "");
+        for (Map.Entry<String, Map<String, byte[]>> writes : privateWriteSets.entrySet()) {
+            applyWrites(collection(writes.getKey()), writes.getValue(), writes.getKey() + "/");
+        }
+        rollback();
+    }
+
+    /**
+     * Discards the read and write sets of the current transaction.
+     */
+    public void rollback() {
+        readSet.clear();
+        writeSet.clear();
+        privateReadSets.clear();
+        privateWriteSets.clear();
+        transientData = Collections.emptyMap();
+        event = null;
+    }
+
+    /**
+     * Returns the keys read by the current transaction, either directly or as the results of
+     * range and partial composite key queries. As on a peer, the results of rich queries are not
+     * included, because they are not checked again when the transaction is validated.
+     *
+     * @return the keys in the order they were first read
+     */
+    public Set<String> getReadSet() {
+        return Collections.unmodifiableSet(readSet);
+    }
+
+    /**
+     * Returns the keys of a private data collection read by the current transaction, either
+     * directly, by hash or as the results of range and partial composite key queries.
+     *
+     * @param collection the name of the collection
+     * @return the keys in the order they were first read
+     */
+    public Set<String> getPrivateReadSet(final String collection) {
+        return Collections.unmodifiableSet(privateReadSets.getOrDefault(collection, Collections.emptySet()));
+    }
+
+    /**
+     * Returns the values written by the current transaction, with null for deleted keys.
+     *
+     * @return the writes in the order the keys were first written
+     */
+    public Map<String, byte[]> getWriteSet() {
+        return Collections.unmodifiableMap(writeSet);
+    }
+
+    /**
+     * Returns the values written to a private data collection by the current transaction,
+     * with null for deleted keys.
+     *
+     * @param collection the name of the collection
+     * @return the writes in the order the keys were first written
+     */
+    public Map<String, byte[]> getPrivateWriteSet(final String collection) {
+        return Collections.unmodifiableMap(privateWriteSets.getOrDefault(collection, Collections.emptyMap()));
+    }
+
+    /**
+     * Sets the MSP of the peer and of the client submitting transactions.
+     *
+     * @param id the MSP ID
+     */
+    public void setMspId(final String id) {
+        mspId = id;
+        creator = SerializedIdentity.newBuilder()
+                .setMspid(id)
+                .setIdBytes(ByteString.copyFromUtf8(CERTIFICATE))
+                .build()
+                .toByteArray();
+    }
+
+    /**
+     * Sets the transient data passed to the current transaction, which is cleared when the
+     * transaction ends.
+     *
+     * @param data the transient data
+     */
+    public void setTransient(final Map<String, byte[]> data) {
+        transientData = Collections.unmodifiableMap(new HashMap<>(data));
+    }
+
+    /**
+     * Sets the function that answers calls to another chaincode. Calls to a chaincode without a
+     * function fail with an error response, as they do when the chaincode is not installed.
+     *
+     * @param name the name of the chaincode
+     * @param chaincode the function from the arguments of a call to its response
+     */
+    public void setChaincode(final String name, final Function<List<byte[]>, Response> chaincode) {
+        chaincodes.put(name, chaincode);
+    }
+
+    @Override
+    public List<byte[]> getArgs() {
+        return args;
+    }
+
+    @Override
+    public List<String> getStringArgs() {
+        return args.stream().map(arg -> new String(arg, UTF_8)).collect(Collectors.toList());
+    }
+
+    @Override
+    public String getFunction() {
+        return args.isEmpty() ? null : getStringArgs().get(0);
+    }
+
+    @Override
+    public List<String> getParameters() {
+        List<String> stringArgs = getStringArgs();
+        return stringArgs.isEmpty() ? stringArgs : stringArgs.subList(1, stringArgs.size());
+    }
+
+    @Override
+    public String getTxId() {
+        return txId;
+    }
+
+    @Override
+    public String getChannelId() {
+        return CHANNEL_ID;
+    }
+
+    @Override
+    public Response invokeChaincode(final String chaincodeName, final List<byte[]> arguments, final String channel) {
+        Function<List<byte[]>, Response> chaincode = chaincodes.get(chaincodeName);
+        if (chaincode == null) {
+            return ResponseUtils.newErrorResponse("chaincode " + chaincodeName + " not found");
+        }
+        return chaincode.apply(arguments);
+    }
+
+    @Override
+    public byte[] getState(final String key) {
+        readSet.add(key);
+        return state.getOrDefault(key, NO_VALUE);
+    }
+
+    @Override
+    public byte[] getStateValidationParameter(final String key) {
+        return validationParameters.get(key);
+    }
+
+    @Override
+    public void putState(final String key, final byte[] value) {
+        validateKey(key);
+        writeSet.put(key, value);
+    }
+
+    @Override
+    public void setStateValidationParameter(final String key, final byte[] value) {
+        validationParameters.put(key, value);
+    }
+
+    @Override
+    public void delState(final String key) {
+        writeSet.put(key, null);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByRange(final String startKey, final String endKey) {
+        return range(state, readSet, startKey, endKey);
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByRangeWithPagination(final String startKey,
+            final String endKey, final int pageSize, final String bookmark) {
+        String start = bookmark == null || bookmark.isEmpty() ? startKey : bookmark;
+        return page(bounded(state, start, endKey), readSet, pageSize);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final String compositeKey) {
+        return getStateByPartialCompositeKey(toCompositeKey(compositeKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final String objectType,
+            final String... attributes) {
+        return getStateByPartialCompositeKey(new CompositeKey(objectType, attributes));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final CompositeKey compositeKey) {
+        return prefix(state, readSet, compositeKey);
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByPartialCompositeKeyWithPagination(
+            final CompositeKey compositeKey, final int pageSize, final String bookmark) {
+        String prefix = compositeKey.toString();
+        String start = bookmark == null || bookmark.isEmpty() ? prefix : bookmark;
+        return page(state.subMap(start, true, prefix + MAX_UNICODE_RUNE, false), readSet, pageSize);
+    }
+
+    @Override
+    public CompositeKey createCompositeKey(final String objectType, final String... attributes) {
+        return new CompositeKey(objectType, attributes);
+    }
+
+    @Override
+    public CompositeKey splitCompositeKey(final String compositeKey) {
+        return CompositeKey.parseCompositeKey(compositeKey);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getQueryResult(final String query) {
+        return new Results<>(keyValues(select(state, query, null), null));
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getQueryResultWithPagination(final String query,
+            final int pageSize, final String bookmark) {
+        return page(select(state, query, bookmark), null, pageSize);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyModification> getHistoryForKey(final String key) {
+        if (history == null) {
+            throw new UnsupportedOperationException("History is not being recorded");
+        }
+        return new Results<>(new ArrayList<>(history.getOrDefault(key, Collections.emptyList())));
+    }
+
+    @Override
+    public byte[] getPrivateData(final String collection, final String key) {
+        privateReads(collection).add(key);
+        return collection(collection).getOrDefault(key, NO_VALUE);
+    }
+
+    @Override
+    public byte[] getPrivateDataHash(final String collection, final String key) {
+        privateReads(collection).add(key);
+        byte[] value = collection(collection).get(key);
+        if (value == null) {
+            return NO_VALUE;
+        }
+
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public byte[] getPrivateDataValidationParameter(final String collection, final String key) {
+        return validationParameters.get(collection + "/" + key);
+    }
+
+    @Override
+    public void putPrivateData(final String collection, final String key, final byte[] value) {
+        validateKey(key);
+        privateWriteSets.computeIfAbsent(collection, name -> new LinkedHashMap<>()).put(key, value);
+    }
+
+    @Override
+    public void setPrivateDataValidationParameter(final String collection, final String key, final byte[] value) {
+        validationParameters.put(collection + "/" + key, value);
+    }
+
+    @Override
+    public void delPrivateData(final String collection, final String key) {
+        privateWriteSets.computeIfAbsent(collection, name -> new LinkedHashMap<>()).put(key, null);
+    }
+
+    @Override
+    public void purgePrivateData(final String collection, final String key) {
+        delPrivateData(collection, key);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByRange(final String collection, final String startKey,
+            final String endKey) {
+        return range(collection(collection), privateReads(collection), startKey, endKey);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+            final String compositeKey) {
+        return getPrivateDataByPartialCompositeKey(collection, toCompositeKey(compositeKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+            final CompositeKey compositeKey) {
+        return prefix(collection(collection), privateReads(collection), compositeKey);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+            final String objectType, final String... attributes) {
+        return getPrivateDataByPartialCompositeKey(collection, new CompositeKey(objectType, attributes));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataQueryResult(final String collection, final String query) {
+        return new Results<>(keyValues(select(collection(collection), query, null), null));
+    }
+
+    @Override
+    public void setEvent(final String name, final byte[] payload) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("event name can not be nil string");
+        }
+        event = ChaincodeEvent.newBuilder()
+                .setEventName(name)
+                .setTxId(txId == null ? "" : txId)
+                .setPayload(payload == null ? ByteString.EMPTY : ByteString.copyFrom(payload))
+                .build();
+    }
+
+    @Override
+    public ChaincodeEvent getEvent() {
+        return event;
+    }
+
+    @Override
+    public SignedProposal getSignedProposal() {
+        if (txId == null) {
+            throw new IllegalStateException("No transaction has been started");
+        }
+
+        ChannelHeader channelHeader = ChannelHeader.newBuilder()
+                .setType(HeaderType.ENDORSER_TRANSACTION_VALUE)
+                .setChannelId(CHANNEL_ID)
+                .setTxId(txId)
+                .setTimestamp(Timestamp.newBuilder()
+                        .setSeconds(txTimestamp.getEpochSecond())
+                        .setNanos(txTimestamp.getNano()))
+                .build();
+        SignatureHeader signatureHeader = SignatureHeader.newBuilder()
+                .setCreator(ByteString.copyFrom(creator))
+                .build();
+        Header header = Header.newBuilder()
+                .setChannelHeader(channelHeader.toByteString())
+                .setSignatureHeader(signatureHeader.toByteString())
+                .build();
+
+        ChaincodeInput.Builder input = ChaincodeInput.newBuilder();
+        args.forEach(arg -> input.addArgs(ByteString.copyFrom(arg)));
+        ChaincodeInvocationSpec invocation = ChaincodeInvocationSpec.newBuilder()
+                .setChaincodeSpec(ChaincodeSpec.newBuilder().setInput(input))
+                .build();
+        ChaincodeProposalPayload.Builder payload = ChaincodeProposalPayload.newBuilder()
+                .setInput(invocation.toByteString());
+        transientData.forEach((key, value) -> payload.putTransientMap(key, ByteString.copyFrom(value)));
+
+        Proposal proposal = Proposal.newBuilder()
+                .setHeader(header.toByteString())
+                .setPayload(payload.build().toByteString())
+                .build();
+        return SignedProposal.newBuilder()
+                .setProposalBytes(proposal.toByteString())
+                .build();
+    }
+
+    @Override
+    public Instant getTxTimestamp() {
+        return txTimestamp;
+    }
+
+    @Override
+    public byte[] getCreator() {
+        return creator;
+    }
+
+    @Override
+    public Map<String, byte[]> getTransient() {
+        return transientData;
+    }
+
+    @Override
+    public byte[] getBinding() {
+        return NO_VALUE;
+    }
+
+    @Override
+    public String getMspId() {
+        return mspId;
+    }
+
+    private NavigableMap<String, byte[]> collection(final String name) {
+        return collections.computeIfAbsent(name, key -> new TreeMap<>());
+    }
+
+    private Set<String> privateReads(final String collection) {
+        return privateReadSets.computeIfAbsent(collection, name -> new LinkedHashSet<>());
+    }
+
+    private void applyWrites(final NavigableMap<String, byte[]> target, final Map<String, byte[]> writes,
+            final String historyPrefix) {
+        for (Map.Entry<String, byte[]> write : writes.entrySet()) {
+            if (write.getValue() == null) {
+                target.remove(write.getKey());
+            } else {
+                target.put(write.getKey(), write.getValue());
+            }
+            if (history != null) {
+                history.computeIfAbsent(historyPrefix + write.getKey(), key -> new ArrayList<>())
+                        .add(new Modification(txId, txTimestamp, write.getValue()));
+            }
+        }
+    }
+
+    private static void validateKey(final String key) {
+        if (key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("key must not be empty");
+        }
+    }
+
+    private static CompositeKey toCompositeKey(final String compositeKey) {
+        if (compositeKey.startsWith(CompositeKey.NAMESPACE)) {
+            return CompositeKey.parseCompositeKey(compositeKey);
+        }
+        return new CompositeKey(compositeKey);
+    }
+
+    private static Results<KeyValue> range(final NavigableMap<String, byte[]> values, final Set<String> reads,
+            final String startKey, final String endKey) {
+        return new Results<>(keyValues(bounded(values, startKey, endKey), reads));
+    }
+
+    private static NavigableMap<String, byte[]> bounded(final NavigableMap<String, byte[]> values,
+            final String startKey, final String endKey) {
+        String start = startKey == null || startKey.isEmpty() ? MIN_SIMPLE_KEY : startKey;
+        if (endKey == null || endKey.isEmpty()) {
+            return values.tailMap(start, true);
+        }
+        return values.subMap(start, true, endKey, false);
+    }
+
+    // As on a peer, the keys are added to the read set as the results are iterated, with a null
+    // read set for rich queries, whose results are not read again during validation.
+    private static Iterable<KeyValue> keyValues(final NavigableMap<String, byte[]> entries,
+            final Set<String> reads) {
+        return () -> entries.entrySet().stream()
+                .map(entry -> {
+                    record(reads, entry.getKey());
+                    return (KeyValue) new Entry(entry.getKey(), entry.getValue());
+                })
+                .iterator();
+    }
+
+    private static void record(final Set<String> reads, final String key) {
+        if (reads != null) {
+            reads.add(key);
+        }
+    }
+
+    private static Results<KeyValue> prefix(final NavigableMap<String, byte[]> values, final Set<String> reads,
+            final CompositeKey compositeKey) {
+        String prefix = compositeKey.toString();
+        return new Results<>(keyValues(values.subMap(prefix, true, prefix + MAX_UNICODE_RUNE, false), reads));
+    }
+
+    private static NavigableMap<String, byte[]> select(final NavigableMap<String, byte[]> values,
+            final String query, final String bookmark) {
+        Selector selector = Selector.parse(query);
+        NavigableMap<String, byte[]> entries = bookmark == null || bookmark.isEmpty() ? values
+                : values.tailMap(bookmark, true);
+
+        NavigableMap<String, byte[]> selected = new TreeMap<>();
+        for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+            if (selector.matches(entry.getValue())) {
+                selected.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return selected;
+    }
+
+    private static Results<KeyValue> page(final NavigableMap<String, byte[]> entries, final Set<String> reads,
+            final int pageSize) {
+        List<KeyValue> records = new ArrayList<>(Math.min(pageSize, entries.size()));
+        String bookmark = "";
+        for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+            if (records.size() == pageSize) {
+                bookmark = entry.getKey();
+                break;
+            }
+            record(reads, entry.getKey());
+            records.add(new Entry(entry.getKey(), entry.getValue()));
+        }
+
+        QueryResponseMetadata metadata = QueryResponseMetadata.newBuilder()
+                .setFetchedRecordsCount(records.size())
+                .setBookmark(bookmark)
+                .build();
+        return new Results<>(records, metadata);
+    }
+
+    private static final class Results<T> implements QueryResultsIterator<T>, QueryResultsIteratorWithMetadata<T> {
+
+        private final Iterable<T> values;
+        private final QueryResponseMetadata metadata;
+
+        Results(final Iterable<T> values) {
+            this(values, null);
+        }
+
+        Results(final Iterable<T> values, final QueryResponseMetadata metadata) {
+            this.values = values;
+            this.metadata = metadata;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return values.iterator();
+        }
+
+        @Override
+        public QueryResponseMetadata getMetadata() {
+            return metadata;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class Entry implements KeyValue {
+
+        private final String key;
+        private final byte[] value;
+
+        Entry(final String key, final byte[] value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public byte[] getValue() {
+            return value;
+        }
+
+        @Override
+        public String getStringValue() {
+            return new String(value, UTF_8);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getStringValue();
+        }
+    }
+
+    private static final class Modification implements KeyModification {
+
+        private final String txId;
+        private final Instant timestamp;
+        private final byte[] value;
+
+        Modification(final String txId, final Instant timestamp, final byte[] value) {
+            this.txId = txId;
+            this.timestamp = timestamp;
+            this.value = value;
+        }
+
+        @Override
+        public String getTxId() {
+            return txId;
+        }
+
+        @Override
+        public byte[] getValue() {
+            return value == null ? NO_VALUE : value;
+        }
+
+        @Override
+        public String getStringValue() {
+            return new String(getValue(), UTF_8);
+        }
+
+        @Override
+        public Instant getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public boolean isDeleted() {
+            return value == null;
+        }
+
+        @Override
+        public String toString() {
+            return txId + (isDeleted() ? " deleted" : " " + getStringValue());
+        }
+    }
+}
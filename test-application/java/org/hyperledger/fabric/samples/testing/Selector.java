@@ -0,0 +1,444 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.testing;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The selector of a CouchDB JSON query, evaluated in memory against the values of the ledger.
+ *
+ * <p>Supports the combination operators {@code $and}, {@code $or}, {@code $nor} and {@code $not},
+ * and the condition operators {@code $eq}, {@code $ne}, {@code $gt}, {@code $gte}, {@code $lt},
+ * {@code $lte}, {@code $exists}, {@code $in} and {@code $nin}, on fields named by dotted paths.
+ * Values are compared in CouchDB's collation order, except that strings are compared by UTF-16
+ * code unit rather than by ICU collation. Other query fields and operators are rejected with an
+ * {@link IllegalArgumentException}, rather than being ignored.
+ */
+final class Selector {
+
+    // The value of a field that is not present in a document, which only matches $exists.
+    private static final Object MISSING = new Object();
+
+    // JSON null, which sorts before every other value.
+    private static final Object NULL = new Object();
+
+    private final Map<String, Object> conditions;
+
+    private Selector(final Map<String, Object> conditions) {
+        this.conditions = conditions;
+    }
+
+    /**
+     * Parses a JSON query, which must have a selector and may name an index to use.
+     *
+     * @param query the JSON query
+     * @return the selector of the query
+     * @throws IllegalArgumentException if the query is not valid JSON or uses other fields
+     */
+    static Selector parse(final String query) {
+        Object parsed = new Parser(query).parseDocument();
+        if (!(parsed instanceof Map)) {
+            throw new IllegalArgumentException("Query must be a JSON object: " + query);
+        }
+
+        Map<String, Object> fields = asMap(parsed);
+        for (String field : fields.keySet()) {
+            if (!"selector".equals(field) && !"use_index".equals(field)) {
+                throw new IllegalArgumentException("Query field " + field + " is not simulated");
+            }
+        }
+        Object selector = fields.get("selector");
+        if (!(selector instanceof Map)) {
+            throw new IllegalArgumentException("Query must have a selector object: " + query);
+        }
+        return new Selector(asMap(selector));
+    }
+
+    /**
+     * Returns whether a ledger value is a JSON object that matches the selector. As on CouchDB,
+     * values that are not JSON objects never match.
+     *
+     * @param value the ledger value
+     * @return true if the value matches
+     */
+    boolean matches(final byte[] value) {
+        Object document;
+        try {
+            document = new Parser(new String(value, UTF_8)).parseDocument();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return document instanceof Map && matchesAll(conditions, document);
+    }
+
+    private static boolean matchesAll(final Map<String, Object> selector, final Object document) {
+        for (Map.Entry<String, Object> condition : selector.entrySet()) {
+            if (!matches(condition.getKey(), condition.getValue(), document)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(final String field, final Object condition, final Object document) {
+        switch (field) {
+            case "$and":
+                return countMatches(condition, document) == asList(condition).size();
+            case "$or":
+                return countMatches(condition, document) > 0;
+            case "$nor":
+                return countMatches(condition, document) == 0;
+            case "$not":
+                return !matchesAll(asMap(condition), document);
+            default:
+                break;
+        }
+        if (field.startsWith("$")) {
+            throw unsupported(field);
+        }
+
+        Object value = lookup(document, field);
+        if (condition instanceof Map && isOperators(asMap(condition))) {
+            for (Map.Entry<String, Object> operator : asMap(condition).entrySet()) {
+                if (!test(operator.getKey(), operator.getValue(), value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (condition instanceof Map) {
+            return value instanceof Map && matchesAll(asMap(condition), value);
+        }
+        return value != MISSING && compare(value, condition) == 0;
+    }
+
+    private static int countMatches(final Object selectors, final Object document) {
+        int count = 0;
+        for (Object selector : asList(selectors)) {
+            if (matchesAll(asMap(selector), document)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isOperators(final Map<String, Object> condition) {
+        if (condition.isEmpty()) {
+            return false;
+        }
+        for (String key : condition.keySet()) {
+            if (!key.startsWith("$")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean test(final String operator, final Object operand, final Object value) {
+        if ("$exists".equals(operator)) {
+            return (value != MISSING) == Boolean.TRUE.equals(operand);
+        }
+        if (value == MISSING) {
+            return false;
+        }
+
+        switch (operator) {
+            case "$eq":
+                return compare(value, operand) == 0;
+            case "$ne":
+                return compare(value, operand) != 0;
+            case "$gt":
+                return compare(value, operand) > 0;
+            case "$gte":
+                return compare(value, operand) >= 0;
+            case "$lt":
+                return compare(value, operand) < 0;
+            case "$lte":
+                return compare(value, operand) <= 0;
+            case "$in":
+                return contains(asList(operand), value);
+            case "$nin":
+                return !contains(asList(operand), value);
+            default:
+                throw unsupported(operator);
+        }
+    }
+
+    private static boolean contains(final List<Object> values, final Object value) {
+        for (Object candidate : values) {
+            if (compare(value, candidate) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Object lookup(final Object document, final String path) {
+        Object value = document;
+        for (String name : path.split("\\.", -1)) {
+            if (!(value instanceof Map) || !asMap(value).containsKey(name)) {
+                return MISSING;
+            }
+            value = asMap(value).get(name);
+        }
+        return value;
+    }
+
+    private static int compare(final Object a, final Object b) {
+        int type = Type.of(a).compareTo(Type.of(b));
+        if (type != 0) {
+            return type;
+        }
+
+        if (a instanceof BigDecimal) {
+            return ((BigDecimal) a).compareTo((BigDecimal) b);
+        } else if (a instanceof String) {
+            return ((String) a).compareTo((String) b);
+        } else if (a instanceof List) {
+            return compareAll(asList(a).iterator(), asList(b).iterator());
+        } else if (a instanceof Map) {
+            return compareAll(asMap(a).entrySet().iterator(), asMap(b).entrySet().iterator());
+        }
+        return 0;
+    }
+
+    private static int compareAll(final Iterator<?> a, final Iterator<?> b) {
+        while (a.hasNext() && b.hasNext()) {
+            Object x = a.next();
+            Object y = b.next();
+            int result = x instanceof Map.Entry ? compareEntries((Map.Entry<?, ?>) x, (Map.Entry<?, ?>) y)
+                    : compare(x, y);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Boolean.compare(a.hasNext(), b.hasNext());
+    }
+
+    private static int compareEntries(final Map.Entry<?, ?> a, final Map.Entry<?, ?> b) {
+        int result = compare(a.getKey(), b.getKey());
+        return result != 0 ? result : compare(a.getValue(), b.getValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(final Object value) {
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Expected a JSON object in the selector, not " + value);
+        }
+        return (Map<String, Object>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> asList(final Object value) {
+        if (!(value instanceof List)) {
+            throw new IllegalArgumentException("Expected a JSON array in the selector, not " + value);
+        }
+        return (List<Object>) value;
+    }
+
+    private static IllegalArgumentException unsupported(final String operator) {
+        return new IllegalArgumentException("Selector operator " + operator + " is not simulated");
+    }
+
+    // CouchDB collates values by type first, in the order of this enum.
+    private enum Type {
+        NULL, FALSE, TRUE, NUMBER, STRING, ARRAY, OBJECT;
+
+        static Type of(final Object value) {
+            if (value == Selector.NULL) {
+                return NULL;
+            } else if (value instanceof Boolean) {
+                return (Boolean) value ? TRUE : FALSE;
+            } else if (value instanceof BigDecimal) {
+                return NUMBER;
+            } else if (value instanceof String) {
+                return STRING;
+            } else if (value instanceof List) {
+                return ARRAY;
+            }
+            return OBJECT;
+        }
+    }
+
+    /**
+     * Parses JSON text into maps, lists, strings, decimals, booleans and {@link #NULL}.
+     */
+    private static final class Parser {
+
+        private static final int HEX_DIGITS = 4;
+        private static final int HEX_RADIX = 16;
+
+        private final String text;
+        private int position;
+
+        Parser(final String text) {
+            this.text = text;
+        }
+
+        Object parseDocument() {
+            Object value = parseValue();
+            skipWhitespace();
+            if (position != text.length()) {
+                throw invalid();
+            }
+            return value;
+        }
+
+        private Object parseValue() {
+            skipWhitespace();
+            if (position == text.length()) {
+                throw invalid();
+            }
+
+            char c = text.charAt(position);
+            switch (c) {
+                case '{':
+                    return parseObject();
+                case '[':
+                    return parseArray();
+                case '"':
+                    return parseString();
+                case 't':
+                    return parseLiteral("true", Boolean.TRUE);
+                case 'f':
+                    return parseLiteral("false", Boolean.FALSE);
+                case 'n':
+                    return parseLiteral("null", NULL);
+                default:
+                    return parseNumber();
+            }
+        }
+
+        private Map<String, Object> parseObject() {
+            Map<String, Object> object = new LinkedHashMap<>();
+            position++;
+            skipWhitespace();
+            if (consume('}')) {
+                return object;
+            }
+            do {
+                skipWhitespace();
+                if (position == text.length() || text.charAt(position) != '"') {
+                    throw invalid();
+                }
+                String name = parseString();
+                skipWhitespace();
+                expect(':');
+                object.put(name, parseValue());
+                skipWhitespace();
+            } while (consume(','));
+            expect('}');
+            return object;
+        }
+
+        private List<Object> parseArray() {
+            List<Object> array = new ArrayList<>();
+            position++;
+            skipWhitespace();
+            if (consume(']')) {
+                return array;
+            }
+            do {
+                array.add(parseValue());
+                skipWhitespace();
+            } while (consume(','));
+            expect(']');
+            return array;
+        }
+
+        private String parseString() {
+            StringBuilder value = new StringBuilder();
+            position++;
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                } else if (c != '\\') {
+                    value.append(c);
+                } else if (position < text.length()) {
+                    value.append(parseEscape(text.charAt(position++)));
+                }
+            }
+            throw invalid();
+        }
+
+        private char parseEscape(final char c) {
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    return c;
+                case 'b':
+                    return '\b';
+                case 'f':
+                    return '\f';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 't':
+                    return '\t';
+                case 'u':
+                    if (position + HEX_DIGITS > text.length()) {
+                        throw invalid();
+                    }
+                    position += HEX_DIGITS;
+                    return (char) Integer.parseInt(text.substring(position - HEX_DIGITS, position), HEX_RADIX);
+                default:
+                    throw invalid();
+            }
+        }
+
+        private Object parseLiteral(final String literal, final Object value) {
+            if (!text.startsWith(literal, position)) {
+                throw invalid();
+            }
+            position += literal.length();
+            return value;
+        }
+
+        private BigDecimal parseNumber() {
+            int start = position;
+            while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+                position++;
+            }
+            if (start == position) {
+                throw invalid();
+            }
+            return new BigDecimal(text.substring(start, position));
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private boolean consume(final char c) {
+            if (position < text.length() && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(final char c) {
+            if (!consume(c)) {
+                throw invalid();
+            }
+        }
+
+        private IllegalArgumentException invalid() {
+            return new IllegalArgumentException("Invalid JSON at position " + position + ": " + text);
+        }
+    }
+}